@@ -0,0 +1,49 @@
+package com.free.easyLearn.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Applies at startup the migrations that Hibernate's schema update cannot express (extensions, expression
+ * indexes, data backfills), since Flyway is disabled. Each script must be idempotent: it runs on every start.
+ *
+ * The scripts run once Hibernate has updated the schema and before the web server starts; a failing script
+ * fails the startup instead of serving requests on a half-migrated schema.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class StartupMigrations {
+
+    static final List<String> SCRIPTS = List.of(
+            "db/migration/V10__add_recording_retention.sql",
+            "db/migration/V16__create_trigram_search_indexes.sql",
+            "db/migration/V17__embed_student_skills.sql",
+            "db/migration/V18__professor_languages_array.sql"
+    );
+
+    private final DataSource dataSource;
+
+    public StartupMigrations(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void apply() {
+        for (String script : SCRIPTS) {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(script));
+            // Sent as one statement: the driver splits it and understands dollar-quoted blocks
+            populator.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+            populator.execute(dataSource);
+            log.debug("Applied {}", script);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.free.easyLearn.controller;
 
 import com.free.easyLearn.dto.challenge.*;
 import com.free.easyLearn.dto.common.ApiResponse;
+import com.free.easyLearn.entity.Student;
 import com.free.easyLearn.entity.User;
 import com.free.easyLearn.service.ChallengeService;
 import com.free.easyLearn.service.RoomService;
@@ -126,21 +127,37 @@ public class ChallengeController {
 
     @GetMapping("/leaderboard")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "Classement", description = "Classement global des étudiants sur les défis")
-    public ResponseEntity<ApiResponse<List<ChallengeLeaderboardEntryDTO>>> getLeaderboard() {
-        List<ChallengeLeaderboardEntryDTO> leaderboard = challengeService.getLeaderboard();
+    @Operation(summary = "Classement", description = "Classement des étudiants sur les défis, paginé ; filtrable par niveau et par administrateur")
+    public ResponseEntity<ApiResponse<List<ChallengeLeaderboardEntryDTO>>> getLeaderboard(
+            @RequestParam(required = false) Student.LanguageLevel level,
+            @RequestParam(required = false) UUID createdBy,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        List<ChallengeLeaderboardEntryDTO> leaderboard = challengeService.getLeaderboard(createdBy, level, page, size);
         return ResponseEntity.ok(ApiResponse.success(leaderboard));
     }
 
     @GetMapping("/leaderboard/my-level")
     @PreAuthorize("hasRole('STUDENT')")
-    @Operation(summary = "Classement par niveau", description = "Classement des étudiants du même niveau")
-    public ResponseEntity<ApiResponse<List<ChallengeLeaderboardEntryDTO>>> getLeaderboardByLevel() {
+    @Operation(summary = "Classement par niveau", description = "Classement des étudiants du même niveau, paginé")
+    public ResponseEntity<ApiResponse<List<ChallengeLeaderboardEntryDTO>>> getLeaderboardByLevel(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
         User user = getCurrentUser();
-        List<ChallengeLeaderboardEntryDTO> leaderboard = challengeService.getLeaderboardByLevel(user.getId());
+        List<ChallengeLeaderboardEntryDTO> leaderboard = challengeService.getLeaderboardByLevel(user.getId(), page, size);
         return ResponseEntity.ok(ApiResponse.success(leaderboard));
     }
 
+    @GetMapping("/leaderboard/my-rank")
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Mon rang", description = "Rang de l'étudiant connecté : global, dans son niveau ou parmi les étudiants de son administrateur")
+    public ResponseEntity<ApiResponse<ChallengeLeaderboardEntryDTO>> getMyRank(
+            @RequestParam(defaultValue = "GLOBAL") ChallengeService.LeaderboardScope scope) {
+        User user = getCurrentUser();
+        ChallengeLeaderboardEntryDTO entry = challengeService.getMyRank(user.getId(), scope);
+        return ResponseEntity.ok(ApiResponse.success(entry));
+    }
+
     // ==========================================
     // Helper
     // ==========================================
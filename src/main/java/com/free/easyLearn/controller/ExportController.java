@@ -0,0 +1,62 @@
+package com.free.easyLearn.controller;
+
+import com.free.easyLearn.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/exports")
+@Tag(name = "Exports (admin)", description = "Exports CSV / NDJSON des élèves, rooms, évaluations et résultats de quiz")
+@SecurityRequirement(name = "bearerAuth")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/{dataset}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Exporter des données",
+            description = "Exporte en flux toutes les lignes d'un jeu de données (students, rooms, evaluations, quiz-results) " +
+                    "au format CSV ou NDJSON, sans pagination. 'createdBy' restreint l'export aux élèves/professeurs " +
+                    "créés par cet admin. Le nombre d'exports simultanés est limité : 503 (Retry-After) si tous " +
+                    "les créneaux sont occupés."
+    )
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "students, rooms, evaluations ou quiz-results") @PathVariable String dataset,
+            @RequestParam(defaultValue = "CSV") ExportService.Format format,
+            @RequestParam(required = false) UUID createdBy) {
+        ExportService.Dataset target = ExportService.Dataset.fromPath(dataset);
+        String filename = target.getPath() + "-" + LocalDate.now() + "." + format.getExtension();
+        StreamingResponseBody body = exportService.prepare(target, format, createdBy);
+        if (body == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -3,10 +3,12 @@ package com.free.easyLearn.controller;
 import com.free.easyLearn.dto.common.ApiResponse;
 import com.free.easyLearn.dto.livekit.LiveKitTokenRequest;
 import com.free.easyLearn.dto.livekit.LiveKitTokenResponse;
+import com.free.easyLearn.dto.livekit.SessionRecordingDTO;
 import com.free.easyLearn.dto.livekit.WebhookEvent;
 import com.free.easyLearn.entity.SessionRecording;
 import com.free.easyLearn.service.LiveKitService;
 import com.free.easyLearn.service.LiveKitRecordingService;
+import com.free.easyLearn.service.RecordingStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,16 +16,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/livekit")
@@ -37,6 +41,12 @@ public class LiveKitController {
     @Autowired
     private LiveKitRecordingService recordingService;
 
+    @Autowired
+    private RecordingStreamService recordingStreamService;
+
+    @Value("${livekit.recordings.stream.enabled:true}")
+    private boolean streamingEnabled;
+
     @PostMapping("/token")
     @Operation(
             summary = "Générer un token d'accès LiveKit",
@@ -113,23 +123,11 @@ public class LiveKitController {
                     description = "Aucun enregistrement trouvé"
             )
     })
-    public ResponseEntity<ApiResponse<List<SessionRecording>>> getRecordingsByRoom(
+    public ResponseEntity<ApiResponse<List<SessionRecordingDTO>>> getRecordingsByRoom(
             @PathVariable String roomName
     ) {
-        List<SessionRecording> recordings = recordingService.getRecordingsByRoomName(roomName);
-
-        // Filter out expired recordings (older than 3 days)
-        LocalDateTime expirationThreshold = LocalDateTime.now().minusDays(3);
-        recordings = recordings.stream()
-                .filter(r -> r.getCreatedAt() == null || r.getCreatedAt().isAfter(expirationThreshold))
-                .collect(Collectors.toList());
-
-        // Replace raw MinIO URLs with time-limited presigned URLs (valid 60 min)
-        recordings.forEach(r -> {
-            String presigned = recordingService.generatePresignedUrl(r.getRecordingUrl(), 60);
-            r.setRecordingUrl(presigned);
-        });
-
+        // Non-expired recordings with time-limited presigned URLs (cached, valid at least 15 min)
+        List<SessionRecordingDTO> recordings = recordingService.getRecordingDTOsByRoomName(roomName);
         return ResponseEntity.ok(ApiResponse.success(recordings));
     }
 
@@ -142,23 +140,106 @@ public class LiveKitController {
             @PathVariable String roomName,
             @PathVariable Long recordingId
     ) {
-        List<SessionRecording> recordings = recordingService.getRecordingsByRoomName(roomName);
-        SessionRecording target = recordings.stream()
-                .filter(r -> r.getId().equals(recordingId))
-                .findFirst()
-                .orElse(null);
+        SessionRecording target = recordingService.getRecording(roomName, recordingId).orElse(null);
 
         if (target == null) {
             return ResponseEntity.notFound().build();
         }
 
         // Check if expired
-        if (target.getCreatedAt() != null && target.getCreatedAt().plusDays(3).isBefore(LocalDateTime.now())) {
+        if (target.hasExpired()) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Recording has expired and is no longer available."));
         }
 
-        String downloadUrl = recordingService.generatePresignedDownloadUrl(target.getRecordingUrl(), 60);
+        String downloadUrl = recordingService.generatePresignedDownloadUrl(target);
         return ResponseEntity.ok(ApiResponse.success(Map.of("downloadUrl", downloadUrl)));
     }
-}
 
+    @GetMapping(value = "/recordings/{roomName}/playlist/{recordingId}", produces = "application/vnd.apple.mpegurl")
+    @Operation(
+            summary = "Playlist HLS d'un enregistrement",
+            description = "Retourne la playlist HLS (m3u8) d'un enregistrement segmenté (lecture immédiate et navigation " +
+                    "dans la vidéo). Les segments sont servis par le backend si le streaming est activé, sinon par des " +
+                    "URLs MinIO présignées."
+    )
+    public ResponseEntity<String> getRecordingPlaylist(
+            @PathVariable String roomName,
+            @PathVariable Long recordingId
+    ) throws Exception {
+        SessionRecording target = recordingService.getRecording(roomName, recordingId).orElse(null);
+        if (target == null || target.getFormat() != SessionRecording.RecordingFormat.HLS || target.hasExpired()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "private, max-age=60")
+                .body(recordingService.renderPlaylist(target, streamingEnabled));
+    }
+
+    @GetMapping("/recordings/{roomName}/stream/{recordingId}")
+    @Operation(
+            summary = "Lire un enregistrement via le backend",
+            description = "Diffuse le fichier d'un enregistrement depuis MinIO à travers le backend (requêtes HTTP Range supportées), " +
+                    "pour les clients qui ne peuvent pas joindre MinIO directement."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "206",
+                    description = "Plage d'octets demandée"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Enregistrement introuvable, expiré ou streaming désactivé"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "503",
+                    description = "Trop de lectures simultanées"
+            )
+    })
+    public void streamRecording(
+            @PathVariable String roomName,
+            @PathVariable Long recordingId,
+            @Parameter(description = "Plage d'octets, ex. bytes=0-1048575")
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletResponse response
+    ) throws IOException {
+        SessionRecording target = recordingService.getRecording(roomName, recordingId).orElse(null);
+        if (!streamingEnabled || target == null || target.hasExpired()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        recordingStreamService.stream(recordingService.objectKeyOf(target), range, response);
+    }
+
+    @GetMapping("/recordings/{roomName}/stream/{recordingId}/segments/{segment}")
+    @Operation(
+            summary = "Lire un segment HLS via le backend",
+            description = "Diffuse un segment d'un enregistrement HLS depuis MinIO à travers le backend, " +
+                    "pour les clients qui ne peuvent pas joindre MinIO directement."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Enregistrement ou segment introuvable, expiré ou streaming désactivé"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "503",
+                    description = "Trop de lectures simultanées"
+            )
+    })
+    public void streamRecordingSegment(
+            @PathVariable String roomName,
+            @PathVariable Long recordingId,
+            @PathVariable String segment,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletResponse response
+    ) throws IOException {
+        SessionRecording target = recordingService.getRecording(roomName, recordingId).orElse(null);
+        String objectKey = target != null && target.getFormat() == SessionRecording.RecordingFormat.HLS
+                ? recordingService.segmentObjectKey(target, segment) : null;
+        if (!streamingEnabled || objectKey == null || target.hasExpired()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        recordingStreamService.stream(objectKey, range, response);
+    }
+}
@@ -112,6 +112,27 @@ public class ProfessorController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/by-language/{language}")
+    @Operation(summary = "Professeurs par langue", description = "Récupère les professeurs enseignant une langue (correspondance exacte), triés par nom, avec pagination. 'createdBy' restreint aux professeurs créés par cet admin")
+    public ResponseEntity<ApiResponse<PageResponse<ProfessorDTO>>> getProfessorsByLanguage(
+            @PathVariable String language,
+            @RequestParam(required = false) UUID createdBy,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        Page<ProfessorDTO> professors = professorService.getProfessorsByLanguage(language, createdBy, page, size);
+
+        PageResponse<ProfessorDTO> response = PageResponse.<ProfessorDTO>builder()
+                .data(professors.getContent())
+                .total(professors.getTotalElements())
+                .page(page)
+                .limit(size)
+                .totalPages(professors.getTotalPages())
+                .build();
+
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping
     @Operation(summary = "Liste des professeurs", description = "Récupère la liste de tous les professeurs avec pagination")
     public ResponseEntity<ApiResponse<PageResponse<ProfessorDTO>>> getProfessors(
@@ -0,0 +1,55 @@
+package com.free.easyLearn.controller;
+
+import com.free.easyLearn.dto.common.ApiResponse;
+import com.free.easyLearn.dto.search.SearchResultDTO;
+import com.free.easyLearn.entity.User;
+import com.free.easyLearn.exception.BadRequestException;
+import com.free.easyLearn.repository.UserRepository;
+import com.free.easyLearn.service.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@Tag(name = "Search", description = "Recherche d'élèves et de professeurs")
+@SecurityRequirement(name = "bearerAuth")
+public class SearchController {
+
+    private final SearchService searchService;
+    private final UserRepository userRepository;
+
+    public SearchController(SearchService searchService, UserRepository userRepository) {
+        this.searchService = searchService;
+        this.userRepository = userRepository;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Rechercher des élèves et des professeurs",
+            description = "Recherche par nom, email, pseudo ou code unique parmi les élèves et professeurs créés par " +
+                    "l'admin connecté. Les résultats commençant par le texte recherché sont classés en premier, " +
+                    "puis par similarité (recherche approchée, tolérante aux fautes de frappe)."
+    )
+    public ResponseEntity<ApiResponse<List<SearchResultDTO>>> search(
+            @Parameter(description = "Texte recherché (3 à 100 caractères)") @RequestParam String q,
+            @RequestParam(defaultValue = "ALL") SearchService.Scope type,
+            @RequestParam(defaultValue = "20") int limit) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User admin = userRepository.findByEmail(email)
+                .orElseThrow(() -> new BadRequestException("User not found"));
+        List<SearchResultDTO> results = searchService.search(q, type, limit, admin.getId());
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+}
@@ -4,25 +4,36 @@ import com.free.easyLearn.dto.common.ApiResponse;
 import com.free.easyLearn.dto.stats.AdminStatsDTO;
 import com.free.easyLearn.dto.stats.ProfessorStatsDTO;
 import com.free.easyLearn.dto.stats.StudentStatsDTO;
+import com.free.easyLearn.dto.stats.TimeSeriesDTO;
 import com.free.easyLearn.entity.Professor;
 import com.free.easyLearn.entity.Student;
 import com.free.easyLearn.entity.User;
 import com.free.easyLearn.repository.ProfessorRepository;
 import com.free.easyLearn.repository.StudentRepository;
 import com.free.easyLearn.repository.UserRepository;
+import com.free.easyLearn.service.AdminStatsSnapshot;
+import com.free.easyLearn.service.StatsSeriesService;
 import com.free.easyLearn.service.StatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/api/stats")
 @Tag(name = "Statistics", description = "Dashboard statistics for all actors")
@@ -31,6 +42,12 @@ public class StatsController {
     @Autowired
     private StatsService statsService;
 
+    @Autowired
+    private AdminStatsSnapshot adminStatsSnapshot;
+
+    @Autowired
+    private StatsSeriesService statsSeriesService;
+
     @Autowired
     private ProfessorRepository professorRepository;
 
@@ -47,10 +64,52 @@ public class StatsController {
     @GetMapping("/admin")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get admin dashboard statistics",
-            description = "Returns all statistics for the admin dashboard including counts, live rooms, recent students")
-    public ResponseEntity<ApiResponse<AdminStatsDTO>> getAdminStats() {
-        AdminStatsDTO stats = statsService.getAdminStats();
-        return ResponseEntity.ok(ApiResponse.success("Admin stats retrieved", stats));
+            description = "Returns all statistics for the admin dashboard including counts, live rooms, recent students. " +
+                    "Served from a precomputed snapshot; send If-None-Match with the last ETag to get 304 when unchanged.")
+    public ResponseEntity<ApiResponse<AdminStatsDTO>> getAdminStats(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        AdminStatsSnapshot.Snapshot snapshot = adminStatsSnapshot.current();
+        if (snapshot.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .body(ApiResponse.success("Admin stats retrieved", snapshot.stats()));
+    }
+
+    @GetMapping("/admin/mine")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get the dashboard statistics of the logged-in admin",
+            description = "Same statistics as /admin, restricted to the students and professors created by the logged-in admin, " +
+                    "the rooms of those professors and the evaluations of those students. Supports If-None-Match like /admin.")
+    public ResponseEntity<ApiResponse<AdminStatsDTO>> getMyAdminStats(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        User user = getCurrentUser();
+        AdminStatsSnapshot.Snapshot snapshot = adminStatsSnapshot.forAdmin(user.getId());
+        if (snapshot.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .body(ApiResponse.success("Admin stats retrieved", snapshot.stats()));
+    }
+
+    @GetMapping("/admin/series")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get a time series of activity",
+            description = "Returns sessions held, attendance (students joining), hours taught or the average evaluation " +
+                    "score per day, week or month over [from, to). Defaults to the last 30 days, 12 weeks or 12 months. " +
+                    "createdBy restricts the series to the students/professors created by that admin.")
+    public ResponseEntity<ApiResponse<TimeSeriesDTO>> getAdminSeries(
+            @RequestParam StatsSeriesService.Metric metric,
+            @RequestParam(defaultValue = "DAY") StatsSeriesService.Bucket bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) UUID createdBy) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : bucket.defaultFrom(end);
+        TimeSeriesDTO series = statsSeriesService.getSeries(metric, bucket, start, end, createdBy);
+        return ResponseEntity.ok(ApiResponse.success("Admin series retrieved", series));
     }
 
     // ==========================================
@@ -4,12 +4,15 @@ import com.free.easyLearn.dto.common.ApiResponse;
 import com.free.easyLearn.dto.common.PageResponse;
 import com.free.easyLearn.dto.student.CreateStudentRequest;
 import com.free.easyLearn.dto.student.StudentDTO;
+import com.free.easyLearn.dto.student.StudentImportResultDTO;
+import com.free.easyLearn.dto.student.StudentImportRow;
 import com.free.easyLearn.dto.student.UpdateStudentRequest;
 import com.free.easyLearn.entity.Student;
 import com.free.easyLearn.entity.User;
 import com.free.easyLearn.exception.BadRequestException;
 import com.free.easyLearn.repository.StudentRepository;
 import com.free.easyLearn.repository.UserRepository;
+import com.free.easyLearn.service.StudentImportService;
 import com.free.easyLearn.service.StudentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -17,12 +20,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -41,6 +48,9 @@ public class StudentController {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private StudentImportService studentImportService;
+
     @GetMapping("/me")
     @PreAuthorize("hasRole('STUDENT')")
     @Operation(summary = "Mon profil étudiant", description = "Récupère le profil de l'étudiant connecté")
@@ -70,6 +80,33 @@ public class StudentController {
         return ResponseEntity.ok(ApiResponse.success("Student created successfully", student));
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Importer des étudiants (JSON)", description = "Crée en masse les étudiants d'un tableau JSON, rattachés à l'admin connecté. Les lignes invalides sont ignorées et listées dans le rapport")
+    public ResponseEntity<ApiResponse<StudentImportResultDTO>> importStudents(
+            @RequestBody List<StudentImportRow> rows
+    ) {
+        StudentImportResultDTO result = studentImportService.importStudents(rows, getCurrentAdminId());
+        return ResponseEntity.ok(ApiResponse.success("Students imported", result));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Importer des étudiants (fichier)", description = "Crée en masse les étudiants d'un fichier CSV (ligne d'en-tête : name, email, password, uniqueCode, nickname, bio, avatar, level, studentType) ou JSON, rattachés à l'admin connecté. Les lignes invalides sont ignorées et listées dans le rapport")
+    public ResponseEntity<ApiResponse<StudentImportResultDTO>> importStudentsFile(
+            @RequestParam("file") MultipartFile file
+    ) throws IOException {
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        UUID adminId = getCurrentAdminId();
+        StudentImportResultDTO result;
+        try (InputStream in = file.getInputStream()) {
+            result = filename.endsWith(".json")
+                    ? studentImportService.importJson(in, adminId)
+                    : studentImportService.importCsv(in, adminId);
+        }
+        return ResponseEntity.ok(ApiResponse.success("Students imported", result));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'STUDENT')")
     @Operation(summary = "Modifier un étudiant", description = "Met à jour les informations d'un étudiant")
@@ -126,4 +163,11 @@ public class StudentController {
         List<StudentDTO> students = studentService.getStudentsByIds(studentIds);
         return ResponseEntity.ok(ApiResponse.success(students));
     }
+
+    private UUID getCurrentAdminId() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new BadRequestException("User not found"))
+                .getId();
+    }
 }
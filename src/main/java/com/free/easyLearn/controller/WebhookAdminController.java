@@ -0,0 +1,43 @@
+package com.free.easyLearn.controller;
+
+import com.free.easyLearn.dto.common.ApiResponse;
+import com.free.easyLearn.dto.livekit.WebhookReplayRequest;
+import com.free.easyLearn.dto.livekit.WebhookReplayResultDTO;
+import com.free.easyLearn.service.WebhookReplayService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/livekit/webhook-events")
+@Tag(name = "LiveKit Webhooks (admin)", description = "Journal des webhooks LiveKit et rejeu des événements")
+@SecurityRequirement(name = "bearerAuth")
+public class WebhookAdminController {
+
+    private final WebhookReplayService replayService;
+
+    public WebhookAdminController(WebhookReplayService replayService) {
+        this.replayService = replayService;
+    }
+
+    @PostMapping("/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Rejouer des webhooks LiveKit",
+            description = "Rejoue les événements sélectionnés (ids) ou ceux d'un statut donné (FAILED par défaut) " +
+                    "sur une période. Les événements d'une même room sont rejoués dans l'ordre, " +
+                    "'concurrency' rooms en parallèle."
+    )
+    public ResponseEntity<ApiResponse<WebhookReplayResultDTO>> replay(@Valid @RequestBody WebhookReplayRequest request)
+            throws InterruptedException {
+        WebhookReplayResultDTO result = replayService.replay(request);
+        return ResponseEntity.ok(ApiResponse.success("Webhook events replayed", result));
+    }
+}
@@ -14,6 +14,7 @@ public class StudentGameStatsDTO {
     private int level;
     private long pointsToNextLevel;
     private int streak; // consecutive days with a correct answer
+    private int longestStreak;
     private long challengesCompleted;
     private long totalActiveChallenges;
 }
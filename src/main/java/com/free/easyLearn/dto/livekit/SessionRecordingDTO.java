@@ -0,0 +1,26 @@
+package com.free.easyLearn.dto.livekit;
+
+import com.free.easyLearn.entity.SessionRecording;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionRecordingDTO {
+    private Long id;
+    private String roomName;
+    private SessionRecording.RecordingFormat format;
+    // MP4: time-limited presigned URL (not the raw MinIO URL stored in the database)
+    // HLS: API path of the playlist (/api/livekit/recordings/{roomName}/playlist/{id})
+    private String recordingUrl;
+    private Long sizeBytes;
+    private Long durationMs;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,38 @@
+package com.free.easyLearn.dto.livekit;
+
+import com.free.easyLearn.entity.WebhookEventRecord;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class WebhookReplayRequest {
+
+    // Explicit selection; when empty, events are selected by status and time window
+    @Size(max = 1000, message = "At most 1000 ids")
+    private List<UUID> ids;
+
+    @NotNull(message = "Status is required")
+    private WebhookEventRecord.Status status = WebhookEventRecord.Status.FAILED;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    @NotNull(message = "Limit is required")
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 1000, message = "Limit must be at most 1000")
+    private Integer limit = 100;
+
+    // Rooms replayed in parallel (events of a room are always replayed in order)
+    @NotNull(message = "Concurrency is required")
+    @Min(value = 1, message = "Concurrency must be at least 1")
+    @Max(value = 16, message = "Concurrency must be at most 16")
+    private Integer concurrency = 4;
+}
@@ -0,0 +1,20 @@
+package com.free.easyLearn.dto.livekit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookReplayResultDTO {
+    private int replayed;
+    private int succeeded;
+    private int failed;
+    private List<UUID> failedIds;
+}
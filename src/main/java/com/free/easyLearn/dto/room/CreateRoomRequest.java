@@ -45,4 +45,9 @@ public class CreateRoomRequest {
     private UUID professorId;
 
     private List<UUID> invitedStudents;
+
+    // Recording retention in days; null = default retention, 0 = keep forever
+    @Min(value = 0, message = "Recording retention cannot be negative")
+    @Max(value = 3650, message = "Recording retention cannot exceed 10 years")
+    private Integer recordingRetentionDays;
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ public class RoomDTO {
     private LocalDateTime scheduledAt;
     private Integer duration;
     private Integer maxStudents;
+    private Integer recordingRetentionDays;
     private Room.RoomStatus status;
     private Room.AnimatorType animatorType;
     private UUID professorId;
@@ -31,4 +31,9 @@ public class UpdateRoomRequest {
     private Room.RoomStatus status;
 
     private List<UUID> invitedStudents;
+
+    // Recording retention in days; 0 = keep forever
+    @Min(value = 0)
+    @Max(value = 3650)
+    private Integer recordingRetentionDays;
 }
\ No newline at end of file
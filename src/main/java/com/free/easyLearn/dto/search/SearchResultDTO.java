@@ -0,0 +1,30 @@
+package com.free.easyLearn.dto.search;
+
+import com.free.easyLearn.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDTO {
+    // STUDENT or PROFESSOR; id is the student or professor id
+    private User.UserRole type;
+    private UUID id;
+    private String name;
+    private String email;
+    private String avatar;
+    // Students only
+    private String nickname;
+    private String uniqueCode;
+    private String level;
+    // Trigram similarity (0..1) of the best matching field
+    private double score;
+    // True when a field starts with the query; such results are ranked first
+    private boolean prefixMatch;
+}
@@ -5,13 +5,17 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class AdminStatsDTO {
+    // Snapshot version (also sent as the ETag); changes whenever the content changes
+    private long version;
+    private LocalDateTime generatedAt;
     private long totalStudents;
     private long totalProfessors;
     private long activeRooms;
@@ -0,0 +1,36 @@
+package com.free.easyLearn.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesDTO {
+    private String metric;
+    private String bucket;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    // Admin whose students/professors the series is restricted to; null for all
+    private UUID createdBy;
+    private List<PointDTO> points;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PointDTO {
+        private LocalDateTime bucketStart;
+        // Sessions, attendances, hours taught or average score, depending on the metric
+        private double value;
+        // Number of rows aggregated into the value (rooms, joins or evaluations)
+        private long count;
+    }
+}
@@ -0,0 +1,31 @@
+package com.free.easyLearn.dto.student;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportResultDTO {
+    private int total;
+    private int imported;
+    private int failed;
+    private long durationMs;
+    private List<RowErrorDTO> errors;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowErrorDTO {
+        // 1-based position of the row in the file (header excluded)
+        private int row;
+        private String uniqueCode;
+        private String message;
+    }
+}
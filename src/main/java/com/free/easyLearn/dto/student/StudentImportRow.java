@@ -0,0 +1,26 @@
+package com.free.easyLearn.dto.student;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One student of a bulk import (JSON element or CSV line).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportRow {
+    private String name;
+    // Optional: students log in with their unique code
+    private String email;
+    private String password;
+    private String uniqueCode;
+    private String nickname;
+    private String bio;
+    private String avatar;
+    private String level;       // A1 ... C2, YEAR1 ... YEAR13, PREPA1, PREPA2
+    private String studentType; // SCOLAIRE (default), FORMATION, PREPA
+}
@@ -0,0 +1,97 @@
+package com.free.easyLearn.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * EgressSession Entity
+ * Persistent state of a LiveKit WebEgress recording (one row per egressId).
+ * Replaces the in-memory roomName/egressId maps so that recording bookkeeping
+ * survives restarts and is shared between backend replicas.
+ */
+@Entity
+@Table(name = "egress_sessions", indexes = {
+        @Index(name = "idx_egress_sessions_room_status", columnList = "room_name, status"),
+        @Index(name = "idx_egress_sessions_status", columnList = "status")
+})
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EgressSession {
+
+    @Id
+    @Column(name = "egress_id", length = 64)
+    private String egressId;
+
+    @Column(name = "room_name", nullable = false)
+    private String roomName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    // MinIO object key requested for the output (the playlist for HLS); null for adopted egresses
+    @Column(name = "object_key", length = 1024)
+    private String objectKey;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at")
+    private LocalDateTime endedAt;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Status {
+        STARTING, ACTIVE, ENDING, COMPLETE, FAILED, ABORTED, LIMIT_REACHED;
+
+        public static final Set<Status> UNFINISHED = EnumSet.of(STARTING, ACTIVE, ENDING);
+
+        public boolean isTerminal() {
+            return !UNFINISHED.contains(this);
+        }
+
+        /**
+         * Egress status only moves forward: STARTING -> ACTIVE -> ENDING -> terminal.
+         * Late or redelivered webhooks carrying an older status are ignored.
+         */
+        public boolean canTransitionTo(Status next) {
+            if (next == null || next == this || isTerminal()) {
+                return false;
+            }
+            return next.isTerminal() || next.ordinal() > this.ordinal();
+        }
+
+        /**
+         * Statuses that may move to this one (see {@link #canTransitionTo}).
+         */
+        public Set<Status> predecessors() {
+            Set<Status> predecessors = EnumSet.noneOf(Status.class);
+            for (Status status : values()) {
+                if (status.canTransitionTo(this)) {
+                    predecessors.add(status);
+                }
+            }
+            return predecessors;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.free.easyLearn.entity;
 
+import com.free.easyLearn.service.AdminStatsChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.JdbcTypeCode;
@@ -13,8 +14,11 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "evaluations")
-@EntityListeners(AuditingEntityListener.class)
+@Table(name = "evaluations", indexes = {
+        @Index(name = "idx_evaluations_created_at", columnList = "created_at"),
+        @Index(name = "idx_evaluations_student_score", columnList = "student_id, overall_score")
+})
+@EntityListeners({AuditingEntityListener.class, AdminStatsChangeListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
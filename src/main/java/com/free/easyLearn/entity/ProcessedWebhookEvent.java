@@ -0,0 +1,43 @@
+package com.free.easyLearn.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * ProcessedWebhookEvent Entity
+ * Ids of the LiveKit webhook events already accepted, so that redeliveries are ignored
+ * even after a restart or when they reach another replica. An event stays PENDING until it has been
+ * handled; rows are purged after a day.
+ */
+@Entity
+@Table(name = "processed_webhook_events", indexes = {
+        @Index(name = "idx_processed_webhook_events_received_at", columnList = "received_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedWebhookEvent {
+
+    @Id
+    @Column(name = "event_id", length = 64)
+    private String eventId;
+
+    @Column(name = "event_type", length = 50)
+    private String eventType;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    // Null on rows written before the status existed: treated as processed
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20)
+    private Status status;
+
+    public enum Status {
+        PENDING, PROCESSED
+    }
+}
@@ -1,7 +1,10 @@
 package com.free.easyLearn.entity;
 
+import com.free.easyLearn.service.AdminStatsChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -14,7 +17,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "professors")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, AdminStatsChangeListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -48,9 +51,9 @@ public class Professor {
         PROF_PREPA
     }
     
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "professor_languages", joinColumns = @JoinColumn(name = "professor_id"))
-    @Column(name = "language")
+    // text[] column (V18) instead of a collection table: read with the row, filterable in SQL (GIN index)
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "languages", columnDefinition = "text[]")
     @Builder.Default
     private List<String> languages = new ArrayList<>();
     
@@ -1,6 +1,7 @@
 package com.free.easyLearn.entity;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.free.easyLearn.service.AdminStatsChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -13,8 +14,11 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "rooms")
-@EntityListeners(AuditingEntityListener.class)
+@Table(name = "rooms", indexes = {
+        @Index(name = "idx_rooms_professor_status_scheduled", columnList = "professor_id, status, scheduled_at"),
+        @Index(name = "idx_rooms_status_scheduled", columnList = "status, scheduled_at")
+})
+@EntityListeners({AuditingEntityListener.class, AdminStatsChangeListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -64,6 +68,10 @@ public class Room {
     @Column(name = "livekit_room_name", unique = true)
     private String livekitRoomName;
 
+    // Recording retention in days (null = livekit.recordings.retention-days, 0 = keep forever)
+    @Column(name = "recording_retention_days")
+    private Integer recordingRetentionDays;
+
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<RoomParticipant> participants = new ArrayList<>();
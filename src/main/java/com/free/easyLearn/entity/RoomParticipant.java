@@ -1,5 +1,6 @@
 package com.free.easyLearn.entity;
 
+import com.free.easyLearn.service.AdminStatsChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,7 +10,10 @@ import java.util.UUID;
 @Entity
 @Table(name = "room_participants", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"room_id", "student_id"})
+}, indexes = {
+        @Index(name = "idx_room_participants_joined_at", columnList = "joined_at")
 })
+@EntityListeners(AdminStatsChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -10,11 +10,14 @@ import java.time.LocalDateTime;
 
 /**
  * SessionRecording Entity
- * Stores the recording URL for each LiveKit room.
- * Recordings are automatically deleted 3 days after creation.
+ * Stores the recording URL for each LiveKit room, with the file metadata reported by the egress.
+ * Recordings expire after the room's retention (see RecordingRetentionService).
  */
 @Entity
-@Table(name = "session_recordings")
+@Table(name = "session_recordings", indexes = {
+        @Index(name = "idx_session_recordings_room_created", columnList = "room_name, created_at"),
+        @Index(name = "idx_session_recordings_created_at", columnList = "created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -31,21 +34,47 @@ public class SessionRecording {
     @Column(name = "recording_url", nullable = false, length = 1024)
     private String recordingUrl;
 
+    // null for rows saved before HLS support (MP4)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "format", length = 10)
+    private RecordingFormat format;
+
+    @Column(name = "egress_id", length = 64)
+    private String egressId;
+
+    // MinIO object key (bucket-relative; the playlist for HLS); null for rows saved before it was captured
+    @Column(name = "object_key", length = 1024)
+    private String objectKey;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at")
+    private LocalDateTime endedAt;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    @Transient
+    // null = kept forever (room retention 0). Partial index idx_session_recordings_expires_at (V10).
+    @Column(name = "expires_at")
     private LocalDateTime expiresAt;
 
+    public enum RecordingFormat {
+        MP4, HLS
+    }
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
     }
 
-    @PostLoad
-    protected void onLoad() {
-        if (this.createdAt != null) {
-            this.expiresAt = this.createdAt.plusDays(3);
-        }
+    public boolean hasExpired() {
+        return expiresAt != null && expiresAt.isBefore(LocalDateTime.now());
     }
 }
@@ -1,5 +1,6 @@
 package com.free.easyLearn.entity;
 
+import com.free.easyLearn.service.AdminStatsChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -11,8 +12,11 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "students")
-@EntityListeners(AuditingEntityListener.class)
+@Table(name = "students", indexes = {
+        @Index(name = "idx_students_created_by_level", columnList = "created_by, level"),
+        @Index(name = "idx_students_created_by_created_at", columnList = "created_by, created_at")
+})
+@EntityListeners({AuditingEntityListener.class, AdminStatsChangeListener.class})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -47,7 +51,8 @@ public class Student {
     @Column(name = "hours_learned", precision = 10, scale = 2)
     private BigDecimal hoursLearned = BigDecimal.ZERO;
 
-    @OneToOne(mappedBy = "student", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // Embedded columns: the inverse side of a one-to-one cannot be lazy, so a separate table cost one query per student
+    @Embedded
     private StudentSkills skills;
 
     @Enumerated(EnumType.STRING)
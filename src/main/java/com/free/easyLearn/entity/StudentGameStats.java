@@ -0,0 +1,47 @@
+package com.free.easyLearn.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * StudentGameStats Entity
+ * Challenge totals of a student (one row per student with a correct answer), kept up to date by an
+ * upsert on every correct answer so that the game stats are a primary-key read.
+ * {@code currentStreak} is the streak ending on {@code lastCorrectDate}; it is over once that date is
+ * before yesterday.
+ */
+@Entity
+@Table(name = "student_game_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudentGameStats {
+
+    @Id
+    @Column(name = "student_id")
+    private UUID studentId;
+
+    @Column(name = "total_points", nullable = false)
+    private Long totalPoints;
+
+    @Column(name = "correct_count", nullable = false)
+    private Long correctCount;
+
+    @Column(name = "current_streak", nullable = false)
+    private Integer currentStreak;
+
+    @Column(name = "longest_streak", nullable = false)
+    private Integer longestStreak;
+
+    @Column(name = "last_correct_date")
+    private LocalDate lastCorrectDate;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -2,15 +2,14 @@ package com.free.easyLearn.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
-@Entity
-@Table(name = "student_skills")
-@EntityListeners(AuditingEntityListener.class)
+/**
+ * Skill levels of a student, stored in columns of the students table (formerly the student_skills table).
+ * All columns null means no skills recorded: {@link Student#getSkills()} is then null.
+ */
+@Embeddable
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,27 +17,18 @@ import java.util.UUID;
 @Builder
 public class StudentSkills {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private UUID id;
-
-    @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "student_id", nullable = false, unique = true)
-    private Student student;
-
-    @Column(nullable = false)
+    @Column(name = "skill_pronunciation")
     private Integer pronunciation = 0;
 
-    @Column(nullable = false)
+    @Column(name = "skill_grammar")
     private Integer grammar = 0;
 
-    @Column(nullable = false)
+    @Column(name = "skill_vocabulary")
     private Integer vocabulary = 0;
 
-    @Column(nullable = false)
+    @Column(name = "skill_fluency")
     private Integer fluency = 0;
 
-    @LastModifiedDate
-    @Column(name = "updated_at")
+    @Column(name = "skills_updated_at")
     private LocalDateTime updatedAt;
 }
@@ -63,9 +63,6 @@ public class User {
     @JoinColumn(name = "created_by")
     private User createdBy;
 
-    @OneToOne(mappedBy = "usedBy", fetch = FetchType.LAZY)
-    private AccessToken accessToken;
-
     public enum UserRole {
         ADMIN, PROFESSOR, STUDENT
     }
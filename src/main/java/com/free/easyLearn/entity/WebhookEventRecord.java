@@ -0,0 +1,85 @@
+package com.free.easyLearn.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * WebhookEventRecord Entity
+ * Append-only log of the verified LiveKit webhooks (raw payload) with their processing outcome,
+ * so that failed events can be replayed. Rows older than livekit.webhook.log.retention-days are purged
+ * daily by WebhookEventLog. V12 describes a table partitioned by month on received_at, but the table is
+ * created by Hibernate (plain) where V12 was never applied.
+ * The id is assigned on append so that the outcome can be recorded before the row is flushed.
+ */
+@Entity
+@Table(name = "webhook_event_log", indexes = {
+        @Index(name = "idx_webhook_event_log_status_received", columnList = "status, received_at"),
+        @Index(name = "idx_webhook_event_log_event_id", columnList = "event_id"),
+        @Index(name = "idx_webhook_event_log_received_at", columnList = "received_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookEventRecord implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "event_id", length = 64)
+    private String eventId;
+
+    @Column(name = "event_type", length = 50, nullable = false)
+    private String eventType;
+
+    @Column(name = "room_name")
+    private String roomName;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    // Assigned ids: tell Spring Data to persist (batched INSERT) instead of merge (SELECT first)
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public enum Status {
+        RECEIVED,   // logged, not processed yet
+        PROCESSED,
+        FAILED,     // a handler threw; can be replayed
+        REJECTED    // queue full, LiveKit was asked to redeliver
+    }
+}
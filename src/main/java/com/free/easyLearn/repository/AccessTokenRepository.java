@@ -1,6 +1,7 @@
 package com.free.easyLearn.repository;
 
 import com.free.easyLearn.entity.AccessToken;
+import com.free.easyLearn.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,6 +15,8 @@ public interface AccessTokenRepository extends JpaRepository<AccessToken, UUID>
 
     Optional<AccessToken> findByToken(String token);
 
+    Optional<AccessToken> findFirstByUsedByOrderByUsedAtDesc(User usedBy);
+
     List<AccessToken> findByRoleAndIsUsedFalseAndExpiresAtAfter(AccessToken.UserRole role, LocalDateTime now);
 
     boolean existsByTokenAndIsUsedFalseAndExpiresAtAfter(String token, LocalDateTime now);
@@ -26,6 +26,14 @@ public interface ChallengeRepository extends JpaRepository<Challenge, UUID> {
             @Param("level") Student.LanguageLevel level,
             @Param("createdById") UUID createdById);
 
+    @Query("SELECT COUNT(c) FROM Challenge c WHERE c.isActive = true AND c.expiresAt > :now " +
+            "AND (c.targetLevel IS NULL OR c.targetLevel = :level) " +
+            "AND c.professor.createdBy.id = :createdById")
+    long countActiveChallengesByLevelAndCreatedBy(
+            @Param("now") LocalDateTime now,
+            @Param("level") Student.LanguageLevel level,
+            @Param("createdById") UUID createdById);
+
     @Query("SELECT c FROM Challenge c WHERE c.isActive = true AND c.expiresAt > :now " +
             "AND (c.targetLevel IS NULL OR c.targetLevel = :level) " +
             "AND c.professor.user.id = :professorUserId " +
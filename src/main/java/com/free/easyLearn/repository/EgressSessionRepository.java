@@ -0,0 +1,80 @@
+package com.free.easyLearn.repository;
+
+import com.free.easyLearn.entity.EgressSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EgressSessionRepository extends JpaRepository<EgressSession, String> {
+
+    /**
+     * Most recent egress of a room in one of the given states (used to find the active recording).
+     */
+    Optional<EgressSession> findFirstByRoomNameAndStatusInOrderByCreatedAtDesc(String roomName,
+                                                                               Collection<EgressSession.Status> statuses);
+
+    /**
+     * All egress sessions in the given states (used for startup reconciliation).
+     */
+    List<EgressSession> findByStatusIn(Collection<EgressSession.Status> statuses);
+
+    /**
+     * Create an egress session unless it already exists (safe across replicas).
+     *
+     * @return 1 if created, 0 if the egress was already recorded
+     */
+    @Modifying
+    @Query(value = "INSERT INTO egress_sessions (egress_id, room_name, status, object_key, error, started_at, ended_at, created_at, updated_at) " +
+            "VALUES (:egressId, :roomName, :status, :objectKey, :error, :startedAt, :endedAt, :startedAt, :startedAt) " +
+            "ON CONFLICT (egress_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("egressId") String egressId,
+                       @Param("roomName") String roomName,
+                       @Param("status") String status,
+                       @Param("objectKey") String objectKey,
+                       @Param("error") String error,
+                       @Param("startedAt") LocalDateTime startedAt,
+                       @Param("endedAt") LocalDateTime endedAt);
+
+    /**
+     * Record the requested object key of an egress first seen through a webhook.
+     */
+    @Modifying
+    @Query("UPDATE EgressSession e SET e.objectKey = :objectKey WHERE e.egressId = :egressId AND e.objectKey IS NULL")
+    int setObjectKeyIfAbsent(@Param("egressId") String egressId, @Param("objectKey") String objectKey);
+
+    /**
+     * Move an egress to a non-terminal status if it is still in one of {@code from}; the row is checked
+     * and updated in one statement, so concurrent webhooks cannot both apply a transition.
+     *
+     * @return 1 if applied, 0 if the egress is unknown or no longer in {@code from}
+     */
+    @Modifying
+    @Query("UPDATE EgressSession e SET e.status = :next, e.updatedAt = :now " +
+            "WHERE e.egressId = :egressId AND e.status IN :from")
+    int transition(@Param("egressId") String egressId,
+                   @Param("from") Collection<EgressSession.Status> from,
+                   @Param("next") EgressSession.Status next,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Move an egress to a terminal status if it is still in one of {@code from}, recording its end.
+     *
+     * @return 1 if applied, 0 if the egress is unknown or no longer in {@code from}
+     */
+    @Modifying
+    @Query("UPDATE EgressSession e SET e.status = :next, e.endedAt = :now, e.error = :error, e.updatedAt = :now " +
+            "WHERE e.egressId = :egressId AND e.status IN :from")
+    int finish(@Param("egressId") String egressId,
+               @Param("from") Collection<EgressSession.Status> from,
+               @Param("next") EgressSession.Status next,
+               @Param("error") String error,
+               @Param("now") LocalDateTime now);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -28,12 +29,45 @@ public interface EvaluationRepository extends JpaRepository<Evaluation, UUID> {
     @Query("SELECT AVG(e.overallScore) FROM Evaluation e")
     Double getAverageScore();
 
+    /**
+     * Single row (count, average overall score) over all evaluations.
+     */
+    @Query("SELECT COUNT(e), AVG(e.overallScore) FROM Evaluation e")
+    List<Object[]> countAndAverageScore();
+
+    /**
+     * Single row (count, average overall score) over the evaluations of a professor.
+     */
+    @Query("SELECT COUNT(e), AVG(e.overallScore) FROM Evaluation e WHERE e.professor.id = :professorId")
+    List<Object[]> countAndAverageScoreByProfessorId(@Param("professorId") UUID professorId);
+
+    /**
+     * Single row (count, average overall score) over the evaluations of the students created by an admin.
+     */
+    @Query("SELECT COUNT(e), AVG(e.overallScore) FROM Evaluation e WHERE e.student.createdBy.id = :adminId")
+    List<Object[]> countAndAverageScoreForAdmin(@Param("adminId") UUID adminId);
+
     @Query("SELECT AVG(e.overallScore) FROM Evaluation e WHERE e.professor.id = :professorId")
     Double getAverageScoreByProfessorId(@Param("professorId") UUID professorId);
 
     @Query("SELECT AVG(e.overallScore) FROM Evaluation e WHERE e.student.id = :studentId")
     Double getAverageScoreByStudentId(@Param("studentId") UUID studentId);
 
+    /**
+     * Evaluations per time bucket, as (bucketStart, count, averageOverallScore) rows, from created_at.
+     * {@code unit} is a date_trunc unit (day, week, month).
+     */
+    @Query(value = "SELECT date_trunc(:unit, e.created_at) AS bucket, COUNT(*), AVG(e.overall_score) " +
+            "FROM evaluations e JOIN students s ON s.id = e.student_id " +
+            "WHERE e.created_at >= :from AND e.created_at < :to " +
+            "AND (:allAdmins = true OR s.created_by = :adminId) " +
+            "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> scoreSeries(@Param("unit") String unit,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to,
+                               @Param("allAdmins") boolean allAdmins,
+                               @Param("adminId") UUID adminId);
+
     long countByProfessorId(UUID professorId);
 
     long countByStudentId(UUID studentId);
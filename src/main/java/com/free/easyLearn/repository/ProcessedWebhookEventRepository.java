@@ -0,0 +1,43 @@
+package com.free.easyLearn.repository;
+
+import com.free.easyLearn.entity.ProcessedWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ProcessedWebhookEventRepository extends JpaRepository<ProcessedWebhookEvent, String> {
+
+    /**
+     * Claim an event id atomically (safe across replicas): record it as PENDING, or take over a PENDING
+     * row received before {@code leaseExpiredBefore} (its processing never completed).
+     *
+     * @return 1 if the event was claimed, 0 if it is processed or being processed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO processed_webhook_events AS p (event_id, event_type, received_at, status) " +
+            "VALUES (:eventId, :eventType, :receivedAt, 'PENDING') " +
+            "ON CONFLICT (event_id) DO UPDATE SET received_at = EXCLUDED.received_at " +
+            "WHERE p.status = 'PENDING' AND p.received_at < :leaseExpiredBefore", nativeQuery = true)
+    int claim(@Param("eventId") String eventId,
+              @Param("eventType") String eventType,
+              @Param("receivedAt") LocalDateTime receivedAt,
+              @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE processed_webhook_events SET status = 'PROCESSED' WHERE event_id = :eventId",
+            nativeQuery = true)
+    int markProcessed(@Param("eventId") String eventId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessedWebhookEvent e WHERE e.receivedAt < :before")
+    int deleteReceivedBefore(@Param("before") LocalDateTime before);
+}
@@ -3,10 +3,14 @@ package com.free.easyLearn.repository;
 import com.free.easyLearn.entity.Professor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,9 +19,74 @@ public interface ProfessorRepository extends JpaRepository<Professor, UUID> {
 
     Optional<Professor> findByUserId(UUID userId);
 
+    @EntityGraph(attributePaths = {"user"})
     @Query("SELECT p FROM Professor p ORDER BY p.user.name ASC")
     Page<Professor> findAllProfessors(Pageable pageable);
 
+    @EntityGraph(attributePaths = {"user"})
     @Query("SELECT p FROM Professor p JOIN p.createdBy c WHERE c.id = :adminId ORDER BY p.user.name ASC")
     Page<Professor> findAllProfessorsByAdmin(java.util.UUID adminId, Pageable pageable);
+
+    long countByCreatedById(UUID adminId);
+
+    /**
+     * Ids of the professors teaching {@code language}, by name. Uses the GIN index on professors.languages (V18).
+     */
+    @Query(value = "SELECT p.id FROM professors p JOIN users u ON u.id = p.user_id " +
+            "WHERE p.languages @> ARRAY[CAST(:language AS text)] " +
+            "AND (:allAdmins = true OR p.created_by = :adminId) " +
+            "ORDER BY u.name ASC, p.id ASC",
+            countQuery = "SELECT COUNT(*) FROM professors p " +
+                    "WHERE p.languages @> ARRAY[CAST(:language AS text)] " +
+                    "AND (:allAdmins = true OR p.created_by = :adminId)",
+            nativeQuery = true)
+    Page<UUID> findIdsByLanguage(@Param("language") String language,
+                                 @Param("allAdmins") boolean allAdmins,
+                                 @Param("adminId") UUID adminId,
+                                 Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user"})
+    @Query("SELECT p FROM Professor p WHERE p.id IN :ids")
+    java.util.List<Professor> findAllWithUserByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Professors whose name or email starts with {@code prefix} or is similar to {@code query} (pg_trgm),
+     * prefix matches first then by similarity. Like {@link StudentRepository#search}, one UNION branch per
+     * trigram-indexed column, each with the admin filter.
+     */
+    @Query(value = "SELECT p.id, u.name, u.email, u.avatar, " +
+            "GREATEST(similarity(lower(u.name), :query), similarity(lower(COALESCE(u.email, '')), :query)) AS score, " +
+            "(lower(u.name) LIKE :prefix OR lower(COALESCE(u.email, '')) LIKE :prefix) AS prefix_match " +
+            "FROM (SELECT pr.id FROM professors pr JOIN users pu ON pu.id = pr.user_id " +
+            "      WHERE (lower(pu.name) LIKE :prefix OR lower(pu.name) % :query) " +
+            "        AND (:allAdmins = true OR pr.created_by = :adminId) " +
+            "      UNION " +
+            "      SELECT pr.id FROM professors pr JOIN users pu ON pu.id = pr.user_id " +
+            "      WHERE (lower(pu.email) LIKE :prefix OR lower(pu.email) % :query) " +
+            "        AND (:allAdmins = true OR pr.created_by = :adminId)) m " +
+            "JOIN professors p ON p.id = m.id " +
+            "JOIN users u ON u.id = p.user_id " +
+            "ORDER BY prefix_match DESC, score DESC, u.name ASC " +
+            "LIMIT :limit", nativeQuery = true)
+    java.util.List<Object[]> search(@Param("query") String query,
+                                    @Param("prefix") String prefix,
+                                    @Param("allAdmins") boolean allAdmins,
+                                    @Param("adminId") UUID adminId,
+                                    @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Professor p SET p.totalSessions = COALESCE(p.totalSessions, 0) + :sessions WHERE p.id = :professorId")
+    int addTotalSessions(@Param("professorId") UUID professorId, @Param("sessions") int sessions);
+
+    /**
+     * Recompute total_sessions of all professors from their completed rooms.
+     * Only rows whose value differs are written.
+     */
+    @Modifying
+    @Query(value = "UPDATE professors p SET total_sessions = t.sessions " +
+            "FROM (SELECT pr.id, COUNT(r.id) AS sessions " +
+            "      FROM professors pr LEFT JOIN rooms r ON r.professor_id = pr.id AND r.status = 'COMPLETED' " +
+            "      GROUP BY pr.id) t " +
+            "WHERE t.id = p.id AND p.total_sessions IS DISTINCT FROM t.sessions", nativeQuery = true)
+    int recomputeTotalSessions();
 }
@@ -2,8 +2,12 @@ package com.free.easyLearn.repository;
 
 import com.free.easyLearn.entity.RoomParticipant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,6 +23,47 @@ public interface RoomParticipantRepository extends JpaRepository<RoomParticipant
 
     long countByRoomIdAndJoinedAtIsNotNull(UUID roomId);
 
+    /**
+     * Joined participant count per room, as (roomId, count) rows, for several rooms in one query.
+     */
+    @Query("SELECT p.room.id, COUNT(p) FROM RoomParticipant p " +
+            "WHERE p.room.id IN :roomIds AND p.joinedAt IS NOT NULL GROUP BY p.room.id")
+    List<Object[]> countJoinedByRoomIds(@Param("roomIds") Collection<UUID> roomIds);
+
+    /**
+     * Students who took part in the rooms of a professor, restricted to the students created by
+     * {@code createdById}: rows of (studentId, name, avatar, level, nickname, sessionCount, totalStudents),
+     * most sessions first. totalStudents is the number of distinct students before the limit.
+     */
+    @Query(value = "SELECT s.id, u.name, u.avatar, s.level, s.nickname, COUNT(*) AS session_count, " +
+            "COUNT(*) OVER () AS total_students " +
+            "FROM room_participants p " +
+            "JOIN rooms r ON r.id = p.room_id " +
+            "JOIN students s ON s.id = p.student_id " +
+            "JOIN users u ON u.id = s.user_id " +
+            "WHERE r.professor_id = :professorId AND s.created_by = :createdById " +
+            "GROUP BY s.id, u.name, u.avatar, s.level, s.nickname " +
+            "ORDER BY session_count DESC, u.name ASC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Object[]> findStudentSummariesByProfessor(@Param("professorId") UUID professorId,
+                                                   @Param("createdById") UUID createdById,
+                                                   @Param("limit") int limit);
+
+    /**
+     * Students joining a session per time bucket, as (bucketStart, count) rows, from joined_at.
+     * {@code unit} is a date_trunc unit (day, week, month).
+     */
+    @Query(value = "SELECT date_trunc(:unit, p.joined_at) AS bucket, COUNT(*) " +
+            "FROM room_participants p JOIN students s ON s.id = p.student_id " +
+            "WHERE p.joined_at >= :from AND p.joined_at < :to " +
+            "AND (:allAdmins = true OR s.created_by = :adminId) " +
+            "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> attendanceSeries(@Param("unit") String unit,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    @Param("allAdmins") boolean allAdmins,
+                                    @Param("adminId") UUID adminId);
+
     /**
      * Count participants who joined but haven't left yet (still in the room)
      */
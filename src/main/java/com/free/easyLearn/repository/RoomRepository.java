@@ -3,11 +3,15 @@ package com.free.easyLearn.repository;
 import com.free.easyLearn.entity.Room;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,18 +21,79 @@ public interface RoomRepository extends JpaRepository<Room, UUID> {
 
     Optional<Room> findByLivekitRoomName(String livekitRoomName);
 
+    @Query("SELECT DISTINCT r.recordingRetentionDays FROM Room r WHERE r.recordingRetentionDays IS NOT NULL")
+    List<Integer> findDistinctRecordingRetentionDays();
+
     @Query("SELECT r FROM Room r ORDER BY r.scheduledAt DESC")
     Page<Room> findAllRooms(Pageable pageable);
 
     // Stats queries
     long countByStatus(Room.RoomStatus status);
 
+    @Query("SELECT r.status, COUNT(r) FROM Room r GROUP BY r.status")
+    List<Object[]> countGroupedByStatus();
+
+    /**
+     * Rooms in a status with their professor and professor's user (admin dashboard, no N+1).
+     */
+    @EntityGraph(attributePaths = {"professor", "professor.user"})
+    @Query("SELECT r FROM Room r WHERE r.status = :status ORDER BY r.scheduledAt ASC")
+    List<Room> findWithProfessorByStatus(@Param("status") Room.RoomStatus status, Pageable pageable);
+
+    // Per-admin stats queries (rooms of the professors created by the admin)
+    @Query("SELECT r.status, COUNT(r) FROM Room r WHERE r.professor.createdBy.id = :adminId GROUP BY r.status")
+    List<Object[]> countGroupedByStatusForAdmin(@Param("adminId") UUID adminId);
+
+    @EntityGraph(attributePaths = {"professor", "professor.user"})
+    @Query("SELECT r FROM Room r WHERE r.professor.createdBy.id = :adminId AND r.status = :status ORDER BY r.scheduledAt ASC")
+    List<Room> findWithProfessorForAdminByStatus(@Param("adminId") UUID adminId,
+                                                 @Param("status") Room.RoomStatus status,
+                                                 Pageable pageable);
+
     @Query("SELECT r FROM Room r WHERE r.status = :status ORDER BY r.scheduledAt ASC")
     List<Room> findByStatus(@Param("status") Room.RoomStatus status);
 
     @Query("SELECT r FROM Room r WHERE r.professor.id = :professorId AND r.status = :status ORDER BY r.scheduledAt ASC")
     List<Room> findByProfessorIdAndStatus(@Param("professorId") UUID professorId, @Param("status") Room.RoomStatus status);
 
+    @Query("SELECT r.status, COUNT(r) FROM Room r WHERE r.professor.id = :professorId GROUP BY r.status")
+    List<Object[]> countByProfessorGroupedByStatus(@Param("professorId") UUID professorId);
+
+    @Query("SELECT r FROM Room r WHERE r.professor.id = :professorId AND r.status = :status ORDER BY r.scheduledAt ASC")
+    List<Room> findByProfessorIdAndStatus(@Param("professorId") UUID professorId, @Param("status") Room.RoomStatus status, Pageable pageable);
+
+    /**
+     * Room count per professor in a status, as (professorId, count) rows, for several professors in one query.
+     */
+    @Query("SELECT r.professor.id, COUNT(r) FROM Room r " +
+            "WHERE r.professor.id IN :professorIds AND r.status = :status GROUP BY r.professor.id")
+    List<Object[]> countByProfessorIdsAndStatus(@Param("professorIds") Collection<UUID> professorIds,
+                                                @Param("status") Room.RoomStatus status);
+
+    /**
+     * Room count and total duration (minutes) per invited student in a status, as (studentId, count, totalMinutes)
+     * rows, for several students in one query.
+     */
+    @Query("SELECT p.student.id, COUNT(r), COALESCE(SUM(r.duration), 0) FROM Room r JOIN r.participants p " +
+            "WHERE p.student.id IN :studentIds AND p.invited = true AND r.status = :status GROUP BY p.student.id")
+    List<Object[]> sumByStudentIdsAndStatus(@Param("studentIds") Collection<UUID> studentIds,
+                                            @Param("status") Room.RoomStatus status);
+
+    /**
+     * Completed rooms per time bucket, as (bucketStart, count, totalMinutes) rows. {@code unit} is a
+     * date_trunc unit (day, week, month); rooms are attributed to the admin who created their professor.
+     */
+    @Query(value = "SELECT date_trunc(:unit, r.scheduled_at) AS bucket, COUNT(*), COALESCE(SUM(r.duration), 0) " +
+            "FROM rooms r LEFT JOIN professors p ON p.id = r.professor_id " +
+            "WHERE r.status = 'COMPLETED' AND r.scheduled_at >= :from AND r.scheduled_at < :to " +
+            "AND (:allAdmins = true OR p.created_by = :adminId) " +
+            "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+    List<Object[]> completedSessionSeries(@Param("unit") String unit,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          @Param("allAdmins") boolean allAdmins,
+                                          @Param("adminId") UUID adminId);
+
     @Query("SELECT r FROM Room r WHERE r.professor.id = :professorId")
     List<Room> findAllByProfessorId(@Param("professorId") UUID professorId);
 
@@ -48,4 +113,17 @@ public interface RoomRepository extends JpaRepository<Room, UUID> {
             "WHERE p.student.id = :studentId AND p.invited = true " +
             "ORDER BY r.scheduledAt DESC")
     Page<Room> findByStudentId(@Param("studentId") UUID studentId, Pageable pageable);
+
+    /**
+     * Move a room to {@code next} if it is still in {@code from}; the row is checked and updated in one
+     * statement, so of two concurrent changes only one sees the room in {@code from}.
+     *
+     * @return 1 if applied, 0 if the room is unknown or no longer in {@code from}
+     */
+    @Modifying
+    @Query("UPDATE Room r SET r.status = :next, r.updatedAt = :now WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") UUID id,
+                   @Param("from") Room.RoomStatus from,
+                   @Param("next") Room.RoomStatus next,
+                   @Param("now") LocalDateTime now);
 }
@@ -1,11 +1,17 @@
 package com.free.easyLearn.repository;
 
 import com.free.easyLearn.entity.SessionRecording;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SessionRecordingRepository extends JpaRepository<SessionRecording, Long> {
@@ -16,7 +22,41 @@ public interface SessionRecordingRepository extends JpaRepository<SessionRecordi
     List<SessionRecording> findByRoomName(String roomName);
 
     /**
-     * Find all recordings created before the given date (for cleanup of expired recordings).
+     * Find one recording of a room (download by id).
      */
-    List<SessionRecording> findByCreatedAtBefore(LocalDateTime dateTime);
+    Optional<SessionRecording> findByIdAndRoomName(Long id, String roomName);
+
+    /**
+     * Non-expired recordings of a room.
+     */
+    @Query("SELECT r FROM SessionRecording r WHERE r.roomName = :roomName " +
+            "AND (r.expiresAt IS NULL OR r.expiresAt > :now) ORDER BY r.createdAt")
+    List<SessionRecording> findAvailableByRoomName(@Param("roomName") String roomName, @Param("now") LocalDateTime now);
+
+    /**
+     * Recordings saved before their object key (or egress id) was stored, in id order after {@code afterId}
+     * (startup backfill of the object keys).
+     */
+    @Query("SELECT r FROM SessionRecording r WHERE (r.objectKey IS NULL OR r.egressId IS NULL) AND r.id > :afterId " +
+            "ORDER BY r.id")
+    List<SessionRecording> findWithLegacyObjectKey(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Set the expiry of recordings stored under a key prefix that has no expiry of its own (keys written
+     * before retention prefixes), {@code days} after their creation, as the bucket lifecycle rule for that
+     * prefix deletes their objects.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE session_recordings SET expires_at = created_at + make_interval(days => :days) " +
+            "WHERE expires_at IS NULL AND object_key LIKE :prefix || '%'", nativeQuery = true)
+    int setExpiryByKeyPrefix(@Param("prefix") String prefix, @Param("days") int days);
+
+    /**
+     * Delete all expired recordings in one statement (cleanup of expired recordings).
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SessionRecording r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
 }
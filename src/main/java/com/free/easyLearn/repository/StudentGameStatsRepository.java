@@ -0,0 +1,81 @@
+package com.free.easyLearn.repository;
+
+import com.free.easyLearn.entity.StudentGameStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Repository
+public interface StudentGameStatsRepository extends JpaRepository<StudentGameStats, UUID> {
+
+    /**
+     * Add a correct answer given on {@code day} to a student's row, creating it if needed. The streak goes
+     * on if the previous correct answer was on {@code yesterday}, is unchanged on the same day, and starts
+     * again at 1 otherwise.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO student_game_stats AS g " +
+            "(student_id, total_points, correct_count, current_streak, longest_streak, last_correct_date, updated_at) " +
+            "VALUES (:studentId, :points, 1, 1, 1, :day, now()) " +
+            "ON CONFLICT (student_id) DO UPDATE SET " +
+            "total_points = g.total_points + :points, " +
+            "correct_count = g.correct_count + 1, " +
+            "current_streak = CASE WHEN g.last_correct_date >= :day THEN g.current_streak " +
+            "    WHEN g.last_correct_date = :yesterday THEN g.current_streak + 1 ELSE 1 END, " +
+            "longest_streak = GREATEST(g.longest_streak, CASE WHEN g.last_correct_date >= :day THEN g.current_streak " +
+            "    WHEN g.last_correct_date = :yesterday THEN g.current_streak + 1 ELSE 1 END), " +
+            "last_correct_date = GREATEST(g.last_correct_date, :day), " +
+            "updated_at = now()", nativeQuery = true)
+    int addCorrectAnswer(@Param("studentId") UUID studentId,
+                         @Param("points") int points,
+                         @Param("day") LocalDate day,
+                         @Param("yesterday") LocalDate yesterday);
+
+    /**
+     * Recompute every student's row from the correct challenge attempts (streaks as runs of consecutive
+     * answer days). Only rows whose values differ are written.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO student_game_stats AS g " +
+            "(student_id, total_points, correct_count, current_streak, longest_streak, last_correct_date, updated_at) " +
+            "WITH correct AS (" +
+            "    SELECT a.student_id, a.points_earned, CAST(a.completed_at AS date) AS day " +
+            "    FROM challenge_attempts a WHERE a.is_correct = true), " +
+            "runs AS (" +
+            "    SELECT student_id, COUNT(*) AS length, MAX(day) AS last_day " +
+            "    FROM (SELECT student_id, day, day - CAST(ROW_NUMBER() OVER (PARTITION BY student_id ORDER BY day) AS integer) AS run " +
+            "          FROM (SELECT DISTINCT student_id, day FROM correct WHERE day IS NOT NULL) d) r " +
+            "    GROUP BY student_id, run), " +
+            "streaks AS (" +
+            "    SELECT DISTINCT ON (student_id) student_id, length AS current_streak, last_day, " +
+            "        MAX(length) OVER (PARTITION BY student_id) AS longest_streak " +
+            "    FROM runs ORDER BY student_id, last_day DESC) " +
+            "SELECT t.student_id, t.total_points, t.correct_count, " +
+            "    COALESCE(s.current_streak, 0), COALESCE(s.longest_streak, 0), s.last_day, now() " +
+            "FROM (SELECT student_id, SUM(points_earned) AS total_points, COUNT(*) AS correct_count " +
+            "      FROM correct GROUP BY student_id) t " +
+            "LEFT JOIN streaks s ON s.student_id = t.student_id " +
+            "ON CONFLICT (student_id) DO UPDATE SET " +
+            "total_points = EXCLUDED.total_points, correct_count = EXCLUDED.correct_count, " +
+            "current_streak = EXCLUDED.current_streak, longest_streak = EXCLUDED.longest_streak, " +
+            "last_correct_date = EXCLUDED.last_correct_date, updated_at = EXCLUDED.updated_at " +
+            "WHERE (g.total_points, g.correct_count, g.current_streak, g.longest_streak, g.last_correct_date) " +
+            "IS DISTINCT FROM (EXCLUDED.total_points, EXCLUDED.correct_count, EXCLUDED.current_streak, " +
+            "EXCLUDED.longest_streak, EXCLUDED.last_correct_date)", nativeQuery = true)
+    int recomputeAll();
+
+    /**
+     * Delete the rows of students who no longer have any correct attempt (attempts deleted or
+     * corrected), which {@link #recomputeAll()} does not reach.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM student_game_stats g WHERE NOT EXISTS (" +
+            "SELECT 1 FROM challenge_attempts a WHERE a.student_id = g.student_id AND a.is_correct = true)",
+            nativeQuery = true)
+    int deleteWithoutCorrectAttempts();
+}
@@ -3,10 +3,15 @@ package com.free.easyLearn.repository;
 import com.free.easyLearn.entity.Student;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,9 +22,51 @@ public interface StudentRepository extends JpaRepository<Student, UUID> {
 
     Optional<Student> findByUniqueCode(String uniqueCode);
 
+    @Query("SELECT s.uniqueCode FROM Student s WHERE s.uniqueCode IN :codes")
+    java.util.List<String> findExistingUniqueCodes(@Param("codes") Collection<String> codes);
+
+    /**
+     * Students whose name, email, nickname or unique code starts with {@code prefix} or is similar to
+     * {@code query} (pg_trgm), prefix matches first then by similarity. Each branch of the UNION is served
+     * by the trigram indexes of its table (V16) and carries the admin filter, so an admin's search does not
+     * collect the matches of every other admin first.
+     *
+     * @param query lower-cased search text
+     * @param prefix lower-cased search text with LIKE wildcards escaped, followed by '%'
+     */
+    @Query(value = "SELECT s.id, u.name, u.email, u.avatar, s.nickname, s.unique_code, s.level, " +
+            "GREATEST(similarity(lower(u.name), :query), similarity(lower(COALESCE(u.email, '')), :query), " +
+            "similarity(lower(s.nickname), :query), similarity(lower(s.unique_code), :query)) AS score, " +
+            "(lower(u.name) LIKE :prefix OR lower(COALESCE(u.email, '')) LIKE :prefix " +
+            "OR lower(s.nickname) LIKE :prefix OR lower(s.unique_code) LIKE :prefix) AS prefix_match " +
+            "FROM (SELECT st.id FROM students st JOIN users su ON su.id = st.user_id " +
+            "      WHERE (lower(su.name) LIKE :prefix OR lower(su.name) % :query " +
+            "         OR lower(su.email) LIKE :prefix OR lower(su.email) % :query) " +
+            "        AND (:allAdmins = true OR st.created_by = :adminId) " +
+            "      UNION " +
+            "      SELECT st.id FROM students st " +
+            "      WHERE (lower(st.nickname) LIKE :prefix OR lower(st.nickname) % :query " +
+            "         OR lower(st.unique_code) LIKE :prefix OR lower(st.unique_code) % :query) " +
+            "        AND (:allAdmins = true OR st.created_by = :adminId)) m " +
+            "JOIN students s ON s.id = m.id " +
+            "JOIN users u ON u.id = s.user_id " +
+            "ORDER BY prefix_match DESC, score DESC, u.name ASC " +
+            "LIMIT :limit", nativeQuery = true)
+    java.util.List<Object[]> search(@Param("query") String query,
+                                    @Param("prefix") String prefix,
+                                    @Param("allAdmins") boolean allAdmins,
+                                    @Param("adminId") UUID adminId,
+                                    @Param("limit") int limit);
+
+    @EntityGraph(attributePaths = {"user"})
+    @Query("SELECT s FROM Student s WHERE s.id IN :ids")
+    java.util.List<Student> findAllWithUserByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = {"user"})
     @Query("SELECT s FROM Student s ORDER BY s.user.name ASC")
     Page<Student> findAllStudents(Pageable pageable);
 
+    @EntityGraph(attributePaths = {"user"})
     @Query("SELECT s FROM Student s JOIN s.createdBy c WHERE c.id = :adminId ORDER BY s.user.name ASC")
     Page<Student> findAllStudentsByAdmin(java.util.UUID adminId, Pageable pageable);
 
@@ -27,6 +74,44 @@ public interface StudentRepository extends JpaRepository<Student, UUID> {
     @Query("SELECT s.level, COUNT(s) FROM Student s GROUP BY s.level ORDER BY s.level")
     java.util.List<Object[]> countByLevel();
 
+    @EntityGraph(attributePaths = {"user"})
     @Query("SELECT s FROM Student s ORDER BY s.createdAt DESC")
     java.util.List<Student> findRecentStudents(Pageable pageable);
+
+    // Per-admin stats queries (students created by the admin)
+    @Query("SELECT s.level, COUNT(s) FROM Student s WHERE s.createdBy.id = :adminId GROUP BY s.level ORDER BY s.level")
+    java.util.List<Object[]> countByLevelForAdmin(@Param("adminId") UUID adminId);
+
+    @EntityGraph(attributePaths = {"user"})
+    @Query("SELECT s FROM Student s WHERE s.createdBy.id = :adminId ORDER BY s.createdAt DESC")
+    java.util.List<Student> findRecentStudentsForAdmin(@Param("adminId") UUID adminId, Pageable pageable);
+
+    /**
+     * Add a completed session (or remove one, with negative values) to every student invited to a room.
+     */
+    @Modifying
+    @Query(value = "UPDATE students s SET " +
+            "total_sessions = COALESCE(s.total_sessions, 0) + :sessions, " +
+            "hours_learned = COALESCE(s.hours_learned, 0) + :hours " +
+            "FROM room_participants p " +
+            "WHERE p.student_id = s.id AND p.room_id = :roomId AND p.invited = true", nativeQuery = true)
+    int addLearningTotals(@Param("roomId") UUID roomId,
+                          @Param("sessions") int sessions,
+                          @Param("hours") BigDecimal hours);
+
+    /**
+     * Recompute total_sessions/hours_learned of all students from their completed rooms.
+     * Only rows whose values differ are written.
+     */
+    @Modifying
+    @Query(value = "UPDATE students s SET total_sessions = t.sessions, hours_learned = t.hours " +
+            "FROM (SELECT st.id, COALESCE(a.sessions, 0) AS sessions, COALESCE(a.hours, 0) AS hours " +
+            "      FROM students st LEFT JOIN (" +
+            "          SELECT p.student_id, COUNT(*) AS sessions, ROUND(SUM(COALESCE(r.duration, 0)) / 60.0, 2) AS hours " +
+            "          FROM room_participants p JOIN rooms r ON r.id = p.room_id " +
+            "          WHERE p.invited = true AND r.status = 'COMPLETED' " +
+            "          GROUP BY p.student_id) a ON a.student_id = st.id) t " +
+            "WHERE t.id = s.id " +
+            "AND (s.total_sessions IS DISTINCT FROM t.sessions OR s.hours_learned IS DISTINCT FROM t.hours)", nativeQuery = true)
+    int recomputeLearningTotals();
 }
@@ -0,0 +1,59 @@
+package com.free.easyLearn.repository;
+
+import com.free.easyLearn.entity.WebhookEventRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WebhookEventRecordRepository extends JpaRepository<WebhookEventRecord, UUID> {
+
+    /**
+     * Record the same outcome for a batch of events (one UPDATE).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookEventRecord e SET e.status = :status, e.error = NULL, e.processedAt = :processedAt, " +
+            "e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int updateOutcome(@Param("ids") Collection<UUID> ids,
+                      @Param("status") WebhookEventRecord.Status status,
+                      @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookEventRecord e SET e.status = :status, e.error = :error, e.processedAt = :processedAt, " +
+            "e.attempts = e.attempts + 1 WHERE e.id = :id")
+    int updateOutcome(@Param("id") UUID id,
+                      @Param("status") WebhookEventRecord.Status status,
+                      @Param("error") String error,
+                      @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * Events in a given state received in a time window, oldest first (replay selection).
+     */
+    List<WebhookEventRecord> findByStatusAndReceivedAtBetweenOrderByReceivedAtAsc(WebhookEventRecord.Status status,
+                                                                                  LocalDateTime from,
+                                                                                  LocalDateTime to,
+                                                                                  Pageable pageable);
+
+    List<WebhookEventRecord> findByIdInOrderByReceivedAtAsc(Collection<UUID> ids);
+
+    /**
+     * Delete up to {@code limit} events received before {@code cutoff} (retention purge, one batch).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM webhook_event_log WHERE (id, received_at) IN (" +
+            "SELECT id, received_at FROM webhook_event_log WHERE received_at < :cutoff LIMIT :limit)",
+            nativeQuery = true)
+    int deleteReceivedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,59 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.Evaluation;
+import com.free.easyLearn.entity.Professor;
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.entity.RoomParticipant;
+import com.free.easyLearn.entity.Student;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * JPA entity listener marking the admin dashboard sections affected by a change as dirty, and dropping
+ * the cached time series that depend on them.
+ * Instantiated by Hibernate through Spring; the services are looked up lazily because listeners
+ * are created while the EntityManagerFactory is still being built.
+ */
+public class AdminStatsChangeListener {
+
+    private static final Set<StatsSeriesService.Metric> ROOM_METRICS = EnumSet.of(
+            StatsSeriesService.Metric.SESSIONS, StatsSeriesService.Metric.HOURS_TAUGHT,
+            StatsSeriesService.Metric.ATTENDANCE);
+    private static final Set<StatsSeriesService.Metric> EVALUATION_METRICS = EnumSet.of(
+            StatsSeriesService.Metric.EVALUATION_SCORE);
+
+    private final ObjectProvider<AdminStatsSnapshot> snapshot;
+    private final ObjectProvider<StatsSeriesService> series;
+
+    public AdminStatsChangeListener(ObjectProvider<AdminStatsSnapshot> snapshot,
+                                    ObjectProvider<StatsSeriesService> series) {
+        this.snapshot = snapshot;
+        this.series = series;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        AdminStatsSnapshot.Section section;
+        if (entity instanceof Room || entity instanceof RoomParticipant) {
+            section = AdminStatsSnapshot.Section.ROOMS;
+            series.ifAvailable(s -> s.invalidate(ROOM_METRICS));
+        } else if (entity instanceof Student) {
+            section = AdminStatsSnapshot.Section.STUDENTS;
+        } else if (entity instanceof Professor) {
+            section = AdminStatsSnapshot.Section.PROFESSORS;
+        } else if (entity instanceof Evaluation) {
+            section = AdminStatsSnapshot.Section.EVALUATIONS;
+            series.ifAvailable(s -> s.invalidate(EVALUATION_METRICS));
+        } else {
+            return;
+        }
+        snapshot.ifAvailable(s -> s.markDirty(section));
+    }
+}
@@ -0,0 +1,190 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.stats.AdminStatsDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precomputed admin dashboard, served from memory.
+ *
+ * Entity changes (see {@link AdminStatsChangeListener}) mark the affected sections dirty once their
+ * transaction commits; dirty sections are recomputed every few seconds, and everything is recomputed
+ * periodically to catch changes made outside JPA. The version (and ETag) only changes when the
+ * content does, so unchanged dashboards are answered with 304.
+ *
+ * Per-admin dashboards ({@link #forAdmin}) are cached per admin and recomputed lazily, on the next read
+ * after a change (at most every {@code stats.admin.tenant-min-refresh-ms}) or once they are older than
+ * {@code stats.admin.full-recompute-interval-ms}; their cost depends only on that admin's data.
+ */
+@Service
+@Slf4j
+public class AdminStatsSnapshot {
+
+    public enum Section {
+        STUDENTS, PROFESSORS, ROOMS, EVALUATIONS
+    }
+
+    public record Snapshot(AdminStatsDTO stats, long version, String etag) {
+    }
+
+    private record TenantEntry(Snapshot snapshot, long changeCount, long computedAtMillis) {
+    }
+
+    private final StatsService statsService;
+    private final long tenantMinRefreshMillis;
+    private final long tenantMaxAgeMillis;
+    // Distinguishes ETags across restarts (versions start again at 1)
+    private final long epoch = System.currentTimeMillis();
+
+    private final Set<Section> dirtySections = EnumSet.noneOf(Section.class);
+    private volatile Snapshot snapshot;
+
+    // Incremented on every change; a per-admin entry computed before the last change is stale
+    private final AtomicLong changeCount = new AtomicLong();
+    private final Cache<UUID, TenantEntry> tenants = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public AdminStatsSnapshot(StatsService statsService,
+                              @Value("${stats.admin.tenant-min-refresh-ms:2000}") long tenantMinRefreshMillis,
+                              @Value("${stats.admin.full-recompute-interval-ms:300000}") long tenantMaxAgeMillis) {
+        this.statsService = statsService;
+        this.tenantMinRefreshMillis = tenantMinRefreshMillis;
+        this.tenantMaxAgeMillis = tenantMaxAgeMillis;
+    }
+
+    /**
+     * Current snapshot; computed on first use if the startup computation has not run yet.
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            fullRecompute();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    /**
+     * Mark a section as changed. Inside a transaction, takes effect after commit.
+     */
+    public void markDirty(Section section) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addDirty(section);
+                }
+            });
+        } else {
+            addDirty(section);
+        }
+    }
+
+    private void addDirty(Section section) {
+        synchronized (dirtySections) {
+            dirtySections.add(section);
+        }
+        changeCount.incrementAndGet();
+    }
+
+    /**
+     * Dashboard of one admin's students, professors, rooms and evaluations.
+     */
+    public Snapshot forAdmin(UUID adminId) {
+        TenantEntry entry = tenants.getIfPresent(adminId);
+        if (entry != null && isFresh(entry)) {
+            return entry.snapshot();
+        }
+        // compute() serializes the recomputations of one admin
+        return tenants.asMap().compute(adminId, (id, existing) -> {
+            if (existing != null && isFresh(existing)) {
+                return existing;
+            }
+            long changes = changeCount.get();
+            AdminStatsDTO computed = statsService.getAdminStatsForAdmin(id);
+            if (existing != null && computed.equals(existing.snapshot().stats().toBuilder().version(0).generatedAt(null).build())) {
+                return new TenantEntry(existing.snapshot(), changes, System.currentTimeMillis());
+            }
+            long version = existing != null ? existing.snapshot().version() + 1 : 1;
+            AdminStatsDTO stats = computed.toBuilder()
+                    .version(version)
+                    .generatedAt(LocalDateTime.now())
+                    .build();
+            Snapshot tenantSnapshot = new Snapshot(stats, version, "\"admin-stats-" + id + "-" + epoch + "-" + version + "\"");
+            return new TenantEntry(tenantSnapshot, changes, System.currentTimeMillis());
+        }).snapshot();
+    }
+
+    private boolean isFresh(TenantEntry entry) {
+        long age = System.currentTimeMillis() - entry.computedAtMillis();
+        return age < tenantMinRefreshMillis || (entry.changeCount() == changeCount.get() && age < tenantMaxAgeMillis);
+    }
+
+    /**
+     * Recompute the dirty sections. Runs every 2 seconds.
+     */
+    @Scheduled(fixedDelayString = "${stats.admin.refresh-interval-ms:2000}")
+    public void refreshDirtySections() {
+        Set<Section> sections;
+        synchronized (dirtySections) {
+            if (dirtySections.isEmpty()) {
+                return;
+            }
+            sections = EnumSet.copyOf(dirtySections);
+            dirtySections.clear();
+        }
+        if (snapshot == null) {
+            fullRecompute();
+            return;
+        }
+        try {
+            recompute(sections);
+        } catch (Exception e) {
+            log.error("Failed to refresh admin stats {}: {}", sections, e.getMessage(), e);
+            synchronized (dirtySections) {
+                dirtySections.addAll(sections);
+            }
+        }
+    }
+
+    /**
+     * Recompute every section. Runs at startup and every 5 minutes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${stats.admin.full-recompute-interval-ms:300000}",
+            initialDelayString = "${stats.admin.full-recompute-interval-ms:300000}")
+    public void fullRecompute() {
+        recompute(EnumSet.allOf(Section.class));
+    }
+
+    private synchronized void recompute(Set<Section> sections) {
+        Snapshot previous = snapshot;
+        AdminStatsDTO computed = statsService.refreshAdminStats(previous != null ? previous.stats() : null, sections);
+        if (previous != null && computed.equals(previous.stats())) {
+            return;
+        }
+        long version = previous != null ? previous.version() + 1 : 1;
+        AdminStatsDTO stats = computed.toBuilder()
+                .version(version)
+                .generatedAt(LocalDateTime.now())
+                .build();
+        snapshot = new Snapshot(stats, version, "\"admin-stats-" + epoch + "-" + version + "\"");
+    }
+}
@@ -113,8 +113,6 @@ public class AuthService {
         accessToken.setUsedBy(user);
         accessTokenRepository.save(accessToken);
 
-        // Also set user's accessToken reference for bidirectional mapping
-        user.setAccessToken(accessToken);
         userRepository.save(user);
 
         // Generate tokens using uniqueCode as username for students
@@ -186,9 +184,6 @@ public class AuthService {
         accessToken.setUsedBy(user);
         accessTokenRepository.save(accessToken);
 
-        // Also set user's accessToken reference for bidirectional mapping
-        user.setAccessToken(accessToken);
-
         // Generate email verification token and send verification email
         String verificationToken = UUID.randomUUID().toString();
         user.setEmailVerificationToken(verificationToken);
@@ -252,9 +247,6 @@ public class AuthService {
         accessToken.setUsedBy(user);
         accessTokenRepository.save(accessToken);
 
-        // Also set user's accessToken reference for bidirectional mapping
-        user.setAccessToken(accessToken);
-
         // Generate email verification token and send verification email
         String verificationToken = UUID.randomUUID().toString();
         user.setEmailVerificationToken(verificationToken);
@@ -342,7 +334,7 @@ public class AuthService {
 
         // Check if the user's access token has expired (1 year validity)
         // If expired, deactivate user and block login
-        AccessToken userAccessToken = user.getAccessToken();
+        AccessToken userAccessToken = accessTokenRepository.findFirstByUsedByOrderByUsedAtDesc(user).orElse(null);
         if (userAccessToken != null && userAccessToken.getExpiresAt() != null
                 && userAccessToken.getExpiresAt().isBefore(LocalDateTime.now())) {
             user.setIsActive(false);
@@ -610,7 +602,6 @@ public class AuthService {
 
         // Reactivate user
         user.setIsActive(true);
-        user.setAccessToken(newToken);
         userRepository.save(user);
 
         log.info("User {} reactivated with new access token", userId);
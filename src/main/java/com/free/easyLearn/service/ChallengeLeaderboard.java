@@ -0,0 +1,332 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.challenge.ChallengeLeaderboardEntryDTO;
+import com.free.easyLearn.entity.Student;
+import com.free.easyLearn.repository.ChallengeAttemptRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Challenge leaderboard, served from memory.
+ *
+ * Each student with points is kept in up to four ranked skip lists (global, their level, their admin,
+ * their admin and level), ordered by points then student id, so a page of any view and the rank of a
+ * student are found in O(log n). Correct answers are applied once their transaction commits; the whole
+ * board is rebuilt from SQL at startup, after challenges are deleted and periodically, to pick up
+ * renamed, moved or deleted students.
+ *
+ * Answers applied while a rebuild runs are buffered. The rebuild reads the totals and then, in the same
+ * snapshot, which of the buffered attempts it already counted; the others are added to the new board.
+ */
+@Service
+@Slf4j
+public class ChallengeLeaderboard {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Totals of one student. {@code adminId} is the admin who created the student (null if none).
+     */
+    record Standing(UUID studentId, String name, String avatar, Student.LanguageLevel level, UUID adminId,
+                    long points, long completed, long perfect) {
+    }
+
+    /**
+     * A view of the board; null fields are not filtered on.
+     */
+    record View(UUID adminId, Student.LanguageLevel level) {
+        static final View GLOBAL = new View(null, null);
+    }
+
+    private static final Comparator<Standing> RANKING = Comparator
+            .comparingLong(Standing::points).reversed()
+            .thenComparing(Standing::studentId);
+
+    /**
+     * A correct answer to add: {@code standing} holds the answer's points, not the totals.
+     */
+    private record Delta(UUID attemptId, Standing standing) {
+    }
+
+    private static final class Board {
+        final Map<UUID, Standing> standings = new HashMap<>();
+        final Map<View, RankedSkipList<Standing>> views = new HashMap<>();
+
+        void put(Standing standing) {
+            Standing previous = standings.put(standing.studentId(), standing);
+            if (previous != null) {
+                for (View view : viewsOf(previous)) {
+                    RankedSkipList<Standing> list = views.get(view);
+                    list.remove(previous);
+                    if (list.size() == 0) {
+                        views.remove(view);
+                    }
+                }
+            }
+            for (View view : viewsOf(standing)) {
+                views.computeIfAbsent(view, v -> new RankedSkipList<>(RANKING)).insert(standing);
+            }
+        }
+
+        void add(Standing delta) {
+            Standing previous = standings.get(delta.studentId());
+            put(previous == null ? delta : new Standing(delta.studentId(), delta.name(), delta.avatar(),
+                    delta.level(), delta.adminId(), previous.points() + delta.points(),
+                    previous.completed() + delta.completed(), previous.perfect() + delta.perfect()));
+        }
+    }
+
+    private final ChallengeAttemptRepository attemptRepository;
+    // Both rebuild queries must see the same snapshot
+    private final TransactionTemplate snapshotTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Board board;
+    // Answers applied during a rebuild (null when none is running)
+    private List<Delta> pendingDeltas;
+    private volatile boolean stale;
+
+    public ChallengeLeaderboard(ChallengeAttemptRepository attemptRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.attemptRepository = attemptRepository;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Add a correct answer to the student's totals. Inside a transaction, takes effect after commit.
+     */
+    public void recordCorrectAnswer(UUID attemptId, Student student, int points, boolean perfect) {
+        // Read now: the entity may not be usable after the transaction
+        Delta delta = new Delta(attemptId, new Standing(student.getId(), student.getUser().getName(),
+                student.getUser().getAvatar(), student.getLevel(),
+                student.getCreatedBy() != null ? student.getCreatedBy().getId() : null,
+                points, 1, perfect ? 1 : 0));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(delta);
+                }
+            });
+        } else {
+            apply(delta);
+        }
+    }
+
+    private void apply(Delta delta) {
+        lock.writeLock().lock();
+        try {
+            // Before the first build, the answer is counted by the build (or by the one it triggers)
+            if (board != null) {
+                board.add(delta.standing());
+            }
+            if (pendingDeltas != null) {
+                pendingDeltas.add(delta);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild from SQL on the next refresh (e.g. after attempts were deleted). Inside a transaction, takes
+     * effect after commit.
+     */
+    public void markStale() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stale = true;
+                }
+            });
+        } else {
+            stale = true;
+        }
+    }
+
+    /**
+     * A page of a view, ranks starting at 1.
+     *
+     * @param adminId only the students created by this admin; null for all
+     * @param level   only the students of this level; null for all
+     */
+    public List<ChallengeLeaderboardEntryDTO> getPage(UUID adminId, Student.LanguageLevel level, int page, int size) {
+        ensureBuilt();
+        int firstRank = page * size + 1;
+        lock.readLock().lock();
+        try {
+            RankedSkipList<Standing> list = board.views.get(new View(adminId, level));
+            if (list == null) {
+                return List.of();
+            }
+            List<Standing> standings = list.range(firstRank, size);
+            List<ChallengeLeaderboardEntryDTO> entries = new ArrayList<>(standings.size());
+            for (int i = 0; i < standings.size(); i++) {
+                entries.add(toDTO(standings.get(i), firstRank + i));
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The student's entry in a view, or null if they have no points yet.
+     */
+    public ChallengeLeaderboardEntryDTO getRank(UUID studentId, UUID adminId, Student.LanguageLevel level) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            Standing standing = board.standings.get(studentId);
+            RankedSkipList<Standing> list = board.views.get(new View(adminId, level));
+            if (standing == null || list == null) {
+                return null;
+            }
+            int rank = list.rank(standing);
+            return rank > 0 ? toDTO(standing, rank) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of students with points in a view.
+     */
+    public int count(UUID adminId, Student.LanguageLevel level) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            RankedSkipList<Standing> list = board.views.get(new View(adminId, level));
+            return list != null ? list.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild if marked stale. Runs every 5 seconds.
+     */
+    @Scheduled(fixedDelayString = "${challenges.leaderboard.refresh-interval-ms:5000}")
+    public void refreshIfStale() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the whole board from SQL. Runs at startup and every 10 minutes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${challenges.leaderboard.rebuild-interval-ms:600000}",
+            initialDelayString = "${challenges.leaderboard.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        stale = false;
+        lock.writeLock().lock();
+        try {
+            pendingDeltas = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Board rebuilt = new Board();
+        try {
+            snapshotTemplate.executeWithoutResult(status -> {
+                for (Object[] row : attemptRepository.getLeaderboardTotals()) {
+                    rebuilt.put(new Standing((UUID) row[0], (String) row[1], (String) row[2],
+                            (Student.LanguageLevel) row[3], (UUID) row[4],
+                            toLong(row[5]), toLong(row[6]), toLong(row[7])));
+                }
+                // Answers stay blocked until the new board is in place, so none can be missed
+                lock.writeLock().lock();
+                try {
+                    Set<UUID> counted = pendingDeltas.isEmpty() ? Set.of()
+                            : new HashSet<>(attemptRepository.findCorrectAttemptIds(
+                                    pendingDeltas.stream().map(Delta::attemptId).toList()));
+                    for (Delta delta : pendingDeltas) {
+                        if (!counted.contains(delta.attemptId())) {
+                            rebuilt.add(delta.standing());
+                        }
+                    }
+                    board = rebuilt;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingDeltas = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Rebuilt challenge leaderboard ({} students) in {} ms",
+                rebuilt.standings.size(), System.currentTimeMillis() - start);
+    }
+
+    private void ensureBuilt() {
+        lock.readLock().lock();
+        try {
+            if (board != null) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        rebuild();
+    }
+
+    private static List<View> viewsOf(Standing standing) {
+        List<View> views = new ArrayList<>(4);
+        views.add(View.GLOBAL);
+        if (standing.level() != null) {
+            views.add(new View(null, standing.level()));
+        }
+        if (standing.adminId() != null) {
+            views.add(new View(standing.adminId(), null));
+            if (standing.level() != null) {
+                views.add(new View(standing.adminId(), standing.level()));
+            }
+        }
+        return views;
+    }
+
+    private static ChallengeLeaderboardEntryDTO toDTO(Standing standing, int rank) {
+        return ChallengeLeaderboardEntryDTO.builder()
+                .rank(rank)
+                .studentId(standing.studentId())
+                .studentName(standing.name())
+                .studentAvatar(standing.avatar())
+                .totalPoints(standing.points())
+                .challengesCompleted(standing.completed())
+                .perfectAnswers(standing.perfect())
+                .build();
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+}
@@ -5,6 +5,7 @@ import com.free.easyLearn.entity.Challenge;
 import com.free.easyLearn.entity.ChallengeAttempt;
 import com.free.easyLearn.entity.Professor;
 import com.free.easyLearn.entity.Student;
+import com.free.easyLearn.entity.StudentGameStats;
 import com.free.easyLearn.exception.BadRequestException;
 import com.free.easyLearn.exception.ResourceNotFoundException;
 import com.free.easyLearn.repository.ChallengeAttemptRepository;
@@ -15,8 +16,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -24,6 +25,10 @@ import java.util.stream.Collectors;
 @Service
 public class ChallengeService {
 
+    public enum LeaderboardScope {
+        GLOBAL, LEVEL, TENANT
+    }
+
     @Autowired
     private ChallengeRepository challengeRepository;
 
@@ -36,6 +41,12 @@ public class ChallengeService {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private ChallengeLeaderboard challengeLeaderboard;
+
+    @Autowired
+    private StudentGameStatsService gameStatsService;
+
     // ========== Professor Methods ==========
 
     @Transactional
@@ -79,6 +90,8 @@ public class ChallengeService {
         }
 
         challengeRepository.delete(challenge);
+        // Its attempts are gone with it
+        challengeLeaderboard.markStale();
     }
 
     public ChallengeStatsDTO getChallengeStats(UUID professorUserId) {
@@ -142,15 +155,16 @@ public class ChallengeService {
         Student student = studentRepository.findByUserId(studentUserId)
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
 
-        long totalPoints = attemptRepository.sumPointsByStudentId(student.getId());
-        long challengesCompleted = attemptRepository.countCorrectByStudentId(student.getId());
+        StudentGameStats stats = gameStatsService.getStats(student.getId()).orElse(null);
+        long totalPoints = stats != null ? stats.getTotalPoints() : 0;
+        long challengesCompleted = stats != null ? stats.getCorrectCount() : 0;
 
         // Count total active challenges for this student's level
         UUID createdById = student.getCreatedBy() != null ? student.getCreatedBy().getId() : null;
         long totalActiveChallenges = 0;
         if (createdById != null) {
-            totalActiveChallenges = challengeRepository.findActiveChallengesByLevelAndCreatedBy(
-                    LocalDateTime.now(), student.getLevel(), createdById).size();
+            totalActiveChallenges = challengeRepository.countActiveChallengesByLevelAndCreatedBy(
+                    LocalDateTime.now(), student.getLevel(), createdById);
         }
 
         // Level: every 200 points = 1 level
@@ -158,43 +172,19 @@ public class ChallengeService {
         long pointsToNextLevel = 200 - (totalPoints % 200);
 
         // Streak: consecutive days with a correct answer ending today or yesterday
-        int streak = calculateStreak(student.getId());
+        int streak = stats != null ? StudentGameStatsService.currentStreak(stats, LocalDate.now()) : 0;
 
         return StudentGameStatsDTO.builder()
                 .totalPoints(totalPoints)
                 .level(level)
                 .pointsToNextLevel(pointsToNextLevel)
                 .streak(streak)
+                .longestStreak(stats != null ? stats.getLongestStreak() : 0)
                 .challengesCompleted(challengesCompleted)
                 .totalActiveChallenges(totalActiveChallenges)
                 .build();
     }
 
-    private int calculateStreak(UUID studentId) {
-        List<java.sql.Date> dates = attemptRepository.findDistinctCorrectDatesByStudentId(studentId);
-        if (dates == null || dates.isEmpty()) return 0;
-
-        java.time.LocalDate today = java.time.LocalDate.now();
-        java.time.LocalDate lastDate = dates.get(0).toLocalDate();
-
-        // Streak must include today or yesterday
-        if (!lastDate.equals(today) && !lastDate.equals(today.minusDays(1))) {
-            return 0;
-        }
-
-        int streak = 1;
-        for (int i = 1; i < dates.size(); i++) {
-            java.time.LocalDate current = dates.get(i).toLocalDate();
-            java.time.LocalDate previous = dates.get(i - 1).toLocalDate();
-            if (previous.minusDays(1).equals(current)) {
-                streak++;
-            } else {
-                break;
-            }
-        }
-        return streak;
-    }
-
     @Transactional
     public SubmitAnswerResponse submitAnswer(UUID studentUserId, SubmitAnswerRequest request) {
         Student student = studentRepository.findByUserId(studentUserId)
@@ -247,6 +237,11 @@ public class ChallengeService {
         }
 
         attempt = attemptRepository.save(attempt);
+        if (correct) {
+            gameStatsService.recordCorrectAnswer(student.getId(), attempt.getPointsEarned(),
+                    attempt.getCompletedAt().toLocalDate());
+            challengeLeaderboard.recordCorrectAnswer(attempt.getId(), student, attempt.getPointsEarned(), newAttemptCount == 1);
+        }
 
         return SubmitAnswerResponse.builder()
                 .isCorrect(correct)
@@ -266,37 +261,43 @@ public class ChallengeService {
 
     // ========== Common Methods ==========
 
-    public List<ChallengeLeaderboardEntryDTO> getLeaderboard() {
-        List<Object[]> rows = attemptRepository.getLeaderboard();
-        return buildLeaderboardFromRows(rows);
+    public List<ChallengeLeaderboardEntryDTO> getLeaderboard(UUID adminId, Student.LanguageLevel level, int page, int size) {
+        return challengeLeaderboard.getPage(adminId, level, page, pageSize(page, size));
     }
 
-    public List<ChallengeLeaderboardEntryDTO> getLeaderboardByLevel(UUID studentUserId) {
+    public List<ChallengeLeaderboardEntryDTO> getLeaderboardByLevel(UUID studentUserId, int page, int size) {
         Student student = studentRepository.findByUserId(studentUserId)
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
 
-        List<Object[]> rows = attemptRepository.getLeaderboardByLevel(student.getLevel());
-        return buildLeaderboardFromRows(rows);
+        return challengeLeaderboard.getPage(null, student.getLevel(), page, pageSize(page, size));
     }
 
-    private List<ChallengeLeaderboardEntryDTO> buildLeaderboardFromRows(List<Object[]> rows) {
-        List<ChallengeLeaderboardEntryDTO> leaderboard = new ArrayList<>();
-
-        int rank = 1;
-        for (Object[] row : rows) {
-            leaderboard.add(ChallengeLeaderboardEntryDTO.builder()
-                    .rank(rank++)
-                    .studentId((UUID) row[0])
-                    .studentName((String) row[1])
-                    .studentAvatar((String) row[2])
-                    .totalPoints((Long) row[3])
-                    .challengesCompleted((Long) row[4])
-                    .perfectAnswers((Long) row[5])
-                    .build());
-        }
+    /**
+     * The student's rank among all students, their level or their admin's students; null without points.
+     */
+    public ChallengeLeaderboardEntryDTO getMyRank(UUID studentUserId, LeaderboardScope scope) {
+        Student student = studentRepository.findByUserId(studentUserId)
+                .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
+
+        return switch (scope) {
+            case GLOBAL -> challengeLeaderboard.getRank(student.getId(), null, null);
+            case LEVEL -> challengeLeaderboard.getRank(student.getId(), null, student.getLevel());
+            case TENANT -> student.getCreatedBy() != null
+                    ? challengeLeaderboard.getRank(student.getId(), student.getCreatedBy().getId(), null)
+                    : null;
+        };
+    }
 
-        return leaderboard;
+    private int pageSize(int page, int size) {
+        if (page < 0) {
+            throw new BadRequestException("page must be positive");
+        }
+        if (size < 1 || size > ChallengeLeaderboard.MAX_PAGE_SIZE) {
+            throw new BadRequestException("size must be between 1 and " + ChallengeLeaderboard.MAX_PAGE_SIZE);
+        }
+        return size;
     }
+
     // ========== Private Helpers ==========
 
     private int calculatePoints(int basePoints, Challenge.ChallengeDifficulty difficulty, int attempt) {
@@ -0,0 +1,150 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.EgressSession;
+import com.free.easyLearn.repository.EgressSessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Persistent bookkeeping of LiveKit egress recordings (table egress_sessions).
+ * The database is the source of truth, so state survives restarts and is shared between replicas:
+ * status transitions are conditional updates and the active egress of a room is always read from it.
+ * Only the room of an egress, which never changes, is cached locally.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class EgressSessionService {
+
+    // Statuses for which a room is considered "being recorded"
+    private static final Set<EgressSession.Status> RECORDING = EnumSet.of(
+            EgressSession.Status.STARTING, EgressSession.Status.ACTIVE);
+
+    private final EgressSessionRepository egressSessionRepository;
+
+    // egressId -> roomName. Never changes for a given egress (WebEgress events have empty roomName).
+    private final Cache<String, String> roomByEgress = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(6))
+            .build();
+
+    /**
+     * Persist a newly started egress.
+     *
+     * @param objectKey MinIO object key requested for its output
+     */
+    public void recordStarted(String egressId, String roomName, EgressSession.Status status, String objectKey) {
+        if (egressSessionRepository.insertIfAbsent(egressId, roomName, status.name(), objectKey, null,
+                LocalDateTime.now(), null) == 1) {
+            roomByEgress.put(egressId, roomName);
+        } else {
+            // Already recorded by a webhook: only move its status forward
+            egressSessionRepository.setObjectKeyIfAbsent(egressId, objectKey);
+            updateStatus(egressId, roomName, status, null);
+        }
+    }
+
+    /**
+     * MinIO object key requested when the egress was started, if known.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> findObjectKey(String egressId) {
+        return egressSessionRepository.findById(egressId).map(EgressSession::getObjectKey);
+    }
+
+    /**
+     * Egress currently recording the given room (STARTING or ACTIVE), if any.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> findActiveEgressId(String roomName) {
+        return egressSessionRepository
+                .findFirstByRoomNameAndStatusInOrderByCreatedAtDesc(roomName, RECORDING)
+                .map(EgressSession::getEgressId);
+    }
+
+    /**
+     * Room name of an egress, or null if the egress is unknown.
+     */
+    @Transactional(readOnly = true)
+    public String resolveRoomName(String egressId) {
+        String cached = roomByEgress.getIfPresent(egressId);
+        if (cached != null) {
+            return cached;
+        }
+        return egressSessionRepository.findById(egressId)
+                .map(session -> {
+                    roomByEgress.put(egressId, session.getRoomName());
+                    return session.getRoomName();
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Apply a status transition. Unknown egresses are created when the room name is known.
+     *
+     * @return true if the transition was applied, false if it was stale, redundant or the egress is unknown
+     */
+    public boolean updateStatus(String egressId, String roomName, EgressSession.Status next, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<EgressSession.Status> from = next.predecessors();
+        String endError = error != null && !error.isEmpty() ? error : null;
+        int updated = next.isTerminal()
+                ? egressSessionRepository.finish(egressId, from, next, endError, now)
+                : egressSessionRepository.transition(egressId, from, next, now);
+        if (updated == 1) {
+            return true;
+        }
+
+        if (roomName == null || roomName.isEmpty()) {
+            if (egressSessionRepository.existsById(egressId)) {
+                log.debug("Ignoring egress transition to {} for '{}'", next, egressId);
+            } else {
+                log.warn("Egress '{}' is unknown and has no room name — status {} not recorded", egressId, next);
+            }
+            return false;
+        }
+        if (egressSessionRepository.insertIfAbsent(egressId, roomName, next.name(), null,
+                next.isTerminal() ? endError : null, now, next.isTerminal() ? now : null) == 1) {
+            roomByEgress.put(egressId, roomName);
+            return true;
+        }
+        log.debug("Ignoring egress transition to {} for '{}'", next, egressId);
+        return false;
+    }
+
+    /**
+     * Apply a status transition and, if it was applied, run {@code onApplied} in the same transaction
+     * (saving the recordings of a completed egress). If {@code onApplied} throws, the transition is rolled
+     * back with it, so a replayed event is applied again instead of being ignored as stale.
+     *
+     * @return true if the transition was applied and {@code onApplied} ran
+     */
+    public boolean updateStatus(String egressId, String roomName, EgressSession.Status next, String error,
+                                Runnable onApplied) {
+        if (!updateStatus(egressId, roomName, next, error)) {
+            return false;
+        }
+        onApplied.run();
+        return true;
+    }
+
+    /**
+     * Egress sessions not yet in a terminal state (used for reconciliation with LiveKit).
+     */
+    @Transactional(readOnly = true)
+    public List<EgressSession> findUnfinished() {
+        return egressSessionRepository.findByStatusIn(EgressSession.Status.UNFINISHED);
+    }
+}
@@ -0,0 +1,313 @@
+package com.free.easyLearn.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.free.easyLearn.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admin exports of students, rooms, evaluations and quiz results as CSV or NDJSON.
+ *
+ * Rows are read with plain JDBC (no entities, no persistence context) from a forward-only cursor:
+ * inside a read-only transaction the Postgres driver fetches {@code exports.fetch-size} rows at a time,
+ * and each row is written to the response as soon as it is read. Memory use does not depend on the
+ * number of rows exported.
+ *
+ * An export holds a pooled connection and an open transaction until the client has read the last row,
+ * so at most {@code exports.max-concurrent} run at once (others are refused, see {@link #prepare}) and an
+ * export is aborted once it has run for {@code exports.timeout}.
+ */
+@Service
+@Slf4j
+public class ExportService {
+
+    public enum Dataset {
+        STUDENTS("students",
+                "SELECT s.id, u.name, u.email, s.nickname, s.unique_code, s.level, s.student_type, " +
+                        "s.total_sessions, s.hours_learned, s.skill_pronunciation AS pronunciation, s.skill_grammar AS grammar, " +
+                        "s.skill_vocabulary AS vocabulary, s.skill_fluency AS fluency, " +
+                        "s.joined_at, s.created_at " +
+                        "FROM students s JOIN users u ON u.id = s.user_id " +
+                        "WHERE (? OR s.created_by = ?) ORDER BY s.created_at"),
+        ROOMS("rooms",
+                "SELECT r.id, r.name, r.language, r.level, r.status, r.scheduled_at, r.duration, r.max_students, " +
+                        "pu.name AS professor_name, " +
+                        "(SELECT COUNT(*) FROM room_participants p WHERE p.room_id = r.id AND p.invited) AS invited_students, " +
+                        "(SELECT COUNT(*) FROM room_participants p WHERE p.room_id = r.id AND p.joined_at IS NOT NULL) AS joined_students " +
+                        "FROM rooms r LEFT JOIN professors pr ON pr.id = r.professor_id " +
+                        "LEFT JOIN users pu ON pu.id = pr.user_id " +
+                        "WHERE (? OR pr.created_by = ?) ORDER BY r.scheduled_at"),
+        EVALUATIONS("evaluations",
+                "SELECT e.id, e.student_id, su.name AS student_name, pu.name AS professor_name, e.language, " +
+                        "e.pronunciation, e.grammar, e.vocabulary, e.fluency, e.overall_score, e.assigned_level, e.created_at " +
+                        "FROM evaluations e JOIN students s ON s.id = e.student_id " +
+                        "JOIN users su ON su.id = s.user_id " +
+                        "JOIN professors pr ON pr.id = e.professor_id " +
+                        "JOIN users pu ON pu.id = pr.user_id " +
+                        "WHERE (? OR s.created_by = ?) ORDER BY e.created_at"),
+        QUIZ_RESULTS("quiz-results",
+                "SELECT qr.id, qr.quiz_id, q.title AS quiz_title, q.language, qr.student_id, su.name AS student_name, " +
+                        "qr.score, qr.total_questions, qr.passed, qr.completed_at " +
+                        "FROM quiz_results qr JOIN quizzes q ON q.id = qr.quiz_id " +
+                        "JOIN students s ON s.id = qr.student_id " +
+                        "JOIN users su ON su.id = s.user_id " +
+                        "WHERE (? OR s.created_by = ?) ORDER BY qr.completed_at");
+
+        private final String path;
+        private final String sql;
+
+        Dataset(String path, String sql) {
+            this.path = path;
+            this.sql = sql;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public static Dataset fromPath(String path) {
+            return Arrays.stream(values())
+                    .filter(d -> d.path.equals(path))
+                    .findFirst()
+                    .orElseThrow(() -> new ResourceNotFoundException("Unknown export: " + path));
+        }
+    }
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final UUID NO_ADMIN = new UUID(0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxConcurrent;
+    private final Semaphore slots;
+    private final Duration timeout;
+
+    public ExportService(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${exports.fetch-size:1000}") int fetchSize,
+                         @Value("${exports.max-concurrent:2}") int maxConcurrent,
+                         @Value("${exports.timeout:10m}") Duration timeout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout((int) timeout.toSeconds());
+        this.maxConcurrent = maxConcurrent;
+        this.slots = new Semaphore(maxConcurrent);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Reserve an export slot and return the body streaming the dataset, which frees the slot when done.
+     *
+     * @param adminId restrict to the data of the students/professors created by this admin; null for all
+     * @return null if {@code exports.max-concurrent} exports are already running
+     */
+    public StreamingResponseBody prepare(Dataset dataset, Format format, UUID adminId) {
+        if (!slots.tryAcquire()) {
+            log.warn("Export of {} refused: all {} export slots are busy", dataset.path, maxConcurrent);
+            return null;
+        }
+        return out -> {
+            try {
+                export(dataset, format, adminId, out);
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    int availableSlots() {
+        return slots.availablePermits();
+    }
+
+    /**
+     * Stream a dataset to {@code out}.
+     *
+     * @param adminId restrict to the data of the students/professors created by this admin; null for all
+     * @return number of rows written
+     */
+    long export(Dataset dataset, Format format, UUID adminId, OutputStream out) {
+        long start = System.currentTimeMillis();
+        // The Postgres driver only uses a cursor (fetch size) with auto-commit off, hence the transaction
+        Long rows = transactionTemplate.execute(status -> jdbcTemplate.query(dataset.sql,
+                rs -> {
+                    try {
+                        return writeRows(rs, format, out, timeout);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                adminId == null, adminId != null ? adminId : NO_ADMIN));
+        log.info("Exported {} {} rows as {} in {} ms", rows, dataset.path, format, System.currentTimeMillis() - start);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Write every remaining row of {@code rs}, reading it forward only.
+     *
+     * @return number of rows written
+     */
+    static long writeRows(ResultSet rs, Format format, OutputStream out) throws SQLException, IOException {
+        return writeRows(rs, format, out, null);
+    }
+
+    /**
+     * Write every remaining row of {@code rs}, reading it forward only, failing once {@code timeout} has
+     * elapsed (null for no limit).
+     *
+     * @return number of rows written
+     */
+    static long writeRows(ResultSet rs, Format format, OutputStream out, Duration timeout) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] columns = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = metaData.getColumnLabel(i + 1);
+        }
+        long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : 0;
+        return format == Format.CSV
+                ? writeCsv(rs, columns, out, timeout != null, deadline)
+                : writeNdjson(rs, columns, out, timeout != null, deadline);
+    }
+
+    private static void checkDeadline(long rows, boolean limited, long deadline) {
+        if (limited && (rows & 1023) == 0 && System.nanoTime() - deadline > 0) {
+            throw new IllegalStateException("Export aborted after " + rows + " rows: time limit exceeded");
+        }
+    }
+
+    private static long writeCsv(ResultSet rs, String[] columns, OutputStream out, boolean limited, long deadline)
+            throws SQLException, IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(writer, columns[i]);
+        }
+        writer.write("\r\n");
+
+        long rows = 0;
+        while (rs.next()) {
+            checkDeadline(rows, limited, deadline);
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(i + 1);
+                if (value != null) {
+                    writeCsvField(writer, toText(value));
+                }
+            }
+            writer.write("\r\n");
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static long writeNdjson(ResultSet rs, String[] columns, OutputStream out, boolean limited, long deadline)
+            throws SQLException, IOException {
+        long rows = 0;
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (rs.next()) {
+                checkDeadline(rows, limited, deadline);
+                generator.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    generator.writeFieldName(columns[i]);
+                    Object value = rs.getObject(i + 1);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (value instanceof Boolean b) {
+                        generator.writeBoolean(b);
+                    } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+                        generator.writeNumber(((Number) value).longValue());
+                    } else if (value instanceof BigDecimal decimal) {
+                        generator.writeNumber(decimal);
+                    } else if (value instanceof Double || value instanceof Float) {
+                        generator.writeNumber(((Number) value).doubleValue());
+                    } else {
+                        generator.writeString(toText(value));
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static String toText(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+}
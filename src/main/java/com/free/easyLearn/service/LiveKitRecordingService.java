@@ -1,48 +1,61 @@
 package com.free.easyLearn.service;
 
+import com.free.easyLearn.dto.livekit.SessionRecordingDTO;
+import com.free.easyLearn.entity.EgressSession;
 import com.free.easyLearn.entity.SessionRecording;
 import com.free.easyLearn.repository.SessionRecordingRepository;
 import io.livekit.server.*;
-import io.minio.GetPresignedObjectUrlArgs;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.GetObjectArgs;
 import io.minio.MinioClient;
-import io.minio.RemoveObjectArgs;
-import io.minio.http.Method;
 import livekit.LivekitEgress;
 import livekit.LivekitModels;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import retrofit2.Call;
 import retrofit2.Response;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class LiveKitRecordingService {
 
     private static final Logger log = LoggerFactory.getLogger(LiveKitRecordingService.class);
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    // HLS segment referenced by its file name, in the playlist's directory
+    private static final Pattern SEGMENT_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
 
-    private static final int RECORDING_RETENTION_DAYS = 3;
 
     private final EgressServiceClient egressClient;
     private final RoomServiceClient roomServiceClient;
     private final SessionRecordingRepository sessionRecordingRepository;
     private final MinioClient minioClient;
 
-    // Track active egress per room: roomName -> egressId
-    private final Map<String, String> activeEgressMap = new ConcurrentHashMap<>();
-
-    // Reverse map: egressId -> roomName (needed because WebEgress events have empty roomName)
-    private final Map<String, String> egressToRoomMap = new ConcurrentHashMap<>();
+    // Persistent egress state (roomName <-> egressId, status), shared between replicas
+    private final EgressSessionService egressSessionService;
+    private final MeterRegistry meterRegistry;
+    private final PresignedUrlCache presignedUrlCache;
+    private final RecordingRetentionService recordingRetentionService;
 
     // LiveKit configuration
     @Value("${livekit.api-key}")
@@ -75,14 +88,30 @@ public class LiveKitRecordingService {
     @Value("${livekit.s3.region:us-east-1}")
     private String s3Region;
 
+    // Recording output: "mp4" (single file, playable once the egress completes)
+    // or "hls" (playlist + TS segments, fast start and seekable playback)
+    @Value("${livekit.recordings.output:mp4}")
+    private String outputMode;
+
+    @Value("${livekit.recordings.hls-segment-duration:6}")
+    private int hlsSegmentDuration;
+
     public LiveKitRecordingService(EgressServiceClient egressClient,
                                     RoomServiceClient roomServiceClient,
                                     SessionRecordingRepository sessionRecordingRepository,
-                                    MinioClient minioClient) {
+                                    MinioClient minioClient,
+                                    EgressSessionService egressSessionService,
+                                    MeterRegistry meterRegistry,
+                                    PresignedUrlCache presignedUrlCache,
+                                    RecordingRetentionService recordingRetentionService) {
         this.egressClient = egressClient;
         this.roomServiceClient = roomServiceClient;
         this.sessionRecordingRepository = sessionRecordingRepository;
         this.minioClient = minioClient;
+        this.egressSessionService = egressSessionService;
+        this.meterRegistry = meterRegistry;
+        this.presignedUrlCache = presignedUrlCache;
+        this.recordingRetentionService = recordingRetentionService;
     }
 
     /**
@@ -115,10 +144,10 @@ public class LiveKitRecordingService {
     public String startRecording(String roomName) {
         try {
             // Check if already recording
-            if (activeEgressMap.containsKey(roomName)) {
-                String existingId = activeEgressMap.get(roomName);
-                log.warn("Recording already active for room '{}', egressId: {}", roomName, existingId);
-                return existingId;
+            Optional<String> existingId = egressSessionService.findActiveEgressId(roomName);
+            if (existingId.isPresent()) {
+                log.warn("Recording already active for room '{}', egressId: {}", roomName, existingId.get());
+                return existingId.get();
             }
 
             // Generate a LiveKit token for the recorder
@@ -142,25 +171,44 @@ public class LiveKitRecordingService {
                     .setForcePathStyle(true)
                     .build();
 
-            // Build file output with S3 destination
-            LivekitEgress.EncodedFileOutput fileOutput = LivekitEgress.EncodedFileOutput.newBuilder()
-                    .setFileType(LivekitEgress.EncodedFileType.MP4)
-                    .setFilepath(roomName + "/{time}.mp4")
-                    .setS3(s3Upload)
-                    .build();
-
             log.info("WebEgress URL: {}", url);
-            log.info("S3 config: endpoint={}, bucket={}, region={}, path={}/", s3Endpoint, s3Bucket, s3Region, roomName);
+            log.info("S3 config: endpoint={}, bucket={}, region={}, path={}/, output={}",
+                    s3Endpoint, s3Bucket, s3Region, roomName, outputMode);
 
-            Call<LivekitEgress.EgressInfo> call = egressClient.startWebEgress(url, fileOutput);
+            // Retention prefix (retention-{N}d/): MinIO lifecycle rules expire the objects.
+            // The key is fixed here (no {time} template) so that it is known without parsing the upload URL.
+            String keyBase = recordingRetentionService.objectPrefixFor(roomName) + roomName + "/" + System.currentTimeMillis();
+            String objectKey;
+
+            Call<LivekitEgress.EgressInfo> call;
+            if (isHlsOutput()) {
+                // Build segmented (HLS) output: {prefix}{roomName}/{millis}/playlist.m3u8 + segment_NNNNN.ts
+                objectKey = keyBase + "/playlist.m3u8";
+                LivekitEgress.SegmentedFileOutput segmentOutput = LivekitEgress.SegmentedFileOutput.newBuilder()
+                        .setProtocol(LivekitEgress.SegmentedFileProtocol.HLS_PROTOCOL)
+                        .setFilenamePrefix(keyBase + "/segment")
+                        .setPlaylistName("playlist.m3u8")
+                        .setSegmentDuration(hlsSegmentDuration)
+                        .setS3(s3Upload)
+                        .build();
+                call = egressClient.startWebEgress(url, segmentOutput);
+            } else {
+                // Build file output with S3 destination
+                objectKey = keyBase + ".mp4";
+                LivekitEgress.EncodedFileOutput fileOutput = LivekitEgress.EncodedFileOutput.newBuilder()
+                        .setFileType(LivekitEgress.EncodedFileType.MP4)
+                        .setFilepath(objectKey)
+                        .setS3(s3Upload)
+                        .build();
+                call = egressClient.startWebEgress(url, fileOutput);
+            }
 
             Response<LivekitEgress.EgressInfo> response = call.execute();
 
             if (response.isSuccessful() && response.body() != null) {
                 LivekitEgress.EgressInfo egressInfo = response.body();
                 String egressId = egressInfo.getEgressId();
-                activeEgressMap.put(roomName, egressId);
-                egressToRoomMap.put(egressId, roomName);
+                egressSessionService.recordStarted(egressId, roomName, toSessionStatus(egressInfo.getStatus()), objectKey);
                 log.info("WebEgress started for room '{}'. EgressId: {}, Status: {}",
                         roomName, egressId, egressInfo.getStatus());
                 return egressId;
@@ -181,12 +229,8 @@ public class LiveKitRecordingService {
      */
     public void stopRecording(String roomName) {
         try {
-            String egressId = activeEgressMap.get(roomName);
-
-            // Always query LiveKit for active egress (in-memory map may be stale after restart)
-            if (egressId == null) {
-                egressId = findActiveEgressForRoom(roomName);
-            }
+            // Persisted state survives restarts and is shared between replicas — no ListEgress needed
+            String egressId = egressSessionService.findActiveEgressId(roomName).orElse(null);
 
             if (egressId == null) {
                 log.info("No active recording found for room '{}'. Nothing to stop.", roomName);
@@ -202,6 +246,7 @@ public class LiveKitRecordingService {
                 LivekitEgress.EgressInfo egressInfo = response.body();
                 log.info("Recording stop requested for room '{}'. EgressId: {}, Status: {}",
                         roomName, egressInfo.getEgressId(), egressInfo.getStatus());
+                egressSessionService.updateStatus(egressId, roomName, toSessionStatus(egressInfo.getStatus()), null);
             } else {
                 String errorBody = response.errorBody() != null ? response.errorBody().string() : "unknown";
                 // Egress may already be stopping/completed — this is expected on room_finished
@@ -210,123 +255,218 @@ public class LiveKitRecordingService {
                 } else {
                     log.warn("Failed to stop recording for room '{}'. HTTP {}: {}", roomName, response.code(), errorBody);
                 }
+                // The final status arrives with egress_ended (or at the next reconciliation)
+                egressSessionService.updateStatus(egressId, roomName, EgressSession.Status.ENDING, null);
             }
-
-            activeEgressMap.remove(roomName);
         } catch (Exception e) {
             log.error("Exception stopping recording for room '{}': {}", roomName, e.getMessage(), e);
-            activeEgressMap.remove(roomName);
         }
     }
 
     /**
      * Handle egress lifecycle events from webhooks.
+     * Status changes are persisted in egress_sessions; stale or duplicated events are ignored.
+     * The recordings of a completed egress are saved in the transaction that moves it to COMPLETE: if
+     * saving fails, the exception is raised and the egress keeps its previous status, so that the
+     * webhook is retried (or replayed, or reconciled) instead of being ignored as already applied.
      */
     public void handleEgressEvent(LivekitEgress.EgressInfo egressInfo) {
         String egressId = egressInfo.getEgressId();
         String roomName = egressInfo.getRoomName();
         LivekitEgress.EgressStatus status = egressInfo.getStatus();
 
-        // WebEgress events have empty roomName — look up from our reverse map
+        // WebEgress events have empty roomName — look up from the persisted egress state
         if (roomName == null || roomName.isEmpty()) {
-            roomName = egressToRoomMap.get(egressId);
+            roomName = egressSessionService.resolveRoomName(egressId);
+            if (roomName == null) {
+                roomName = roomNameFromWebUrl(egressInfo.getWeb().getUrl());
+            }
             log.info("WebEgress event — resolved roomName '{}' from egressId '{}'", roomName, egressId);
         }
 
         log.info("Egress event - Room: '{}', EgressId: {}, Status: {}", roomName, egressId, status);
 
+        EgressSession.Status sessionStatus = toSessionStatus(status);
+        if (sessionStatus == null) {
+            log.debug("Unhandled egress status '{}' for room '{}'", status, roomName);
+            return;
+        }
+        String room = roomName;
+        Runnable onApplied = status == LivekitEgress.EgressStatus.EGRESS_COMPLETE
+                ? () -> saveRecordings(room, egressId, egressInfo)
+                : () -> { };
+        if (!egressSessionService.updateStatus(egressId, roomName, sessionStatus, egressInfo.getError(), onApplied)) {
+            log.info("Egress '{}' already in a later state — {} event ignored", egressId, status);
+            return;
+        }
+
         switch (status) {
             case EGRESS_COMPLETE:
                 log.info("Recording COMPLETE for room '{}'. File uploaded to MinIO.", roomName);
-                if (egressInfo.getFileResultsCount() > 0) {
-                    for (LivekitEgress.FileInfo fi : egressInfo.getFileResultsList()) {
-                        log.info("  -> File: {}, Size: {} bytes, Location: {}", fi.getFilename(), fi.getSize(), fi.getLocation());
-                        saveRecordingUrl(roomName, fi.getLocation());
-                    }
-                }
-                activeEgressMap.remove(roomName);
-                egressToRoomMap.remove(egressId);
                 break;
 
             case EGRESS_FAILED:
-                log.error("Recording FAILED for room '{}'. EgressId: {}, Error: {}",
-                        roomName, egressId, egressInfo.getError());
-                activeEgressMap.remove(roomName);
-                egressToRoomMap.remove(egressId);
-                break;
-
-            case EGRESS_ACTIVE:
-                log.info("Recording ACTIVE for room '{}'. EgressId: {}", roomName, egressId);
-                if (roomName != null && !roomName.isEmpty()) {
-                    activeEgressMap.put(roomName, egressId);
-                    egressToRoomMap.put(egressId, roomName);
-                }
-                break;
-
-            case EGRESS_STARTING:
-                log.info("Recording STARTING for room '{}'. EgressId: {}", roomName, egressId);
-                break;
-
-            case EGRESS_ENDING:
-                log.info("Recording ENDING for room '{}'. EgressId: {}", roomName, egressId);
+            case EGRESS_ABORTED:
+            case EGRESS_LIMIT_REACHED:
+                log.error("Recording {} for room '{}'. EgressId: {}, Error: {}",
+                        status, roomName, egressId, egressInfo.getError());
                 break;
 
             default:
-                log.debug("Unhandled egress status '{}' for room '{}'", status, roomName);
+                log.info("Recording {} for room '{}'. EgressId: {}", status, roomName, egressId);
                 break;
         }
     }
 
     /**
-     * Query LiveKit for any active egress in a room.
+     * Save the outputs (files and HLS playlists) of a completed egress.
      */
-    private String findActiveEgressForRoom(String roomName) {
-        try {
-            // listEgress(roomName, egressId, active) — pass null for egressId, true for active
-            Call<List<LivekitEgress.EgressInfo>> call = egressClient.listEgress(roomName, null, true);
-            Response<List<LivekitEgress.EgressInfo>> response = call.execute();
+    private void saveRecordings(String roomName, String egressId, LivekitEgress.EgressInfo egressInfo) {
+        for (LivekitEgress.FileInfo fi : egressInfo.getFileResultsList()) {
+            log.info("  -> File: {}, Size: {} bytes, Location: {}", fi.getFilename(), fi.getSize(), fi.getLocation());
+            saveRecording(roomName, egressId, fi);
+        }
+        for (LivekitEgress.SegmentsInfo si : egressInfo.getSegmentResultsList()) {
+            log.info("  -> Playlist: {}, Segments: {}, Size: {} bytes, Location: {}",
+                    si.getPlaylistName(), si.getSegmentCount(), si.getSize(), si.getPlaylistLocation());
+            saveSegmentedRecording(roomName, egressId, si);
+        }
+    }
 
-            if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
-                String egressId = response.body().get(0).getEgressId();
-                log.info("Found active egress '{}' for room '{}'", egressId, roomName);
-                return egressId;
+    /**
+     * Reconcile persisted egress state with LiveKit at startup.
+     * Egresses that ended while the backend was down are finalized (recordings saved),
+     * and active egresses unknown to the database are adopted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileEgressState() {
+        try {
+            Response<List<LivekitEgress.EgressInfo>> response = egressClient.listEgress(null, null, true).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                log.warn("Egress reconciliation skipped: HTTP {}", response.code());
+                return;
             }
+            Map<String, LivekitEgress.EgressInfo> live = response.body().stream()
+                    .collect(Collectors.toMap(LivekitEgress.EgressInfo::getEgressId, Function.identity(), (a, b) -> b));
+            live.values().forEach(this::reconcileEgress);
+
+            int finalized = 0;
+            for (EgressSession session : egressSessionService.findUnfinished()) {
+                if (live.containsKey(session.getEgressId())) {
+                    continue;
+                }
+                Response<List<LivekitEgress.EgressInfo>> single =
+                        egressClient.listEgress(null, session.getEgressId(), null).execute();
+                if (single.isSuccessful() && single.body() != null && !single.body().isEmpty()) {
+                    reconcileEgress(single.body().get(0));
+                } else if (single.isSuccessful()) {
+                    egressSessionService.updateStatus(session.getEgressId(), session.getRoomName(),
+                            EgressSession.Status.ABORTED, "Egress not found in LiveKit during reconciliation");
+                }
+                finalized++;
+            }
+            log.info("Egress reconciliation done: {} active in LiveKit, {} stale sessions finalized", live.size(), finalized);
         } catch (Exception e) {
-            log.error("Error listing egress for room '{}': {}", roomName, e.getMessage(), e);
+            log.error("Egress reconciliation failed: {}", e.getMessage(), e);
         }
-        return null;
+    }
+
+    /**
+     * Apply the LiveKit state of one egress; a failure is logged and the egress is retried at the next startup.
+     */
+    private void reconcileEgress(LivekitEgress.EgressInfo egressInfo) {
+        try {
+            handleEgressEvent(egressInfo);
+        } catch (Exception e) {
+            log.error("Failed to reconcile egress '{}': {}", egressInfo.getEgressId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Map a LiveKit egress status to the persisted status (null if unrecognized).
+     */
+    private static EgressSession.Status toSessionStatus(LivekitEgress.EgressStatus status) {
+        if (status == null) return null;
+        return switch (status) {
+            case EGRESS_STARTING -> EgressSession.Status.STARTING;
+            case EGRESS_ACTIVE -> EgressSession.Status.ACTIVE;
+            case EGRESS_ENDING -> EgressSession.Status.ENDING;
+            case EGRESS_COMPLETE -> EgressSession.Status.COMPLETE;
+            case EGRESS_FAILED -> EgressSession.Status.FAILED;
+            case EGRESS_ABORTED -> EgressSession.Status.ABORTED;
+            case EGRESS_LIMIT_REACHED -> EgressSession.Status.LIMIT_REACHED;
+            default -> null;
+        };
+    }
+
+    /**
+     * The recording page URL looks like {base}/professor/room/{roomName}/record?token=...
+     */
+    static String roomNameFromWebUrl(String url) {
+        if (url == null) return null;
+        int start = url.indexOf("/room/");
+        int end = url.indexOf("/record", start + 6);
+        return start >= 0 && end > start ? url.substring(start + 6, end) : null;
     }
 
     /**
      * Check if there is an active recording for a room.
      */
     public boolean isRecording(String roomName) {
-        return activeEgressMap.containsKey(roomName);
+        return egressSessionService.findActiveEgressId(roomName).isPresent();
     }
 
     /**
-     * Clean up in-memory tracking for a room (called when room finishes).
-     * NOTE: Do NOT remove from egressToRoomMap here — it's needed when
-     * the egress_ended webhook fires (WebEgress events have empty roomName).
+     * Save the recording and its file metadata to the database after egress completes.
      */
-    public void clearRoom(String roomName) {
-        activeEgressMap.remove(roomName);
+    private void saveRecording(String roomName, String egressId, LivekitEgress.FileInfo fileInfo) {
+        String recordingUrl = fileInfo.getLocation();
+        String objectKey = requestedObjectKey(egressId, recordingUrl);
+        SessionRecording recording = SessionRecording.builder()
+                .roomName(roomName)
+                .recordingUrl(recordingUrl)
+                .format(SessionRecording.RecordingFormat.MP4)
+                .egressId(egressId)
+                .objectKey(objectKey)
+                .expiresAt(recordingRetentionService.expiresAt(objectKey, LocalDateTime.now()))
+                .sizeBytes(fileInfo.getSize() > 0 ? fileInfo.getSize() : null)
+                // LiveKit reports durations and timestamps in nanoseconds
+                .durationMs(fileInfo.getDuration() > 0 ? fileInfo.getDuration() / 1_000_000 : null)
+                .startedAt(fromEpochNanos(fileInfo.getStartedAt()))
+                .endedAt(fromEpochNanos(fileInfo.getEndedAt()))
+                .build();
+        sessionRecordingRepository.save(recording);
+        log.info("Saved recording URL for room '{}': {}", roomName, recordingUrl);
     }
 
     /**
-     * Save the recording URL to the database after egress completes.
+     * Save an HLS recording: the stored URL and object key are those of the playlist.
      */
-    private void saveRecordingUrl(String roomName, String recordingUrl) {
-        try {
-            SessionRecording recording = SessionRecording.builder()
-                    .roomName(roomName)
-                    .recordingUrl(recordingUrl)
-                    .build();
-            sessionRecordingRepository.save(recording);
-            log.info("Saved recording URL for room '{}': {}", roomName, recordingUrl);
-        } catch (Exception e) {
-            log.error("Failed to save recording URL for room '{}': {}", roomName, e.getMessage(), e);
-        }
+    private void saveSegmentedRecording(String roomName, String egressId, LivekitEgress.SegmentsInfo segmentsInfo) {
+        String playlistUrl = segmentsInfo.getPlaylistLocation();
+        String objectKey = requestedObjectKey(egressId, playlistUrl);
+        SessionRecording recording = SessionRecording.builder()
+                .roomName(roomName)
+                .recordingUrl(playlistUrl)
+                .format(SessionRecording.RecordingFormat.HLS)
+                .egressId(egressId)
+                .objectKey(objectKey)
+                .expiresAt(recordingRetentionService.expiresAt(objectKey, LocalDateTime.now()))
+                .sizeBytes(segmentsInfo.getSize() > 0 ? segmentsInfo.getSize() : null)
+                .durationMs(segmentsInfo.getDuration() > 0 ? segmentsInfo.getDuration() / 1_000_000 : null)
+                .startedAt(fromEpochNanos(segmentsInfo.getStartedAt()))
+                .endedAt(fromEpochNanos(segmentsInfo.getEndedAt()))
+                .build();
+        sessionRecordingRepository.save(recording);
+        log.info("Saved HLS playlist for room '{}': {}", roomName, playlistUrl);
+    }
+
+    private boolean isHlsOutput() {
+        return "hls".equalsIgnoreCase(outputMode);
+    }
+
+    private static LocalDateTime fromEpochNanos(long nanos) {
+        return nanos > 0 ? LocalDateTime.ofInstant(Instant.ofEpochSecond(0, nanos), ZoneId.systemDefault()) : null;
     }
 
     /**
@@ -337,46 +477,92 @@ public class LiveKitRecordingService {
     }
 
     /**
-     * Generate a presigned GET URL for a recording stored in MinIO.
-     * The URL is valid for the given duration.
+     * Get one recording of a room by id.
+     */
+    public Optional<SessionRecording> getRecording(String roomName, Long recordingId) {
+        return sessionRecordingRepository.findByIdAndRoomName(recordingId, roomName);
+    }
+
+    /**
+     * Non-expired recordings of a room, with time-limited presigned URLs instead of the raw MinIO URLs.
+     */
+    public List<SessionRecordingDTO> getRecordingDTOsByRoomName(String roomName) {
+        return sessionRecordingRepository.findAvailableByRoomName(roomName, LocalDateTime.now()).stream()
+                .map(r -> SessionRecordingDTO.builder()
+                        .id(r.getId())
+                        .roomName(r.getRoomName())
+                        .format(r.getFormat() != null ? r.getFormat() : SessionRecording.RecordingFormat.MP4)
+                        // HLS: the playlist (and, with streaming enabled, its segments) is served by the recordings API
+                        .recordingUrl(r.getFormat() == SessionRecording.RecordingFormat.HLS
+                                ? "/api/livekit/recordings/" + r.getRoomName() + "/playlist/" + r.getId()
+                                : generatePresignedUrl(r))
+                        .sizeBytes(r.getSizeBytes())
+                        .durationMs(r.getDurationMs())
+                        .createdAt(r.getCreatedAt())
+                        .expiresAt(r.getExpiresAt())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Presigned GET URL for a recording stored in MinIO, served from {@link PresignedUrlCache}
+     * (valid at least {@link PresignedUrlCache#REFRESH_MARGIN_MINUTES} minutes).
      *
-     * @param recordingUrl the raw S3/MinIO URL stored in the DB
-     *                     (e.g. http://91.134.137.202:9000/livekit-recordings/room-xxx/file.mp4)
-     * @param durationMinutes how long the presigned link should be valid
-     * @return a presigned URL, or the original URL if generation fails
+     * @return a presigned URL, or the raw S3/MinIO URL stored in the DB if generation fails
      */
-    public String generatePresignedUrl(String recordingUrl, int durationMinutes) {
+    public String generatePresignedUrl(SessionRecording recording) {
         try {
-            // Extract the object key from the full URL
-            // URL format: http://host:port/bucket/object-key
-            URI uri = new URI(recordingUrl);
-            String path = uri.getPath(); // e.g. /livekit-recordings/room-xxx/file.mp4
+            String objectKey = objectKeyOf(recording);
+            if (objectKey == null) return recording.getRecordingUrl();
+            return presignedUrlCache.getUrl(objectKey);
+        } catch (Exception e) {
+            log.error("Failed to generate presigned URL for '{}': {}", recording.getRecordingUrl(), e.getMessage(), e);
+            return recording.getRecordingUrl(); // fallback to original
+        }
+    }
 
-            // Remove leading slash and bucket name to get the object key
-            String bucketPrefix = "/" + s3Bucket + "/";
-            String objectKey;
-            if (path.startsWith(bucketPrefix)) {
-                objectKey = path.substring(bucketPrefix.length());
+    /**
+     * HLS playlist of a recording. Segments are rewritten either to the backend segment endpoint
+     * ({@code throughBackend}, for clients that cannot reach MinIO) or to presigned MinIO URLs, so
+     * players fetch them directly.
+     */
+    public String renderPlaylist(SessionRecording recording, boolean throughBackend) throws Exception {
+        String playlistKey = objectKeyOf(recording);
+        String directory = playlistKey.contains("/") ? playlistKey.substring(0, playlistKey.lastIndexOf('/') + 1) : "";
+        String playlist;
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(s3Bucket)
+                .object(playlistKey)
+                .build())) {
+            playlist = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        String segmentPath = "/api/livekit/recordings/" + recording.getRoomName() + "/stream/" + recording.getId() + "/segments/";
+        StringBuilder rendered = new StringBuilder(playlist.length() * 4);
+        for (String line : playlist.split("\\r?\\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.contains("://")) {
+                rendered.append(line);
+            } else if (throughBackend && SEGMENT_NAME.matcher(trimmed).matches()) {
+                rendered.append(segmentPath).append(trimmed);
             } else {
-                // Fallback: remove just the leading slash
-                objectKey = path.startsWith("/") ? path.substring(1) : path;
+                rendered.append(presignedUrlCache.getUrl(directory + trimmed));
             }
+            rendered.append('\n');
+        }
+        return rendered.toString();
+    }
 
-            String presigned = minioClient.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .method(Method.GET)
-                            .bucket(s3Bucket)
-                            .object(objectKey)
-                            .expiry(durationMinutes, TimeUnit.MINUTES)
-                            .build()
-            );
-
-            log.info("Generated presigned URL for object '{}' (valid {} min)", objectKey, durationMinutes);
-            return presigned;
-        } catch (Exception e) {
-            log.error("Failed to generate presigned URL for '{}': {}", recordingUrl, e.getMessage(), e);
-            return recordingUrl; // fallback to original
+    /**
+     * Object key of a segment of an HLS recording (next to its playlist), or null if {@code segment} is
+     * not a plain file name.
+     */
+    public String segmentObjectKey(SessionRecording recording, String segment) {
+        String playlistKey = objectKeyOf(recording);
+        if (playlistKey == null || segment == null || !SEGMENT_NAME.matcher(segment).matches()) {
+            return null;
         }
+        return playlistKey.substring(0, playlistKey.lastIndexOf('/') + 1) + segment;
     }
 
     /**
@@ -427,94 +613,128 @@ public class LiveKitRecordingService {
     }
 
     /**
-     * Scheduled task: delete expired recordings (older than 3 days) from MinIO and the database.
-     * Runs every hour.
+     * Scheduled task: delete expired recording rows (expires_at in the past) with one set-based DELETE.
+     * Runs every hour. The MinIO objects themselves are removed by the bucket lifecycle rules
+     * (see {@link RecordingRetentionService}).
      */
     @Scheduled(fixedRate = 3600000) // every hour
     public void deleteExpiredRecordings() {
-        LocalDateTime expirationThreshold = LocalDateTime.now().minusDays(RECORDING_RETENTION_DAYS);
-        List<SessionRecording> expired = sessionRecordingRepository.findByCreatedAtBefore(expirationThreshold);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int deleted = sessionRecordingRepository.deleteExpired(LocalDateTime.now());
+        sample.stop(meterRegistry.timer("recordings.cleanup.duration"));
+        meterRegistry.counter("recordings.cleanup.deleted").increment(deleted);
 
-        if (expired.isEmpty()) {
+        if (deleted == 0) {
             log.debug("No expired recordings to clean up.");
-            return;
+        } else {
+            log.info("Deleted {} expired recordings from the database.", deleted);
         }
+    }
 
-        log.info("Found {} expired recordings to delete (older than {} days).", expired.size(), RECORDING_RETENTION_DAYS);
-
-        for (SessionRecording recording : expired) {
-            // 1) Delete from MinIO
-            try {
-                String objectKey = extractObjectKey(recording.getRecordingUrl());
-                if (objectKey != null) {
-                    minioClient.removeObject(
-                            RemoveObjectArgs.builder()
-                                    .bucket(s3Bucket)
-                                    .object(objectKey)
-                                    .build()
-                    );
-                    log.info("Deleted MinIO object '{}' for expired recording id={}", objectKey, recording.getId());
-                }
-            } catch (Exception e) {
-                log.error("Failed to delete MinIO object for recording id={}: {}", recording.getId(), e.getMessage(), e);
-            }
+    /**
+     * MinIO object key of a recording (derived from the URL for rows saved before it was stored).
+     */
+    public String objectKeyOf(SessionRecording recording) {
+        return recording.getObjectKey() != null ? recording.getObjectKey() : extractObjectKey(recording.getRecordingUrl(), s3Bucket);
+    }
 
-            // 2) Delete from database
-            try {
-                sessionRecordingRepository.delete(recording);
-                log.info("Deleted expired recording id={} for room '{}'", recording.getId(), recording.getRoomName());
-            } catch (Exception e) {
-                log.error("Failed to delete recording id={} from database: {}", recording.getId(), e.getMessage(), e);
-            }
-        }
+    /**
+     * Object key requested when the egress was started; parsed from the upload URL for egresses started
+     * before it was recorded (or adopted at startup).
+     */
+    private String requestedObjectKey(String egressId, String uploadUrl) {
+        return egressSessionService.findObjectKey(egressId)
+                .orElseGet(() -> extractObjectKey(uploadUrl, s3Bucket));
     }
 
     /**
-     * Extract the MinIO object key from the full recording URL.
+     * Extract the MinIO object key from a recording URL: path-style (http://host/bucket/key), virtual-hosted
+     * (http://bucket.host/key) or s3://bucket/key. The query string is dropped and the key is URL-decoded.
+     *
+     * @return the key, or null if the URL cannot be parsed
      */
-    private String extractObjectKey(String recordingUrl) {
+    static String extractObjectKey(String recordingUrl, String bucket) {
+        if (recordingUrl == null || recordingUrl.isBlank()) {
+            return null;
+        }
         try {
-            URI uri = new URI(recordingUrl);
+            URI uri = new URI(recordingUrl.trim());
             String path = uri.getPath();
-            String bucketPrefix = "/" + s3Bucket + "/";
-            if (path.startsWith(bucketPrefix)) {
-                return path.substring(bucketPrefix.length());
+            if (path == null) {
+                return null;
+            }
+            String host = uri.getHost();
+            String key;
+            if ("s3".equalsIgnoreCase(uri.getScheme()) || (host != null && host.startsWith(bucket + "."))) {
+                key = path;
+            } else if (path.startsWith("/" + bucket + "/")) {
+                key = path.substring(bucket.length() + 1);
+            } else {
+                key = path;
             }
-            return path.startsWith("/") ? path.substring(1) : path;
+            key = key.startsWith("/") ? key.substring(1) : key;
+            return key.isEmpty() ? null : key;
         } catch (Exception e) {
             log.error("Failed to extract object key from URL '{}': {}", recordingUrl, e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Fill in the object key of recordings saved before it was stored, and recompute it for rows saved before
+     * the egress id was (their key, if any, came from a SQL backfill that only understood path-style URLs and
+     * kept query strings). Runs at startup; rows already right are not written.
+     *
+     * Recordings stored under the legacy {roomName}/ keys then get the expiry of the lifecycle rule that
+     * deletes their objects, so that they stop being listed once their file is gone.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillObjectKeys() {
+        try {
+            long afterId = 0;
+            int updated = 0;
+            List<SessionRecording> batch;
+            do {
+                batch = sessionRecordingRepository.findWithLegacyObjectKey(afterId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                List<SessionRecording> changed = new ArrayList<>();
+                for (SessionRecording recording : batch) {
+                    afterId = recording.getId();
+                    String objectKey = extractObjectKey(recording.getRecordingUrl(), s3Bucket);
+                    if (objectKey != null && !objectKey.equals(recording.getObjectKey())) {
+                        recording.setObjectKey(objectKey);
+                        changed.add(recording);
+                    }
+                }
+                sessionRecordingRepository.saveAll(changed);
+                updated += changed.size();
+            } while (batch.size() == BACKFILL_BATCH_SIZE);
+            if (updated > 0) {
+                log.info("Backfilled the object key of {} recordings", updated);
+            }
+
+            int legacyDays = recordingRetentionService.legacyRetentionDays();
+            if (legacyDays > 0) {
+                int expiring = sessionRecordingRepository.setExpiryByKeyPrefix(RecordingRetentionService.LEGACY_PREFIX, legacyDays);
+                if (expiring > 0) {
+                    log.info("Set the expiry of {} legacy recordings to {} days after creation", expiring, legacyDays);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to backfill recording object keys: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * Generate a presigned download URL for a recording (Content-Disposition: attachment).
      */
-    public String generatePresignedDownloadUrl(String recordingUrl, int durationMinutes) {
+    public String generatePresignedDownloadUrl(SessionRecording recording) {
         try {
-            String objectKey = extractObjectKey(recordingUrl);
-            if (objectKey == null) return recordingUrl;
-
-            // Extract filename from the object key
-            String filename = objectKey.contains("/") ? objectKey.substring(objectKey.lastIndexOf('/') + 1) : objectKey;
-
-            String presigned = minioClient.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .method(Method.GET)
-                            .bucket(s3Bucket)
-                            .object(objectKey)
-                            .expiry(durationMinutes, TimeUnit.MINUTES)
-                            .extraQueryParams(Map.of(
-                                    "response-content-disposition", "attachment; filename=\"" + filename + "\""
-                            ))
-                            .build()
-            );
-
-            log.info("Generated presigned download URL for object '{}' (valid {} min)", objectKey, durationMinutes);
-            return presigned;
+            String objectKey = objectKeyOf(recording);
+            if (objectKey == null) return recording.getRecordingUrl();
+            return presignedUrlCache.getDownloadUrl(objectKey);
         } catch (Exception e) {
-            log.error("Failed to generate presigned download URL for '{}': {}", recordingUrl, e.getMessage(), e);
-            return recordingUrl;
+            log.error("Failed to generate presigned download URL for '{}': {}", recording.getRecordingUrl(), e.getMessage(), e);
+            return recording.getRecordingUrl();
         }
     }
 }
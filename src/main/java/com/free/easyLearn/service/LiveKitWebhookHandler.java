@@ -0,0 +1,164 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.room.RoomDTO;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Processes verified LiveKit webhook events (recording start/stop, room teardown).
+ * Called from the {@link WebhookEventDispatcher} worker lanes, never on the HTTP request thread,
+ * and by {@link WebhookReplayService}. Failures are thrown so that they are recorded in the event log.
+ */
+@Service
+public class LiveKitWebhookHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveKitWebhookHandler.class);
+
+    private final LiveKitRecordingService recordingService;
+    private final RoomService roomService;
+
+    public LiveKitWebhookHandler(LiveKitRecordingService recordingService, RoomService roomService) {
+        this.recordingService = recordingService;
+        this.roomService = roomService;
+    }
+
+    /**
+     * Room name an event belongs to, or null. WebEgress events have an empty room name;
+     * it is then taken from the recording page URL.
+     */
+    public static String roomNameOf(WebhookEvent event) {
+        if (event.hasRoom() && !event.getRoom().getName().isEmpty()) {
+            return event.getRoom().getName();
+        }
+        if (event.hasEgressInfo()) {
+            String roomName = event.getEgressInfo().getRoomName();
+            if (roomName.isEmpty() && event.getEgressInfo().hasWeb()) {
+                roomName = LiveKitRecordingService.roomNameFromWebUrl(event.getEgressInfo().getWeb().getUrl());
+            }
+            return roomName == null || roomName.isEmpty() ? null : roomName;
+        }
+        return null;
+    }
+
+    /**
+     * @throws RuntimeException if the event could not be fully processed (it can be replayed)
+     */
+    public void handle(WebhookEvent event) {
+        String eventType = event.getEvent();
+        String roomName = roomNameOf(event);
+
+        log.info("LiveKit webhook: event='{}', room='{}'", eventType, roomName);
+
+        switch (eventType) {
+            // ─── Room Events ───
+            case "room_started":
+                handleRoomStarted(roomName);
+                break;
+
+            case "room_finished":
+                handleRoomFinished(roomName);
+                break;
+
+            // ─── Participant Events ───
+            case "participant_joined":
+                log.info("Participant '{}' joined room '{}'",
+                        event.hasParticipant() ? event.getParticipant().getIdentity() : "?",
+                        roomName);
+                break;
+
+            case "participant_left":
+                String leftIdentity = event.hasParticipant() ? event.getParticipant().getIdentity() : "?";
+                log.info("Participant '{}' left room '{}'", leftIdentity, roomName);
+                // If a real user left (not the recorder), check if only recorder remains
+                if (roomName != null && !leftIdentity.startsWith("egress-recorder-")) {
+                    handleParticipantLeft(roomName);
+                }
+                break;
+
+            // ─── Egress Events ───
+            case "egress_started":
+            case "egress_updated":
+            case "egress_ended":
+                if (event.hasEgressInfo()) {
+                    log.info("Egress event '{}' for room '{}'", eventType, roomName);
+                    recordingService.handleEgressEvent(event.getEgressInfo());
+                }
+                break;
+
+            default:
+                log.debug("Unhandled webhook event: '{}'", eventType);
+                break;
+        }
+    }
+
+    /**
+     * When room starts, auto-start recording.
+     * room_started fires ONCE when the LiveKit room is created (first participant connects).
+     */
+    private void handleRoomStarted(String roomName) {
+        log.info("Room started: '{}' — auto-starting recording", roomName);
+
+        if (roomName == null) return;
+
+        String egressId = recordingService.startRecording(roomName);
+        if (egressId == null) {
+            throw new IllegalStateException("Failed to start recording for room '" + roomName + "'");
+        }
+        log.info("Recording started for room '{}', egressId: {}", roomName, egressId);
+    }
+
+    /**
+     * When room finishes, explicitly stop WebEgress and mark room as COMPLETED.
+     * WebEgress does NOT auto-stop when the room closes (it's a standalone Chrome session).
+     * We must call stopRecording() which sends stopEgress() to LiveKit.
+     * LiveKit will then finalize the file, upload to S3, and fire egress_ended webhook.
+     */
+    private void handleRoomFinished(String roomName) {
+        log.info("Room finished: '{}'", roomName);
+
+        if (roomName == null) return;
+
+        // Explicitly stop the WebEgress recording
+        try {
+            recordingService.stopRecording(roomName);
+        } catch (Exception e) {
+            log.error("Error stopping recording for room '{}': {}", roomName, e.getMessage(), e);
+        }
+
+        // Mark room as COMPLETED (tolerant if already completed)
+        try {
+            RoomDTO roomDto = roomService.getRoomByLivekitName(roomName);
+            if (roomDto != null) {
+                roomService.endRoom(roomDto.getId());
+                log.info("Marked room '{}' as COMPLETED via webhook", roomName);
+            }
+        } catch (Exception e) {
+            // This is normal if room was already completed by leaveRoom or frontend
+            log.info("Room '{}' status update skipped (likely already completed): {}", roomName, e.getMessage());
+        }
+    }
+
+    /**
+     * When a real participant leaves, check if only the recorder remains.
+     * If so, stop the recording and destroy the LiveKit room.
+     * Destroying the room kicks the recorder, triggers room_finished webhook,
+     * which then marks the room as COMPLETED in the DB.
+     */
+    private void handleParticipantLeft(String roomName) {
+        int realCount = recordingService.countRealParticipants(roomName);
+        if (realCount < 0) {
+            throw new IllegalStateException("Could not list participants of room '" + roomName + "'");
+        }
+        if (realCount == 0) {
+            log.info("No real participants left in room '{}'. Stopping recording and destroying LiveKit room.", roomName);
+
+            // 1) Stop the WebEgress recording first (finalize MP4, upload to MinIO)
+            recordingService.stopRecording(roomName);
+
+            // 2) Destroy the LiveKit room — this kicks the recorder and triggers room_finished
+            recordingService.destroyLiveKitRoom(roomName);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.free.easyLearn.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of presigned GET URLs for recordings stored in MinIO, keyed by object key and
+ * Content-Disposition. URLs are signed for {@link #URL_VALIDITY_MINUTES} and evicted
+ * {@link #REFRESH_MARGIN_MINUTES} before they expire, so a served URL always has at least
+ * that much validity left and a new one is signed on the next request.
+ */
+@Component
+public class PresignedUrlCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PresignedUrlCache.class);
+
+    public static final int URL_VALIDITY_MINUTES = 60;
+    public static final int REFRESH_MARGIN_MINUTES = 15;
+
+    private final MinioClient minioClient;
+    private final Counter signedCounter;
+    private final Counter cachedCounter;
+
+    private final Cache<Key, String> cache = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterWrite(Duration.ofMinutes(URL_VALIDITY_MINUTES - REFRESH_MARGIN_MINUTES))
+            .build();
+
+    @Value("${livekit.s3.bucket:livekit-recordings}")
+    private String s3Bucket;
+
+    private record Key(String objectKey, String disposition) {
+    }
+
+    public PresignedUrlCache(MinioClient minioClient, MeterRegistry meterRegistry) {
+        this.minioClient = minioClient;
+        this.signedCounter = meterRegistry.counter("recordings.presigned.urls", "source", "signed");
+        this.cachedCounter = meterRegistry.counter("recordings.presigned.urls", "source", "cached");
+    }
+
+    /**
+     * Presigned URL for inline playback.
+     */
+    public String getUrl(String objectKey) {
+        return get(objectKey, null);
+    }
+
+    /**
+     * Presigned URL that makes the browser download the file (Content-Disposition: attachment).
+     */
+    public String getDownloadUrl(String objectKey) {
+        String filename = objectKey.contains("/") ? objectKey.substring(objectKey.lastIndexOf('/') + 1) : objectKey;
+        return get(objectKey, "attachment; filename=\"" + filename + "\"");
+    }
+
+    private String get(String objectKey, String disposition) {
+        // Concurrent misses on the same key wait for a single signing; a failure is thrown to the
+        // callers and not cached, so the next request signs again
+        boolean[] signed = new boolean[1];
+        String url = cache.get(new Key(objectKey, disposition), k -> {
+            signed[0] = true;
+            return sign(k.objectKey(), k.disposition());
+        });
+        (signed[0] ? signedCounter : cachedCounter).increment();
+        return url;
+    }
+
+    private String sign(String objectKey, String disposition) {
+        try {
+            GetPresignedObjectUrlArgs.Builder args = GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(s3Bucket)
+                    .object(objectKey)
+                    .expiry(URL_VALIDITY_MINUTES, TimeUnit.MINUTES);
+            if (disposition != null) {
+                args.extraQueryParams(Map.of("response-content-disposition", disposition));
+            }
+            return minioClient.getPresignedObjectUrl(args.build());
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to presign object '" + objectKey + "': " + e.getMessage(), e);
+        }
+    }
+}
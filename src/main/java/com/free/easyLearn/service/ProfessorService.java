@@ -4,13 +4,16 @@ import com.free.easyLearn.dto.professor.CreateProfessorRequest;
 import com.free.easyLearn.dto.professor.ProfessorDTO;
 import com.free.easyLearn.dto.professor.UpdateProfessorRequest;
 import com.free.easyLearn.entity.Professor;
+import com.free.easyLearn.entity.Room;
 import com.free.easyLearn.entity.User;
 import com.free.easyLearn.exception.BadRequestException;
 import com.free.easyLearn.exception.ResourceNotFoundException;
 import com.free.easyLearn.repository.ProfessorRepository;
+import com.free.easyLearn.repository.RoomRepository;
 import com.free.easyLearn.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -20,11 +23,18 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
 public class ProfessorService {
 
+    private static final UUID NO_ADMIN = new UUID(0, 0);
+
     @Autowired
     private ProfessorRepository professorRepository;
 
@@ -35,12 +45,33 @@ public class ProfessorService {
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private com.free.easyLearn.repository.RoomRepository roomRepository;
+    private RoomRepository roomRepository;
+
+    /**
+     * Completed session counts of the given professors whose total_sessions counter is not set yet
+     * (maintained by {@link SessionAggregatesService}), in one grouped query.
+     */
+    private Map<UUID, Long> fallbackTotalSessions(Collection<Professor> professors) {
+        List<UUID> ids = professors.stream()
+                .filter(p -> p.getTotalSessions() == null)
+                .map(Professor::getId)
+                .toList();
+        Map<UUID, Long> counts = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Object[] row : roomRepository.countByProfessorIdsAndStatus(ids, Room.RoomStatus.COMPLETED)) {
+                counts.put((UUID) row[0], (Long) row[1]);
+            }
+        }
+        return counts;
+    }
+
+    private Page<ProfessorDTO> mapPage(Page<Professor> professors) {
+        Map<UUID, Long> fallback = fallbackTotalSessions(professors.getContent());
+        return professors.map(p -> mapToDTO(p, fallback));
+    }
 
-    private int computeProfessorTotalSessions(UUID professorId) {
-        return (int) roomRepository.findAllByProfessorId(professorId).stream()
-                .filter(r -> r.getStatus() == com.free.easyLearn.entity.Room.RoomStatus.COMPLETED)
-                .count();
+    private ProfessorDTO mapToDTO(Professor professor) {
+        return mapToDTO(professor, fallbackTotalSessions(List.of(professor)));
     }
 
     @Transactional
@@ -129,7 +160,31 @@ public class ProfessorService {
 
         Page<Professor> professors = professorRepository.findAllProfessors(pageable);
 
-        return professors.map(this::mapToDTO);
+        return mapPage(professors);
+    }
+
+    /**
+     * Professors teaching {@code language} (exact match), by name.
+     *
+     * @param adminId restrict to the professors created by this admin; null for all
+     */
+    public Page<ProfessorDTO> getProfessorsByLanguage(String language, UUID adminId, int page, int size) {
+        Page<UUID> ids = professorRepository.findIdsByLanguage(language, adminId == null,
+                adminId != null ? adminId : NO_ADMIN, PageRequest.of(page, size));
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<UUID, Professor> byId = new HashMap<>();
+        for (Professor professor : professorRepository.findAllWithUserByIdIn(ids.getContent())) {
+            byId.put(professor.getId(), professor);
+        }
+        Map<UUID, Long> fallback = fallbackTotalSessions(byId.values());
+        List<ProfessorDTO> professors = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(p -> mapToDTO(p, fallback))
+                .toList();
+        return new PageImpl<>(professors, ids.getPageable(), ids.getTotalElements());
     }
 
     public Page<ProfessorDTO> getProfessorsByAdmin(UUID adminId, int page, int size, String sortBy, String sortOrder) {
@@ -140,10 +195,13 @@ public class ProfessorService {
 
         Page<Professor> professors = professorRepository.findAllProfessorsByAdmin(adminId, pageable);
 
-        return professors.map(this::mapToDTO);
+        return mapPage(professors);
     }
 
-    private ProfessorDTO mapToDTO(Professor professor) {
+    private ProfessorDTO mapToDTO(Professor professor, Map<UUID, Long> fallbackTotalSessions) {
+        int totalSessions = professor.getTotalSessions() != null
+                ? professor.getTotalSessions()
+                : fallbackTotalSessions.getOrDefault(professor.getId(), 0L).intValue();
         return ProfessorDTO.builder()
                 .id(professor.getId())
                 .name(professor.getUser() != null ? professor.getUser().getName() : null)
@@ -153,7 +211,7 @@ public class ProfessorService {
                 .specialization(professor.getSpecialization())
                 .professorType(professor.getProfessorType() != null ? professor.getProfessorType().name() : null)
                 .bio(professor.getBio())
-                .totalSessions(computeProfessorTotalSessions(professor.getId()))
+                .totalSessions(totalSessions)
                 .joinedAt(professor.getCreatedAt())
                 .createdBy(professor.getCreatedBy() != null ? professor.getCreatedBy().getId() : null)
                 .build();
@@ -0,0 +1,174 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.repository.RoomRepository;
+import io.minio.GetBucketLifecycleArgs;
+import io.minio.MinioClient;
+import io.minio.SetBucketLifecycleArgs;
+import io.minio.messages.Expiration;
+import io.minio.messages.LifecycleConfiguration;
+import io.minio.messages.LifecycleRule;
+import io.minio.messages.RuleFilter;
+import io.minio.messages.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recording retention.
+ *
+ * Each room keeps its recordings for {@code rooms.recording_retention_days} days, or the configured
+ * default ({@code livekit.recordings.retention-days}); 0 means "keep forever". Recordings are written
+ * under a retention prefix ({@code retention-7d/...}) and MinIO deletes them through bucket lifecycle
+ * rules (one rule per retention value), so the application never scans or deletes objects itself.
+ * The database side only stores {@code expires_at} on each SessionRecording.
+ *
+ * The rules are reconciled at startup and every minute, not when a recording starts: the wanted
+ * retention values are read from the rooms table (the same on every replica), and missing rules are
+ * added to the bucket's current configuration. Rules are never removed, since objects already written
+ * under a prefix must still expire. A recording only uses a room's retention prefix once its rule has
+ * been confirmed in the bucket; until then it falls back to the default prefix, whose rule is always wanted.
+ */
+@Service
+public class RecordingRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordingRetentionService.class);
+
+    private static final Pattern RETENTION_PREFIX = Pattern.compile("^retention-(\\d+)d/");
+    private static final Pattern RETENTION_RULE_ID = Pattern.compile("^expire-retention-(\\d+)d$");
+    private static final String KEEP_FOREVER_PREFIX = "retention-none/";
+    // Recordings written before retention prefixes existed: {roomName}/... with roomName = room-{UUID}
+    static final String LEGACY_PREFIX = "room-";
+    private static final String LEGACY_RULE_ID = "expire-legacy";
+
+    private final MinioClient minioClient;
+    private final RoomRepository roomRepository;
+
+    // Retention values whose lifecycle rule was last seen in (or written to) the bucket
+    private volatile Set<Integer> confirmedRetentionDays = Set.of();
+
+    @Value("${livekit.recordings.retention-days:3}")
+    private int defaultRetentionDays;
+
+    @Value("${livekit.s3.bucket:livekit-recordings}")
+    private String s3Bucket;
+
+    public RecordingRetentionService(MinioClient minioClient, RoomRepository roomRepository) {
+        this.minioClient = minioClient;
+        this.roomRepository = roomRepository;
+    }
+
+    /**
+     * Retention (days) of the recordings of a LiveKit room; 0 = keep forever.
+     */
+    public int retentionDaysFor(String roomName) {
+        return roomRepository.findByLivekitRoomName(roomName)
+                .map(Room::getRecordingRetentionDays)
+                .orElse(defaultRetentionDays);
+    }
+
+    /**
+     * Object key prefix of new recordings of a room: the room's retention if its lifecycle rule is
+     * confirmed, the default retention otherwise.
+     */
+    public String objectPrefixFor(String roomName) {
+        int days = Math.max(0, retentionDaysFor(roomName));
+        if (days > 0 && days != defaultRetentionDays && !confirmedRetentionDays.contains(days)) {
+            log.warn("No lifecycle rule confirmed yet for {} days, recording of room '{}' uses the default retention",
+                    days, roomName);
+            days = Math.max(0, defaultRetentionDays);
+        }
+        return days > 0 ? "retention-" + days + "d/" : KEEP_FOREVER_PREFIX;
+    }
+
+    /**
+     * Expiry date of a recording stored under the given object key (null = never expires).
+     */
+    public LocalDateTime expiresAt(String objectKey, LocalDateTime createdAt) {
+        int days = defaultRetentionDays;
+        if (objectKey != null) {
+            Matcher matcher = RETENTION_PREFIX.matcher(objectKey);
+            if (matcher.find()) {
+                days = Integer.parseInt(matcher.group(1));
+            } else if (objectKey.startsWith(KEEP_FOREVER_PREFIX)) {
+                days = 0;
+            }
+        }
+        return days > 0 ? createdAt.plusDays(days) : null;
+    }
+
+    /**
+     * Retention (days) applied by the lifecycle rule to recordings stored under {@link #LEGACY_PREFIX};
+     * 0 = no rule, they are kept forever.
+     */
+    public int legacyRetentionDays() {
+        return Math.max(0, defaultRetentionDays);
+    }
+
+    /**
+     * Add the missing lifecycle rules for the default retention and every per-room retention.
+     * Runs at startup and every minute.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${livekit.recordings.lifecycle-reconcile-interval-ms:60000}",
+            initialDelayString = "${livekit.recordings.lifecycle-reconcile-interval-ms:60000}")
+    public synchronized void reconcileLifecycleRules() {
+        Set<Integer> wanted = new TreeSet<>(roomRepository.findDistinctRecordingRetentionDays());
+        wanted.add(defaultRetentionDays);
+        wanted.removeIf(d -> d == null || d <= 0);
+        try {
+            LifecycleConfiguration current = minioClient.getBucketLifecycle(
+                    GetBucketLifecycleArgs.builder().bucket(s3Bucket).build());
+            // Rules not managed here (other ids) are kept as they are
+            List<LifecycleRule> rules = current != null ? new ArrayList<>(current.rules()) : new ArrayList<>();
+            Set<Integer> present = new TreeSet<>();
+            boolean legacyPresent = false;
+            for (LifecycleRule rule : rules) {
+                Matcher matcher = rule.id() != null ? RETENTION_RULE_ID.matcher(rule.id()) : null;
+                if (matcher != null && matcher.matches()) {
+                    present.add(Integer.parseInt(matcher.group(1)));
+                }
+                legacyPresent |= LEGACY_RULE_ID.equals(rule.id());
+            }
+
+            Set<Integer> missing = new TreeSet<>(wanted);
+            missing.removeAll(present);
+            boolean legacyMissing = defaultRetentionDays > 0 && !legacyPresent;
+            if (!missing.isEmpty() || legacyMissing) {
+                for (int d : missing) {
+                    rules.add(expirationRule("expire-retention-" + d + "d", "retention-" + d + "d/", d));
+                }
+                if (legacyMissing) {
+                    rules.add(expirationRule(LEGACY_RULE_ID, LEGACY_PREFIX, defaultRetentionDays));
+                }
+                minioClient.setBucketLifecycle(SetBucketLifecycleArgs.builder()
+                        .bucket(s3Bucket)
+                        .config(new LifecycleConfiguration(rules))
+                        .build());
+                present.addAll(missing);
+                log.info("Added MinIO lifecycle rules on bucket '{}' for retention days {}", s3Bucket, missing);
+            }
+            confirmedRetentionDays = Set.copyOf(present);
+        } catch (Exception e) {
+            log.error("Failed to reconcile MinIO lifecycle rules on bucket '{}': {}", s3Bucket, e.getMessage(), e);
+        }
+    }
+
+    private static LifecycleRule expirationRule(String id, String prefix, int days) {
+        return new LifecycleRule(Status.ENABLED, null, new Expiration((ZonedDateTime) null, days, null),
+                new RuleFilter(prefix), id, null, null, null);
+    }
+}
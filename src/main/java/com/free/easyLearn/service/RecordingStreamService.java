@@ -0,0 +1,197 @@
+package com.free.easyLearn.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams recordings from MinIO through the backend, for clients that cannot reach MinIO directly.
+ * HTTP Range requests are passed through to MinIO (getObject with offset/length) and the body is
+ * copied to the response with a small fixed buffer, so seeking in a large MP4 never buffers the file.
+ * The number of concurrent streams is bounded; extra requests get 503 with Retry-After.
+ */
+@Service
+public class RecordingStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordingStreamService.class);
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Returned by {@link #parseRange} for a valid range that does not overlap the object (416).
+     */
+    static final long[] UNSATISFIABLE = new long[0];
+
+    private final MinioClient minioClient;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore permits;
+    private final Counter bytesCounter;
+    private final Counter rejectedCounter;
+
+    @Value("${livekit.s3.bucket:livekit-recordings}")
+    private String s3Bucket;
+
+    public RecordingStreamService(MinioClient minioClient,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${livekit.recordings.stream.max-concurrent:32}") int maxConcurrentStreams) {
+        this.minioClient = minioClient;
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(maxConcurrentStreams);
+        this.bytesCounter = meterRegistry.counter("recordings.stream.bytes");
+        this.rejectedCounter = meterRegistry.counter("recordings.stream.rejected");
+        meterRegistry.gauge("recordings.stream.active", permits,
+                p -> maxConcurrentStreams - p.availablePermits());
+    }
+
+    /**
+     * Stream an object (or the requested byte range of it) to the response.
+     *
+     * @param objectKey   MinIO object key of the recording
+     * @param rangeHeader value of the Range request header, or null
+     */
+    public void stream(String objectKey, String rangeHeader, HttpServletResponse response) throws IOException {
+        if (!permits.tryAcquire()) {
+            rejectedCounter.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent recording streams");
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long transferred = 0;
+        String outcome = "ok";
+        try {
+            StatObjectResponse stat;
+            try {
+                stat = minioClient.statObject(StatObjectArgs.builder().bucket(s3Bucket).object(objectKey).build());
+            } catch (ErrorResponseException e) {
+                outcome = "not_found";
+                response.sendError(HttpStatus.NOT_FOUND.value(), "Recording file not found");
+                return;
+            }
+            long size = stat.size();
+
+            long start = 0;
+            long end = size - 1;
+            boolean partial = false;
+            long[] range = rangeHeader != null ? parseRange(rangeHeader, size) : null;
+            if (range == UNSATISFIABLE) {
+                outcome = "unsatisfiable";
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (range != null) {
+                start = range[0];
+                end = range[1];
+                partial = true;
+            }
+            long length = end - start + 1;
+
+            response.setStatus(partial ? HttpStatus.PARTIAL_CONTENT.value() : HttpStatus.OK.value());
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setContentType(stat.contentType() != null ? stat.contentType() : "video/mp4");
+            response.setContentLengthLong(length);
+            if (stat.etag() != null) {
+                response.setHeader(HttpHeaders.ETAG, "\"" + stat.etag() + "\"");
+            }
+            if (partial) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+            if (length == 0) {
+                return;
+            }
+
+            try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(s3Bucket)
+                    .object(objectKey)
+                    .offset(start)
+                    .length(length)
+                    .build())) {
+                OutputStream out = response.getOutputStream();
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    transferred += read;
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Usually the client closed the connection (seek or navigation away)
+            outcome = "aborted";
+            log.debug("Recording stream of '{}' aborted after {} bytes: {}", objectKey, transferred, e.getMessage());
+        } catch (Exception e) {
+            outcome = "error";
+            log.error("Failed to stream recording '{}': {}", objectKey, e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.BAD_GATEWAY.value(), "Recording storage unavailable");
+            }
+        } finally {
+            permits.release();
+            bytesCounter.increment(transferred);
+            sample.stop(meterRegistry.timer("recordings.stream.duration", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Parse a single "bytes=start-end", "bytes=start-" or "bytes=-suffix" range.
+     * Multi-range requests are served as their first range. A header that cannot be parsed (other unit,
+     * missing bounds, last before first, numbers too large for a long) is ignored, as RFC 9110 requires,
+     * and the whole object is served.
+     *
+     * @return {start, end} (inclusive), {@link #UNSATISFIABLE} if the range starts past the end of the
+     * object, or null if the header is to be ignored
+     */
+    static long[] parseRange(String rangeHeader, long size) {
+        String first = rangeHeader.split(",")[0].trim();
+        Matcher matcher = RANGE.matcher(first);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String from = matcher.group(1);
+        String to = matcher.group(2);
+        long start;
+        long end;
+        try {
+            if (from.isEmpty()) {
+                if (to.isEmpty()) return null;
+                long suffix = Long.parseLong(to);
+                if (suffix == 0 || size == 0) return UNSATISFIABLE;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(from);
+                end = to.isEmpty() ? Long.MAX_VALUE : Long.parseLong(to);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (start > end) {
+            return null;
+        }
+        if (start >= size) {
+            return UNSATISFIABLE;
+        }
+        return new long[]{start, Math.min(end, size - 1)};
+    }
+}
@@ -40,6 +40,9 @@ public class RoomService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionAggregatesService sessionAggregatesService;
+
     @Transactional
     public RoomDTO createRoom(CreateRoomRequest request) {
         Room room = Room.builder()
@@ -52,6 +55,7 @@ public class RoomService {
                 .maxStudents(request.getMaxStudents())
                 .status(Room.RoomStatus.SCHEDULED)
                 .animatorType(request.getAnimatorType())
+                .recordingRetentionDays(request.getRecordingRetentionDays())
                 .build();
 
         // Set professor if provided
@@ -89,14 +93,26 @@ public class RoomService {
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new ResourceNotFoundException("Room not found"));
 
+        Room.RoomStatus previousStatus = room.getStatus();
+        Integer previousDuration = room.getDuration();
+
+        // The status is changed by a conditional update so that a concurrent change (e.g. endRoom) is
+        // not applied twice to the session totals
+        if (request.getStatus() != null && request.getStatus() != previousStatus
+                && roomRepository.transition(roomId, previousStatus, request.getStatus(), LocalDateTime.now()) == 0) {
+            throw new BadRequestException("Room status was changed concurrently");
+        }
+
         if (request.getName() != null) room.setName(request.getName());
         if (request.getObjective() != null) room.setObjective(request.getObjective());
         if (request.getScheduledAt() != null) room.setScheduledAt(request.getScheduledAt());
         if (request.getDuration() != null) room.setDuration(request.getDuration());
         if (request.getMaxStudents() != null) room.setMaxStudents(request.getMaxStudents());
         if (request.getStatus() != null) room.setStatus(request.getStatus());
+        if (request.getRecordingRetentionDays() != null) room.setRecordingRetentionDays(request.getRecordingRetentionDays());
 
         room = roomRepository.save(room);
+        sessionAggregatesService.roomChanged(room, previousStatus, previousDuration);
         return mapToDTO(room);
     }
 
@@ -109,6 +125,7 @@ public class RoomService {
             liveKitService.deleteLiveKitRoom(room.getLivekitRoomName());
         }
 
+        sessionAggregatesService.roomDeleted(room);
         roomRepository.delete(room);
     }
 
@@ -256,8 +273,13 @@ public class RoomService {
             throw new BadRequestException("Room is not live");
         }
 
+        // Two concurrent calls both see the room LIVE above; only the one whose update matches the row
+        // applies the completed session to the totals
+        if (roomRepository.transition(roomId, Room.RoomStatus.LIVE, Room.RoomStatus.COMPLETED, LocalDateTime.now()) == 0) {
+            throw new BadRequestException("Room is not live");
+        }
         room.setStatus(Room.RoomStatus.COMPLETED);
-        roomRepository.save(room);
+        sessionAggregatesService.roomChanged(room, Room.RoomStatus.LIVE, room.getDuration());
 
         // Trigger summary generation (handled by Python service)
     }
@@ -401,6 +423,7 @@ public class RoomService {
                 .scheduledAt(room.getScheduledAt())
                 .duration(room.getDuration())
                 .maxStudents(room.getMaxStudents())
+                .recordingRetentionDays(room.getRecordingRetentionDays())
                 .status(room.getStatus())
                 .animatorType(room.getAnimatorType())
                 .professorId(room.getProfessor() != null ? room.getProfessor().getId() : null)
@@ -0,0 +1,116 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.search.SearchResultDTO;
+import com.free.easyLearn.entity.User;
+import com.free.easyLearn.exception.BadRequestException;
+import com.free.easyLearn.repository.ProfessorRepository;
+import com.free.easyLearn.repository.StudentRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Search of students (name, email, nickname, unique code) and professors (name, email) for admins.
+ *
+ * Matches fields starting with the query or similar to it (pg_trgm), ranked prefix matches first then
+ * by similarity, and returns projection rows read in one query per type. The trigram indexes are
+ * created by V16 (see {@link com.free.easyLearn.config.StartupMigrations}).
+ */
+@Service
+public class SearchService {
+
+    // pg_trgm needs at least one full trigram: shorter queries would scan every row
+    static final int MIN_QUERY_LENGTH = 3;
+    static final int MAX_QUERY_LENGTH = 100;
+    static final int MAX_LIMIT = 50;
+    private static final UUID NO_ADMIN = new UUID(0, 0);
+
+    public enum Scope {
+        ALL, STUDENTS, PROFESSORS
+    }
+
+    private static final Comparator<SearchResultDTO> RANKING = Comparator
+            .comparing(SearchResultDTO::isPrefixMatch).reversed()
+            .thenComparing(Comparator.comparingDouble(SearchResultDTO::getScore).reversed())
+            .thenComparing(SearchResultDTO::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    private final StudentRepository studentRepository;
+    private final ProfessorRepository professorRepository;
+
+    public SearchService(StudentRepository studentRepository,
+                         ProfessorRepository professorRepository) {
+        this.studentRepository = studentRepository;
+        this.professorRepository = professorRepository;
+    }
+
+    /**
+     * Best matches for {@code query}.
+     *
+     * @param adminId restrict to the students/professors created by this admin; null for all
+     */
+    @Transactional(readOnly = true)
+    public List<SearchResultDTO> search(String query, Scope scope, int limit, UUID adminId) {
+        String text = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
+        if (text.length() < MIN_QUERY_LENGTH || text.length() > MAX_QUERY_LENGTH) {
+            throw new BadRequestException("Search text must be between " + MIN_QUERY_LENGTH + " and "
+                    + MAX_QUERY_LENGTH + " characters");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        String prefix = escapeLike(text) + "%";
+        boolean allAdmins = adminId == null;
+        UUID admin = allAdmins ? NO_ADMIN : adminId;
+
+        List<SearchResultDTO> results = new ArrayList<>();
+        if (scope != Scope.PROFESSORS) {
+            studentRepository.search(text, prefix, allAdmins, admin, limit)
+                    .forEach(row -> results.add(toStudentResult(row)));
+        }
+        if (scope != Scope.STUDENTS) {
+            professorRepository.search(text, prefix, allAdmins, admin, limit)
+                    .forEach(row -> results.add(toProfessorResult(row)));
+        }
+        if (scope == Scope.ALL) {
+            results.sort(RANKING);
+            return results.subList(0, Math.min(limit, results.size()));
+        }
+        return results;
+    }
+
+    static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static SearchResultDTO toStudentResult(Object[] row) {
+        return SearchResultDTO.builder()
+                .type(User.UserRole.STUDENT)
+                .id((UUID) row[0])
+                .name((String) row[1])
+                .email((String) row[2])
+                .avatar((String) row[3])
+                .nickname((String) row[4])
+                .uniqueCode((String) row[5])
+                .level((String) row[6])
+                .score(((Number) row[7]).doubleValue())
+                .prefixMatch(Boolean.TRUE.equals(row[8]))
+                .build();
+    }
+
+    private static SearchResultDTO toProfessorResult(Object[] row) {
+        return SearchResultDTO.builder()
+                .type(User.UserRole.PROFESSOR)
+                .id((UUID) row[0])
+                .name((String) row[1])
+                .email((String) row[2])
+                .avatar((String) row[3])
+                .score(((Number) row[4]).doubleValue())
+                .prefixMatch(Boolean.TRUE.equals(row[5]))
+                .build();
+    }
+}
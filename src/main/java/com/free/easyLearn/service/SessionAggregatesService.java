@@ -0,0 +1,98 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.repository.ProfessorRepository;
+import com.free.easyLearn.repository.StudentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Keeps the completed-session totals of the students (students.total_sessions / hours_learned) and
+ * professors (professors.total_sessions) up to date, so that listings and dashboards read them instead
+ * of summing rooms.
+ *
+ * A room counts for its professor and each invited student once it is COMPLETED; every change of
+ * status or duration applies the difference with one UPDATE over the room's participants (and one for
+ * the professor). The totals are recomputed from the rooms at startup and nightly, which initializes
+ * existing data and repairs any drift.
+ */
+@Service
+@Slf4j
+public class SessionAggregatesService {
+
+    private final StudentRepository studentRepository;
+    private final ProfessorRepository professorRepository;
+    private final AdminStatsSnapshot adminStatsSnapshot;
+
+    public SessionAggregatesService(StudentRepository studentRepository,
+                                    ProfessorRepository professorRepository,
+                                    AdminStatsSnapshot adminStatsSnapshot) {
+        this.studentRepository = studentRepository;
+        this.professorRepository = professorRepository;
+        this.adminStatsSnapshot = adminStatsSnapshot;
+    }
+
+    /**
+     * Apply a change of a room's status and/or duration to the totals of its invited students.
+     *
+     * @param previousStatus status before the change
+     * @param previousDuration duration (minutes) before the change
+     */
+    @Transactional
+    public void roomChanged(Room room, Room.RoomStatus previousStatus, Integer previousDuration) {
+        apply(room,
+                completedSessions(room.getStatus()) - completedSessions(previousStatus),
+                completedMinutes(room.getStatus(), room.getDuration()) - completedMinutes(previousStatus, previousDuration));
+    }
+
+    /**
+     * Remove the contribution of a room that is about to be deleted.
+     */
+    @Transactional
+    public void roomDeleted(Room room) {
+        apply(room, -completedSessions(room.getStatus()), -completedMinutes(room.getStatus(), room.getDuration()));
+    }
+
+    /**
+     * Recompute every student's and professor's totals from the completed rooms. Runs at startup and every night.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void recomputeTotals() {
+        int students = studentRepository.recomputeLearningTotals();
+        int professors = professorRepository.recomputeTotalSessions();
+        if (students > 0 || professors > 0) {
+            log.info("Recomputed session totals of {} students and {} professors", students, professors);
+            adminStatsSnapshot.markDirty(AdminStatsSnapshot.Section.STUDENTS);
+        }
+    }
+
+    private void apply(Room room, int sessions, int minutes) {
+        if (sessions == 0 && minutes == 0) {
+            return;
+        }
+        BigDecimal hours = BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP);
+        int updated = studentRepository.addLearningTotals(room.getId(), sessions, hours);
+        log.debug("Room {}: applied {} sessions / {} hours to {} students", room.getId(), sessions, hours, updated);
+        if (sessions != 0 && room.getProfessor() != null) {
+            professorRepository.addTotalSessions(room.getProfessor().getId(), sessions);
+        }
+        adminStatsSnapshot.markDirty(AdminStatsSnapshot.Section.STUDENTS);
+    }
+
+    private static int completedSessions(Room.RoomStatus status) {
+        return status == Room.RoomStatus.COMPLETED ? 1 : 0;
+    }
+
+    private static int completedMinutes(Room.RoomStatus status, Integer duration) {
+        return status == Room.RoomStatus.COMPLETED && duration != null ? duration : 0;
+    }
+}
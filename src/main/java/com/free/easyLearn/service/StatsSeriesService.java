@@ -0,0 +1,243 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.stats.TimeSeriesDTO;
+import com.free.easyLearn.exception.BadRequestException;
+import com.free.easyLearn.repository.EvaluationRepository;
+import com.free.easyLearn.repository.RoomParticipantRepository;
+import com.free.easyLearn.repository.RoomRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Time-bucketed statistics (sessions held, attendance, hours taught, evaluation scores), aggregated in
+ * Postgres with date_trunc.
+ *
+ * Points are cached per (admin scope, metric, bucket size, bucket start). Past buckets can still change
+ * (a session completed late, a room or evaluation edited): the ones of the affected metrics are dropped
+ * when a room, participant or evaluation changes (see {@link AdminStatsChangeListener}), and all of them
+ * expire after {@code stats.series.closed-bucket-ttl-seconds} to pick up changes made on other replicas
+ * or outside JPA. The current bucket is recomputed at most once per
+ * {@code stats.series.current-bucket-ttl-seconds}. Missing past buckets of a request are loaded with a
+ * single query over their span.
+ */
+@Service
+@Slf4j
+@Transactional(readOnly = true)
+public class StatsSeriesService {
+
+    static final int MAX_BUCKETS = 400;
+    private static final UUID NO_ADMIN = new UUID(0, 0);
+
+    public enum Metric {
+        SESSIONS, ATTENDANCE, HOURS_TAUGHT, EVALUATION_SCORE
+    }
+
+    public enum Bucket {
+        DAY, WEEK, MONTH;
+
+        LocalDateTime truncate(LocalDateTime time) {
+            return switch (this) {
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                // ISO weeks start on Monday, like date_trunc('week', ...)
+                case WEEK -> time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+                case MONTH -> time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+            };
+        }
+
+        LocalDateTime next(LocalDateTime bucketStart) {
+            return switch (this) {
+                case DAY -> bucketStart.plusDays(1);
+                case WEEK -> bucketStart.plusWeeks(1);
+                case MONTH -> bucketStart.plusMonths(1);
+            };
+        }
+
+        /**
+         * Start of the default range ending at {@code to}: 30 days, 12 weeks or 12 months.
+         */
+        public LocalDateTime defaultFrom(LocalDateTime to) {
+            return switch (this) {
+                case DAY -> to.minusDays(30);
+                case WEEK -> to.minusWeeks(12);
+                case MONTH -> to.minusMonths(12);
+            };
+        }
+
+        String sqlUnit() {
+            return name().toLowerCase();
+        }
+    }
+
+    private record PointKey(UUID adminId, Metric metric, Bucket bucket, LocalDateTime bucketStart) {
+    }
+
+    private record Point(double value, long count) {
+        static final Point EMPTY = new Point(0, 0);
+    }
+
+    private final RoomRepository roomRepository;
+    private final RoomParticipantRepository roomParticipantRepository;
+    private final EvaluationRepository evaluationRepository;
+
+    private final Cache<PointKey, Point> closedBuckets;
+    private final Cache<PointKey, Point> currentBuckets;
+
+    public StatsSeriesService(RoomRepository roomRepository,
+                              RoomParticipantRepository roomParticipantRepository,
+                              EvaluationRepository evaluationRepository,
+                              @Value("${stats.series.current-bucket-ttl-seconds:60}") long currentBucketTtlSeconds,
+                              @Value("${stats.series.closed-bucket-ttl-seconds:3600}") long closedBucketTtlSeconds) {
+        this.roomRepository = roomRepository;
+        this.roomParticipantRepository = roomParticipantRepository;
+        this.evaluationRepository = evaluationRepository;
+        this.closedBuckets = Caffeine.newBuilder()
+                .maximumSize(200_000)
+                .expireAfterWrite(Duration.ofSeconds(closedBucketTtlSeconds))
+                .build();
+        this.currentBuckets = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(currentBucketTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Series of {@code metric} over the buckets intersecting [from, to).
+     *
+     * @param adminId restrict to the students/professors created by this admin; null for all
+     */
+    public TimeSeriesDTO getSeries(Metric metric, Bucket bucket, LocalDateTime from, LocalDateTime to, UUID adminId) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime currentStart = bucket.truncate(now);
+
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (LocalDateTime start = bucket.truncate(from); start.isBefore(to); start = bucket.next(start)) {
+            if (starts.size() == MAX_BUCKETS) {
+                throw new BadRequestException("Range too large: at most " + MAX_BUCKETS + " " + bucket.sqlUnit() + " buckets");
+            }
+            starts.add(start);
+        }
+
+        // Past buckets: cached until invalidated or expired, the missing ones loaded together
+        Map<LocalDateTime, Point> points = new HashMap<>();
+        List<LocalDateTime> missing = new ArrayList<>();
+        for (LocalDateTime start : starts) {
+            if (start.isBefore(currentStart)) {
+                Point cached = closedBuckets.getIfPresent(new PointKey(adminId, metric, bucket, start));
+                if (cached != null) {
+                    points.put(start, cached);
+                } else {
+                    missing.add(start);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            LocalDateTime spanEnd = bucket.next(missing.get(missing.size() - 1));
+            Map<LocalDateTime, Point> loaded = load(metric, bucket, missing.get(0), spanEnd, adminId);
+            for (LocalDateTime start : missing) {
+                Point point = loaded.getOrDefault(start, Point.EMPTY);
+                closedBuckets.put(new PointKey(adminId, metric, bucket, start), point);
+                points.put(start, point);
+            }
+        }
+
+        // Current bucket: recomputed once its short-lived entry expires
+        if (starts.contains(currentStart)) {
+            Point current = currentBuckets.get(new PointKey(adminId, metric, bucket, currentStart),
+                    key -> load(metric, bucket, currentStart, bucket.next(currentStart), adminId)
+                            .getOrDefault(currentStart, Point.EMPTY));
+            points.put(currentStart, current);
+        }
+
+        List<TimeSeriesDTO.PointDTO> pointDTOs = starts.stream()
+                .map(start -> {
+                    Point point = points.getOrDefault(start, Point.EMPTY); // future buckets are empty
+                    return TimeSeriesDTO.PointDTO.builder()
+                            .bucketStart(start)
+                            .value(point.value())
+                            .count(point.count())
+                            .build();
+                })
+                .toList();
+        return TimeSeriesDTO.builder()
+                .metric(metric.name())
+                .bucket(bucket.name())
+                .from(from)
+                .to(to)
+                .createdBy(adminId)
+                .points(pointDTOs)
+                .build();
+    }
+
+    /**
+     * Drop the cached points of these metrics, past buckets included. Inside a transaction, takes effect
+     * after commit (so that a concurrent read cannot cache the data from before the change again).
+     */
+    public void invalidate(Set<Metric> metrics) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(metrics);
+                }
+            });
+        } else {
+            evict(metrics);
+        }
+    }
+
+    private void evict(Set<Metric> metrics) {
+        closedBuckets.asMap().keySet().removeIf(key -> metrics.contains(key.metric()));
+        currentBuckets.asMap().keySet().removeIf(key -> metrics.contains(key.metric()));
+    }
+
+    private Map<LocalDateTime, Point> load(Metric metric, Bucket bucket, LocalDateTime from, LocalDateTime to, UUID adminId) {
+        log.debug("Loading {} series by {} from {} to {} (admin {})", metric, bucket, from, to, adminId);
+        boolean allAdmins = adminId == null;
+        UUID admin = allAdmins ? NO_ADMIN : adminId;
+        String unit = bucket.sqlUnit();
+        Map<LocalDateTime, Point> points = new HashMap<>();
+        switch (metric) {
+            case SESSIONS -> roomRepository.completedSessionSeries(unit, from, to, allAdmins, admin)
+                    .forEach(row -> points.put(toLocalDateTime(row[0]), new Point(toLong(row[1]), toLong(row[1]))));
+            case HOURS_TAUGHT -> roomRepository.completedSessionSeries(unit, from, to, allAdmins, admin)
+                    .forEach(row -> points.put(toLocalDateTime(row[0]),
+                            new Point(Math.round(toLong(row[2]) / 60.0 * 100) / 100.0, toLong(row[1]))));
+            case ATTENDANCE -> roomParticipantRepository.attendanceSeries(unit, from, to, allAdmins, admin)
+                    .forEach(row -> points.put(toLocalDateTime(row[0]), new Point(toLong(row[1]), toLong(row[1]))));
+            case EVALUATION_SCORE -> evaluationRepository.scoreSeries(unit, from, to, allAdmins, admin)
+                    .forEach(row -> points.put(toLocalDateTime(row[0]),
+                            new Point(row[2] != null ? ((Number) row[2]).doubleValue() : 0, toLong(row[1]))));
+        }
+        return points;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+}
@@ -8,6 +8,7 @@ import com.free.easyLearn.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,58 +30,115 @@ public class StatsService {
     // ===========================
     // ADMIN STATS
     // ===========================
+
+    /**
+     * Full computation of the admin dashboard. The dashboard itself is served from
+     * {@link AdminStatsSnapshot}, which calls {@link #refreshAdminStats} section by section.
+     */
     public AdminStatsDTO getAdminStats() {
-        log.info("Fetching admin statistics");
+        return refreshAdminStats(null, EnumSet.allOf(AdminStatsSnapshot.Section.class));
+    }
 
-        long totalStudents = studentRepository.count();
-        long totalProfessors = professorRepository.count();
-        long activeRooms = roomRepository.countByStatus(Room.RoomStatus.LIVE);
-        long scheduledSessions = roomRepository.countByStatus(Room.RoomStatus.SCHEDULED);
-        long completedSessions = roomRepository.countByStatus(Room.RoomStatus.COMPLETED);
-        long totalEvaluations = evaluationRepository.count();
-        Double avgScore = evaluationRepository.getAverageScore();
+    /**
+     * Recompute the given sections of the admin dashboard, keeping the other ones from {@code previous}.
+     */
+    public AdminStatsDTO refreshAdminStats(AdminStatsDTO previous, Set<AdminStatsSnapshot.Section> sections) {
+        log.info("Computing admin statistics: {}", sections);
+        return computeAdminStats(previous, sections, null);
+    }
 
-        // Live rooms
-        List<Room> liveRooms = roomRepository.findByStatus(Room.RoomStatus.LIVE);
-        List<AdminStatsDTO.RoomSummaryDTO> liveRoomDTOs = liveRooms.stream()
-                .map(this::toAdminRoomSummary)
-                .collect(Collectors.toList());
+    /**
+     * Admin dashboard restricted to one admin's data: the students and professors they created, the rooms
+     * of those professors and the evaluations of those students. Served through {@link AdminStatsSnapshot#forAdmin}.
+     */
+    public AdminStatsDTO getAdminStatsForAdmin(UUID adminId) {
+        log.info("Computing admin statistics for admin {}", adminId);
+        return computeAdminStats(null, EnumSet.allOf(AdminStatsSnapshot.Section.class), adminId);
+    }
 
-        // Upcoming sessions (limit 5)
-        List<Room> upcomingRooms = roomRepository.findByStatus(Room.RoomStatus.SCHEDULED);
-        List<AdminStatsDTO.RoomSummaryDTO> upcomingDTOs = upcomingRooms.stream()
-                .limit(5)
-                .map(this::toAdminRoomSummary)
-                .collect(Collectors.toList());
+    /**
+     * @param adminId restrict every section to this admin's data; null for the whole platform
+     */
+    private AdminStatsDTO computeAdminStats(AdminStatsDTO previous, Set<AdminStatsSnapshot.Section> sections, UUID adminId) {
+        AdminStatsDTO.AdminStatsDTOBuilder builder = previous != null ? previous.toBuilder() : AdminStatsDTO.builder();
+        for (AdminStatsSnapshot.Section section : sections) {
+            switch (section) {
+                case STUDENTS -> refreshStudentSection(builder, adminId);
+                case PROFESSORS -> builder.totalProfessors(adminId == null
+                        ? professorRepository.count()
+                        : professorRepository.countByCreatedById(adminId));
+                case ROOMS -> refreshRoomSection(builder, adminId);
+                case EVALUATIONS -> refreshEvaluationSection(builder, adminId);
+            }
+        }
+        return builder.build();
+    }
 
+    private void refreshStudentSection(AdminStatsDTO.AdminStatsDTOBuilder builder, UUID adminId) {
         // Recent students (limit 6)
-        List<Student> recentStudents = studentRepository.findRecentStudents(PageRequest.of(0, 6));
+        List<Student> recentStudents = adminId == null
+                ? studentRepository.findRecentStudents(PageRequest.of(0, 6))
+                : studentRepository.findRecentStudentsForAdmin(adminId, PageRequest.of(0, 6));
         List<AdminStatsDTO.StudentSummaryDTO> recentStudentDTOs = recentStudents.stream()
                 .map(this::toStudentSummary)
                 .collect(Collectors.toList());
 
-        // Level distribution
-        List<Object[]> levelCounts = studentRepository.countByLevel();
+        // Level distribution (the total is the sum of the levels)
+        List<Object[]> levelCounts = adminId == null
+                ? studentRepository.countByLevel()
+                : studentRepository.countByLevelForAdmin(adminId);
         List<AdminStatsDTO.LevelDistributionDTO> levelDist = levelCounts.stream()
                 .map(row -> AdminStatsDTO.LevelDistributionDTO.builder()
                         .level(row[0].toString())
                         .count((Long) row[1])
                         .build())
                 .collect(Collectors.toList());
+        long totalStudents = levelDist.stream().mapToLong(AdminStatsDTO.LevelDistributionDTO::getCount).sum();
 
-        return AdminStatsDTO.builder()
-                .totalStudents(totalStudents)
-                .totalProfessors(totalProfessors)
-                .activeRooms(activeRooms)
-                .scheduledSessions(scheduledSessions)
-                .completedSessions(completedSessions)
-                .totalEvaluations(totalEvaluations)
-                .averageEvaluationScore(avgScore != null ? avgScore : 0.0)
-                .liveRooms(liveRoomDTOs)
-                .upcomingSessions(upcomingDTOs)
+        builder.totalStudents(totalStudents)
                 .recentStudents(recentStudentDTOs)
-                .levelDistribution(levelDist)
-                .build();
+                .levelDistribution(levelDist);
+    }
+
+    private void refreshRoomSection(AdminStatsDTO.AdminStatsDTOBuilder builder, UUID adminId) {
+        Map<Room.RoomStatus, Long> countsByStatus = new EnumMap<>(Room.RoomStatus.class);
+        List<Object[]> statusCounts = adminId == null
+                ? roomRepository.countGroupedByStatus()
+                : roomRepository.countGroupedByStatusForAdmin(adminId);
+        for (Object[] row : statusCounts) {
+            countsByStatus.put((Room.RoomStatus) row[0], (Long) row[1]);
+        }
+
+        // Live rooms, and upcoming sessions (limit 5) — professor fetched with the room
+        List<Room> liveRooms = roomsWithProfessor(adminId, Room.RoomStatus.LIVE, Pageable.unpaged());
+        List<Room> upcomingRooms = roomsWithProfessor(adminId, Room.RoomStatus.SCHEDULED, PageRequest.of(0, 5));
+
+        // Participant counts of all listed rooms in one query
+        Map<UUID, Long> participantCounts = joinedParticipantCounts(liveRooms, upcomingRooms);
+
+        builder.activeRooms(countsByStatus.getOrDefault(Room.RoomStatus.LIVE, 0L))
+                .scheduledSessions(countsByStatus.getOrDefault(Room.RoomStatus.SCHEDULED, 0L))
+                .completedSessions(countsByStatus.getOrDefault(Room.RoomStatus.COMPLETED, 0L))
+                .liveRooms(liveRooms.stream()
+                        .map(r -> toAdminRoomSummary(r, participantCounts.getOrDefault(r.getId(), 0L)))
+                        .collect(Collectors.toList()))
+                .upcomingSessions(upcomingRooms.stream()
+                        .map(r -> toAdminRoomSummary(r, participantCounts.getOrDefault(r.getId(), 0L)))
+                        .collect(Collectors.toList()));
+    }
+
+    private List<Room> roomsWithProfessor(UUID adminId, Room.RoomStatus status, Pageable pageable) {
+        return adminId == null
+                ? roomRepository.findWithProfessorByStatus(status, pageable)
+                : roomRepository.findWithProfessorForAdminByStatus(adminId, status, pageable);
+    }
+
+    private void refreshEvaluationSection(AdminStatsDTO.AdminStatsDTOBuilder builder, UUID adminId) {
+        Object[] row = (adminId == null
+                ? evaluationRepository.countAndAverageScore()
+                : evaluationRepository.countAndAverageScoreForAdmin(adminId)).get(0);
+        builder.totalEvaluations((Long) row[0])
+                .averageEvaluationScore(row[1] != null ? ((Number) row[1]).doubleValue() : 0.0);
     }
 
     // ===========================
@@ -92,76 +150,57 @@ public class StatsService {
         Professor professor = professorRepository.findById(professorId)
                 .orElseThrow(() -> new RuntimeException("Professor not found"));
 
-        // Rooms by professor
-        List<Room> allRooms = roomRepository.findAllByProfessorId(professorId);
-        List<Room> liveRooms = allRooms.stream()
-                .filter(r -> r.getStatus() == Room.RoomStatus.LIVE)
-                .collect(Collectors.toList());
-        long upcomingSessions = allRooms.stream()
-                .filter(r -> r.getStatus() == Room.RoomStatus.SCHEDULED)
-                .count();
-        long completedSessions = allRooms.stream()
-                .filter(r -> r.getStatus() == Room.RoomStatus.COMPLETED)
-                .count();
-
-        // Unique students across all rooms
-        Set<UUID> uniqueStudentIds = new HashSet<>();
-        for (Room room : allRooms) {
-            List<RoomParticipant> participants = roomParticipantRepository.findByRoomId(room.getId());
-            participants.forEach(p -> {
-                if (p.getStudent() != null) {
-                    uniqueStudentIds.add(p.getStudent().getId());
-                }
-            });
+        // Room counts by status in one GROUP BY
+        Map<Room.RoomStatus, Long> countsByStatus = new EnumMap<>(Room.RoomStatus.class);
+        for (Object[] row : roomRepository.countByProfessorGroupedByStatus(professorId)) {
+            countsByStatus.put((Room.RoomStatus) row[0], (Long) row[1]);
         }
+        long upcomingSessions = countsByStatus.getOrDefault(Room.RoomStatus.SCHEDULED, 0L);
+        long completedSessions = countsByStatus.getOrDefault(Room.RoomStatus.COMPLETED, 0L);
 
-        // Evaluations
-        long totalEvaluations = evaluationRepository.countByProfessorId(professorId);
-        Double avgEvalScore = evaluationRepository.getAverageScoreByProfessorId(professorId);
+        // Live rooms, and upcoming sessions (limit 5)
+        List<Room> liveRooms = roomRepository.findByProfessorIdAndStatus(professorId, Room.RoomStatus.LIVE, Pageable.unpaged());
+        List<Room> upcomingRooms = roomRepository.findByProfessorIdAndStatus(professorId, Room.RoomStatus.SCHEDULED, PageRequest.of(0, 5));
 
-        // Live rooms DTOs
-        List<ProfessorStatsDTO.RoomSummaryDTO> liveRoomDTOs = liveRooms.stream()
-                .map(this::toProfRoomSummary)
-                .collect(Collectors.toList());
+        // Participant counts of all listed rooms in one query
+        Map<UUID, Long> participantCounts = joinedParticipantCounts(liveRooms, upcomingRooms);
 
-        // Upcoming sessions list (limit 5)
-        List<ProfessorStatsDTO.RoomSummaryDTO> upcomingDTOs = allRooms.stream()
-                .filter(r -> r.getStatus() == Room.RoomStatus.SCHEDULED)
-                .sorted(Comparator.comparing(Room::getScheduledAt))
-                .limit(5)
-                .map(this::toProfRoomSummary)
-                .collect(Collectors.toList());
+        // Evaluations
+        Object[] evaluationRow = evaluationRepository.countAndAverageScoreByProfessorId(professorId).get(0);
+        long totalEvaluations = (Long) evaluationRow[0];
+        double avgEvalScore = evaluationRow[1] != null ? ((Number) evaluationRow[1]).doubleValue() : 0.0;
 
-        // My students details: only include students that were created by the same admin/user
+        // My students: only students created by the same admin/user, most sessions first (limit 10).
+        // The distinct count and the list come from the same statement.
         UUID professorCreatedById = professor.getCreatedBy() != null ? professor.getCreatedBy().getId() : null;
-
-        List<ProfessorStatsDTO.StudentSummaryDTO> myStudents = uniqueStudentIds.stream()
-                .map(studentRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .filter(s -> {
-                    if (professorCreatedById == null) return false;
-                    return s.getCreatedBy() != null && professorCreatedById.equals(s.getCreatedBy().getId());
-                })
-                .limit(10)
-                .map(s -> ProfessorStatsDTO.StudentSummaryDTO.builder()
-                        .id(s.getId().toString())
-                        .name(s.getUser().getName())
-                        .avatar(s.getUser().getAvatar())
-                        .level(s.getLevel().name())
-                        .nickname(s.getNickname())
-                        .build())
-                .collect(Collectors.toList());
+        long totalStudents = 0;
+        List<ProfessorStatsDTO.StudentSummaryDTO> myStudents = new ArrayList<>();
+        if (professorCreatedById != null) {
+            for (Object[] row : roomParticipantRepository.findStudentSummariesByProfessor(professorId, professorCreatedById, 10)) {
+                totalStudents = ((Number) row[6]).longValue();
+                myStudents.add(ProfessorStatsDTO.StudentSummaryDTO.builder()
+                        .id(row[0].toString())
+                        .name((String) row[1])
+                        .avatar((String) row[2])
+                        .level(row[3] != null ? row[3].toString() : null)
+                        .nickname((String) row[4])
+                        .build());
+            }
+        }
 
         return ProfessorStatsDTO.builder()
-                .totalStudents(myStudents.size())
+                .totalStudents(totalStudents)
                 .upcomingSessions(upcomingSessions)
                 .completedSessions(completedSessions)
                 .totalSessions(completedSessions)
                 .totalEvaluations(totalEvaluations)
-                .averageEvaluationScore(avgEvalScore != null ? avgEvalScore : 0.0)
-                .liveRooms(liveRoomDTOs)
-                .upcomingSessionsList(upcomingDTOs)
+                .averageEvaluationScore(avgEvalScore)
+                .liveRooms(liveRooms.stream()
+                        .map(r -> toProfRoomSummary(r, participantCounts.getOrDefault(r.getId(), 0L)))
+                        .collect(Collectors.toList()))
+                .upcomingSessionsList(upcomingRooms.stream()
+                        .map(r -> toProfRoomSummary(r, participantCounts.getOrDefault(r.getId(), 0L)))
+                        .collect(Collectors.toList()))
                 .myStudents(myStudents)
                 .build();
     }
@@ -233,19 +272,11 @@ public class StatsService {
                         .build())
                 .collect(Collectors.toList());
 
-        // Compute totalSessions and hoursLearned dynamically from completed rooms
-        long dynamicTotalSessions = allRooms.stream()
-                .filter(r -> r.getStatus() == Room.RoomStatus.COMPLETED)
-                .count();
-        double dynamicHoursLearned = allRooms.stream()
-                .filter(r -> r.getStatus() == Room.RoomStatus.COMPLETED)
-                .mapToInt(r -> r.getDuration() != null ? r.getDuration() : 0)
-                .sum() / 60.0;
-
         return StudentStatsDTO.builder()
                 .level(student.getLevel().name())
-                .hoursLearned(java.math.BigDecimal.valueOf(dynamicHoursLearned).setScale(1, java.math.RoundingMode.HALF_UP))
-                .totalSessions((int) dynamicTotalSessions)
+                .hoursLearned(student.getHoursLearned() != null
+                        ? student.getHoursLearned().setScale(1, java.math.RoundingMode.HALF_UP) : java.math.BigDecimal.ZERO)
+                .totalSessions(student.getTotalSessions())
                 .upcomingSessions(upcomingSessions)
                 .completedSessions(completedSessions)
                 .overallProgress(overallProgress)
@@ -260,8 +291,7 @@ public class StatsService {
     // MAPPERS
     // ===========================
 
-    private AdminStatsDTO.RoomSummaryDTO toAdminRoomSummary(Room room) {
-        long participantCount = roomParticipantRepository.countByRoomIdAndJoinedAtIsNotNull(room.getId());
+    private AdminStatsDTO.RoomSummaryDTO toAdminRoomSummary(Room room, long participantCount) {
         return AdminStatsDTO.RoomSummaryDTO.builder()
                 .id(room.getId().toString())
                 .name(room.getName())
@@ -293,8 +323,22 @@ public class StatsService {
                 .build();
     }
 
-    private ProfessorStatsDTO.RoomSummaryDTO toProfRoomSummary(Room room) {
-        long participantCount = roomParticipantRepository.countByRoomIdAndJoinedAtIsNotNull(room.getId());
+    @SafeVarargs
+    private Map<UUID, Long> joinedParticipantCounts(List<Room>... roomLists) {
+        List<UUID> roomIds = new ArrayList<>();
+        for (List<Room> rooms : roomLists) {
+            rooms.forEach(r -> roomIds.add(r.getId()));
+        }
+        Map<UUID, Long> participantCounts = new HashMap<>();
+        if (!roomIds.isEmpty()) {
+            for (Object[] row : roomParticipantRepository.countJoinedByRoomIds(roomIds)) {
+                participantCounts.put((UUID) row[0], (Long) row[1]);
+            }
+        }
+        return participantCounts;
+    }
+
+    private ProfessorStatsDTO.RoomSummaryDTO toProfRoomSummary(Room room, long participantCount) {
         return ProfessorStatsDTO.RoomSummaryDTO.builder()
                 .id(room.getId().toString())
                 .name(room.getName())
@@ -0,0 +1,75 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.StudentGameStats;
+import com.free.easyLearn.repository.StudentGameStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the challenge totals of the students (student_game_stats: points, correct answers, current and
+ * longest streak) up to date, so that the game stats are read from one row instead of aggregating the
+ * attempts.
+ *
+ * Every correct answer is applied with one upsert in the answer's transaction. The rows are recomputed
+ * from the attempts at startup and nightly, which backfills existing data and repairs any drift.
+ */
+@Service
+@Slf4j
+public class StudentGameStatsService {
+
+    private final StudentGameStatsRepository gameStatsRepository;
+
+    public StudentGameStatsService(StudentGameStatsRepository gameStatsRepository) {
+        this.gameStatsRepository = gameStatsRepository;
+    }
+
+    /**
+     * Add a correct answer completed on {@code day} to the student's totals.
+     */
+    @Transactional
+    public void recordCorrectAnswer(UUID studentId, int points, LocalDate day) {
+        gameStatsRepository.addCorrectAnswer(studentId, points, day, day.minusDays(1));
+    }
+
+    /**
+     * Totals of a student; empty until their first correct answer.
+     */
+    @Transactional(readOnly = true)
+    public Optional<StudentGameStats> getStats(UUID studentId) {
+        return gameStatsRepository.findById(studentId);
+    }
+
+    /**
+     * Streak still running on {@code today}: the stored one if the last correct answer was today or
+     * yesterday, 0 otherwise.
+     */
+    public static int currentStreak(StudentGameStats stats, LocalDate today) {
+        LocalDate last = stats.getLastCorrectDate();
+        return last != null && !last.isBefore(today.minusDays(1)) ? stats.getCurrentStreak() : 0;
+    }
+
+    /**
+     * Recompute every student's totals from the challenge attempts, and delete the rows of students left
+     * without any correct attempt. Runs at startup and every night.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 45 3 * * *")
+    @Transactional
+    public void recomputeAll() {
+        long start = System.currentTimeMillis();
+        int updated = gameStatsRepository.recomputeAll();
+        int deleted = gameStatsRepository.deleteWithoutCorrectAttempts();
+        if (updated > 0 || deleted > 0) {
+            log.info("Recomputed game stats of {} students and deleted {} stale rows in {} ms",
+                    updated, deleted, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.free.easyLearn.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.free.easyLearn.dto.student.StudentImportResultDTO;
+import com.free.easyLearn.dto.student.StudentImportRow;
+import com.free.easyLearn.entity.Student;
+import com.free.easyLearn.entity.User;
+import com.free.easyLearn.exception.BadRequestException;
+import com.free.easyLearn.repository.StudentRepository;
+import com.free.easyLearn.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk import of students (CSV or JSON), for onboarding a whole school at once.
+ *
+ * Rows are validated first, with the uniqueness of emails and unique codes checked in bulk queries.
+ * Passwords are then hashed in parallel on a bounded pool ({@code students.import.hash-threads}), and
+ * users and students are inserted with JDBC batches of {@code students.import.batch-size} rows, one
+ * transaction per chunk. A chunk rejected by the database is retried row by row, so that one bad row
+ * only fails itself. Every rejected row is reported with its position and reason.
+ */
+@Service
+@Slf4j
+public class StudentImportService {
+
+    static final int MAX_ROWS = 20_000;
+    private static final int LOOKUP_CHUNK = 1_000;
+
+    private static final String INSERT_USER = "INSERT INTO users (id, email, password_hash, name, avatar, role, " +
+            "is_active, email_verified, created_at, updated_at, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_STUDENT = "INSERT INTO students (id, user_id, nickname, bio, level, joined_at, " +
+            "total_sessions, hours_learned, student_type, unique_code, created_at, updated_at, created_by) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private record Prepared(int row, StudentImportRow data, Student.LanguageLevel level, Student.StudentType type) {
+    }
+
+    private record Hashed(Prepared prepared, String passwordHash) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final StudentRepository studentRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final AdminStatsSnapshot adminStatsSnapshot;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService hashPool;
+    private final int batchSize;
+
+    public StudentImportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                UserRepository userRepository,
+                                StudentRepository studentRepository,
+                                PasswordEncoder passwordEncoder,
+                                AdminStatsSnapshot adminStatsSnapshot,
+                                ObjectMapper objectMapper,
+                                @Value("${students.import.hash-threads:0}") int hashThreads,
+                                @Value("${students.import.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userRepository = userRepository;
+        this.studentRepository = studentRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.adminStatsSnapshot = adminStatsSnapshot;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.hashPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "student-import-hash-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+
+    /**
+     * Import a CSV file (header line with the {@link StudentImportRow} field names, camelCase or snake_case).
+     */
+    public StudentImportResultDTO importCsv(InputStream in, UUID adminId) throws IOException {
+        return importStudents(parseCsv(new InputStreamReader(in, StandardCharsets.UTF_8)), adminId);
+    }
+
+    /**
+     * Import a JSON array of {@link StudentImportRow}.
+     */
+    public StudentImportResultDTO importJson(InputStream in, UUID adminId) throws IOException {
+        return importStudents(objectMapper.readValue(in, new TypeReference<List<StudentImportRow>>() {
+        }), adminId);
+    }
+
+    /**
+     * Import students created by {@code adminId}. Valid rows are imported even if others fail.
+     */
+    public StudentImportResultDTO importStudents(List<StudentImportRow> rows, UUID adminId) {
+        if (rows.size() > MAX_ROWS) {
+            throw new BadRequestException("Too many rows: at most " + MAX_ROWS + " students per import");
+        }
+        long start = System.currentTimeMillis();
+        List<StudentImportResultDTO.RowErrorDTO> errors = new ArrayList<>();
+
+        List<Prepared> valid = validate(rows, errors);
+        valid = rejectExisting(valid, errors);
+        List<Hashed> hashed = hashPasswords(valid);
+
+        int imported = 0;
+        for (int from = 0; from < hashed.size(); from += batchSize) {
+            imported += insertChunk(hashed.subList(from, Math.min(from + batchSize, hashed.size())), adminId, errors);
+        }
+        if (imported > 0) {
+            adminStatsSnapshot.markDirty(AdminStatsSnapshot.Section.STUDENTS);
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+        long duration = System.currentTimeMillis() - start;
+        log.info("Imported {} of {} students for admin {} in {} ms", imported, rows.size(), adminId, duration);
+        return StudentImportResultDTO.builder()
+                .total(rows.size())
+                .imported(imported)
+                .failed(errors.size())
+                .durationMs(duration)
+                .errors(errors)
+                .build();
+    }
+
+    private List<Prepared> validate(List<StudentImportRow> rows, List<StudentImportResultDTO.RowErrorDTO> errors) {
+        List<Prepared> valid = new ArrayList<>();
+        Set<String> codes = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            StudentImportRow row = rows.get(i);
+            trim(row);
+            String error = validateRow(row);
+            Student.LanguageLevel level = null;
+            Student.StudentType type = Student.StudentType.SCOLAIRE;
+            if (error == null) {
+                try {
+                    level = Student.LanguageLevel.valueOf(row.getLevel().toUpperCase(Locale.ROOT));
+                    if (row.getStudentType() != null) {
+                        type = Student.StudentType.valueOf(row.getStudentType().toUpperCase(Locale.ROOT));
+                    }
+                } catch (IllegalArgumentException e) {
+                    error = "Invalid level or student type";
+                }
+            }
+            if (error == null && !codes.add(row.getUniqueCode())) {
+                error = "Duplicate unique code in the file";
+            }
+            if (error == null && row.getEmail() != null && !emails.add(row.getEmail())) {
+                error = "Duplicate email in the file";
+            }
+            if (error != null) {
+                errors.add(rowError(i + 1, row, error));
+            } else {
+                valid.add(new Prepared(i + 1, row, level, type));
+            }
+        }
+        return valid;
+    }
+
+    private static String validateRow(StudentImportRow row) {
+        if (row.getName() == null || row.getName().length() < 2 || row.getName().length() > 255) {
+            return "Name must be between 2 and 255 characters";
+        }
+        if (row.getPassword() == null || row.getPassword().length() < 6) {
+            return "Password must be at least 6 characters";
+        }
+        if (row.getUniqueCode() == null || row.getUniqueCode().length() < 2 || row.getUniqueCode().length() > 100) {
+            return "Unique code must be between 2 and 100 characters";
+        }
+        if (row.getNickname() == null || row.getNickname().length() < 2 || row.getNickname().length() > 100) {
+            return "Nickname must be between 2 and 100 characters";
+        }
+        if (row.getBio() != null && row.getBio().length() > 500) {
+            return "Bio must not exceed 500 characters";
+        }
+        if (row.getEmail() != null && !row.getEmail().matches("[^@\\s]+@[^@\\s]+\\.[^@\\s]+")) {
+            return "Email should be valid";
+        }
+        if (row.getLevel() == null) {
+            return "Level is required";
+        }
+        return null;
+    }
+
+    private static void trim(StudentImportRow row) {
+        row.setName(blankToNull(row.getName()));
+        row.setEmail(blankToNull(row.getEmail()));
+        row.setUniqueCode(blankToNull(row.getUniqueCode()));
+        row.setNickname(blankToNull(row.getNickname()));
+        row.setBio(blankToNull(row.getBio()));
+        row.setAvatar(blankToNull(row.getAvatar()));
+        row.setLevel(blankToNull(row.getLevel()));
+        row.setStudentType(blankToNull(row.getStudentType()));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Reject the rows whose unique code or email is already taken, with one query per 1000 values.
+     */
+    private List<Prepared> rejectExisting(List<Prepared> rows, List<StudentImportResultDTO.RowErrorDTO> errors) {
+        Set<String> takenCodes = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        List<String> codes = rows.stream().map(p -> p.data().getUniqueCode()).toList();
+        List<String> emails = rows.stream().map(p -> p.data().getEmail()).filter(Objects::nonNull).toList();
+        for (int from = 0; from < codes.size(); from += LOOKUP_CHUNK) {
+            takenCodes.addAll(studentRepository.findExistingUniqueCodes(codes.subList(from, Math.min(from + LOOKUP_CHUNK, codes.size()))));
+        }
+        for (int from = 0; from < emails.size(); from += LOOKUP_CHUNK) {
+            takenEmails.addAll(userRepository.findExistingEmails(emails.subList(from, Math.min(from + LOOKUP_CHUNK, emails.size()))));
+        }
+
+        List<Prepared> available = new ArrayList<>();
+        for (Prepared prepared : rows) {
+            if (takenCodes.contains(prepared.data().getUniqueCode())) {
+                errors.add(rowError(prepared.row(), prepared.data(), "Unique code already in use"));
+            } else if (prepared.data().getEmail() != null && takenEmails.contains(prepared.data().getEmail())) {
+                errors.add(rowError(prepared.row(), prepared.data(), "User with this email already exists"));
+            } else {
+                available.add(prepared);
+            }
+        }
+        return available;
+    }
+
+    private List<Hashed> hashPasswords(List<Prepared> rows) {
+        List<CompletableFuture<Hashed>> futures = rows.stream()
+                .map(p -> CompletableFuture.supplyAsync(
+                        () -> new Hashed(p, passwordEncoder.encode(p.data().getPassword())), hashPool))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Insert a chunk in one transaction; if the database rejects it, insert its rows one by one.
+     *
+     * @return number of students inserted
+     */
+    private int insertChunk(List<Hashed> chunk, UUID adminId, List<StudentImportResultDTO.RowErrorDTO> errors) {
+        try {
+            insert(chunk, adminId);
+            return chunk.size();
+        } catch (DataAccessException e) {
+            if (chunk.size() == 1) {
+                Prepared prepared = chunk.get(0).prepared();
+                errors.add(rowError(prepared.row(), prepared.data(), NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+                return 0;
+            }
+            log.warn("Student import chunk of {} rows rejected ({}), retrying row by row", chunk.size(), e.getMessage());
+            int inserted = 0;
+            for (Hashed row : chunk) {
+                inserted += insertChunk(List.of(row), adminId, errors);
+            }
+            return inserted;
+        }
+    }
+
+    private void insert(List<Hashed> chunk, UUID adminId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> users = new ArrayList<>(chunk.size());
+        List<Object[]> students = new ArrayList<>(chunk.size());
+        for (Hashed row : chunk) {
+            StudentImportRow data = row.prepared().data();
+            UUID userId = UUID.randomUUID();
+            users.add(new Object[]{userId, data.getEmail(), row.passwordHash(), data.getName(), data.getAvatar(),
+                    User.UserRole.STUDENT.name(), true, false, now, now, adminId});
+            students.add(new Object[]{UUID.randomUUID(), userId, data.getNickname(), data.getBio(),
+                    row.prepared().level().name(), now, 0, BigDecimal.ZERO, row.prepared().type().name(),
+                    data.getUniqueCode(), now, now, adminId});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_USER, users);
+            jdbcTemplate.batchUpdate(INSERT_STUDENT, students);
+        });
+    }
+
+    private static StudentImportResultDTO.RowErrorDTO rowError(int row, StudentImportRow data, String message) {
+        return StudentImportResultDTO.RowErrorDTO.builder()
+                .row(row)
+                .uniqueCode(data.getUniqueCode())
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Parse CSV (RFC 4180: quoted fields may contain commas, quotes doubled, line breaks) whose first line
+     * names the columns.
+     */
+    static List<StudentImportRow> parseCsv(Reader reader) throws IOException {
+        List<List<String>> records = readCsvRecords(new BufferedReader(reader));
+        if (records.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = records.get(0);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("uniquecode")) {
+            throw new BadRequestException("CSV header must contain a uniqueCode column");
+        }
+        List<StudentImportRow> rows = new ArrayList<>();
+        for (List<String> record : records.subList(1, records.size())) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            rows.add(StudentImportRow.builder()
+                    .name(field(record, columns, "name"))
+                    .email(field(record, columns, "email"))
+                    .password(field(record, columns, "password"))
+                    .uniqueCode(field(record, columns, "uniquecode"))
+                    .nickname(field(record, columns, "nickname"))
+                    .bio(field(record, columns, "bio"))
+                    .avatar(field(record, columns, "avatar"))
+                    .level(field(record, columns, "level"))
+                    .studentType(field(record, columns, "studenttype"))
+                    .build());
+        }
+        return rows;
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < record.size() ? record.get(index) : null;
+    }
+
+    private static List<List<String>> readCsvRecords(Reader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean pending = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            pending = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                record.add(field.toString());
+                field.setLength(0);
+                records.add(record);
+                record = new ArrayList<>();
+                pending = false;
+            } else if (c != '\r' && !(c == '\uFEFF' && records.isEmpty() && record.isEmpty() && field.isEmpty())) {
+                field.append((char) c);
+            }
+        }
+        if (pending) {
+            record.add(field.toString());
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -4,11 +4,13 @@ import com.free.easyLearn.dto.student.CreateStudentRequest;
 import com.free.easyLearn.dto.student.StudentDTO;
 import com.free.easyLearn.dto.student.StudentSkillsDTO;
 import com.free.easyLearn.dto.student.UpdateStudentRequest;
+import com.free.easyLearn.entity.Room;
 import com.free.easyLearn.entity.Student;
 import com.free.easyLearn.entity.StudentSkills;
 import com.free.easyLearn.entity.User;
 import com.free.easyLearn.exception.BadRequestException;
 import com.free.easyLearn.exception.ResourceNotFoundException;
+import com.free.easyLearn.repository.RoomRepository;
 import com.free.easyLearn.repository.StudentRepository;
 import com.free.easyLearn.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,7 +22,13 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -36,7 +44,39 @@ public class StudentService {
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private com.free.easyLearn.repository.RoomRepository roomRepository;
+    private RoomRepository roomRepository;
+
+    private record LearningTotals(int sessions, BigDecimal hours) {
+    }
+
+    /**
+     * Totals computed from the rooms, in one grouped query, for the students whose stored totals are not
+     * initialized yet (created since the last recomputation, see {@link SessionAggregatesService}).
+     */
+    private Map<UUID, LearningTotals> fallbackLearningTotals(Collection<Student> students) {
+        List<UUID> ids = students.stream()
+                .filter(s -> s.getTotalSessions() == null || s.getHoursLearned() == null)
+                .map(Student::getId)
+                .toList();
+        Map<UUID, LearningTotals> totals = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Object[] row : roomRepository.sumByStudentIdsAndStatus(ids, Room.RoomStatus.COMPLETED)) {
+                long minutes = ((Number) row[2]).longValue();
+                totals.put((UUID) row[0], new LearningTotals(((Number) row[1]).intValue(),
+                        BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP)));
+            }
+        }
+        return totals;
+    }
+
+    private Page<StudentDTO> mapPage(Page<Student> students) {
+        Map<UUID, LearningTotals> fallback = fallbackLearningTotals(students.getContent());
+        return students.map(s -> mapToDTO(s, fallback));
+    }
+
+    private StudentDTO mapToDTO(Student student) {
+        return mapToDTO(student, fallbackLearningTotals(List.of(student)));
+    }
 
     @Transactional
     public StudentDTO createStudent(CreateStudentRequest request) {
@@ -116,7 +156,7 @@ public class StudentService {
 
         Page<Student> students = studentRepository.findAllStudents(pageable);
 
-        return students.map(this::mapToDTO);
+        return mapPage(students);
     }
 
     public Page<StudentDTO> getStudentsByAdmin(UUID adminId, int page, int size, String sortBy, String sortOrder) {
@@ -127,17 +167,27 @@ public class StudentService {
 
         Page<Student> students = studentRepository.findAllStudentsByAdmin(adminId, pageable);
 
-        return students.map(this::mapToDTO);
+        return mapPage(students);
     }
 
+    /**
+     * Students with the given ids, loaded with their users in one query.
+     */
     public List<StudentDTO> getStudentsByIds(List<UUID> studentIds) {
-        List<Student> students = studentRepository.findAllById(studentIds);
+        if (studentIds == null || studentIds.isEmpty()) {
+            return List.of();
+        }
+        List<Student> students = studentRepository.findAllWithUserByIdIn(new HashSet<>(studentIds));
+        Map<UUID, LearningTotals> fallback = fallbackLearningTotals(students);
         return students.stream()
-                .map(this::mapToDTO)
+                .map(s -> mapToDTO(s, fallback))
                 .toList();
     }
 
-    private StudentDTO mapToDTO(Student student) {
+    private StudentDTO mapToDTO(Student student, Map<UUID, LearningTotals> fallbackLearningTotals) {
+        LearningTotals fallback = fallbackLearningTotals.getOrDefault(student.getId(), new LearningTotals(0, BigDecimal.ZERO));
+        int totalSessions = student.getTotalSessions() != null ? student.getTotalSessions() : fallback.sessions();
+        BigDecimal hoursLearned = student.getHoursLearned() != null ? student.getHoursLearned() : fallback.hours();
         StudentSkills skillsEntity = student.getSkills();
         StudentSkillsDTO skillsDto = null;
         if (skillsEntity != null) {
@@ -149,16 +199,6 @@ public class StudentService {
                     .build();
         }
 
-        // Compute totalSessions and hoursLearned dynamically from completed rooms
-        java.util.List<com.free.easyLearn.entity.Room> studentRooms = roomRepository.findAllByStudentId(student.getId());
-        int dynamicTotalSessions = (int) studentRooms.stream()
-                .filter(r -> r.getStatus() == com.free.easyLearn.entity.Room.RoomStatus.COMPLETED)
-                .count();
-        double dynamicHours = studentRooms.stream()
-                .filter(r -> r.getStatus() == com.free.easyLearn.entity.Room.RoomStatus.COMPLETED)
-                .mapToInt(r -> r.getDuration() != null ? r.getDuration() : 0)
-                .sum() / 60.0;
-
         return StudentDTO.builder()
                 .id(student.getId())
                 .name(student.getUser() != null ? student.getUser().getName() : null)
@@ -169,8 +209,8 @@ public class StudentService {
                 .level(student.getLevel())
                 .studentType(student.getStudentType() != null ? student.getStudentType().name() : null)
                 .joinedAt(student.getJoinedAt())
-                .totalSessions(dynamicTotalSessions)
-                .hoursLearned(java.math.BigDecimal.valueOf(dynamicHours).setScale(1, java.math.RoundingMode.HALF_UP))
+                .totalSessions(totalSessions)
+                .hoursLearned(hoursLearned.setScale(1, RoundingMode.HALF_UP))
                 .skills(skillsDto)
                 .createdAt(student.getCreatedAt())
                 .updatedAt(student.getUpdatedAt())
@@ -0,0 +1,132 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.repository.ProcessedWebhookEventRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Deduplicates LiveKit webhook deliveries on the event id.
+ * Recent ids are kept in a bounded, expiring local set; the processed_webhook_events table
+ * catches redeliveries after a restart or on another replica.
+ *
+ * An event is claimed as PENDING on delivery and marked processed once its handler succeeded. A
+ * redelivery is dropped while the claim is younger than {@link #LEASE}; after that, the replica that
+ * claimed it is assumed to have crashed or failed, and the redelivery is processed.
+ */
+@Service
+public class WebhookEventDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookEventDeduplicator.class);
+
+    // LiveKit retries a delivery for a few minutes at most; a day leaves a wide margin
+    static final Duration RETENTION = Duration.ofHours(24);
+    // Longer than an event can reasonably wait in the lanes and be handled
+    static final Duration LEASE = Duration.ofMinutes(5);
+    private static final long PROCESSED = Long.MAX_VALUE;
+
+    private final ProcessedWebhookEventRepository repository;
+    private final Counter duplicatesCounter;
+
+    // Event id -> end of its lease in epoch millis, or PROCESSED
+    private final Cache<String, Long> recentEventIds = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterWrite(RETENTION)
+            .build();
+
+    public WebhookEventDeduplicator(ProcessedWebhookEventRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.duplicatesCounter = meterRegistry.counter("livekit.webhook.duplicates");
+    }
+
+    /**
+     * Claim the event for processing; {@link #markProcessed} must follow once it has been handled.
+     *
+     * @return true on its first delivery (or a redelivery whose claim expired), false for a duplicate
+     * (to be acknowledged and ignored)
+     */
+    public boolean firstDelivery(WebhookEvent event) {
+        String eventId = event.getId();
+        if (eventId.isEmpty()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        long leaseEnd = now + LEASE.toMillis();
+        boolean[] claimed = new boolean[1];
+        recentEventIds.asMap().compute(eventId, (id, current) -> {
+            claimed[0] = current == null || current < now;
+            return claimed[0] ? leaseEnd : current;
+        });
+        boolean duplicate = !claimed[0];
+        if (!duplicate) {
+            try {
+                LocalDateTime receivedAt = LocalDateTime.now();
+                duplicate = repository.claim(eventId, event.getEvent(), receivedAt, receivedAt.minus(LEASE)) == 0;
+            } catch (DataAccessException e) {
+                // Fail open: the handlers tolerate a rare duplicate better than a lost event
+                log.warn("Could not persist webhook event id {}: {}", eventId, e.getMessage());
+            }
+        }
+        if (duplicate) {
+            duplicatesCounter.increment();
+            log.info("Duplicate LiveKit webhook '{}' (id {}) ignored", event.getEvent(), eventId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Record that the event has been handled: later deliveries are duplicates for good.
+     */
+    public void markProcessed(WebhookEvent event) {
+        String eventId = event.getId();
+        if (eventId.isEmpty()) {
+            return;
+        }
+        recentEventIds.put(eventId, PROCESSED);
+        try {
+            repository.markProcessed(eventId);
+        } catch (DataAccessException e) {
+            // The claim expires after the lease: a later redelivery would be handled again
+            log.warn("Could not mark webhook event id {} as processed: {}", eventId, e.getMessage());
+        }
+    }
+
+    /**
+     * Forget an event that could not be queued, so that LiveKit's redelivery is processed.
+     */
+    public void forget(WebhookEvent event) {
+        String eventId = event.getId();
+        if (eventId.isEmpty()) {
+            return;
+        }
+        recentEventIds.invalidate(eventId);
+        try {
+            repository.deleteById(eventId);
+        } catch (DataAccessException e) {
+            // The claim expires after the lease, which lets the redelivery through
+            log.warn("Could not forget webhook event id {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    /**
+     * Scheduled task: purge old event ids. Runs every hour.
+     */
+    @Scheduled(fixedRate = 3600000)
+    public void purgeOldEvents() {
+        int deleted = repository.deleteReceivedBefore(LocalDateTime.now().minus(RETENTION));
+        if (deleted > 0) {
+            log.info("Purged {} processed webhook event ids", deleted);
+        }
+    }
+}
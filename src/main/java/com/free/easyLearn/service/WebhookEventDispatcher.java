@@ -0,0 +1,151 @@
+package com.free.easyLearn.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous LiveKit webhook pipeline.
+ *
+ * The controller only verifies the signature and calls {@link #submit}; events are then processed by
+ * {@link LiveKitWebhookHandler} on a fixed number of single-threaded lanes. The lane is picked from the
+ * room name, so the events of one room are handled in arrival order while different rooms proceed in
+ * parallel. Each lane has a bounded queue: when it is full the event is rejected and the caller answers
+ * 503, so LiveKit retries the delivery later instead of the backend piling up work.
+ */
+@Service
+public class WebhookEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookEventDispatcher.class);
+
+    private final LiveKitWebhookHandler handler;
+    private final WebhookEventLog eventLog;
+    private final WebhookEventDeduplicator deduplicator;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor[] lanes;
+
+    public WebhookEventDispatcher(LiveKitWebhookHandler handler,
+                                  WebhookEventLog eventLog,
+                                  WebhookEventDeduplicator deduplicator,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${livekit.webhook.lanes:8}") int laneCount,
+                                  @Value("${livekit.webhook.queue-capacity:1000}") int queueCapacity) {
+        this.handler = handler;
+        this.eventLog = eventLog;
+        this.deduplicator = deduplicator;
+        this.meterRegistry = meterRegistry;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        int laneCapacity = Math.max(1, queueCapacity / laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "livekit-webhook-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity), r -> {
+                        Thread thread = new Thread(r, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        meterRegistry.gauge("livekit.webhook.queue.depth", this, WebhookEventDispatcher::queueDepth);
+    }
+
+    /**
+     * Queue a verified event on the lane of its room. Its outcome is recorded in the event log.
+     *
+     * @param logId id of the event in the {@link WebhookEventLog}
+     * @return false if that lane's queue is full (the event was not accepted)
+     */
+    public boolean submit(WebhookEvent event, UUID logId) {
+        return enqueue(event, logId, null);
+    }
+
+    /**
+     * Queue a logged event again (replay) on the lane of its room, behind the live events of that room.
+     * Its outcome is recorded in the event log.
+     *
+     * @return completed once handled (exceptionally if the handler threw), or null if the lane's queue is full
+     */
+    public CompletableFuture<Void> resubmit(WebhookEvent event, UUID logId) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        return enqueue(event, logId, done) ? done : null;
+    }
+
+    private boolean enqueue(WebhookEvent event, UUID logId, CompletableFuture<Void> done) {
+        String roomName = LiveKitWebhookHandler.roomNameOf(event);
+        ThreadPoolExecutor lane = lanes[laneOf(roomName != null ? roomName : event.getId())];
+        Timer.Sample queued = Timer.start(meterRegistry);
+        try {
+            lane.execute(() -> process(event, logId, queued, done));
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (done == null) {
+                meterRegistry.counter("livekit.webhook.rejected").increment();
+                eventLog.recordRejected(logId);
+                log.warn("Webhook queue full, rejecting event '{}' for room '{}'", event.getEvent(), roomName);
+            }
+            return false;
+        }
+    }
+
+    private void process(WebhookEvent event, UUID logId, Timer.Sample queued, CompletableFuture<Void> done) {
+        queued.stop(meterRegistry.timer("livekit.webhook.queue.wait"));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "ok";
+        try {
+            handler.handle(event);
+            deduplicator.markProcessed(event);
+            eventLog.recordSuccess(logId);
+            if (done != null) {
+                done.complete(null);
+            }
+        } catch (Exception e) {
+            outcome = "error";
+            eventLog.recordFailure(logId, e);
+            log.error("Error processing LiveKit webhook '{}': {}", event.getEvent(), e.getMessage(), e);
+            if (done != null) {
+                done.completeExceptionally(e);
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("livekit.webhook.handler.duration",
+                    "event", event.getEvent(), "outcome", outcome));
+        }
+    }
+
+    private int laneOf(String key) {
+        return key == null ? 0 : Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    /**
+     * Number of events waiting in the lanes (not counting the ones being processed).
+     */
+    public int queueDepth() {
+        return Arrays.stream(lanes).mapToInt(lane -> lane.getQueue().size()).sum();
+    }
+
+    /**
+     * Stop accepting events and let the queued ones finish.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Webhook lane did not drain in time, {} events dropped", lane.shutdownNow().size());
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.WebhookEventRecord;
+import com.free.easyLearn.repository.WebhookEventRecordRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Durable log of the verified LiveKit webhooks (table webhook_event_log).
+ *
+ * The received row is written synchronously by {@link #append}, before the webhook is acknowledged, so
+ * an event LiveKit considers delivered is never only in memory. Outcomes are queued (bounded) and
+ * written by a background flush with one UPDATE per status, so the worker lanes do not wait for the
+ * database; when the queue is full the outcome is written directly. A batch the database rejects is
+ * retried row by row, and the rows that still fail are dead-lettered (logged) rather than requeued.
+ * Rows older than {@code livekit.webhook.log.retention-days} are deleted nightly, in batches.
+ */
+@Service
+public class WebhookEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookEventLog.class);
+    private static final Logger deadLetters = LoggerFactory.getLogger("livekit.webhook.dead-letter");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    // Column sizes of webhook_event_log
+    static final int EVENT_ID_LENGTH = 64;
+    static final int EVENT_TYPE_LENGTH = 50;
+    static final int ROOM_NAME_LENGTH = 255;
+
+    static final int PURGE_BATCH_SIZE = 5_000;
+
+    private final WebhookEventRecordRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<Outcome> pendingOutcomes;
+    private final int retentionDays;
+
+    private record Outcome(UUID id, WebhookEventRecord.Status status, String error, LocalDateTime at) {
+    }
+
+    public WebhookEventLog(WebhookEventRecordRepository repository,
+                           EntityManager entityManager,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${livekit.webhook.log.max-pending-outcomes:10000}") int maxPendingOutcomes,
+                           @Value("${livekit.webhook.log.retention-days:30}") int retentionDays) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.pendingOutcomes = new ArrayBlockingQueue<>(maxPendingOutcomes);
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Write a verified event to the log (synchronously). Values longer than their column are truncated.
+     *
+     * @param payload raw webhook body, as received (used for replay)
+     * @return id of the log row
+     * @throws org.springframework.dao.DataAccessException if the row could not be written
+     */
+    public UUID append(WebhookEvent event, String payload) {
+        WebhookEventRecord record = WebhookEventRecord.builder()
+                .id(UUID.randomUUID())
+                .eventId(event.getId().isEmpty() ? null : truncate(event.getId(), EVENT_ID_LENGTH))
+                .eventType(truncate(event.getEvent(), EVENT_TYPE_LENGTH))
+                .roomName(truncate(LiveKitWebhookHandler.roomNameOf(event), ROOM_NAME_LENGTH))
+                .payload(payload)
+                .receivedAt(LocalDateTime.now())
+                .status(WebhookEventRecord.Status.RECEIVED)
+                .build();
+        repository.save(record);
+        return record.getId();
+    }
+
+    public void recordSuccess(UUID id) {
+        queue(new Outcome(id, WebhookEventRecord.Status.PROCESSED, null, LocalDateTime.now()));
+    }
+
+    public void recordFailure(UUID id, Throwable error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        queue(new Outcome(id, WebhookEventRecord.Status.FAILED, message, LocalDateTime.now()));
+    }
+
+    public void recordRejected(UUID id) {
+        queue(new Outcome(id, WebhookEventRecord.Status.REJECTED, null, LocalDateTime.now()));
+    }
+
+    private void queue(Outcome outcome) {
+        if (!pendingOutcomes.offer(outcome)) {
+            // Queue full (database slow or down): write it now, slowing the caller down
+            write(List.of(outcome));
+        }
+    }
+
+    /**
+     * Write the queued outcomes. Runs every 500 ms and on shutdown.
+     */
+    @Scheduled(fixedDelayString = "${livekit.webhook.log.flush-interval-ms:500}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Outcome> outcomes = new ArrayList<>();
+        pendingOutcomes.drainTo(outcomes);
+        if (!outcomes.isEmpty()) {
+            write(outcomes);
+        }
+    }
+
+    private void write(List<Outcome> outcomes) {
+        Map<WebhookEventRecord.Status, List<Outcome>> byStatus = outcomes.stream()
+                .collect(Collectors.groupingBy(Outcome::status));
+        byStatus.forEach((status, group) -> {
+            if (status != WebhookEventRecord.Status.FAILED && group.size() > 1) {
+                try {
+                    repository.updateOutcome(group.stream().map(Outcome::id).toList(), status, group.get(0).at());
+                    return;
+                } catch (Exception e) {
+                    log.warn("Failed to record {} {} webhook outcomes at once, retrying one by one: {}",
+                            group.size(), status, e.getMessage());
+                }
+            }
+            group.forEach(this::writeOne);
+        });
+    }
+
+    private void writeOne(Outcome outcome) {
+        try {
+            repository.updateOutcome(outcome.id(), outcome.status(), outcome.error(), outcome.at());
+        } catch (Exception e) {
+            deadLetters.error("Dropped webhook outcome: id={} status={} at={} error={} cause={}",
+                    outcome.id(), outcome.status(), outcome.at(), outcome.error(), e.getMessage());
+        }
+    }
+
+    /**
+     * Create the monthly partitions of the current and next month (at startup, then daily).
+     * Skipped when the table is not partitioned (schema created by Hibernate instead of V12).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 3 * * *")
+    public void ensurePartitions() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (LocalDate start : List.of(month, month.plusMonths(1))) {
+            String sql = "CREATE TABLE IF NOT EXISTS webhook_event_log_" + start.format(PARTITION_SUFFIX)
+                    + " PARTITION OF webhook_event_log FOR VALUES FROM ('" + start + "') TO ('"
+                    + start.plusMonths(1) + "')";
+            try {
+                transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery(sql).executeUpdate());
+            } catch (Exception e) {
+                log.warn("Could not create webhook_event_log partition for {}: {}", start, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delete the events received more than {@code retention-days} ago, {@link #PURGE_BATCH_SIZE} rows per
+     * transaction. Runs nightly; works on the plain table as well as on a partitioned one.
+     */
+    @Scheduled(cron = "0 15 3 * * *")
+    public void purge() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int deleted = 0;
+        try {
+            int batch;
+            do {
+                batch = repository.deleteReceivedBefore(cutoff, PURGE_BATCH_SIZE);
+                deleted += batch;
+            } while (batch == PURGE_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Failed to purge webhook_event_log rows received before {}: {}", cutoff, e.getMessage(), e);
+        }
+        if (deleted > 0) {
+            log.info("Purged {} webhook_event_log rows received before {}", deleted, cutoff);
+        }
+    }
+
+    static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
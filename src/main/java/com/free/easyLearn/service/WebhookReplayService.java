@@ -0,0 +1,143 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.livekit.WebhookReplayRequest;
+import com.free.easyLearn.dto.livekit.WebhookReplayResultDTO;
+import com.free.easyLearn.entity.WebhookEventRecord;
+import com.free.easyLearn.repository.WebhookEventRecordRepository;
+import com.google.protobuf.util.JsonFormat;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-drives logged webhook events through the {@link WebhookEventDispatcher} lanes (admin tooling), so
+ * that a replayed event is serialized with the live events of its room. Events of the same room are
+ * replayed one after the other in arrival order; up to {@code concurrency} rooms are replayed in
+ * parallel. The lanes write the outcomes back to the event log.
+ */
+@Service
+public class WebhookReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookReplayService.class);
+
+    // A full lane is retried this many times, LANE_FULL_BACKOFF_MS apart, before giving up on the event
+    static final int LANE_FULL_RETRIES = 50;
+    static final long LANE_FULL_BACKOFF_MS = 100;
+
+    private final WebhookEventRecordRepository repository;
+    private final WebhookEventDispatcher dispatcher;
+    private final WebhookEventLog eventLog;
+
+    public WebhookReplayService(WebhookEventRecordRepository repository,
+                                WebhookEventDispatcher dispatcher,
+                                WebhookEventLog eventLog) {
+        this.repository = repository;
+        this.dispatcher = dispatcher;
+        this.eventLog = eventLog;
+    }
+
+    public WebhookReplayResultDTO replay(WebhookReplayRequest request) throws InterruptedException {
+        List<WebhookEventRecord> records = select(request);
+
+        // Group by room, keeping arrival order inside each group
+        Map<String, List<WebhookEventRecord>> byRoom = new LinkedHashMap<>();
+        for (WebhookEventRecord record : records) {
+            String key = record.getRoomName() != null ? record.getRoomName() : record.getId().toString();
+            byRoom.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+        }
+
+        AtomicInteger succeeded = new AtomicInteger();
+        List<UUID> failedIds = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(request.getConcurrency(), Math.max(1, byRoom.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<WebhookEventRecord> roomEvents : byRoom.values()) {
+                futures.add(executor.submit(() -> {
+                    for (WebhookEventRecord record : roomEvents) {
+                        if (replayOne(record)) {
+                            succeeded.incrementAndGet();
+                        } else {
+                            failedIds.add(record.getId());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Webhook replay task failed: {}", e.getMessage(), e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        eventLog.flush();
+
+        log.info("Replayed {} webhook events: {} succeeded, {} failed", records.size(), succeeded.get(), failedIds.size());
+        return WebhookReplayResultDTO.builder()
+                .replayed(records.size())
+                .succeeded(succeeded.get())
+                .failed(failedIds.size())
+                .failedIds(failedIds)
+                .build();
+    }
+
+    private List<WebhookEventRecord> select(WebhookReplayRequest request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            return repository.findByIdInOrderByReceivedAtAsc(request.getIds());
+        }
+        LocalDateTime to = request.getTo() != null ? request.getTo() : LocalDateTime.now();
+        LocalDateTime from = request.getFrom() != null ? request.getFrom() : to.minusDays(7);
+        return repository.findByStatusAndReceivedAtBetweenOrderByReceivedAtAsc(request.getStatus(), from, to,
+                PageRequest.of(0, request.getLimit()));
+    }
+
+    private boolean replayOne(WebhookEventRecord record) throws InterruptedException {
+        WebhookEvent event;
+        try {
+            WebhookEvent.Builder builder = WebhookEvent.newBuilder();
+            JsonFormat.parser().ignoringUnknownFields().merge(record.getPayload(), builder);
+            event = builder.build();
+        } catch (Exception e) {
+            log.warn("Could not parse logged webhook event {}: {}", record.getId(), e.getMessage());
+            eventLog.recordFailure(record.getId(), e);
+            return false;
+        }
+
+        CompletableFuture<Void> done = dispatcher.resubmit(event, record.getId());
+        for (int retry = 0; done == null && retry < LANE_FULL_RETRIES; retry++) {
+            Thread.sleep(LANE_FULL_BACKOFF_MS);
+            done = dispatcher.resubmit(event, record.getId());
+        }
+        if (done == null) {
+            log.warn("Replay of webhook event {} ('{}') skipped: lane queue full", record.getId(), record.getEventType());
+            return false;
+        }
+        try {
+            done.get();
+            return true;
+        } catch (ExecutionException e) {
+            log.warn("Replay of webhook event {} ('{}') failed: {}", record.getId(), record.getEventType(),
+                    e.getCause().getMessage());
+            return false;
+        }
+    }
+}
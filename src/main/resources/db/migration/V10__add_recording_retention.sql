@@ -0,0 +1,10 @@
+-- Per-room recording retention (days); NULL = livekit.recordings.retention-days, 0 = keep forever
+ALTER TABLE rooms ADD COLUMN IF NOT EXISTS recording_retention_days INTEGER;
+
+-- Expiry date of each recording (NULL = never expires), replaces created_at + 3 days computed in Java.
+-- Rows saved before this column are given the expiry of the legacy lifecycle rule by
+-- LiveKitRecordingService.backfillObjectKeys, which knows the configured retention.
+ALTER TABLE session_recordings ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_session_recordings_expires_at
+    ON session_recordings (expires_at) WHERE expires_at IS NOT NULL;
@@ -0,0 +1,8 @@
+-- Ids of accepted LiveKit webhook events, used to ignore redeliveries (purged after a day)
+CREATE TABLE IF NOT EXISTS processed_webhook_events (
+    event_id VARCHAR(64) PRIMARY KEY,
+    event_type VARCHAR(50),
+    received_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_webhook_events_received_at ON processed_webhook_events(received_at);
@@ -0,0 +1,22 @@
+-- Append-only log of verified LiveKit webhooks with their processing outcome (replayable).
+-- Partitioned by month on received_at; WebhookEventLog creates the upcoming partitions, and the
+-- default partition catches rows if one is missing.
+CREATE TABLE IF NOT EXISTS webhook_event_log (
+    id UUID NOT NULL,
+    event_id VARCHAR(64),
+    event_type VARCHAR(50) NOT NULL,
+    room_name VARCHAR(255),
+    payload TEXT NOT NULL,
+    received_at TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    error TEXT,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    processed_at TIMESTAMP,
+    PRIMARY KEY (id, received_at)
+) PARTITION BY RANGE (received_at);
+
+CREATE TABLE IF NOT EXISTS webhook_event_log_default PARTITION OF webhook_event_log DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_webhook_event_log_status_received ON webhook_event_log(status, received_at);
+CREATE INDEX IF NOT EXISTS idx_webhook_event_log_event_id ON webhook_event_log(event_id);
+CREATE INDEX IF NOT EXISTS idx_webhook_event_log_received_at ON webhook_event_log(received_at);
@@ -0,0 +1,2 @@
+-- Professor dashboard: room counts by status and the live/upcoming lists of one professor
+CREATE INDEX IF NOT EXISTS idx_rooms_professor_status_scheduled ON rooms(professor_id, status, scheduled_at);
@@ -0,0 +1,4 @@
+-- Time-series statistics: range scans on the bucketed timestamp columns
+CREATE INDEX IF NOT EXISTS idx_rooms_status_scheduled ON rooms(status, scheduled_at);
+CREATE INDEX IF NOT EXISTS idx_room_participants_joined_at ON room_participants(joined_at);
+CREATE INDEX IF NOT EXISTS idx_evaluations_created_at ON evaluations(created_at);
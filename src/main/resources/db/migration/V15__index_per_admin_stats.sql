@@ -0,0 +1,5 @@
+-- Per-admin dashboard: level counts and recent students of an admin, evaluations of those students
+CREATE INDEX IF NOT EXISTS idx_students_created_by_level ON students(created_by, level);
+CREATE INDEX IF NOT EXISTS idx_students_created_by_created_at ON students(created_by, created_at);
+CREATE INDEX IF NOT EXISTS idx_evaluations_student_score ON evaluations(student_id, overall_score);
+-- Rooms of an admin are reached through professors(created_by) and idx_rooms_professor_status_scheduled (V13)
@@ -0,0 +1,7 @@
+-- Name / nickname / email / unique code search (SearchService): prefix (LIKE 'abc%') and fuzzy (%) matching
+-- on lower-cased columns, both served by trigram GIN indexes
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_students_nickname_trgm ON students USING gin (lower(nickname) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_students_unique_code_trgm ON students USING gin (lower(unique_code) gin_trgm_ops);
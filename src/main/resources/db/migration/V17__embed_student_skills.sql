@@ -0,0 +1,31 @@
+-- Student skills move from student_skills (one row per student, one extra query per loaded student) to
+-- columns of students. student_skills is kept, no longer written, until the backfill has run everywhere;
+-- its foreign keys are dropped once copied, since Hibernate no longer deletes its rows with the student.
+ALTER TABLE students ADD COLUMN IF NOT EXISTS skill_pronunciation INTEGER;
+ALTER TABLE students ADD COLUMN IF NOT EXISTS skill_grammar INTEGER;
+ALTER TABLE students ADD COLUMN IF NOT EXISTS skill_vocabulary INTEGER;
+ALTER TABLE students ADD COLUMN IF NOT EXISTS skill_fluency INTEGER;
+ALTER TABLE students ADD COLUMN IF NOT EXISTS skills_updated_at TIMESTAMP;
+
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    IF to_regclass('student_skills') IS NOT NULL THEN
+        UPDATE students s
+        SET skill_pronunciation = sk.pronunciation,
+            skill_grammar = sk.grammar,
+            skill_vocabulary = sk.vocabulary,
+            skill_fluency = sk.fluency,
+            skills_updated_at = sk.updated_at
+        FROM student_skills sk
+        WHERE sk.student_id = s.id
+          AND s.skill_pronunciation IS NULL AND s.skill_grammar IS NULL
+          AND s.skill_vocabulary IS NULL AND s.skill_fluency IS NULL;
+
+        FOR fk IN SELECT conname FROM pg_constraint
+                  WHERE conrelid = 'student_skills'::regclass AND contype = 'f' LOOP
+            EXECUTE format('ALTER TABLE student_skills DROP CONSTRAINT %I', fk.conname);
+        END LOOP;
+    END IF;
+END $$;
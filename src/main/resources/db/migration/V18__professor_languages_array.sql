@@ -0,0 +1,29 @@
+-- Professor languages move from professor_languages (one extra query per loaded professor) to a text[]
+-- column of professors, filtered with @> and the GIN index. professor_languages is kept, no longer
+-- written, until the backfill has run everywhere; its foreign keys are dropped once copied, since
+-- Hibernate no longer deletes its rows with the professor.
+ALTER TABLE professors ADD COLUMN IF NOT EXISTS languages TEXT[];
+
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    IF to_regclass('professor_languages') IS NOT NULL THEN
+        UPDATE professors p
+        SET languages = l.languages
+        FROM (SELECT professor_id, array_agg(language) AS languages
+              FROM professor_languages
+              WHERE language IS NOT NULL
+              GROUP BY professor_id) l
+        WHERE l.professor_id = p.id AND p.languages IS NULL;
+
+        FOR fk IN SELECT conname FROM pg_constraint
+                  WHERE conrelid = 'professor_languages'::regclass AND contype = 'f' LOOP
+            EXECUTE format('ALTER TABLE professor_languages DROP CONSTRAINT %I', fk.conname);
+        END LOOP;
+    END IF;
+END $$;
+
+UPDATE professors SET languages = '{}' WHERE languages IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_professors_languages ON professors USING gin (languages);
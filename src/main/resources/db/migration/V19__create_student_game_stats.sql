@@ -0,0 +1,12 @@
+-- Challenge totals per student, upserted on every correct answer (see StudentGameStatsRepository).
+-- StudentGameStatsService recomputes every row from challenge_attempts at startup and nightly, which
+-- also backfills the students who answered before this table existed.
+CREATE TABLE IF NOT EXISTS student_game_stats (
+    student_id UUID PRIMARY KEY,
+    total_points BIGINT NOT NULL,
+    correct_count BIGINT NOT NULL,
+    current_streak INTEGER NOT NULL,
+    longest_streak INTEGER NOT NULL,
+    last_correct_date DATE,
+    updated_at TIMESTAMP NOT NULL
+);
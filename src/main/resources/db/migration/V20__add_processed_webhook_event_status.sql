@@ -0,0 +1,3 @@
+-- A webhook event id is PENDING until the event has been handled; a PENDING row older than the lease
+-- (the replica crashed while processing it) lets LiveKit's redelivery through. Existing rows are processed.
+ALTER TABLE processed_webhook_events ADD COLUMN IF NOT EXISTS status VARCHAR(20);
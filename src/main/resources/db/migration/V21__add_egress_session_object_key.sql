@@ -0,0 +1,2 @@
+-- Object key requested when an egress is started, stored on the recording once it completes
+ALTER TABLE egress_sessions ADD COLUMN IF NOT EXISTS object_key VARCHAR(1024);
@@ -0,0 +1,14 @@
+-- Persistent LiveKit egress (recording) state, replaces the in-memory maps of LiveKitRecordingService
+CREATE TABLE IF NOT EXISTS egress_sessions (
+    egress_id VARCHAR(64) PRIMARY KEY,
+    room_name VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    error TEXT,
+    started_at TIMESTAMP,
+    ended_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_egress_sessions_room_status ON egress_sessions(room_name, status);
+CREATE INDEX IF NOT EXISTS idx_egress_sessions_status ON egress_sessions(status);
@@ -0,0 +1,13 @@
+-- Recording file metadata captured from the egress FileInfo
+ALTER TABLE session_recordings ADD COLUMN IF NOT EXISTS egress_id VARCHAR(64);
+ALTER TABLE session_recordings ADD COLUMN IF NOT EXISTS object_key VARCHAR(1024);
+ALTER TABLE session_recordings ADD COLUMN IF NOT EXISTS size_bytes BIGINT;
+ALTER TABLE session_recordings ADD COLUMN IF NOT EXISTS duration_ms BIGINT;
+ALTER TABLE session_recordings ADD COLUMN IF NOT EXISTS started_at TIMESTAMP;
+ALTER TABLE session_recordings ADD COLUMN IF NOT EXISTS ended_at TIMESTAMP;
+
+-- Object keys of existing rows are backfilled by the application at startup
+-- (LiveKitRecordingService.backfillObjectKeys), with the same URL parsing as new rows
+
+CREATE INDEX IF NOT EXISTS idx_session_recordings_room_created ON session_recordings(room_name, created_at);
+CREATE INDEX IF NOT EXISTS idx_session_recordings_created_at ON session_recordings(created_at);
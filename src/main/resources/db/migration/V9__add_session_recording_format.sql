@@ -0,0 +1,2 @@
+-- Recording output format: MP4 (single file) or HLS (playlist + segments); NULL rows are MP4
+ALTER TABLE session_recordings ADD COLUMN IF NOT EXISTS format VARCHAR(10);
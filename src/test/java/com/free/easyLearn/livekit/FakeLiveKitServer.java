@@ -0,0 +1,543 @@
+package com.free.easyLearn.livekit;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.livekit.server.AccessToken;
+import livekit.LivekitEgress;
+import livekit.LivekitModels;
+import livekit.LivekitRoom;
+import livekit.LivekitWebhook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embeddable stand-in for a LiveKit server, for integration and load tests.
+ *
+ * Implements the Twirp endpoints used by the SDK clients in this project
+ * (RoomService: CreateRoom, DeleteRoom, ListParticipants — Egress: StartWebEgress,
+ * StopEgress, ListEgress) on top of the JDK HTTP server, and can post signed
+ * webhooks back to the backend ({@code /api/livekit/webhook}) exactly like LiveKit does.
+ *
+ * Latency and failure injection make it possible to load-test the room lifecycle
+ * end to end on a laptop:
+ * <pre>
+ * FakeLiveKitServer server = FakeLiveKitServer.start("api-key", "api-secret");
+ * server.setLatency(Duration.ofMillis(20));
+ * server.setFailureRate(0.05);
+ * server.setWebhookUrl("http://localhost:8081/api/livekit/webhook");
+ * RoomServiceClient client = RoomServiceClient.create(server.getUrl(), "api-key", "api-secret");
+ * </pre>
+ */
+public class FakeLiveKitServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FakeLiveKitServer.class);
+
+    private static final String ROOM_SERVICE = "/twirp/livekit.RoomService/";
+    private static final String EGRESS_SERVICE = "/twirp/livekit.Egress/";
+    private static final String PROTOBUF = "application/protobuf";
+
+    private final String apiKey;
+    private final String apiSecret;
+    private final HttpServer server;
+    private final ExecutorService handlerExecutor;
+    private final ExecutorService webhookExecutor = Executors.newSingleThreadExecutor();
+    private final HttpClient webhookClient = HttpClient.newHttpClient();
+
+    // roomName -> room
+    private final Map<String, LivekitModels.Room> rooms = new ConcurrentHashMap<>();
+    // roomName -> (identity -> participant)
+    private final Map<String, Map<String, LivekitModels.ParticipantInfo>> participants = new ConcurrentHashMap<>();
+    // egressId -> egress
+    private final Map<String, LivekitEgress.EgressInfo> egresses = new ConcurrentHashMap<>();
+    // method name -> number of calls
+    private final Map<String, AtomicLong> callCounts = new ConcurrentHashMap<>();
+    // method name -> HTTP status to return on the next N calls
+    private final Map<String, FailurePlan> plannedFailures = new ConcurrentHashMap<>();
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double failureRate = 0.0;
+    private volatile String webhookUrl;
+    private volatile long recordingSizeBytes = 1024 * 1024;
+
+    private FakeLiveKitServer(String apiKey, String apiSecret, int port, int handlerThreads) throws IOException {
+        this.apiKey = apiKey;
+        this.apiSecret = apiSecret;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.handlerExecutor = Executors.newFixedThreadPool(handlerThreads);
+        this.server.setExecutor(handlerExecutor);
+        this.server.createContext("/twirp/", this::handle);
+    }
+
+    /**
+     * Start a server on a random free port.
+     */
+    public static FakeLiveKitServer start(String apiKey, String apiSecret) throws IOException {
+        return start(apiKey, apiSecret, 0, 16);
+    }
+
+    public static FakeLiveKitServer start(String apiKey, String apiSecret, int port, int handlerThreads) throws IOException {
+        FakeLiveKitServer fake = new FakeLiveKitServer(apiKey, apiSecret, port, handlerThreads);
+        fake.server.start();
+        log.info("Fake LiveKit server listening on {}", fake.getUrl());
+        return fake;
+    }
+
+    /**
+     * HTTP base URL to pass to RoomServiceClient / EgressServiceClient.
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // ─── Configuration ───
+
+    /**
+     * Artificial delay applied to every Twirp call before it is answered.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency != null ? latency : Duration.ZERO;
+    }
+
+    /**
+     * Probability (0..1) that any Twirp call fails with HTTP 503 "unavailable".
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = Math.max(0.0, Math.min(1.0, failureRate));
+    }
+
+    /**
+     * Make the next {@code times} calls to {@code method} (e.g. "StartWebEgress") fail with the given HTTP status.
+     */
+    public void failNext(String method, int times, int httpStatus) {
+        plannedFailures.put(method, new FailurePlan(new AtomicInteger(times), httpStatus));
+    }
+
+    /**
+     * Target URL for webhooks (e.g. http://localhost:8081/api/livekit/webhook). Null disables webhooks.
+     */
+    public void setWebhookUrl(String webhookUrl) {
+        this.webhookUrl = webhookUrl;
+    }
+
+    /**
+     * Size reported in FileInfo for completed recordings.
+     */
+    public void setRecordingSizeBytes(long recordingSizeBytes) {
+        this.recordingSizeBytes = recordingSizeBytes;
+    }
+
+    // ─── Test helpers ───
+
+    /**
+     * Simulate a client connecting to a room (the room is created if needed, like LiveKit auto-create).
+     */
+    public LivekitModels.ParticipantInfo addParticipant(String roomName, String identity) {
+        ensureRoom(roomName, 0, 0);
+        LivekitModels.ParticipantInfo participant = LivekitModels.ParticipantInfo.newBuilder()
+                .setSid("PA_" + shortId())
+                .setIdentity(identity)
+                .setName(identity)
+                .setState(LivekitModels.ParticipantInfo.State.ACTIVE)
+                .setJoinedAt(nowSeconds())
+                .build();
+        participants.computeIfAbsent(roomName, k -> new ConcurrentHashMap<>()).put(identity, participant);
+        emitWebhook(eventBuilder("participant_joined").setRoom(rooms.get(roomName)).setParticipant(participant).build());
+        return participant;
+    }
+
+    /**
+     * Simulate a client leaving a room.
+     */
+    public void removeParticipant(String roomName, String identity) {
+        Map<String, LivekitModels.ParticipantInfo> roomParticipants = participants.get(roomName);
+        LivekitModels.ParticipantInfo removed = roomParticipants != null ? roomParticipants.remove(identity) : null;
+        if (removed != null) {
+            emitWebhook(eventBuilder("participant_left").setRoom(rooms.get(roomName)).setParticipant(removed).build());
+        }
+    }
+
+    public boolean hasRoom(String roomName) {
+        return rooms.containsKey(roomName);
+    }
+
+    public List<LivekitEgress.EgressInfo> getEgresses() {
+        return new ArrayList<>(egresses.values());
+    }
+
+    public long getCallCount(String method) {
+        AtomicLong count = callCounts.get(method);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Post a signed webhook synchronously and return the HTTP status of the backend.
+     */
+    public int sendWebhook(LivekitWebhook.WebhookEvent event) throws IOException, InterruptedException {
+        if (webhookUrl == null) {
+            throw new IllegalStateException("Webhook URL is not configured");
+        }
+        String body = JsonFormat.printer().print(event);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(webhookUrl))
+                .header("Content-Type", "application/webhook+json")
+                .header("Authorization", signWebhook(body))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return webhookClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Build the Authorization header value LiveKit sends with a webhook body
+     * (a JWT signed with the API secret carrying the base64 SHA-256 of the body).
+     */
+    public String signWebhook(String body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            AccessToken token = new AccessToken(apiKey, apiSecret);
+            token.setSha256(Base64.getEncoder().encodeToString(digest));
+            return token.toJwt();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to sign webhook", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlerExecutor.shutdownNow();
+        webhookExecutor.shutdown();
+        try {
+            webhookExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ─── Twirp dispatch ───
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = path.substring(path.lastIndexOf('/') + 1);
+        callCounts.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+
+        // The exchange is closed after the error responses, which must still reach the client
+        try (exchange) {
+            try {
+                sleepLatency();
+
+                String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                if (authorization == null || !authorization.startsWith("Bearer ")) {
+                    sendError(exchange, 401, "unauthenticated", "missing bearer token");
+                    return;
+                }
+
+                Integer injected = nextInjectedFailure(method);
+                if (injected != null) {
+                    sendError(exchange, injected, "unavailable", "injected failure for " + method);
+                    return;
+                }
+
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                Message response;
+                if (path.startsWith(ROOM_SERVICE)) {
+                    response = handleRoomService(method, body);
+                } else if (path.startsWith(EGRESS_SERVICE)) {
+                    response = handleEgressService(method, body);
+                } else {
+                    sendError(exchange, 404, "bad_route", "no handler for " + path);
+                    return;
+                }
+
+                if (response == null) {
+                    sendError(exchange, 404, "not_found", method + ": resource not found");
+                    return;
+                }
+                send(exchange, 200, PROTOBUF, response.toByteArray());
+            } catch (BadRouteException e) {
+                // Twirp answers an unknown method like an unknown service, which clients treat as a client error
+                sendError(exchange, 404, "bad_route", e.getMessage());
+            } catch (InvalidProtocolBufferException e) {
+                sendError(exchange, 400, "malformed", e.getMessage());
+            } catch (Exception e) {
+                log.error("Fake LiveKit handler error on {}: {}", path, e.getMessage(), e);
+                sendError(exchange, 500, "internal", e.getMessage());
+            }
+        }
+    }
+
+    private Message handleRoomService(String method, byte[] body) throws InvalidProtocolBufferException, BadRouteException {
+        switch (method) {
+            case "CreateRoom": {
+                LivekitRoom.CreateRoomRequest request = LivekitRoom.CreateRoomRequest.parseFrom(body);
+                return ensureRoom(request.getName(), request.getMaxParticipants(), request.getEmptyTimeout());
+            }
+            case "DeleteRoom": {
+                LivekitRoom.DeleteRoomRequest request = LivekitRoom.DeleteRoomRequest.parseFrom(body);
+                LivekitModels.Room removed = rooms.remove(request.getRoom());
+                if (removed == null) {
+                    return null;
+                }
+                participants.remove(request.getRoom());
+                emitWebhook(eventBuilder("room_finished").setRoom(removed).build());
+                return LivekitRoom.DeleteRoomResponse.getDefaultInstance();
+            }
+            case "ListParticipants": {
+                LivekitRoom.ListParticipantsRequest request = LivekitRoom.ListParticipantsRequest.parseFrom(body);
+                Map<String, LivekitModels.ParticipantInfo> roomParticipants =
+                        participants.getOrDefault(request.getRoom(), Map.of());
+                return LivekitRoom.ListParticipantsResponse.newBuilder()
+                        .addAllParticipants(roomParticipants.values())
+                        .build();
+            }
+            default:
+                throw new BadRouteException("RoomService." + method + " is not implemented by the fake server");
+        }
+    }
+
+    private Message handleEgressService(String method, byte[] body) throws InvalidProtocolBufferException, BadRouteException {
+        switch (method) {
+            case "StartWebEgress": {
+                LivekitEgress.WebEgressRequest request = LivekitEgress.WebEgressRequest.parseFrom(body);
+                String egressId = "EG_" + shortId();
+                LivekitEgress.EgressInfo info = LivekitEgress.EgressInfo.newBuilder()
+                        .setEgressId(egressId)
+                        // Like LiveKit, WebEgress is not bound to a room: roomName stays empty
+                        .setStatus(LivekitEgress.EgressStatus.EGRESS_STARTING)
+                        .setStartedAt(nowNanos())
+                        .setUpdatedAt(nowNanos())
+                        .setWeb(request)
+                        .build();
+                egresses.put(egressId, info);
+                emitWebhook(eventBuilder("egress_started").setEgressInfo(info).build());
+
+                LivekitEgress.EgressInfo active = info.toBuilder()
+                        .setStatus(LivekitEgress.EgressStatus.EGRESS_ACTIVE)
+                        .setUpdatedAt(nowNanos())
+                        .build();
+                egresses.put(egressId, active);
+                emitWebhook(eventBuilder("egress_updated").setEgressInfo(active).build());
+                return info;
+            }
+            case "StopEgress": {
+                LivekitEgress.StopEgressRequest request = LivekitEgress.StopEgressRequest.parseFrom(body);
+                LivekitEgress.EgressInfo current = egresses.get(request.getEgressId());
+                if (current == null || isFinished(current)) {
+                    return null;
+                }
+                LivekitEgress.EgressInfo ending = current.toBuilder()
+                        .setStatus(LivekitEgress.EgressStatus.EGRESS_ENDING)
+                        .setUpdatedAt(nowNanos())
+                        .build();
+                egresses.put(ending.getEgressId(), ending);
+
+                LivekitEgress.EgressInfo complete = complete(ending);
+                egresses.put(complete.getEgressId(), complete);
+                emitWebhook(eventBuilder("egress_ended").setEgressInfo(complete).build());
+                return ending;
+            }
+            case "ListEgress": {
+                LivekitEgress.ListEgressRequest request = LivekitEgress.ListEgressRequest.parseFrom(body);
+                List<LivekitEgress.EgressInfo> items = egresses.values().stream()
+                        .filter(e -> request.getEgressId().isEmpty() || e.getEgressId().equals(request.getEgressId()))
+                        .filter(e -> request.getRoomName().isEmpty()
+                                || request.getRoomName().equals(e.getRoomName())
+                                || request.getRoomName().equals(roomNameFromUrl(e.getWeb().getUrl())))
+                        .filter(e -> !request.getActive() || !isFinished(e))
+                        .toList();
+                return LivekitEgress.ListEgressResponse.newBuilder().addAllItems(items).build();
+            }
+            default:
+                throw new BadRouteException("Egress." + method + " is not implemented by the fake server");
+        }
+    }
+
+    // ─── State helpers ───
+
+    private LivekitModels.Room ensureRoom(String roomName, int maxParticipants, int emptyTimeout) {
+        boolean[] created = {false};
+        LivekitModels.Room room = rooms.computeIfAbsent(roomName, name -> {
+            created[0] = true;
+            return LivekitModels.Room.newBuilder()
+                    .setSid("RM_" + shortId())
+                    .setName(name)
+                    .setMaxParticipants(maxParticipants)
+                    .setEmptyTimeout(emptyTimeout)
+                    .setCreationTime(nowSeconds())
+                    .build();
+        });
+        if (created[0]) {
+            emitWebhook(eventBuilder("room_started").setRoom(room).build());
+        }
+        return room;
+    }
+
+    private LivekitEgress.EgressInfo complete(LivekitEgress.EgressInfo egress) {
+        long endedAt = nowNanos();
+        LivekitEgress.EgressInfo.Builder builder = egress.toBuilder()
+                .setStatus(LivekitEgress.EgressStatus.EGRESS_COMPLETE)
+                .setEndedAt(endedAt)
+                .setUpdatedAt(endedAt);
+
+        LivekitEgress.WebEgressRequest web = egress.getWeb();
+        String roomName = roomNameFromUrl(web.getUrl());
+        if (web.hasSegments() || web.getSegmentOutputsCount() > 0) {
+            LivekitEgress.SegmentedFileOutput segments = web.hasSegments() ? web.getSegments() : web.getSegmentOutputs(0);
+            String prefix = segments.getFilenamePrefix().replace("{time}", String.valueOf(endedAt));
+            // Like LiveKit, a bare playlist name is stored next to the segments
+            String directory = prefix.contains("/") ? prefix.substring(0, prefix.lastIndexOf('/') + 1) : "";
+            String playlist = directory + (segments.getPlaylistName().isEmpty() ? "playlist.m3u8" : segments.getPlaylistName());
+            builder.addSegmentResults(LivekitEgress.SegmentsInfo.newBuilder()
+                    .setPlaylistName(playlist)
+                    .setPlaylistLocation(s3Location(segments.getS3(), playlist))
+                    .setDuration(endedAt - egress.getStartedAt())
+                    .setSize(recordingSizeBytes)
+                    .setSegmentCount(Math.max(1, (endedAt - egress.getStartedAt()) / 6_000_000_000L))
+                    .setStartedAt(egress.getStartedAt())
+                    .setEndedAt(endedAt));
+        } else {
+            LivekitEgress.EncodedFileOutput file = web.hasFile() ? web.getFile()
+                    : web.getFileOutputsCount() > 0 ? web.getFileOutputs(0)
+                    : LivekitEgress.EncodedFileOutput.newBuilder().setFilepath(roomName + "/{time}.mp4").build();
+            String filename = file.getFilepath().replace("{time}", String.valueOf(endedAt));
+            builder.addFileResults(LivekitEgress.FileInfo.newBuilder()
+                    .setFilename(filename)
+                    .setLocation(s3Location(file.getS3(), filename))
+                    .setSize(recordingSizeBytes)
+                    .setDuration(endedAt - egress.getStartedAt())
+                    .setStartedAt(egress.getStartedAt())
+                    .setEndedAt(endedAt));
+        }
+        return builder.build();
+    }
+
+    private String s3Location(LivekitEgress.S3Upload s3, String key) {
+        String endpoint = s3.getEndpoint().isEmpty() ? "http://127.0.0.1:9000" : s3.getEndpoint();
+        String bucket = s3.getBucket().isEmpty() ? "livekit-recordings" : s3.getBucket();
+        return endpoint + "/" + bucket + "/" + key;
+    }
+
+    /**
+     * The recording page URL looks like {base}/professor/room/{roomName}/record?token=...
+     */
+    private static String roomNameFromUrl(String url) {
+        if (url == null) return "";
+        int start = url.indexOf("/room/");
+        int end = url.indexOf("/record", start + 6);
+        return start >= 0 && end > start ? url.substring(start + 6, end) : "";
+    }
+
+    private static boolean isFinished(LivekitEgress.EgressInfo egress) {
+        return switch (egress.getStatus()) {
+            case EGRESS_COMPLETE, EGRESS_FAILED, EGRESS_ABORTED, EGRESS_LIMIT_REACHED -> true;
+            default -> false;
+        };
+    }
+
+    // ─── Webhooks ───
+
+    private LivekitWebhook.WebhookEvent.Builder eventBuilder(String type) {
+        return LivekitWebhook.WebhookEvent.newBuilder()
+                .setId("EV_" + shortId())
+                .setEvent(type)
+                .setCreatedAt(nowSeconds());
+    }
+
+    private void emitWebhook(LivekitWebhook.WebhookEvent event) {
+        if (webhookUrl == null) return;
+        // Delivered from a single thread, in order, like LiveKit's per-project webhook queue
+        webhookExecutor.execute(() -> {
+            try {
+                int status = sendWebhook(event);
+                log.debug("Webhook '{}' delivered, HTTP {}", event.getEvent(), status);
+            } catch (Exception e) {
+                log.warn("Webhook '{}' delivery failed: {}", event.getEvent(), e.getMessage());
+            }
+        });
+    }
+
+    // ─── HTTP helpers ───
+
+    private void sleepLatency() {
+        long millis = latency.toMillis();
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Integer nextInjectedFailure(String method) {
+        FailurePlan plan = plannedFailures.get(method);
+        if (plan != null && plan.remaining().getAndDecrement() > 0) {
+            return plan.httpStatus();
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return 503;
+        }
+        return null;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code, String msg) throws IOException {
+        String json = "{\"code\":\"" + code + "\",\"msg\":\"" + (msg != null ? msg.replace("\"", "'") : "") + "\"}";
+        send(exchange, status, "application/json", json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] payload) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, payload.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload);
+        }
+    }
+
+    private static String shortId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static long nowNanos() {
+        return System.currentTimeMillis() * 1_000_000L;
+    }
+
+    private record FailurePlan(AtomicInteger remaining, int httpStatus) {
+    }
+
+    /**
+     * A Twirp method the fake server does not implement.
+     */
+    private static final class BadRouteException extends Exception {
+
+        BadRouteException(String message) {
+            super(message);
+        }
+    }
+}
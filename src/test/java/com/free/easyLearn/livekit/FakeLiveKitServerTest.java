@@ -0,0 +1,425 @@
+package com.free.easyLearn.livekit;
+
+import com.free.easyLearn.entity.EgressSession;
+import com.free.easyLearn.entity.SessionRecording;
+import com.free.easyLearn.repository.EgressSessionRepository;
+import com.free.easyLearn.repository.RoomRepository;
+import com.free.easyLearn.repository.SessionRecordingRepository;
+import com.free.easyLearn.service.EgressSessionService;
+import com.free.easyLearn.service.LiveKitRecordingService;
+import com.free.easyLearn.service.PresignedUrlCache;
+import com.free.easyLearn.service.RecordingRetentionService;
+import com.google.protobuf.util.JsonFormat;
+import com.sun.net.httpserver.HttpServer;
+import io.livekit.server.EgressServiceClient;
+import io.livekit.server.RoomServiceClient;
+import io.livekit.server.WebhookReceiver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioClient;
+import livekit.LivekitEgress;
+import livekit.LivekitWebhook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests d'intégration de LiveKitRecordingService contre le faux serveur LiveKit (FakeLiveKitServer)
+ * avec les vrais clients Twirp du SDK.
+ */
+class FakeLiveKitServerTest {
+
+    private static final String API_KEY = "test-api-key";
+    private static final String API_SECRET = "test-api-secret-test-api-secret-0123";
+
+    private FakeLiveKitServer fakeServer;
+    private RoomServiceClient roomServiceClient;
+    private EgressServiceClient egressClient;
+    private EgressSessionRepository egressSessionRepository;
+    private LiveKitRecordingService recordingService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fakeServer = FakeLiveKitServer.start(API_KEY, API_SECRET);
+        roomServiceClient = RoomServiceClient.create(fakeServer.getUrl(), API_KEY, API_SECRET);
+        egressClient = EgressServiceClient.createClient(fakeServer.getUrl(), API_KEY, API_SECRET);
+        egressSessionRepository = inMemoryEgressSessionRepository();
+        recordingService = newRecordingService(mock(SessionRecordingRepository.class));
+    }
+
+    /**
+     * A new service instance over the shared egress table (simulates a restart or another replica)
+     */
+    private LiveKitRecordingService newRecordingService(SessionRecordingRepository sessionRecordingRepository) {
+        LiveKitRecordingService recordingService = new LiveKitRecordingService(egressClient, roomServiceClient,
+                sessionRecordingRepository, mock(MinioClient.class), new EgressSessionService(egressSessionRepository),
+                new SimpleMeterRegistry(), mock(PresignedUrlCache.class), retentionService());
+        ReflectionTestUtils.setField(recordingService, "apiKey", API_KEY);
+        ReflectionTestUtils.setField(recordingService, "apiSecret", API_SECRET);
+        ReflectionTestUtils.setField(recordingService, "livekitInternalUrl", "ws://livekit:7880");
+        ReflectionTestUtils.setField(recordingService, "recordingPageUrl", "http://frontend");
+        ReflectionTestUtils.setField(recordingService, "s3AccessKey", "minioadmin");
+        ReflectionTestUtils.setField(recordingService, "s3SecretKey", "minioadmin");
+        ReflectionTestUtils.setField(recordingService, "s3Endpoint", "http://minio:9000");
+        ReflectionTestUtils.setField(recordingService, "s3Bucket", "livekit-recordings");
+        ReflectionTestUtils.setField(recordingService, "s3Region", "us-east-1");
+        return recordingService;
+    }
+
+    /**
+     * Default 3-day retention over a mocked MinIO client
+     */
+    private static RecordingRetentionService retentionService() {
+        RecordingRetentionService retentionService = new RecordingRetentionService(mock(MinioClient.class),
+                mock(RoomRepository.class));
+        ReflectionTestUtils.setField(retentionService, "defaultRetentionDays", 3);
+        ReflectionTestUtils.setField(retentionService, "s3Bucket", "livekit-recordings");
+        return retentionService;
+    }
+
+    /**
+     * EgressSessionRepository backed by a map, standing in for the egress_sessions table
+     */
+    private static EgressSessionRepository inMemoryEgressSessionRepository() {
+        Map<String, EgressSession> table = new ConcurrentHashMap<>();
+        EgressSessionRepository repository = mock(EgressSessionRepository.class);
+        when(repository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(table.get(inv.<String>getArgument(0))));
+        when(repository.existsById(anyString())).thenAnswer(inv -> table.containsKey(inv.<String>getArgument(0)));
+        when(repository.insertIfAbsent(anyString(), anyString(), anyString(), any(), any(), any(), any())).thenAnswer(inv -> {
+            LocalDateTime startedAt = inv.getArgument(5);
+            EgressSession session = EgressSession.builder()
+                    .egressId(inv.getArgument(0))
+                    .roomName(inv.getArgument(1))
+                    .status(EgressSession.Status.valueOf(inv.getArgument(2)))
+                    .objectKey(inv.getArgument(3))
+                    .error(inv.getArgument(4))
+                    .startedAt(startedAt)
+                    .endedAt(inv.getArgument(6))
+                    .createdAt(startedAt)
+                    .build();
+            return table.putIfAbsent(session.getEgressId(), session) == null ? 1 : 0;
+        });
+        when(repository.setObjectKeyIfAbsent(anyString(), anyString())).thenAnswer(inv -> {
+            EgressSession session = table.get(inv.<String>getArgument(0));
+            if (session == null || session.getObjectKey() != null) {
+                return 0;
+            }
+            session.setObjectKey(inv.getArgument(1));
+            return 1;
+        });
+        when(repository.transition(anyString(), anyCollection(), any(), any())).thenAnswer(inv ->
+                transition(table, inv.getArgument(0), inv.getArgument(1), inv.getArgument(2), null, null));
+        when(repository.finish(anyString(), anyCollection(), any(), any(), any())).thenAnswer(inv ->
+                transition(table, inv.getArgument(0), inv.getArgument(1), inv.getArgument(2), inv.getArgument(3), inv.getArgument(4)));
+        when(repository.findFirstByRoomNameAndStatusInOrderByCreatedAtDesc(anyString(), anyCollection())).thenAnswer(inv -> {
+            Collection<EgressSession.Status> statuses = inv.getArgument(1);
+            return table.values().stream()
+                    .filter(s -> s.getRoomName().equals(inv.getArgument(0)) && statuses.contains(s.getStatus()))
+                    .max(Comparator.comparing(EgressSession::getCreatedAt));
+        });
+        when(repository.findByStatusIn(anyCollection())).thenAnswer(inv -> {
+            Collection<EgressSession.Status> statuses = inv.getArgument(0);
+            return table.values().stream().filter(s -> statuses.contains(s.getStatus())).toList();
+        });
+        return repository;
+    }
+
+    private static int transition(Map<String, EgressSession> table, String egressId,
+                                  Collection<EgressSession.Status> from, EgressSession.Status next,
+                                  String error, LocalDateTime endedAt) {
+        boolean[] applied = new boolean[1];
+        table.computeIfPresent(egressId, (id, session) -> {
+            if (from.contains(session.getStatus())) {
+                session.setStatus(next);
+                if (endedAt != null) {
+                    session.setEndedAt(endedAt);
+                    session.setError(error);
+                }
+                applied[0] = true;
+            }
+            return session;
+        });
+        return applied[0] ? 1 : 0;
+    }
+
+    @AfterEach
+    void tearDown() {
+        fakeServer.close();
+    }
+
+    /**
+     * Cycle complet : création de room, enregistrement, arrêt, destruction
+     */
+    @Test
+    void testRoomLifecycle_AgainstFakeServer() throws Exception {
+        String roomName = "room-lifecycle";
+        roomServiceClient.createRoom(roomName).execute();
+        fakeServer.addParticipant(roomName, "Prof Test");
+        fakeServer.addParticipant(roomName, "egress-recorder-" + roomName);
+
+        String egressId = recordingService.startRecording(roomName);
+        assertNotNull(egressId);
+        assertTrue(recordingService.isRecording(roomName));
+        assertEquals(1, recordingService.countRealParticipants(roomName));
+
+        recordingService.stopRecording(roomName);
+        assertFalse(recordingService.isRecording(roomName));
+
+        LivekitEgress.EgressInfo egress = fakeServer.getEgresses().get(0);
+        assertEquals(LivekitEgress.EgressStatus.EGRESS_COMPLETE, egress.getStatus());
+        assertTrue(egress.getFileResults(0).getLocation().startsWith("http://minio:9000/livekit-recordings/retention-3d/" + roomName + "/"));
+
+        recordingService.destroyLiveKitRoom(roomName);
+        assertFalse(fakeServer.hasRoom(roomName));
+    }
+
+    /**
+     * Après un redémarrage (ou sur une autre instance), stopRecording retrouve l'egress
+     * dans la table egress_sessions, sans appel ListEgress
+     */
+    @Test
+    void testStopRecording_AfterRestart_UsesPersistedState() throws Exception {
+        String roomName = "room-restart";
+        String egressId = recordingService.startRecording(roomName);
+        assertNotNull(egressId);
+
+        LiveKitRecordingService restarted = newRecordingService(mock(SessionRecordingRepository.class));
+        assertTrue(restarted.isRecording(roomName));
+        restarted.stopRecording(roomName);
+
+        assertFalse(restarted.isRecording(roomName));
+        assertEquals(0, fakeServer.getCallCount("ListEgress"));
+        assertEquals(1, fakeServer.getCallCount("StopEgress"));
+    }
+
+    /**
+     * L'arrêt fait par un autre réplica est vu immédiatement, et un statut périmé ne fait pas reculer l'egress
+     */
+    @Test
+    void testEgressStatus_SharedBetweenReplicasAndMonotonic() throws Exception {
+        String roomName = "room-replicas";
+        EgressSessionService replicaA = new EgressSessionService(egressSessionRepository);
+        EgressSessionService replicaB = new EgressSessionService(egressSessionRepository);
+        replicaA.recordStarted("EG_replicas", roomName, EgressSession.Status.STARTING, "retention-3d/room-replicas/1.mp4");
+        assertTrue(replicaA.updateStatus("EG_replicas", roomName, EgressSession.Status.ACTIVE, null));
+        assertEquals(Optional.of("EG_replicas"), replicaA.findActiveEgressId(roomName));
+
+        assertTrue(replicaB.updateStatus("EG_replicas", "", EgressSession.Status.ENDING, null));
+        assertTrue(replicaA.findActiveEgressId(roomName).isEmpty());
+
+        // Late ACTIVE webhook, redelivered ENDING
+        assertFalse(replicaA.updateStatus("EG_replicas", roomName, EgressSession.Status.ACTIVE, null));
+        assertFalse(replicaA.updateStatus("EG_replicas", roomName, EgressSession.Status.ENDING, null));
+        assertTrue(replicaA.updateStatus("EG_replicas", "", EgressSession.Status.COMPLETE, ""));
+        assertFalse(replicaB.updateStatus("EG_replicas", roomName, EgressSession.Status.FAILED, "late"));
+
+        EgressSession session = egressSessionRepository.findById("EG_replicas").orElseThrow();
+        assertEquals(EgressSession.Status.COMPLETE, session.getStatus());
+        assertNotNull(session.getEndedAt());
+        assertNull(session.getError());
+    }
+
+    /**
+     * Un egress terminé pendant l'arrêt du backend est finalisé au démarrage (enregistrement sauvegardé)
+     */
+    @Test
+    void testReconcileAtStartup_FinalizesEgressEndedWhileDown() throws Exception {
+        String roomName = "room-reconcile";
+        fakeServer.setRecordingSizeBytes(4096);
+        String egressId = recordingService.startRecording(roomName);
+        assertNotNull(egressId);
+
+        // Egress stopped directly on LiveKit: the egress_ended webhook is never received
+        egressClient.stopEgress(egressId).execute();
+
+        SessionRecordingRepository recordings = mock(SessionRecordingRepository.class);
+        LiveKitRecordingService restarted = newRecordingService(recordings);
+        restarted.reconcileEgressState();
+
+        assertEquals(EgressSession.Status.COMPLETE, egressSessionRepository.findById(egressId).orElseThrow().getStatus());
+        assertFalse(restarted.isRecording(roomName));
+        ArgumentCaptor<SessionRecording> saved = ArgumentCaptor.forClass(SessionRecording.class);
+        verify(recordings).save(saved.capture());
+        SessionRecording recording = saved.getValue();
+        assertEquals(egressId, recording.getEgressId());
+        assertEquals(roomName, recording.getRoomName());
+        // The key requested at start, not one parsed back from the upload location
+        assertEquals(egressSessionRepository.findById(egressId).orElseThrow().getObjectKey(), recording.getObjectKey());
+        assertTrue(recording.getObjectKey().matches("retention-3d/" + roomName + "/\\d+\\.mp4"), recording.getObjectKey());
+        assertNotNull(recording.getExpiresAt());
+        assertEquals(4096L, recording.getSizeBytes());
+        assertNotNull(recording.getStartedAt());
+        assertNotNull(recording.getEndedAt());
+    }
+
+    /**
+     * Mode de sortie HLS : l'egress reçoit une sortie segmentée et la playlist est enregistrée
+     */
+    @Test
+    void testHlsOutput_SavesPlaylistRecording() throws Exception {
+        String roomName = "room-hls";
+        SessionRecordingRepository recordings = mock(SessionRecordingRepository.class);
+        LiveKitRecordingService hlsService = newRecordingService(recordings);
+        ReflectionTestUtils.setField(hlsService, "outputMode", "hls");
+        ReflectionTestUtils.setField(hlsService, "hlsSegmentDuration", 6);
+
+        String egressId = hlsService.startRecording(roomName);
+        hlsService.stopRecording(roomName);
+
+        LivekitEgress.EgressInfo egress = fakeServer.getEgresses().get(0);
+        assertTrue(egress.getWeb().hasSegments());
+        assertEquals(6, egress.getWeb().getSegments().getSegmentDuration());
+        hlsService.handleEgressEvent(egress);
+
+        ArgumentCaptor<SessionRecording> saved = ArgumentCaptor.forClass(SessionRecording.class);
+        verify(recordings).save(saved.capture());
+        SessionRecording recording = saved.getValue();
+        assertEquals(SessionRecording.RecordingFormat.HLS, recording.getFormat());
+        assertEquals(egressId, recording.getEgressId());
+        assertTrue(recording.getObjectKey().matches("retention-3d/" + roomName + "/\\d+/playlist\\.m3u8"), recording.getObjectKey());
+    }
+
+    /**
+     * Un échec de sauvegarde de l'enregistrement est remonté (le webhook n'est pas considéré comme traité)
+     */
+    @Test
+    void testHandleEgressEvent_SaveFailureIsRaised() throws Exception {
+        String roomName = "room-save-failure";
+        SessionRecordingRepository recordings = mock(SessionRecordingRepository.class);
+        when(recordings.save(any(SessionRecording.class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        LiveKitRecordingService service = newRecordingService(recordings);
+
+        service.startRecording(roomName);
+        service.stopRecording(roomName);
+
+        LivekitEgress.EgressInfo egress = fakeServer.getEgresses().get(0);
+        assertEquals(LivekitEgress.EgressStatus.EGRESS_COMPLETE, egress.getStatus());
+        assertThrows(DataAccessResourceFailureException.class, () -> service.handleEgressEvent(egress));
+    }
+
+    /**
+     * L'injection de pannes est remontée comme un échec, sans exception
+     */
+    @Test
+    void testStartRecording_InjectedFailure() {
+        fakeServer.failNext("StartWebEgress", 1, 503);
+
+        assertNull(recordingService.startRecording("room-failure"));
+        assertNotNull(recordingService.startRecording("room-failure"));
+    }
+
+    /**
+     * Méthode Twirp non implémentée : erreur bad_route en 404, comme un vrai serveur Twirp, et non une 500
+     */
+    @Test
+    void testUnknownMethod_BadRoute() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(fakeServer.getUrl() + "/twirp/livekit.RoomService/UpdateSubscriptions"))
+                .header("Authorization", "Bearer token")
+                .header("Content-Type", "application/protobuf")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(404, response.statusCode());
+        assertTrue(response.body().contains("\"code\":\"bad_route\""), response.body());
+    }
+
+    /**
+     * Les webhooks signés par le faux serveur sont acceptés par le WebhookReceiver du SDK
+     */
+    @Test
+    void testWebhookSignature_AcceptedByWebhookReceiver() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(2);
+        WebhookReceiver receiver = new WebhookReceiver(API_KEY, API_SECRET);
+
+        HttpServer backend = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        backend.createContext("/api/livekit/webhook", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            LivekitWebhook.WebhookEvent event = receiver.receive(body, exchange.getRequestHeaders().getFirst("Authorization"));
+            received.add(event.getEvent());
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            latch.countDown();
+        });
+        backend.start();
+        try {
+            fakeServer.setWebhookUrl("http://127.0.0.1:" + backend.getAddress().getPort() + "/api/livekit/webhook");
+            fakeServer.addParticipant("room-webhook", "Prof Test");
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("room_started", "participant_joined"), received);
+        } finally {
+            backend.stop(0);
+        }
+
+        String body = JsonFormat.printer().print(LivekitWebhook.WebhookEvent.newBuilder().setEvent("room_finished").build());
+        assertThrows(Exception.class, () -> receiver.receive(body + " ", fakeServer.signWebhook(body)));
+    }
+
+    /**
+     * Petit test de charge : cycle de vie de plusieurs rooms en parallèle avec latence injectée
+     */
+    @Test
+    void testConcurrentRoomLifecycle_WithLatency() throws Exception {
+        int rooms = 40;
+        fakeServer.setLatency(Duration.ofMillis(5));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < rooms; i++) {
+                String roomName = "room-load-" + i;
+                results.add(pool.submit(() -> {
+                    roomServiceClient.createRoom(roomName).execute();
+                    String egressId = recordingService.startRecording(roomName);
+                    recordingService.stopRecording(roomName);
+                    recordingService.destroyLiveKitRoom(roomName);
+                    return egressId;
+                }));
+            }
+            for (Future<String> result : results) {
+                assertNotNull(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(rooms, fakeServer.getCallCount("StartWebEgress"));
+        assertEquals(rooms, fakeServer.getCallCount("StopEgress"));
+        assertEquals(rooms, fakeServer.getCallCount("DeleteRoom"));
+    }
+}
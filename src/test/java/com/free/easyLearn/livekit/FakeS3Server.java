@@ -0,0 +1,290 @@
+package com.free.easyLearn.livekit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal S3-compatible server (path-style) standing in for MinIO in tests.
+ *
+ * Supports GET (with single byte ranges)/HEAD/PUT/DELETE of single objects, ListObjectsV2 and the
+ * multi-object delete ({@code POST /bucket?delete}) used by {@code MinioClient.removeObjects}, and
+ * PUT/GET/DELETE of the bucket lifecycle configuration ({@code /bucket?lifecycle}). Keys can be
+ * marked as failing to exercise partial failures. Point a {@code MinioClient} at
+ * {@link #getUrl()} with an explicit region so no bucket-location lookup is made.
+ */
+public class FakeS3Server implements AutoCloseable {
+
+    private static final Pattern KEY = Pattern.compile("<Key>(.*?)</Key>", Pattern.DOTALL);
+    private static final Pattern QUIET = Pattern.compile("<Quiet>\\s*true\\s*</Quiet>");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private final HttpServer server;
+    // "bucket/key" -> content
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Set<String> failingKeys = ConcurrentHashMap.newKeySet();
+    private final List<Integer> deleteBatchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> rangeRequests = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failNextRequests = new AtomicInteger();
+    // bucket -> lifecycle configuration XML
+    private final Map<String, String> lifecycles = new ConcurrentHashMap<>();
+
+    private FakeS3Server(HttpServer server) {
+        this.server = server;
+    }
+
+    public static FakeS3Server start() throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        FakeS3Server fake = new FakeS3Server(httpServer);
+        httpServer.createContext("/", fake::handle);
+        httpServer.start();
+        return fake;
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    // ─── Test helpers ───
+
+    public void putObject(String bucket, String key, byte[] content) {
+        objects.put(bucket + "/" + key, content);
+    }
+
+    public boolean hasObject(String bucket, String key) {
+        return objects.containsKey(bucket + "/" + key);
+    }
+
+    public int objectCount() {
+        return objects.size();
+    }
+
+    /**
+     * The given key is never deleted; multi-object deletes report AccessDenied for it.
+     */
+    public void failKey(String bucket, String key) {
+        failingKeys.add(bucket + "/" + key);
+    }
+
+    /**
+     * The next {@code times} requests fail with HTTP 503.
+     */
+    public void failNextRequests(int times) {
+        failNextRequests.set(times);
+    }
+
+    /**
+     * Number of keys of each multi-object delete request received, in order.
+     */
+    public List<Integer> getDeleteBatchSizes() {
+        return new ArrayList<>(deleteBatchSizes);
+    }
+
+    /**
+     * Byte ranges of the object GET requests received, in order ("start-end", or "full").
+     */
+    public List<String> getRangeRequests() {
+        return new ArrayList<>(rangeRequests);
+    }
+
+    /**
+     * Lifecycle configuration XML last set on the bucket, or null.
+     */
+    public String getLifecycleConfiguration(String bucket) {
+        return lifecycles.get(bucket);
+    }
+
+    // ─── HTTP handling ───
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (failNextRequests.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                sendXml(exchange, 503, error("SlowDown", "injected failure", exchange.getRequestURI().getPath()));
+                return;
+            }
+            String path = exchange.getRequestURI().getPath().substring(1);
+            String query = exchange.getRequestURI().getRawQuery();
+            String method = exchange.getRequestMethod();
+            byte[] body = exchange.getRequestBody().readAllBytes();
+
+            if ("POST".equals(method) && query != null && query.startsWith("delete")) {
+                handleMultiDelete(exchange, path, new String(body, StandardCharsets.UTF_8));
+                return;
+            }
+            if (!path.contains("/") && query != null && query.startsWith("lifecycle")) {
+                handleLifecycle(exchange, path, method, new String(body, StandardCharsets.UTF_8));
+                return;
+            }
+            if ("GET".equals(method) && !path.contains("/") && query != null && query.contains("list-type=2")) {
+                handleList(exchange, path, query);
+                return;
+            }
+            switch (method) {
+                case "PUT" -> {
+                    objects.put(path, body);
+                    exchange.getResponseHeaders().add("ETag", "\"" + Integer.toHexString(path.hashCode()) + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "DELETE" -> {
+                    objects.remove(path);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                case "GET", "HEAD" -> {
+                    byte[] content = objects.get(path);
+                    if (content == null) {
+                        sendXml(exchange, 404, error("NoSuchKey", "The specified key does not exist.", path));
+                        return;
+                    }
+                    exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+                    exchange.getResponseHeaders().add("ETag", "\"" + Integer.toHexString(path.hashCode()) + "\"");
+                    exchange.getResponseHeaders().add("Last-Modified", "Mon, 01 Jan 2024 00:00:00 GMT");
+                    if ("HEAD".equals(method)) {
+                        exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                        exchange.sendResponseHeaders(200, -1);
+                        return;
+                    }
+                    // Single "bytes=start-end" ranges, as sent by MinioClient.getObject(offset, length)
+                    int start = 0;
+                    int end = content.length - 1;
+                    int status = 200;
+                    Matcher range = RANGE.matcher(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+                    if (range.matches()) {
+                        start = Integer.parseInt(range.group(1));
+                        if (!range.group(2).isEmpty()) {
+                            end = Math.min(end, Integer.parseInt(range.group(2)));
+                        }
+                        status = 206;
+                        exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+                    }
+                    rangeRequests.add(status == 206 ? start + "-" + end : "full");
+                    int length = end - start + 1;
+                    exchange.sendResponseHeaders(status, length <= 0 ? -1 : length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(content, start, Math.max(0, length));
+                    }
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void handleMultiDelete(HttpExchange exchange, String bucket, String body) throws IOException {
+        boolean quiet = QUIET.matcher(body).find();
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<DeleteResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+        Matcher matcher = KEY.matcher(body);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+            String key = unescape(matcher.group(1));
+            if (failingKeys.contains(bucket + "/" + key)) {
+                xml.append("<Error><Key>").append(escape(key)).append("</Key>")
+                        .append("<Code>AccessDenied</Code><Message>Access Denied.</Message></Error>");
+                continue;
+            }
+            objects.remove(bucket + "/" + key);
+            if (!quiet) {
+                xml.append("<Deleted><Key>").append(escape(key)).append("</Key></Deleted>");
+            }
+        }
+        deleteBatchSizes.add(count);
+        sendXml(exchange, 200, xml.append("</DeleteResult>").toString());
+    }
+
+    private void handleLifecycle(HttpExchange exchange, String bucket, String method, String body) throws IOException {
+        switch (method) {
+            case "PUT" -> {
+                lifecycles.put(bucket, body);
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "DELETE" -> {
+                lifecycles.remove(bucket);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            case "GET" -> {
+                String config = lifecycles.get(bucket);
+                if (config == null) {
+                    sendXml(exchange, 404, error("NoSuchLifecycleConfiguration",
+                            "The lifecycle configuration does not exist.", bucket));
+                } else {
+                    sendXml(exchange, 200, config);
+                }
+            }
+            default -> exchange.sendResponseHeaders(405, -1);
+        }
+    }
+
+    /**
+     * ListObjectsV2 (single page, recursive), as used by {@code MinioClient.listObjects}.
+     */
+    private void handleList(HttpExchange exchange, String bucket, String query) throws IOException {
+        String prefix = "";
+        for (String param : query.split("&")) {
+            if (param.startsWith("prefix=")) {
+                prefix = URLDecoder.decode(param.substring("prefix=".length()), StandardCharsets.UTF_8);
+            }
+        }
+        String bucketPrefix = bucket + "/" + prefix;
+        List<String> keys = objects.keySet().stream()
+                .filter(k -> k.startsWith(bucketPrefix))
+                .map(k -> k.substring(bucket.length() + 1))
+                .sorted()
+                .toList();
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>").append(escape(bucket)).append("</Name>")
+                .append("<Prefix>").append(escape(prefix)).append("</Prefix>")
+                .append("<KeyCount>").append(keys.size()).append("</KeyCount>")
+                .append("<MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>");
+        for (String key : keys) {
+            xml.append("<Contents><Key>").append(escape(key)).append("</Key>")
+                    .append("<LastModified>2024-01-01T00:00:00.000Z</LastModified>")
+                    .append("<ETag>\"").append(Integer.toHexString(key.hashCode())).append("\"</ETag>")
+                    .append("<Size>").append(objects.get(bucket + "/" + key).length).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        sendXml(exchange, 200, xml.append("</ListBucketResult>").toString());
+    }
+
+    private static String error(String code, String message, String resource) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>" + message
+                + "</Message><Resource>/" + escape(resource) + "</Resource><RequestId>fake</RequestId></Error>";
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+}
@@ -0,0 +1,139 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.stats.AdminStatsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests du snapshot des statistiques admin : servi depuis la mémoire, rafraîchi par section, version/ETag
+ */
+class AdminStatsSnapshotTest {
+
+    private StatsService statsService;
+    private AdminStatsSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        statsService = mock(StatsService.class);
+        when(statsService.refreshAdminStats(any(), any())).thenAnswer(inv -> {
+            AdminStatsDTO previous = inv.getArgument(0);
+            return (previous != null ? previous.toBuilder() : AdminStatsDTO.builder()).totalStudents(10).build();
+        });
+        snapshot = new AdminStatsSnapshot(statsService, 2000, 300000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Les lectures suivantes sont servies depuis la mémoire, sans recalcul
+     */
+    @Test
+    void testCurrent_ComputedOnceThenServedFromMemory() {
+        AdminStatsSnapshot.Snapshot first = snapshot.current();
+        AdminStatsSnapshot.Snapshot second = snapshot.current();
+
+        assertSame(first, second);
+        assertEquals(1, first.version());
+        assertEquals(1, first.stats().getVersion());
+        assertNotNull(first.stats().getGeneratedAt());
+        verify(statsService, times(1)).refreshAdminStats(isNull(), eq(EnumSet.allOf(AdminStatsSnapshot.Section.class)));
+    }
+
+    @Test
+    void testRefresh_OnlyDirtySections_NewVersionWhenContentChanges() {
+        AdminStatsSnapshot.Snapshot initial = snapshot.current();
+        when(statsService.refreshAdminStats(any(), eq(EnumSet.of(AdminStatsSnapshot.Section.ROOMS))))
+                .thenAnswer(inv -> ((AdminStatsDTO) inv.getArgument(0)).toBuilder().activeRooms(3).build());
+
+        snapshot.refreshDirtySections();
+        verify(statsService, times(1)).refreshAdminStats(any(), any());
+
+        snapshot.markDirty(AdminStatsSnapshot.Section.ROOMS);
+        snapshot.markDirty(AdminStatsSnapshot.Section.ROOMS);
+        snapshot.refreshDirtySections();
+
+        AdminStatsSnapshot.Snapshot updated = snapshot.current();
+        assertEquals(2, updated.version());
+        assertNotEquals(initial.etag(), updated.etag());
+        assertEquals(3, updated.stats().getActiveRooms());
+        assertEquals(10, updated.stats().getTotalStudents());
+        verify(statsService).refreshAdminStats(initial.stats(), EnumSet.of(AdminStatsSnapshot.Section.ROOMS));
+    }
+
+    /**
+     * Contenu inchangé : même version et même ETag (le client reçoit 304)
+     */
+    @Test
+    void testFullRecompute_UnchangedContentKeepsEtag() {
+        AdminStatsSnapshot.Snapshot initial = snapshot.current();
+
+        snapshot.fullRecompute();
+
+        assertSame(initial, snapshot.current());
+    }
+
+    /**
+     * Dans une transaction, la section n'est marquée qu'après le commit
+     */
+    @Test
+    void testMarkDirty_AppliedAfterCommit() {
+        snapshot.current();
+        TransactionSynchronizationManager.initSynchronization();
+
+        snapshot.markDirty(AdminStatsSnapshot.Section.EVALUATIONS);
+        snapshot.refreshDirtySections();
+        verify(statsService, never()).refreshAdminStats(any(), eq(EnumSet.of(AdminStatsSnapshot.Section.EVALUATIONS)));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        snapshot.refreshDirtySections();
+        verify(statsService).refreshAdminStats(any(), eq(EnumSet.of(AdminStatsSnapshot.Section.EVALUATIONS)));
+    }
+
+    /**
+     * Statistiques par admin : en cache par admin, recalculées seulement après un changement
+     */
+    @Test
+    void testForAdmin_CachedPerAdminUntilChange() {
+        AdminStatsSnapshot tenantSnapshot = new AdminStatsSnapshot(statsService, 0, 300000);
+        UUID adminA = UUID.randomUUID();
+        UUID adminB = UUID.randomUUID();
+        when(statsService.getAdminStatsForAdmin(any())).thenReturn(AdminStatsDTO.builder().totalStudents(3).build());
+
+        AdminStatsSnapshot.Snapshot first = tenantSnapshot.forAdmin(adminA);
+        assertSame(first, tenantSnapshot.forAdmin(adminA));
+        tenantSnapshot.forAdmin(adminB);
+        verify(statsService, times(1)).getAdminStatsForAdmin(adminA);
+        verify(statsService, times(1)).getAdminStatsForAdmin(adminB);
+        assertTrue(first.etag().contains(adminA.toString()));
+
+        // A change with the same result: recomputed, but same version and ETag
+        tenantSnapshot.markDirty(AdminStatsSnapshot.Section.STUDENTS);
+        assertSame(first, tenantSnapshot.forAdmin(adminA));
+        verify(statsService, times(2)).getAdminStatsForAdmin(adminA);
+
+        // A change with a new result: new version
+        when(statsService.getAdminStatsForAdmin(adminA)).thenReturn(AdminStatsDTO.builder().totalStudents(4).build());
+        tenantSnapshot.markDirty(AdminStatsSnapshot.Section.STUDENTS);
+        AdminStatsSnapshot.Snapshot updated = tenantSnapshot.forAdmin(adminA);
+        assertEquals(2, updated.version());
+        assertEquals(4, updated.stats().getTotalStudents());
+        assertNotEquals(first.etag(), updated.etag());
+        verify(statsService, never()).refreshAdminStats(any(), any());
+    }
+}
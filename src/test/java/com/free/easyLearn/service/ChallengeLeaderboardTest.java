@@ -0,0 +1,198 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.challenge.ChallengeLeaderboardEntryDTO;
+import com.free.easyLearn.entity.Student;
+import com.free.easyLearn.entity.User;
+import com.free.easyLearn.repository.ChallengeAttemptRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests du classement en mémoire : reconstruction depuis SQL, réponses appliquées, vues par niveau et
+ * par administrateur, rang d'un étudiant
+ */
+@ExtendWith(MockitoExtension.class)
+class ChallengeLeaderboardTest {
+
+    private static final UUID ADMIN = UUID.randomUUID();
+
+    @Mock
+    private ChallengeAttemptRepository attemptRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ChallengeLeaderboard leaderboard;
+
+    @Test
+    void testRebuild_PagesAndViews() {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        UUID carol = UUID.randomUUID();
+        when(attemptRepository.getLeaderboardTotals()).thenReturn(List.of(
+                row(alice, "Alice", Student.LanguageLevel.A1, ADMIN, 300, 3, 2),
+                row(bob, "Bob", Student.LanguageLevel.B1, ADMIN, 500, 4, 4),
+                row(carol, "Carol", Student.LanguageLevel.A1, null, 100, 1, 0)));
+
+        leaderboard.rebuild();
+
+        List<ChallengeLeaderboardEntryDTO> global = leaderboard.getPage(null, null, 0, 10);
+        assertEquals(List.of("Bob", "Alice", "Carol"), global.stream().map(ChallengeLeaderboardEntryDTO::getStudentName).toList());
+        assertEquals(List.of(1, 2, 3), global.stream().map(ChallengeLeaderboardEntryDTO::getRank).toList());
+        assertEquals(4L, global.get(0).getPerfectAnswers());
+
+        List<ChallengeLeaderboardEntryDTO> secondPage = leaderboard.getPage(null, null, 1, 2);
+        assertEquals(1, secondPage.size());
+        assertEquals(3, secondPage.get(0).getRank());
+
+        assertEquals(List.of("Alice", "Carol"), names(leaderboard.getPage(null, Student.LanguageLevel.A1, 0, 10)));
+        assertEquals(List.of("Bob", "Alice"), names(leaderboard.getPage(ADMIN, null, 0, 10)));
+        assertEquals(List.of("Alice"), names(leaderboard.getPage(ADMIN, Student.LanguageLevel.A1, 0, 10)));
+        assertTrue(leaderboard.getPage(UUID.randomUUID(), null, 0, 10).isEmpty());
+
+        assertEquals(3, leaderboard.getRank(carol, null, null).getRank());
+        assertEquals(2, leaderboard.getRank(carol, null, Student.LanguageLevel.A1).getRank());
+        assertNull(leaderboard.getRank(carol, ADMIN, null));
+        assertEquals(2, leaderboard.count(ADMIN, null));
+    }
+
+    @Test
+    void testRecordCorrectAnswer_UpdatesRankAndMovesLevel() {
+        UUID alice = UUID.randomUUID();
+        when(attemptRepository.getLeaderboardTotals()).thenReturn(List.<Object[]>of(
+                row(alice, "Alice", Student.LanguageLevel.A1, ADMIN, 300, 3, 2)));
+        leaderboard.rebuild();
+
+        Student bob = student("Bob", Student.LanguageLevel.A1);
+        leaderboard.recordCorrectAnswer(UUID.randomUUID(), bob, 200, true);
+        assertEquals(2, leaderboard.getRank(bob.getId(), null, null).getRank());
+
+        // Promoted to B1 before answering again: leaves the A1 view
+        bob.setLevel(Student.LanguageLevel.B1);
+        leaderboard.recordCorrectAnswer(UUID.randomUUID(), bob, 150, false);
+
+        ChallengeLeaderboardEntryDTO entry = leaderboard.getRank(bob.getId(), ADMIN, null);
+        assertEquals(1, entry.getRank());
+        assertEquals(350L, entry.getTotalPoints());
+        assertEquals(2L, entry.getChallengesCompleted());
+        assertEquals(1L, entry.getPerfectAnswers());
+        assertEquals(List.of("Alice"), names(leaderboard.getPage(null, Student.LanguageLevel.A1, 0, 10)));
+        assertEquals(1, leaderboard.getRank(bob.getId(), null, Student.LanguageLevel.B1).getRank());
+        verify(attemptRepository, times(1)).getLeaderboardTotals();
+    }
+
+    @Test
+    void testMarkStale_RebuildsOnNextRefresh() {
+        when(attemptRepository.getLeaderboardTotals()).thenReturn(List.of());
+        leaderboard.rebuild();
+        leaderboard.refreshIfStale();
+        verify(attemptRepository, times(1)).getLeaderboardTotals();
+
+        leaderboard.markStale();
+        leaderboard.refreshIfStale();
+        leaderboard.refreshIfStale();
+        verify(attemptRepository, times(2)).getLeaderboardTotals();
+    }
+
+    /**
+     * Réponses appliquées pendant une reconstruction : celles absentes du snapshot sont ajoutées au nouveau
+     * classement, celles déjà comptées ne le sont pas deux fois
+     */
+    @Test
+    void testRebuild_KeepsAnswersAppliedDuringRebuild() {
+        UUID alice = UUID.randomUUID();
+        when(attemptRepository.getLeaderboardTotals()).thenReturn(List.<Object[]>of(
+                row(alice, "Alice", Student.LanguageLevel.A1, ADMIN, 300, 3, 2)));
+        leaderboard.rebuild();
+
+        Student bob = student("Bob", Student.LanguageLevel.A1);
+        UUID countedAttempt = UUID.randomUUID();
+        UUID missedAttempt = UUID.randomUUID();
+        when(attemptRepository.getLeaderboardTotals()).thenAnswer(inv -> {
+            // Both answers commit while the totals are read; only the first one is in the snapshot
+            leaderboard.recordCorrectAnswer(countedAttempt, bob, 100, true);
+            leaderboard.recordCorrectAnswer(missedAttempt, bob, 400, false);
+            return List.<Object[]>of(
+                    row(alice, "Alice", Student.LanguageLevel.A1, ADMIN, 300, 3, 2),
+                    row(bob.getId(), "Bob", Student.LanguageLevel.A1, ADMIN, 100, 1, 1));
+        });
+        when(attemptRepository.findCorrectAttemptIds(List.of(countedAttempt, missedAttempt)))
+                .thenReturn(List.of(countedAttempt));
+
+        leaderboard.rebuild();
+
+        ChallengeLeaderboardEntryDTO entry = leaderboard.getRank(bob.getId(), null, null);
+        assertEquals(1, entry.getRank());
+        assertEquals(500L, entry.getTotalPoints());
+        assertEquals(2L, entry.getChallengesCompleted());
+        assertEquals(1L, entry.getPerfectAnswers());
+
+        // Later answers are applied directly, without buffering
+        leaderboard.recordCorrectAnswer(UUID.randomUUID(), bob, 50, false);
+        assertEquals(550L, leaderboard.getRank(bob.getId(), null, null).getTotalPoints());
+        verify(attemptRepository, times(1)).findCorrectAttemptIds(anyCollection());
+    }
+
+    @Test
+    void testRankedSkipList_MatchesSortedList() {
+        Random random = new Random(42);
+        RankedSkipList<Integer> list = new RankedSkipList<>(Comparator.naturalOrder());
+        List<Integer> reference = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(5_000);
+            int index = Collections.binarySearch(reference, value);
+            if (index >= 0) {
+                assertTrue(list.remove(value));
+                reference.remove(index);
+            } else {
+                list.insert(value);
+                reference.add(-index - 1, value);
+            }
+            if (i % 500 == 0) {
+                assertEquals(reference.size(), list.size());
+                int probe = random.nextInt(5_000);
+                int probeIndex = Collections.binarySearch(reference, probe);
+                assertEquals(probeIndex >= 0 ? probeIndex + 1 : 0, list.rank(probe));
+                int from = 1 + random.nextInt(reference.size() + 1);
+                assertEquals(reference.subList(Math.min(from - 1, reference.size()), Math.min(from + 9, reference.size())),
+                        list.range(from, 10));
+            }
+        }
+        assertFalse(list.remove(-1));
+        assertEquals(reference, list.range(1, reference.size()));
+    }
+
+    private static List<String> names(List<ChallengeLeaderboardEntryDTO> entries) {
+        return entries.stream().map(ChallengeLeaderboardEntryDTO::getStudentName).toList();
+    }
+
+    private static Object[] row(UUID studentId, String name, Student.LanguageLevel level, UUID adminId,
+                                long points, long completed, long perfect) {
+        return new Object[]{studentId, name, null, level, adminId, points, completed, perfect};
+    }
+
+    private static Student student(String name, Student.LanguageLevel level) {
+        return Student.builder()
+                .id(UUID.randomUUID())
+                .user(User.builder().id(UUID.randomUUID()).name(name).build())
+                .level(level)
+                .createdBy(User.builder().id(ADMIN).build())
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.free.easyLearn.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de l'export en flux sur un vrai curseur JDBC Postgres : lignes par seconde en CSV et NDJSON
+ * sur {@value #SYNTHETIC_ROWS} lignes générées (generate_series, fetch size de exports.fetch-size), puis
+ * export complet des élèves par ExportService.
+ *
+ * Nécessite une base Postgres (schéma de l'application pour l'export des élèves) :
+ * mvn test -Dtest=ExportBenchmarkTest -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/easylearn
+ * -Dbenchmark.db.user=... -Dbenchmark.db.password=...
+ */
+@EnabledIfSystemProperty(named = "benchmark.db.url", matches = ".+")
+class ExportBenchmarkTest {
+
+    private static final int SYNTHETIC_ROWS = 1_000_000;
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SYNTHETIC = "SELECT gen_random_uuid() AS id, 'Student ' || i AS name, 'B2' AS level, " +
+            "CAST(i AS numeric) / 100 AS hours_learned, i % 2 = 0 AS passed, " +
+            "TIMESTAMP '2025-01-01' + i * INTERVAL '1 second' AS created_at FROM generate_series(1, ?) i";
+
+    @Test
+    void benchmarkSyntheticCursor() throws Exception {
+        DriverManagerDataSource dataSource = dataSource();
+        for (ExportService.Format format : ExportService.Format.values()) {
+            try (Connection connection = dataSource.getConnection()) {
+                // The driver only streams with auto-commit off; otherwise it loads every row first
+                connection.setAutoCommit(false);
+                try (PreparedStatement statement = connection.prepareStatement(SYNTHETIC)) {
+                    statement.setFetchSize(FETCH_SIZE);
+                    statement.setInt(1, SYNTHETIC_ROWS);
+                    long heapBefore = usedHeap();
+                    long start = System.nanoTime();
+                    long rows;
+                    try (ResultSet rs = statement.executeQuery()) {
+                        rows = ExportService.writeRows(rs, format, OutputStream.nullOutputStream());
+                    }
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("Export %s: %d rows in %.2fs (%.0f rows/s), heap %+d MB%n", format, rows, seconds,
+                            rows / seconds, (usedHeap() - heapBefore) / (1024 * 1024));
+                    assertEquals(SYNTHETIC_ROWS, rows);
+                } finally {
+                    connection.rollback();
+                }
+            }
+        }
+    }
+
+    @Test
+    void benchmarkStudentsExport() throws Exception {
+        DriverManagerDataSource dataSource = dataSource();
+        ExportService service = new ExportService(dataSource, new DataSourceTransactionManager(dataSource), FETCH_SIZE,
+                1, Duration.ofMinutes(10));
+        for (ExportService.Format format : ExportService.Format.values()) {
+            StreamingResponseBody body = service.prepare(ExportService.Dataset.STUDENTS, format, null);
+            assertNotNull(body);
+            LineCounter out = new LineCounter();
+            long start = System.nanoTime();
+            body.writeTo(out);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            // CSV starts with a header line
+            long rows = format == ExportService.Format.CSV ? out.lines - 1 : out.lines;
+            System.out.printf("Students export %s: %d rows in %.2fs (%.0f rows/s)%n", format, rows, seconds,
+                    rows / seconds);
+        }
+    }
+
+    private static DriverManagerDataSource dataSource() {
+        return new DriverManagerDataSource(System.getProperty("benchmark.db.url"),
+                System.getProperty("benchmark.db.user"), System.getProperty("benchmark.db.password"));
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Discards the export and counts its lines.
+     */
+    private static final class LineCounter extends OutputStream {
+
+        long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.free.easyLearn.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de l'export en flux (CSV / NDJSON) à partir d'un curseur JDBC, délai maximal et exports simultanés
+ */
+class ExportServiceTest {
+
+    private static final String[] COLUMNS = {"id", "name", "level", "hours_learned", "passed", "created_at"};
+    private static final UUID ID = UUID.fromString("11111111-2222-3333-4444-555555555555");
+    private static final Timestamp CREATED_AT = Timestamp.valueOf(LocalDateTime.of(2025, 3, 1, 10, 30));
+
+    @Test
+    void testCsv_HeaderEscapingAndNulls() throws Exception {
+        List<Object[]> rows = List.of(
+                new Object[]{ID, "Dupont, \"Jean\"", "B1", new BigDecimal("12.50"), true, CREATED_AT},
+                new Object[]{ID, "Line\nbreak", null, null, false, null});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = ExportService.writeRows(resultSet(rows.size(), rows::get), ExportService.Format.CSV, out);
+
+        assertEquals(2, written);
+        assertEquals("id,name,level,hours_learned,passed,created_at\r\n" +
+                        ID + ",\"Dupont, \"\"Jean\"\"\",B1,12.50,true,2025-03-01T10:30\r\n" +
+                        ID + ",\"Line\nbreak\",,,false,\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testNdjson_OneTypedObjectPerLine() throws Exception {
+        List<Object[]> rows = List.of(
+                new Object[]{ID, "Élève", "A2", new BigDecimal("3.25"), true, CREATED_AT},
+                new Object[]{ID, "Other", null, null, false, null});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ExportService.writeRows(resultSet(rows.size(), rows::get), ExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":\"" + ID + "\",\"name\":\"Élève\",\"level\":\"A2\",\"hours_learned\":3.25," +
+                "\"passed\":true,\"created_at\":\"2025-03-01T10:30\"}", lines[0]);
+        assertEquals("{\"id\":\"" + ID + "\",\"name\":\"Other\",\"level\":null,\"hours_learned\":null," +
+                "\"passed\":false,\"created_at\":null}", lines[1]);
+    }
+
+    /**
+     * Délai dépassé : l'export est interrompu au lieu de garder la connexion indéfiniment
+     */
+    @Test
+    void testWriteRows_AbortedAfterTimeout() {
+        assertThrows(IllegalStateException.class, () -> ExportService.writeRows(
+                resultSet(5_000, ExportServiceTest::syntheticRow), ExportService.Format.CSV, OutputStream.nullOutputStream(),
+                Duration.ZERO));
+    }
+
+    /**
+     * Au-delà de exports.max-concurrent, l'export est refusé ; le créneau est libéré même si l'export échoue
+     */
+    @Test
+    void testPrepare_LimitsConcurrentExports() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        ExportService service = new ExportService(dataSource, new DataSourceTransactionManager(dataSource), 1000, 2,
+                Duration.ofMinutes(10));
+
+        StreamingResponseBody first = service.prepare(ExportService.Dataset.STUDENTS, ExportService.Format.CSV, null);
+        StreamingResponseBody second = service.prepare(ExportService.Dataset.ROOMS, ExportService.Format.CSV, null);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(service.prepare(ExportService.Dataset.EVALUATIONS, ExportService.Format.CSV, null));
+
+        assertThrows(RuntimeException.class, () -> first.writeTo(OutputStream.nullOutputStream()));
+        assertEquals(1, service.availableSlots());
+        assertNotNull(service.prepare(ExportService.Dataset.EVALUATIONS, ExportService.Format.CSV, null));
+    }
+
+    private static Object[] syntheticRow(int i) {
+        return new Object[]{ID, "Student " + i, "B2", BigDecimal.valueOf(i, 2), i % 2 == 0, CREATED_AT};
+    }
+
+    /**
+     * Forward-only result set producing {@code rowCount} rows on demand (nothing is retained).
+     */
+    private static ResultSet resultSet(int rowCount, IntFunction<Object[]> rowAt) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> COLUMNS.length;
+                    case "getColumnLabel" -> COLUMNS[(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        int[] index = {-1};
+        Object[][] current = {null};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> {
+                        if (++index[0] >= rowCount) {
+                            yield false;
+                        }
+                        current[0] = rowAt.apply(index[0]);
+                        yield true;
+                    }
+                    case "getObject" -> current[0][(Integer) args[0] - 1];
+                    case "getMetaData" -> metaData;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,113 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.SessionRecording;
+import com.free.easyLearn.livekit.FakeS3Server;
+import com.free.easyLearn.repository.SessionRecordingRepository;
+import io.livekit.server.EgressServiceClient;
+import io.livekit.server.RoomServiceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests des enregistrements segmentés (HLS) : playlist servie avec segments présignés ou servis par le backend.
+ * S3 simulé par FakeS3Server.
+ */
+class HlsRecordingTest {
+
+    private static final String BUCKET = "livekit-recordings";
+    private static final String PLAYLIST_KEY = "room-hls/1700000000/playlist.m3u8";
+
+    private FakeS3Server s3;
+    private SessionRecordingRepository repository;
+    private LiveKitRecordingService recordingService;
+    private SessionRecording recording;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = FakeS3Server.start();
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint(s3.getUrl())
+                .credentials("minioadmin", "minioadmin")
+                .region("us-east-1")
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PresignedUrlCache presignedUrlCache = new PresignedUrlCache(minioClient, meterRegistry);
+        ReflectionTestUtils.setField(presignedUrlCache, "s3Bucket", BUCKET);
+
+        repository = mock(SessionRecordingRepository.class);
+        recordingService = new LiveKitRecordingService(mock(EgressServiceClient.class), mock(RoomServiceClient.class),
+                repository, minioClient, mock(EgressSessionService.class), meterRegistry, presignedUrlCache,
+                mock(RecordingRetentionService.class));
+        ReflectionTestUtils.setField(recordingService, "s3Bucket", BUCKET);
+
+        String playlist = "#EXTM3U\n#EXT-X-VERSION:3\n#EXT-X-TARGETDURATION:6\n"
+                + "#EXTINF:6.000,\nsegment_00000.ts\n#EXTINF:6.000,\nsegment_00001.ts\n#EXT-X-ENDLIST\n";
+        s3.putObject(BUCKET, PLAYLIST_KEY, playlist.getBytes(StandardCharsets.UTF_8));
+        s3.putObject(BUCKET, "room-hls/1700000000/segment_00000.ts", new byte[]{1});
+        s3.putObject(BUCKET, "room-hls/1700000000/segment_00001.ts", new byte[]{2});
+
+        recording = SessionRecording.builder()
+                .id(1L)
+                .roomName("room-hls")
+                .format(SessionRecording.RecordingFormat.HLS)
+                .recordingUrl(s3.getUrl() + "/" + BUCKET + "/" + PLAYLIST_KEY)
+                .objectKey(PLAYLIST_KEY)
+                .createdAt(LocalDateTime.now().minusDays(10))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3.close();
+    }
+
+    @Test
+    void testRenderPlaylist_SegmentsArePresigned() throws Exception {
+        List<String> lines = recordingService.renderPlaylist(recording, false).lines().toList();
+
+        assertEquals("#EXTM3U", lines.get(0));
+        List<String> segments = lines.stream().filter(l -> !l.startsWith("#")).toList();
+        assertEquals(2, segments.size());
+        assertTrue(segments.get(0).startsWith(s3.getUrl() + "/" + BUCKET + "/room-hls/1700000000/segment_00000.ts?"));
+        assertTrue(segments.get(0).contains("X-Amz-Signature="));
+        assertTrue(lines.contains("#EXT-X-ENDLIST"));
+    }
+
+    /**
+     * Streaming activé : les segments pointent vers le backend, pour les clients qui ne joignent pas MinIO
+     */
+    @Test
+    void testRenderPlaylist_SegmentsThroughBackend() throws Exception {
+        List<String> segments = recordingService.renderPlaylist(recording, true).lines()
+                .filter(l -> !l.startsWith("#")).toList();
+
+        assertEquals(List.of("/api/livekit/recordings/room-hls/stream/1/segments/segment_00000.ts",
+                "/api/livekit/recordings/room-hls/stream/1/segments/segment_00001.ts"), segments);
+        assertEquals("room-hls/1700000000/segment_00001.ts", recordingService.segmentObjectKey(recording, "segment_00001.ts"));
+        assertNull(recordingService.segmentObjectKey(recording, ".."));
+        assertNull(recordingService.segmentObjectKey(recording, "../other/playlist.m3u8"));
+    }
+
+    @Test
+    void testListing_HlsRecordingPointsToPlaylistEndpoint() {
+        recording.setCreatedAt(LocalDateTime.now());
+        when(repository.findAvailableByRoomName(eq("room-hls"), any(LocalDateTime.class))).thenReturn(List.of(recording));
+
+        assertEquals("/api/livekit/recordings/room-hls/playlist/1",
+                recordingService.getRecordingDTOsByRoomName("room-hls").get(0).getRecordingUrl());
+    }
+}
@@ -0,0 +1,161 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.livekit.SessionRecordingDTO;
+import com.free.easyLearn.entity.SessionRecording;
+import com.free.easyLearn.repository.SessionRecordingRepository;
+import io.livekit.server.EgressServiceClient;
+import io.livekit.server.RoomServiceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests du cache d'URLs présignées des enregistrements
+ */
+class PresignedUrlCacheTest {
+
+    private static final String ENDPOINT = "http://127.0.0.1:9000";
+    private static final String BUCKET = "livekit-recordings";
+
+    private SimpleMeterRegistry meterRegistry;
+    private PresignedUrlCache presignedUrlCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Signing is local: with an explicit region no request reaches the endpoint
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint(ENDPOINT)
+                .credentials("minioadmin", "minioadmin")
+                .region("us-east-1")
+                .build();
+        presignedUrlCache = new PresignedUrlCache(minioClient, meterRegistry);
+        ReflectionTestUtils.setField(presignedUrlCache, "s3Bucket", BUCKET);
+    }
+
+    private double count(String source) {
+        return meterRegistry.counter("recordings.presigned.urls", "source", source).count();
+    }
+
+    @Test
+    void testGetUrl_SignsOnceThenServesFromCache() {
+        String first = presignedUrlCache.getUrl("room-a/1.mp4");
+        String second = presignedUrlCache.getUrl("room-a/1.mp4");
+
+        assertEquals(first, second);
+        assertTrue(first.startsWith(ENDPOINT + "/" + BUCKET + "/room-a/1.mp4?"));
+        assertTrue(first.contains("X-Amz-Expires=" + PresignedUrlCache.URL_VALIDITY_MINUTES * 60));
+        assertEquals(1, count("signed"));
+        assertEquals(1, count("cached"));
+    }
+
+    @Test
+    void testGetDownloadUrl_CachedSeparatelyFromInlineUrl() {
+        String inline = presignedUrlCache.getUrl("room-a/1.mp4");
+        String download = presignedUrlCache.getDownloadUrl("room-a/1.mp4");
+
+        assertNotEquals(inline, download);
+        assertTrue(download.contains("response-content-disposition=attachment"));
+        assertEquals(2, count("signed"));
+    }
+
+    /**
+     * Un deuxième listing des enregistrements ne signe plus rien et ne modifie pas les entités
+     */
+    @Test
+    void testRepeatedListing_SignsNothing() {
+        SessionRecordingRepository repository = mock(SessionRecordingRepository.class);
+        SessionRecording recording = SessionRecording.builder()
+                .id(1L)
+                .roomName("room-a")
+                .recordingUrl(ENDPOINT + "/" + BUCKET + "/room-a/1.mp4")
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .build();
+        when(repository.findAvailableByRoomName(eq("room-a"), any(LocalDateTime.class))).thenReturn(List.of(recording));
+
+        LiveKitRecordingService recordingService = new LiveKitRecordingService(mock(EgressServiceClient.class),
+                mock(RoomServiceClient.class), repository, mock(MinioClient.class), mock(EgressSessionService.class),
+                meterRegistry, presignedUrlCache, mock(RecordingRetentionService.class));
+        ReflectionTestUtils.setField(recordingService, "s3Bucket", BUCKET);
+
+        List<SessionRecordingDTO> first = recordingService.getRecordingDTOsByRoomName("room-a");
+        List<SessionRecordingDTO> second = recordingService.getRecordingDTOsByRoomName("room-a");
+
+        assertEquals(1, first.size());
+        assertEquals(first.get(0).getRecordingUrl(), second.get(0).getRecordingUrl());
+        assertEquals(ENDPOINT + "/" + BUCKET + "/room-a/1.mp4", recording.getRecordingUrl());
+        assertEquals(1, count("signed"));
+        assertEquals(1, count("cached"));
+    }
+
+    /**
+     * Des requêtes simultanées sur une même clé absente ne signent qu'une fois
+     */
+    @Test
+    void testConcurrentMisses_SignOnce() throws Exception {
+        MinioClient minioClient = mock(MinioClient.class);
+        CountDownLatch signing = new CountDownLatch(1);
+        when(minioClient.getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class))).thenAnswer(inv -> {
+            signing.countDown();
+            Thread.sleep(200);
+            return "https://signed";
+        });
+        PresignedUrlCache cache = new PresignedUrlCache(minioClient, meterRegistry);
+        ReflectionTestUtils.setField(cache, "s3Bucket", BUCKET);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<String> first = executor.submit(() -> cache.getUrl("room-a/1.mp4"));
+            assertTrue(signing.await(5, TimeUnit.SECONDS));
+            List<Future<String>> others = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                others.add(executor.submit(() -> cache.getUrl("room-a/1.mp4")));
+            }
+            assertEquals("https://signed", first.get(5, TimeUnit.SECONDS));
+            for (Future<String> other : others) {
+                assertEquals("https://signed", other.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(minioClient, times(1)).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+        assertEquals(1, count("signed"));
+        assertEquals(7, count("cached"));
+    }
+
+    /**
+     * Un échec de signature est remonté sans être mis en cache : la requête suivante signe à nouveau
+     */
+    @Test
+    void testSigningFailure_NotCached() throws Exception {
+        MinioClient minioClient = mock(MinioClient.class);
+        when(minioClient.getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class)))
+                .thenThrow(new IllegalArgumentException("unreachable"))
+                .thenReturn("https://signed");
+        PresignedUrlCache cache = new PresignedUrlCache(minioClient, meterRegistry);
+        ReflectionTestUtils.setField(cache, "s3Bucket", BUCKET);
+
+        assertThrows(IllegalStateException.class, () -> cache.getUrl("room-a/1.mp4"));
+        assertEquals("https://signed", cache.getUrl("room-a/1.mp4"));
+        assertEquals("https://signed", cache.getUrl("room-a/1.mp4"));
+        verify(minioClient, times(2)).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+        assertEquals(1, count("signed"));
+    }
+}
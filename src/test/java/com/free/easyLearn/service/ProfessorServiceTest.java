@@ -0,0 +1,113 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.professor.ProfessorDTO;
+import com.free.easyLearn.entity.Professor;
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.entity.User;
+import com.free.easyLearn.repository.ProfessorRepository;
+import com.free.easyLearn.repository.RoomRepository;
+import com.free.easyLearn.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de la liste des professeurs : totaux lus depuis les compteurs, une seule requête groupée en secours
+ */
+@ExtendWith(MockitoExtension.class)
+class ProfessorServiceTest {
+
+    @Mock
+    private ProfessorRepository professorRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private RoomRepository roomRepository;
+
+    @InjectMocks
+    private ProfessorService professorService;
+
+    @Test
+    void testGetProfessors_CountersWithGroupedFallback() {
+        List<Professor> professors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            professors.add(professor(i % 2 == 0 ? i : null));
+        }
+        when(professorRepository.findAllProfessors(any())).thenReturn(new PageImpl<>(professors));
+        Professor legacy = professors.get(1);
+        when(roomRepository.countByProfessorIdsAndStatus(anyCollection(), eq(Room.RoomStatus.COMPLETED)))
+                .thenReturn(List.<Object[]>of(new Object[]{legacy.getId(), 7L}));
+
+        Page<ProfessorDTO> page = professorService.getProfessors(0, 20, "createdAt", "asc");
+
+        assertEquals(4, page.getContent().get(4).getTotalSessions());
+        assertEquals(7, page.getContent().get(1).getTotalSessions());
+        assertEquals(0, page.getContent().get(3).getTotalSessions());
+        verify(roomRepository, times(1)).countByProfessorIdsAndStatus(anyCollection(), any());
+        verify(roomRepository, never()).findAllByProfessorId(any());
+    }
+
+    /**
+     * Tous les compteurs renseignés : aucune requête sur les rooms
+     */
+    @Test
+    void testGetProfessors_NoRoomQueryWhenCountersSet() {
+        when(professorRepository.findAllProfessors(any()))
+                .thenReturn(new PageImpl<>(List.of(professor(3), professor(0))));
+
+        Page<ProfessorDTO> page = professorService.getProfessors(0, 20, "createdAt", "asc");
+
+        assertEquals(3, page.getContent().get(0).getTotalSessions());
+        verifyNoInteractions(roomRepository);
+    }
+
+    /**
+     * Filtre par langue : une page d'ids (index GIN), un chargement groupé, l'ordre par nom conservé
+     */
+    @Test
+    void testGetProfessorsByLanguage_PageOfIdsThenOneLoad() {
+        Professor first = professor(2);
+        Professor second = professor(5);
+        first.setLanguages(List.of("English", "French"));
+        second.setLanguages(List.of("English"));
+        UUID adminId = UUID.randomUUID();
+        when(professorRepository.findIdsByLanguage(eq("English"), eq(false), eq(adminId), any()))
+                .thenReturn(new PageImpl<>(List.of(first.getId(), second.getId()), PageRequest.of(0, 2), 5));
+        when(professorRepository.findAllWithUserByIdIn(anyCollection())).thenReturn(List.of(second, first));
+
+        Page<ProfessorDTO> page = professorService.getProfessorsByLanguage("English", adminId, 0, 2);
+
+        assertEquals(5, page.getTotalElements());
+        assertEquals(first.getId(), page.getContent().get(0).getId());
+        assertEquals(List.of("English", "French"), page.getContent().get(0).getLanguages());
+        assertEquals(second.getId(), page.getContent().get(1).getId());
+        assertEquals(2, mockingDetails(professorRepository).getInvocations().size());
+        verifyNoInteractions(roomRepository);
+    }
+
+    private static Professor professor(Integer totalSessions) {
+        return Professor.builder()
+                .id(UUID.randomUUID())
+                .user(User.builder().id(UUID.randomUUID()).name("Prof").build())
+                .totalSessions(totalSessions)
+                .build();
+    }
+}
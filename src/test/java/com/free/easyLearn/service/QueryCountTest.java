@@ -0,0 +1,195 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.stats.AdminStatsDTO;
+import com.free.easyLearn.dto.stats.ProfessorStatsDTO;
+import com.free.easyLearn.dto.student.StudentDTO;
+import com.free.easyLearn.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.mapping.Table;
+import org.hibernate.stat.Statistics;
+import org.hibernate.tool.schema.internal.StandardTableExporter;
+import org.hibernate.tool.schema.spi.Exporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Nombre de requêtes SQL réellement exécutées (statistiques Hibernate, base H2 en mode PostgreSQL) par les
+ * statistiques professeur et admin et par /api/students/batch : constant quel que soit le volume, chargements
+ * paresseux compris
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querycount;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.type=org.springframework.jdbc.datasource.SimpleDriverDataSource",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=com.free.easyLearn.service.QueryCountTest$ArrayH2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StatsService.class, StudentService.class})
+class QueryCountTest {
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private StudentService studentService;
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    private User admin;
+    private Professor professor;
+    private final List<Student> students = new ArrayList<>();
+
+    /**
+     * 40 élèves, 50 rooms en direct et 8 planifiées du même professeur, chaque élève dans plusieurs rooms
+     */
+    @BeforeEach
+    void setUp() {
+        admin = em.persist(user("Admin", User.UserRole.ADMIN));
+        professor = em.persist(Professor.builder()
+                .user(em.persist(user("Professor", User.UserRole.PROFESSOR)))
+                .createdBy(admin)
+                .build());
+        for (int i = 0; i < 40; i++) {
+            students.add(em.persist(Student.builder()
+                    .user(em.persist(user("Student " + i, User.UserRole.STUDENT)))
+                    .nickname("s" + i)
+                    .level(Student.LanguageLevel.values()[i % 3])
+                    .uniqueCode("CODE-" + i)
+                    // Every fourth student was created since the last recomputation: totals not initialized
+                    .totalSessions(i % 4 == 0 ? null : i)
+                    .skills(StudentSkills.builder().pronunciation(50).grammar(60).vocabulary(70).fluency(80).build())
+                    .createdBy(admin)
+                    .build()));
+        }
+        for (int i = 0; i < 58; i++) {
+            Room room = em.persist(Room.builder()
+                    .name("Room " + i)
+                    .language("English")
+                    .level(Student.LanguageLevel.values()[0])
+                    .objective("Objective")
+                    .scheduledAt(LocalDateTime.now().plusHours(i))
+                    .duration(60)
+                    .status(i < 50 ? Room.RoomStatus.LIVE : Room.RoomStatus.SCHEDULED)
+                    .animatorType(Room.AnimatorType.values()[0])
+                    .professor(professor)
+                    .build());
+            for (int j = 0; j < 3; j++) {
+                em.persist(RoomParticipant.builder()
+                        .room(room)
+                        .student(students.get((i + j) % students.size()))
+                        .invited(true)
+                        .joinedAt(i < 50 ? LocalDateTime.now() : null)
+                        .build());
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            em.persist(Evaluation.builder()
+                    .student(students.get(i))
+                    .professor(professor)
+                    .language("English")
+                    .pronunciation(70).grammar(70).vocabulary(70).fluency(70)
+                    .overallScore(70)
+                    .build());
+        }
+        em.flush();
+        em.clear();
+        statistics().clear();
+    }
+
+    @Test
+    void testGetProfessorStats_SevenStatements() {
+        ProfessorStatsDTO stats = statsService.getProfessorStats(professor.getId());
+
+        assertEquals(40, stats.getTotalStudents());
+        assertEquals(10, stats.getMyStudents().size());
+        assertEquals(50, stats.getLiveRooms().size());
+        assertEquals(3, stats.getLiveRooms().get(0).getParticipantCount());
+        assertEquals(5, stats.getUpcomingSessionsList().size());
+        assertEquals(10, stats.getTotalEvaluations());
+        assertEquals(7, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetAdminStatsForAdmin_EightStatements() {
+        AdminStatsDTO stats = statsService.getAdminStatsForAdmin(admin.getId());
+
+        assertEquals(40, stats.getTotalStudents());
+        assertEquals(6, stats.getRecentStudents().size());
+        assertEquals(50, stats.getLiveRooms().size());
+        assertEquals("Professor", stats.getLiveRooms().get(0).getProfessorName());
+        assertEquals(5, stats.getUpcomingSessions().size());
+        assertEquals(10, stats.getTotalEvaluations());
+        // Students (with users), levels, professors, room counts, live rooms and upcoming rooms (with
+        // professors and users), participant counts, evaluations
+        assertEquals(8, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetStudentsByIds_TwoStatements() {
+        List<StudentDTO> dtos = studentService.getStudentsByIds(students.stream().map(Student::getId).toList());
+
+        assertEquals(40, dtos.size());
+        assertTrue(dtos.stream().allMatch(dto -> dto.getName() != null && dto.getSkills() != null));
+        // Students with their users, then the grouped totals of the uninitialized ones
+        assertEquals(2, statistics().getPrepareStatementCount());
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static User user(String name, User.UserRole role) {
+        return User.builder()
+                .email(name.toLowerCase().replace(' ', '.') + "@example.com")
+                .passwordHash("hash")
+                .name(name)
+                .role(role)
+                .build();
+    }
+
+    /**
+     * H2 dialect accepting the PostgreSQL {@code text[]} column definition (Professor.languages).
+     */
+    public static class ArrayH2Dialect extends H2Dialect {
+
+        @Override
+        public Exporter<Table> getTableExporter() {
+            return new StandardTableExporter(this) {
+                @Override
+                public String[] getSqlCreateStrings(Table table, Metadata metadata, SqlStringGenerationContext context) {
+                    return Arrays.stream(super.getSqlCreateStrings(table, metadata, context))
+                            .map(sql -> sql.replace("text[]", "varchar array"))
+                            .toArray(String[]::new);
+                }
+            };
+        }
+    }
+}
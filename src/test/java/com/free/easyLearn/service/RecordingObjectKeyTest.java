@@ -0,0 +1,130 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.SessionRecording;
+import com.free.easyLearn.repository.SessionRecordingRepository;
+import io.livekit.server.EgressServiceClient;
+import io.livekit.server.RoomServiceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de la clé d'objet MinIO des enregistrements : extraction depuis les différentes formes d'URL
+ * et rattrapage des lignes anciennes au démarrage
+ */
+class RecordingObjectKeyTest {
+
+    private static final String BUCKET = "livekit-recordings";
+
+    private SessionRecordingRepository repository;
+    private RecordingRetentionService retentionService;
+    private LiveKitRecordingService recordingService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SessionRecordingRepository.class);
+        retentionService = mock(RecordingRetentionService.class);
+        recordingService = new LiveKitRecordingService(mock(EgressServiceClient.class), mock(RoomServiceClient.class),
+                repository, mock(MinioClient.class), mock(EgressSessionService.class), new SimpleMeterRegistry(),
+                mock(PresignedUrlCache.class), retentionService);
+        ReflectionTestUtils.setField(recordingService, "s3Bucket", BUCKET);
+    }
+
+    @Test
+    void testExtractObjectKey_UrlStyles() {
+        // Path-style, with and without port
+        assertEquals("retention-3d/room-a/1700.mp4",
+                LiveKitRecordingService.extractObjectKey("http://minio:9000/livekit-recordings/retention-3d/room-a/1700.mp4", BUCKET));
+        assertEquals("room-a/1700.mp4",
+                LiveKitRecordingService.extractObjectKey("https://s3.example.com/livekit-recordings/room-a/1700.mp4", BUCKET));
+        // Virtual-hosted and s3:// forms
+        assertEquals("retention-7d/room-a/1700.mp4",
+                LiveKitRecordingService.extractObjectKey("https://livekit-recordings.s3.eu-west-3.amazonaws.com/retention-7d/room-a/1700.mp4", BUCKET));
+        assertEquals("room-a/1700.mp4",
+                LiveKitRecordingService.extractObjectKey("s3://livekit-recordings/room-a/1700.mp4", BUCKET));
+        // Query string (presigned URL) dropped, escaped characters decoded
+        assertEquals("room a/1700.mp4",
+                LiveKitRecordingService.extractObjectKey("http://minio:9000/livekit-recordings/room%20a/1700.mp4?X-Amz-Signature=abc", BUCKET));
+        // Another bucket's path is kept whole
+        assertEquals("other/room-a/1700.mp4",
+                LiveKitRecordingService.extractObjectKey("http://minio:9000/other/room-a/1700.mp4", BUCKET));
+
+        assertNull(LiveKitRecordingService.extractObjectKey(null, BUCKET));
+        assertNull(LiveKitRecordingService.extractObjectKey("http://minio:9000/", BUCKET));
+        assertNull(LiveKitRecordingService.extractObjectKey("not a url", BUCKET));
+    }
+
+    /**
+     * Les lignes sans clé (ou remplies par l'ancien rattrapage SQL) reçoivent la clé extraite par le code Java ;
+     * les lignes déjà correctes ne sont pas réécrites
+     */
+    @Test
+    void testBackfillObjectKeys_UsesJavaParsing() {
+        SessionRecording missing = recording(1L, "http://minio:9000/livekit-recordings/room-a/1.mp4", null);
+        SessionRecording withQuery = recording(2L, "http://minio:9000/livekit-recordings/room-b/2.mp4?X-Amz-Date=1",
+                "room-b/2.mp4?X-Amz-Date=1");
+        SessionRecording virtualHosted = recording(3L, "https://livekit-recordings.s3.amazonaws.com/room-c/3.mp4",
+                "room-c/3.mp4");
+        when(repository.findWithLegacyObjectKey(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(missing, withQuery, virtualHosted));
+
+        recordingService.backfillObjectKeys();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SessionRecording>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(saved.capture());
+        assertEquals(List.of(missing, withQuery), saved.getValue());
+        assertEquals("room-a/1.mp4", missing.getObjectKey());
+        assertEquals("room-b/2.mp4", withQuery.getObjectKey());
+        verify(repository, times(1)).findWithLegacyObjectKey(anyLong(), any(Pageable.class));
+    }
+
+    /**
+     * Les enregistrements sous les anciennes clés {roomName}/ reçoivent l'expiration de la règle de cycle de vie
+     * qui supprime leurs fichiers ; sans règle (rétention 0), ils restent sans expiration
+     */
+    @Test
+    void testBackfillObjectKeys_ExpiresLegacyRecordings() {
+        when(repository.findWithLegacyObjectKey(eq(0L), any(Pageable.class))).thenReturn(List.of());
+        when(retentionService.legacyRetentionDays()).thenReturn(3);
+
+        recordingService.backfillObjectKeys();
+
+        verify(repository).setExpiryByKeyPrefix("room-", 3);
+
+        when(retentionService.legacyRetentionDays()).thenReturn(0);
+        recordingService.backfillObjectKeys();
+        verify(repository, times(1)).setExpiryByKeyPrefix(anyString(), anyInt());
+    }
+
+    @Test
+    void testObjectKeyOf_StoredKeyWins() {
+        assertEquals("retention-3d/room-a/1.mp4", recordingService.objectKeyOf(
+                recording(1L, "http://minio:9000/livekit-recordings/room-a/{time}.mp4", "retention-3d/room-a/1.mp4")));
+        assertEquals("room-a/1.mp4", recordingService.objectKeyOf(
+                recording(2L, "http://minio:9000/livekit-recordings/room-a/1.mp4?x=1", null)));
+    }
+
+    private static SessionRecording recording(Long id, String url, String objectKey) {
+        return SessionRecording.builder()
+                .id(id)
+                .roomName("room")
+                .recordingUrl(url)
+                .objectKey(objectKey)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.livekit.FakeS3Server;
+import com.free.easyLearn.repository.RoomRepository;
+import io.minio.MinioClient;
+import io.minio.SetBucketLifecycleArgs;
+import io.minio.messages.Expiration;
+import io.minio.messages.LifecycleConfiguration;
+import io.minio.messages.LifecycleRule;
+import io.minio.messages.RuleFilter;
+import io.minio.messages.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de la rétention des enregistrements : règles de cycle de vie MinIO (FakeS3Server),
+ * préfixes des objets et date d'expiration
+ */
+class RecordingRetentionServiceTest {
+
+    private static final String BUCKET = "livekit-recordings";
+
+    private FakeS3Server s3;
+    private RoomRepository roomRepository;
+    private MinioClient minioClient;
+    private RecordingRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = FakeS3Server.start();
+        minioClient = MinioClient.builder()
+                .endpoint(s3.getUrl())
+                .credentials("minioadmin", "minioadmin")
+                .region("us-east-1")
+                .build();
+        roomRepository = mock(RoomRepository.class);
+        retentionService = new RecordingRetentionService(minioClient, roomRepository);
+        ReflectionTestUtils.setField(retentionService, "defaultRetentionDays", 3);
+        ReflectionTestUtils.setField(retentionService, "s3Bucket", BUCKET);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3.close();
+    }
+
+    private static Room roomWithRetention(Integer days) {
+        Room room = new Room();
+        room.setRecordingRetentionDays(days);
+        return room;
+    }
+
+    /**
+     * Une règle par durée de rétention (défaut + salles) plus la règle des anciens objets
+     */
+    @Test
+    void testReconcile_OneRulePerRetention() {
+        when(roomRepository.findDistinctRecordingRetentionDays()).thenReturn(List.of(7, 0, 3));
+
+        retentionService.reconcileLifecycleRules();
+
+        String config = s3.getLifecycleConfiguration(BUCKET);
+        assertNotNull(config);
+        assertTrue(config.contains("<Prefix>retention-3d/</Prefix>"), config);
+        assertTrue(config.contains("<Prefix>retention-7d/</Prefix>"), config);
+        assertTrue(config.contains("<Prefix>room-</Prefix>"), config);
+        assertFalse(config.contains("retention-0d/"), config);
+        assertTrue(config.contains("<Days>7</Days>"), config);
+    }
+
+    /**
+     * Les règles existantes (autre réplica, ancienne rétention, règle étrangère) sont conservées
+     */
+    @Test
+    void testReconcile_KeepsExistingRules() throws Exception {
+        minioClient.setBucketLifecycle(SetBucketLifecycleArgs.builder()
+                .bucket(BUCKET)
+                .config(new LifecycleConfiguration(List.of(
+                        rule("expire-retention-14d", "retention-14d/", 14),
+                        rule("expire-tmp", "tmp/", 1))))
+                .build());
+        when(roomRepository.findDistinctRecordingRetentionDays()).thenReturn(List.of(30));
+
+        retentionService.reconcileLifecycleRules();
+
+        String config = s3.getLifecycleConfiguration(BUCKET);
+        for (String prefix : List.of("retention-14d/", "tmp/", "retention-30d/", "retention-3d/", "room-")) {
+            assertTrue(config.contains("<Prefix>" + prefix + "</Prefix>"), config);
+        }
+    }
+
+    /**
+     * Pas d'appel MinIO au démarrage d'un enregistrement ; préfixe par défaut tant que la règle n'est pas confirmée
+     */
+    @Test
+    void testObjectPrefix_FallsBackUntilRuleConfirmed() {
+        when(roomRepository.findByLivekitRoomName("room-a")).thenReturn(Optional.of(roomWithRetention(30)));
+        when(roomRepository.findByLivekitRoomName("room-b")).thenReturn(Optional.of(roomWithRetention(null)));
+        when(roomRepository.findByLivekitRoomName("room-c")).thenReturn(Optional.of(roomWithRetention(0)));
+
+        assertEquals("retention-3d/", retentionService.objectPrefixFor("room-a"));
+        assertEquals("retention-3d/", retentionService.objectPrefixFor("room-b"));
+        assertEquals("retention-none/", retentionService.objectPrefixFor("room-c"));
+        assertNull(s3.getLifecycleConfiguration(BUCKET));
+
+        when(roomRepository.findDistinctRecordingRetentionDays()).thenReturn(List.of(30));
+        retentionService.reconcileLifecycleRules();
+
+        assertEquals("retention-30d/", retentionService.objectPrefixFor("room-a"));
+    }
+
+    @Test
+    void testObjectPrefix_MinioDownUsesDefault() {
+        s3.close();
+        when(roomRepository.findDistinctRecordingRetentionDays()).thenReturn(List.of(30));
+        when(roomRepository.findByLivekitRoomName("room-a")).thenReturn(Optional.of(roomWithRetention(30)));
+
+        retentionService.reconcileLifecycleRules();
+
+        assertEquals("retention-3d/", retentionService.objectPrefixFor("room-a"));
+    }
+
+    private static LifecycleRule rule(String id, String prefix, int days) {
+        return new LifecycleRule(Status.ENABLED, null, new Expiration((ZonedDateTime) null, days, null),
+                new RuleFilter(prefix), id, null, null, null);
+    }
+
+    @Test
+    void testExpiresAt_FromObjectKey() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        assertEquals(createdAt.plusDays(30), retentionService.expiresAt("retention-30d/room-a/1.mp4", createdAt));
+        assertNull(retentionService.expiresAt("retention-none/room-a/1.mp4", createdAt));
+        assertEquals(createdAt.plusDays(3), retentionService.expiresAt("room-a/1.mp4", createdAt));
+        assertEquals(createdAt.plusDays(3), retentionService.expiresAt(null, createdAt));
+    }
+}
@@ -0,0 +1,163 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.livekit.FakeS3Server;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du proxy de lecture des enregistrements (requêtes Range) contre un serveur S3 local (FakeS3Server)
+ */
+class RecordingStreamServiceTest {
+
+    private static final String BUCKET = "livekit-recordings";
+    private static final String KEY = "room-a/1.mp4";
+
+    private FakeS3Server s3;
+    private SimpleMeterRegistry meterRegistry;
+    private MinioClient minioClient;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = FakeS3Server.start();
+        meterRegistry = new SimpleMeterRegistry();
+        minioClient = MinioClient.builder()
+                .endpoint(s3.getUrl())
+                .credentials("minioadmin", "minioadmin")
+                .region("us-east-1")
+                .build();
+        content = new byte[300_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        s3.putObject(BUCKET, KEY, content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3.close();
+    }
+
+    private RecordingStreamService newService(int maxConcurrent) {
+        RecordingStreamService service = new RecordingStreamService(minioClient, meterRegistry, maxConcurrent);
+        ReflectionTestUtils.setField(service, "s3Bucket", BUCKET);
+        return service;
+    }
+
+    @Test
+    void testStream_FullObject() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        newService(4).stream(KEY, null, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertEquals(content.length, response.getContentLengthLong());
+        assertArrayEquals(content, response.getContentAsByteArray());
+        assertEquals(content.length, meterRegistry.counter("recordings.stream.bytes").count());
+    }
+
+    /**
+     * Une requête Range est transmise telle quelle à MinIO (offset/length), sans lire tout l'objet
+     */
+    @Test
+    void testStream_RangePassedThroughToMinio() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        newService(4).stream(KEY, "bytes=100000-100099", response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 100000-100099/300000", response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 100000, 100100), response.getContentAsByteArray());
+        assertEquals(List.of("100000-100099"), s3.getRangeRequests());
+        assertEquals(100, meterRegistry.counter("recordings.stream.bytes").count());
+    }
+
+    @Test
+    void testStream_SuffixRange() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        newService(4).stream(KEY, "bytes=-10", response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 299990-299999/300000", response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 299990, 300000), response.getContentAsByteArray());
+    }
+
+    @Test
+    void testStream_UnsatisfiableRange() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        newService(4).stream(KEY, "bytes=400000-", response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */300000", response.getHeader("Content-Range"));
+        assertTrue(s3.getRangeRequests().isEmpty());
+    }
+
+    /**
+     * En-tête Range invalide (nombre trop grand pour un long, autre unité) : ignoré, l'objet entier est servi en 200
+     */
+    @Test
+    void testStream_InvalidRangeIgnored() throws Exception {
+        for (String header : new String[]{"bytes=0-99999999999999999999", "items=0-10"}) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            newService(4).stream(KEY, header, response);
+
+            assertEquals(200, response.getStatus(), header);
+            assertNull(response.getHeader("Content-Range"));
+            assertArrayEquals(content, response.getContentAsByteArray());
+        }
+    }
+
+    @Test
+    void testStream_MissingObject() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        newService(4).stream("room-a/missing.mp4", null, response);
+
+        assertEquals(404, response.getStatus());
+    }
+
+    /**
+     * Au-delà de la limite de lectures simultanées, la requête est refusée (503 + Retry-After)
+     */
+    @Test
+    void testStream_ConcurrencyLimitReached() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        newService(0).stream(KEY, null, response);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("5", response.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.counter("recordings.stream.rejected").count());
+        assertTrue(s3.getRangeRequests().isEmpty());
+    }
+
+    @Test
+    void testParseRange() {
+        assertArrayEquals(new long[]{0, 99}, RecordingStreamService.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, RecordingStreamService.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[]{900, 999}, RecordingStreamService.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{0, 999}, RecordingStreamService.parseRange("bytes=0-5000", 1000));
+        assertArrayEquals(new long[]{0, 9}, RecordingStreamService.parseRange("bytes=0-9, 20-29", 1000));
+        assertSame(RecordingStreamService.UNSATISFIABLE, RecordingStreamService.parseRange("bytes=1000-", 1000));
+        assertSame(RecordingStreamService.UNSATISFIABLE, RecordingStreamService.parseRange("bytes=-0", 1000));
+        assertNull(RecordingStreamService.parseRange("bytes=50-10", 1000));
+        assertNull(RecordingStreamService.parseRange("items=0-1", 1000));
+        assertNull(RecordingStreamService.parseRange("bytes=-", 1000));
+        assertNull(RecordingStreamService.parseRange("bytes=0-99999999999999999999", 1000));
+        assertNull(RecordingStreamService.parseRange("bytes=-99999999999999999999", 1000));
+    }
+}
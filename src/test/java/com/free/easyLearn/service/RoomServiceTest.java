@@ -0,0 +1,88 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.room.UpdateRoomRequest;
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.exception.BadRequestException;
+import com.free.easyLearn.repository.RoomRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests des changements de statut des rooms : appliqués par une mise à jour conditionnelle, de sorte que deux
+ * fins de session concurrentes ne comptent la session qu'une fois dans les totaux
+ */
+@ExtendWith(MockitoExtension.class)
+class RoomServiceTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private SessionAggregatesService sessionAggregatesService;
+
+    @InjectMocks
+    private RoomService roomService;
+
+    @Test
+    void testEndRoom_AppliesTotalsOnce() {
+        Room room = liveRoom();
+        when(roomRepository.findById(room.getId())).thenReturn(Optional.of(room));
+        when(roomRepository.transition(eq(room.getId()), eq(Room.RoomStatus.LIVE), eq(Room.RoomStatus.COMPLETED), any()))
+                .thenReturn(1);
+
+        roomService.endRoom(room.getId());
+
+        assertEquals(Room.RoomStatus.COMPLETED, room.getStatus());
+        verify(sessionAggregatesService).roomChanged(room, Room.RoomStatus.LIVE, 60);
+    }
+
+    /**
+     * Fin concurrente : la room a été lue en direct mais une autre requête l'a déjà terminée, les totaux ne
+     * sont pas modifiés une seconde fois
+     */
+    @Test
+    void testEndRoom_ConcurrentlyEnded_NoTotalsApplied() {
+        Room room = liveRoom();
+        when(roomRepository.findById(room.getId())).thenReturn(Optional.of(room));
+        when(roomRepository.transition(eq(room.getId()), eq(Room.RoomStatus.LIVE), eq(Room.RoomStatus.COMPLETED), any()))
+                .thenReturn(0);
+
+        assertThrows(BadRequestException.class, () -> roomService.endRoom(room.getId()));
+
+        verify(sessionAggregatesService, never()).roomChanged(any(), any(), any());
+    }
+
+    @Test
+    void testUpdateRoomStatus_ConcurrentlyChanged_NoTotalsApplied() {
+        Room room = liveRoom();
+        when(roomRepository.findById(room.getId())).thenReturn(Optional.of(room));
+        when(roomRepository.transition(eq(room.getId()), eq(Room.RoomStatus.LIVE), eq(Room.RoomStatus.COMPLETED), any()))
+                .thenReturn(0);
+        UpdateRoomRequest request = new UpdateRoomRequest();
+        request.setStatus(Room.RoomStatus.COMPLETED);
+
+        assertThrows(BadRequestException.class, () -> roomService.updateRoom(room.getId(), request));
+
+        verify(roomRepository, never()).save(any());
+        verify(sessionAggregatesService, never()).roomChanged(any(), any(), any());
+    }
+
+    private static Room liveRoom() {
+        return Room.builder()
+                .id(UUID.randomUUID())
+                .name("Room")
+                .duration(60)
+                .status(Room.RoomStatus.LIVE)
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.search.SearchResultDTO;
+import com.free.easyLearn.entity.User;
+import com.free.easyLearn.exception.BadRequestException;
+import com.free.easyLearn.repository.ProfessorRepository;
+import com.free.easyLearn.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de la recherche d'élèves et de professeurs : normalisation du texte, périmètre admin, classement
+ */
+@ExtendWith(MockitoExtension.class)
+class SearchServiceTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+    @Mock
+    private ProfessorRepository professorRepository;
+
+    @InjectMocks
+    private SearchService searchService;
+
+    @Test
+    void testSearch_NormalizesTextAndScopesToAdmin() {
+        UUID adminId = UUID.randomUUID();
+        when(studentRepository.search(anyString(), anyString(), anyBoolean(), any(), anyInt())).thenReturn(List.of());
+
+        searchService.search("  Jean_D%  ", SearchService.Scope.STUDENTS, 20, adminId);
+
+        verify(studentRepository).search("jean_d%", "jean\\_d\\%%", false, adminId, 20);
+        verifyNoInteractions(professorRepository);
+    }
+
+    @Test
+    void testSearch_AllAdminsUsesFlagInsteadOfNullId() {
+        when(professorRepository.search(anyString(), anyString(), anyBoolean(), any(), anyInt())).thenReturn(List.of());
+
+        searchService.search("dupont", SearchService.Scope.PROFESSORS, 5, null);
+
+        verify(professorRepository).search(eq("dupont"), eq("dupont%"), eq(true), notNull(), eq(5));
+        verifyNoInteractions(studentRepository);
+    }
+
+    @Test
+    void testSearch_AllMergesPrefixMatchesFirstThenBySimilarity() {
+        UUID fuzzyStudent = UUID.randomUUID();
+        UUID prefixStudent = UUID.randomUUID();
+        UUID prefixProfessor = UUID.randomUUID();
+        when(studentRepository.search(anyString(), anyString(), anyBoolean(), any(), anyInt())).thenReturn(List.of(
+                new Object[]{prefixStudent, "Marie Curie", "marie@x.fr", null, "mc", "STU-1", "B1", 0.4f, true},
+                new Object[]{fuzzyStudent, "Mario Rossi", null, null, "mr", "STU-2", "A2", 0.9f, false}));
+        when(professorRepository.search(anyString(), anyString(), anyBoolean(), any(), anyInt())).thenReturn(List.<Object[]>of(
+                new Object[]{prefixProfessor, "Marie Dubois", "m.dubois@x.fr", "a.png", 0.6f, true}));
+
+        List<SearchResultDTO> results = searchService.search("marie", SearchService.Scope.ALL, 2, UUID.randomUUID());
+
+        assertEquals(2, results.size());
+        assertEquals(prefixProfessor, results.get(0).getId());
+        assertEquals(User.UserRole.PROFESSOR, results.get(0).getType());
+        assertEquals(prefixStudent, results.get(1).getId());
+        assertEquals("STU-1", results.get(1).getUniqueCode());
+        assertEquals(0.4, results.get(1).getScore(), 1e-6);
+    }
+
+    @Test
+    void testSearch_RejectsTooShortTextAndLimit() {
+        assertThrows(BadRequestException.class, () -> searchService.search(" a ", SearchService.Scope.ALL, 20, null));
+        assertThrows(BadRequestException.class, () -> searchService.search(" ab ", SearchService.Scope.ALL, 20, null));
+        assertThrows(BadRequestException.class, () -> searchService.search("abc", SearchService.Scope.ALL, 500, null));
+        verifyNoInteractions(studentRepository, professorRepository);
+    }
+}
@@ -0,0 +1,95 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.Professor;
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.repository.ProfessorRepository;
+import com.free.easyLearn.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests des totaux de sessions des élèves et professeurs : mis à jour en une requête à chaque changement de statut/durée
+ */
+class SessionAggregatesServiceTest {
+
+    private StudentRepository studentRepository;
+    private ProfessorRepository professorRepository;
+    private AdminStatsSnapshot adminStatsSnapshot;
+    private SessionAggregatesService service;
+
+    @BeforeEach
+    void setUp() {
+        studentRepository = mock(StudentRepository.class);
+        professorRepository = mock(ProfessorRepository.class);
+        adminStatsSnapshot = mock(AdminStatsSnapshot.class);
+        service = new SessionAggregatesService(studentRepository, professorRepository, adminStatsSnapshot);
+    }
+
+    @Test
+    void testRoomCompleted_AddsSessionAndHours() {
+        Room room = room(Room.RoomStatus.COMPLETED, 90);
+
+        service.roomChanged(room, Room.RoomStatus.LIVE, 90);
+
+        verify(studentRepository).addLearningTotals(room.getId(), 1, new BigDecimal("1.50"));
+        verify(professorRepository).addTotalSessions(room.getProfessor().getId(), 1);
+        verify(adminStatsSnapshot).markDirty(AdminStatsSnapshot.Section.STUDENTS);
+    }
+
+    /**
+     * Durée modifiée après la fin : seule la différence d'heures est appliquée
+     */
+    @Test
+    void testCompletedRoomDurationChanged_AppliesDifference() {
+        Room room = room(Room.RoomStatus.COMPLETED, 45);
+
+        service.roomChanged(room, Room.RoomStatus.COMPLETED, 60);
+
+        verify(studentRepository).addLearningTotals(room.getId(), 0, new BigDecimal("-0.25"));
+        verify(professorRepository, never()).addTotalSessions(any(), anyInt());
+    }
+
+    @Test
+    void testRoomReopenedOrDeleted_RemovesContribution() {
+        Room reopened = room(Room.RoomStatus.LIVE, 60);
+        service.roomChanged(reopened, Room.RoomStatus.COMPLETED, 60);
+        verify(studentRepository).addLearningTotals(reopened.getId(), -1, new BigDecimal("-1.00"));
+
+        Room deleted = room(Room.RoomStatus.COMPLETED, 30);
+        service.roomDeleted(deleted);
+        verify(studentRepository).addLearningTotals(deleted.getId(), -1, new BigDecimal("-0.50"));
+        verify(professorRepository).addTotalSessions(reopened.getProfessor().getId(), -1);
+        verify(professorRepository).addTotalSessions(deleted.getProfessor().getId(), -1);
+    }
+
+    /**
+     * Changements sans effet sur les totaux (room non terminée) : aucune requête
+     */
+    @Test
+    void testNonCompletedChanges_NoUpdate() {
+        service.roomChanged(room(Room.RoomStatus.LIVE, 60), Room.RoomStatus.SCHEDULED, 60);
+        service.roomChanged(room(Room.RoomStatus.SCHEDULED, 90), Room.RoomStatus.SCHEDULED, 60);
+        service.roomDeleted(room(Room.RoomStatus.CANCELLED, 60));
+
+        verify(studentRepository, never()).addLearningTotals(any(), anyInt(), any());
+        verify(professorRepository, never()).addTotalSessions(any(), anyInt());
+        verify(adminStatsSnapshot, never()).markDirty(eq(AdminStatsSnapshot.Section.STUDENTS));
+    }
+
+    private static Room room(Room.RoomStatus status, int duration) {
+        return Room.builder()
+                .id(UUID.randomUUID())
+                .status(status)
+                .duration(duration)
+                .professor(Professor.builder().id(UUID.randomUUID()).build())
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.stats.TimeSeriesDTO;
+import com.free.easyLearn.exception.BadRequestException;
+import com.free.easyLearn.repository.EvaluationRepository;
+import com.free.easyLearn.repository.RoomParticipantRepository;
+import com.free.easyLearn.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests des séries temporelles : buckets passés en cache jusqu'à une modification, bucket courant recalculé
+ */
+class StatsSeriesServiceTest {
+
+    private RoomRepository roomRepository;
+    private RoomParticipantRepository roomParticipantRepository;
+    private EvaluationRepository evaluationRepository;
+    private StatsSeriesService service;
+
+    private final LocalDateTime today = LocalDate.now().atStartOfDay();
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = mock(RoomRepository.class);
+        roomParticipantRepository = mock(RoomParticipantRepository.class);
+        evaluationRepository = mock(EvaluationRepository.class);
+        service = new StatsSeriesService(roomRepository, roomParticipantRepository, evaluationRepository, 60, 3600);
+    }
+
+    /**
+     * Les jours passés sont chargés en une requête puis servis depuis le cache
+     */
+    @Test
+    void testPastBuckets_LoadedOnceThenCached() {
+        LocalDateTime from = today.minusDays(10);
+        LocalDateTime to = today.minusDays(3);
+        when(roomRepository.completedSessionSeries(eq("day"), any(), any(), anyBoolean(), any())).thenReturn(List.of(
+                new Object[]{Timestamp.valueOf(from), 2L, 90L},
+                new Object[]{Timestamp.valueOf(from.plusDays(2)), 1L, 60L}));
+
+        TimeSeriesDTO first = service.getSeries(StatsSeriesService.Metric.HOURS_TAUGHT, StatsSeriesService.Bucket.DAY, from, to, null);
+        TimeSeriesDTO second = service.getSeries(StatsSeriesService.Metric.HOURS_TAUGHT, StatsSeriesService.Bucket.DAY, from, to, null);
+
+        assertEquals(7, first.getPoints().size());
+        assertEquals(1.5, first.getPoints().get(0).getValue());
+        assertEquals(2, first.getPoints().get(0).getCount());
+        assertEquals(0, first.getPoints().get(1).getValue());
+        assertEquals(1.0, first.getPoints().get(2).getValue());
+        assertEquals(first.getPoints(), second.getPoints());
+        verify(roomRepository, times(1)).completedSessionSeries("day", from, to, true, new UUID(0, 0));
+        verifyNoMoreInteractions(roomRepository);
+    }
+
+    /**
+     * Plage prolongée jusqu'à aujourd'hui : seuls les jours manquants et le jour courant sont requêtés
+     */
+    @Test
+    void testExtendedRange_OnlyMissingAndCurrentBucketsQueried() {
+        UUID adminId = UUID.randomUUID();
+        when(roomParticipantRepository.attendanceSeries(anyString(), any(), any(), anyBoolean(), any())).thenReturn(List.of());
+        service.getSeries(StatsSeriesService.Metric.ATTENDANCE, StatsSeriesService.Bucket.DAY,
+                today.minusDays(5), today.minusDays(2), adminId);
+
+        when(roomParticipantRepository.attendanceSeries("day", today, today.plusDays(1), false, adminId))
+                .thenReturn(List.<Object[]>of(new Object[]{Timestamp.valueOf(today), 4L}));
+        TimeSeriesDTO series = service.getSeries(StatsSeriesService.Metric.ATTENDANCE, StatsSeriesService.Bucket.DAY,
+                today.minusDays(5), today.plusHours(1), adminId);
+
+        assertEquals(6, series.getPoints().size());
+        assertEquals(4, series.getPoints().get(5).getValue());
+        verify(roomParticipantRepository).attendanceSeries("day", today.minusDays(5), today.minusDays(2), false, adminId);
+        verify(roomParticipantRepository).attendanceSeries("day", today.minusDays(2), today, false, adminId);
+        verify(roomParticipantRepository).attendanceSeries("day", today, today.plusDays(1), false, adminId);
+
+        // The current bucket is then served from its short-lived entry
+        service.getSeries(StatsSeriesService.Metric.ATTENDANCE, StatsSeriesService.Bucket.DAY,
+                today.minusDays(5), today.plusHours(1), adminId);
+        verify(roomParticipantRepository, times(3)).attendanceSeries(anyString(), any(), any(), anyBoolean(), any());
+    }
+
+    /**
+     * Une séance terminée en retard ou modifiée invalide les buckets passés des métriques de séances,
+     * sans toucher aux autres
+     */
+    @Test
+    void testInvalidate_ReloadsPastBucketsOfAffectedMetrics() {
+        LocalDateTime from = today.minusDays(10);
+        LocalDateTime to = today.minusDays(3);
+        when(roomRepository.completedSessionSeries(anyString(), any(), any(), anyBoolean(), any())).thenReturn(List.of());
+        when(evaluationRepository.scoreSeries(anyString(), any(), any(), anyBoolean(), any())).thenReturn(List.of());
+        service.getSeries(StatsSeriesService.Metric.SESSIONS, StatsSeriesService.Bucket.DAY, from, to, null);
+        service.getSeries(StatsSeriesService.Metric.EVALUATION_SCORE, StatsSeriesService.Bucket.DAY, from, to, null);
+
+        when(roomRepository.completedSessionSeries(anyString(), any(), any(), anyBoolean(), any())).thenReturn(List.<Object[]>of(
+                new Object[]{Timestamp.valueOf(from), 1L, 45L}));
+        service.invalidate(Set.of(StatsSeriesService.Metric.SESSIONS, StatsSeriesService.Metric.HOURS_TAUGHT));
+
+        TimeSeriesDTO sessions = service.getSeries(StatsSeriesService.Metric.SESSIONS, StatsSeriesService.Bucket.DAY, from, to, null);
+        service.getSeries(StatsSeriesService.Metric.EVALUATION_SCORE, StatsSeriesService.Bucket.DAY, from, to, null);
+
+        assertEquals(1, sessions.getPoints().get(0).getValue());
+        verify(roomRepository, times(2)).completedSessionSeries("day", from, to, true, new UUID(0, 0));
+        verify(evaluationRepository, times(1)).scoreSeries(anyString(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void testBucketTruncation_WeekStartsMondayMonthOnFirst() {
+        LocalDateTime thursday = LocalDateTime.of(2025, 1, 16, 15, 30);
+
+        assertEquals(LocalDateTime.of(2025, 1, 13, 0, 0), StatsSeriesService.Bucket.WEEK.truncate(thursday));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0), StatsSeriesService.Bucket.MONTH.truncate(thursday));
+        assertEquals(LocalDateTime.of(2025, 2, 1, 0, 0), StatsSeriesService.Bucket.MONTH.next(LocalDateTime.of(2025, 1, 1, 0, 0)));
+    }
+
+    @Test
+    void testInvalidRanges_Rejected() {
+        assertThrows(BadRequestException.class, () -> service.getSeries(StatsSeriesService.Metric.SESSIONS,
+                StatsSeriesService.Bucket.DAY, today, today.minusDays(1), null));
+        assertThrows(BadRequestException.class, () -> service.getSeries(StatsSeriesService.Metric.SESSIONS,
+                StatsSeriesService.Bucket.DAY, today.minusYears(2), today, null));
+        verifyNoInteractions(roomRepository);
+    }
+}
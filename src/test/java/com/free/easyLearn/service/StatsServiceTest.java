@@ -0,0 +1,159 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.stats.AdminStatsDTO;
+import com.free.easyLearn.dto.stats.ProfessorStatsDTO;
+import com.free.easyLearn.entity.Professor;
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.entity.Student;
+import com.free.easyLearn.entity.User;
+import com.free.easyLearn.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests des statistiques professeur et par admin : requêtes groupées et filtrées sur les données de l'admin. Le
+ * nombre de requêtes SQL réellement exécutées est vérifié par QueryCountTest
+ */
+class StatsServiceTest {
+
+    private StudentRepository studentRepository;
+    private ProfessorRepository professorRepository;
+    private RoomRepository roomRepository;
+    private RoomParticipantRepository roomParticipantRepository;
+    private EvaluationRepository evaluationRepository;
+    private StatsService statsService;
+
+    private final UUID professorId = UUID.randomUUID();
+    private final UUID adminId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        studentRepository = mock(StudentRepository.class);
+        professorRepository = mock(ProfessorRepository.class);
+        roomRepository = mock(RoomRepository.class);
+        roomParticipantRepository = mock(RoomParticipantRepository.class);
+        evaluationRepository = mock(EvaluationRepository.class);
+        statsService = new StatsService(studentRepository, professorRepository, roomRepository,
+                roomParticipantRepository, evaluationRepository);
+
+        Professor professor = Professor.builder().id(professorId).createdBy(User.builder().id(adminId).build()).build();
+        when(professorRepository.findById(professorId)).thenReturn(Optional.of(professor));
+        when(evaluationRepository.countAndAverageScoreByProfessorId(professorId))
+                .thenReturn(List.<Object[]>of(new Object[]{4L, 7.5}));
+    }
+
+    /**
+     * 50 rooms en direct et 40 élèves : participants comptés en une requête groupée, jamais par room ni par élève
+     */
+    @Test
+    void testGetProfessorStats_GroupedQueries() {
+        List<Room> liveRooms = rooms(Room.RoomStatus.LIVE, 50);
+        List<Room> upcomingRooms = rooms(Room.RoomStatus.SCHEDULED, 5);
+        when(roomRepository.countByProfessorGroupedByStatus(professorId)).thenReturn(List.of(
+                new Object[]{Room.RoomStatus.LIVE, 50L},
+                new Object[]{Room.RoomStatus.SCHEDULED, 12L},
+                new Object[]{Room.RoomStatus.COMPLETED, 30L}));
+        when(roomRepository.findByProfessorIdAndStatus(eq(professorId), eq(Room.RoomStatus.LIVE), any())).thenReturn(liveRooms);
+        when(roomRepository.findByProfessorIdAndStatus(eq(professorId), eq(Room.RoomStatus.SCHEDULED), any())).thenReturn(upcomingRooms);
+        when(roomParticipantRepository.countJoinedByRoomIds(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{liveRooms.get(0).getId(), 3L}));
+        List<Object[]> studentRows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            studentRows.add(new Object[]{UUID.randomUUID(), "Student " + i, null, "A1", "s" + i, 10L - i, 40L});
+        }
+        when(roomParticipantRepository.findStudentSummariesByProfessor(professorId, adminId, 10)).thenReturn(studentRows);
+
+        ProfessorStatsDTO stats = statsService.getProfessorStats(professorId);
+
+        assertEquals(40, stats.getTotalStudents());
+        assertEquals(10, stats.getMyStudents().size());
+        assertEquals("Student 0", stats.getMyStudents().get(0).getName());
+        assertEquals(12, stats.getUpcomingSessions());
+        assertEquals(30, stats.getCompletedSessions());
+        assertEquals(4, stats.getTotalEvaluations());
+        assertEquals(7.5, stats.getAverageEvaluationScore());
+        assertEquals(50, stats.getLiveRooms().size());
+        assertEquals(3, stats.getLiveRooms().get(0).getParticipantCount());
+        assertEquals(0, stats.getLiveRooms().get(1).getParticipantCount());
+        assertEquals(5, stats.getUpcomingSessionsList().size());
+
+        verify(roomParticipantRepository, times(1)).countJoinedByRoomIds(any());
+        verify(studentRepository, never()).findById(any());
+        verify(roomParticipantRepository, never()).findByRoomId(any());
+    }
+
+    /**
+     * Professeur sans créateur : aucun élève, et ni la requête élèves ni celle des participants ne sont lancées
+     */
+    @Test
+    void testGetProfessorStats_NoRoomsNoCreator() {
+        when(professorRepository.findById(professorId)).thenReturn(Optional.of(Professor.builder().id(professorId).build()));
+        when(roomRepository.countByProfessorGroupedByStatus(professorId)).thenReturn(List.of());
+        when(roomRepository.findByProfessorIdAndStatus(eq(professorId), any(), any())).thenReturn(List.of());
+
+        ProfessorStatsDTO stats = statsService.getProfessorStats(professorId);
+
+        assertEquals(0, stats.getTotalStudents());
+        assertTrue(stats.getMyStudents().isEmpty());
+        assertEquals(0, stats.getUpcomingSessions());
+        verify(roomParticipantRepository, never()).findStudentSummariesByProfessor(any(), any(), anyInt());
+    }
+
+    /**
+     * Statistiques d'un admin : uniquement des requêtes filtrées sur ses données, jamais les requêtes globales
+     */
+    @Test
+    void testGetAdminStatsForAdmin_OnlyScopedQueries() {
+        when(studentRepository.countByLevelForAdmin(adminId)).thenReturn(List.<Object[]>of(
+                new Object[]{Student.LanguageLevel.values()[0], 3L},
+                new Object[]{Student.LanguageLevel.values()[1], 2L}));
+        when(studentRepository.findRecentStudentsForAdmin(eq(adminId), any())).thenReturn(List.of());
+        when(professorRepository.countByCreatedById(adminId)).thenReturn(2L);
+        when(roomRepository.countGroupedByStatusForAdmin(adminId))
+                .thenReturn(List.<Object[]>of(new Object[]{Room.RoomStatus.COMPLETED, 9L}));
+        when(roomRepository.findWithProfessorForAdminByStatus(eq(adminId), any(), any())).thenReturn(List.of());
+        when(evaluationRepository.countAndAverageScoreForAdmin(adminId))
+                .thenReturn(List.<Object[]>of(new Object[]{6L, 8.0}));
+
+        AdminStatsDTO stats = statsService.getAdminStatsForAdmin(adminId);
+
+        assertEquals(5, stats.getTotalStudents());
+        assertEquals(2, stats.getTotalProfessors());
+        assertEquals(9, stats.getCompletedSessions());
+        assertEquals(6, stats.getTotalEvaluations());
+        assertEquals(8.0, stats.getAverageEvaluationScore());
+        verify(studentRepository, never()).countByLevel();
+        verify(professorRepository, never()).count();
+        verify(roomRepository, never()).countGroupedByStatus();
+        verify(evaluationRepository, never()).countAndAverageScore();
+    }
+
+    private static List<Room> rooms(Room.RoomStatus status, int count) {
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rooms.add(Room.builder()
+                    .id(UUID.randomUUID())
+                    .name("Room " + i)
+                    .language("English")
+                    .level(Student.LanguageLevel.values()[0])
+                    .scheduledAt(LocalDateTime.now().plusHours(i))
+                    .duration(60)
+                    .maxStudents(30)
+                    .status(status)
+                    .build());
+        }
+        return rooms;
+    }
+}
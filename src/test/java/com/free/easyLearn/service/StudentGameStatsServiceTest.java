@@ -0,0 +1,87 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.StudentGameStats;
+import com.free.easyLearn.repository.StudentGameStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests des statistiques de jeu : une seule requête par bonne réponse et par lecture, série en cours
+ * expirée après un jour sans bonne réponse
+ */
+@ExtendWith(MockitoExtension.class)
+class StudentGameStatsServiceTest {
+
+    @Mock
+    private StudentGameStatsRepository gameStatsRepository;
+
+    @InjectMocks
+    private StudentGameStatsService gameStatsService;
+
+    @Test
+    void testRecordCorrectAnswer_SingleUpsert() {
+        UUID studentId = UUID.randomUUID();
+        LocalDate day = LocalDate.of(2026, 3, 1);
+
+        gameStatsService.recordCorrectAnswer(studentId, 150, day);
+
+        verify(gameStatsRepository).addCorrectAnswer(studentId, 150, day, LocalDate.of(2026, 2, 28));
+        verifyNoMoreInteractions(gameStatsRepository);
+    }
+
+    @Test
+    void testGetStats_PrimaryKeyRead() {
+        UUID studentId = UUID.randomUUID();
+        StudentGameStats stats = stats(LocalDate.now(), 3);
+        when(gameStatsRepository.findById(studentId)).thenReturn(Optional.of(stats));
+
+        assertSame(stats, gameStatsService.getStats(studentId).orElseThrow());
+        assertEquals(1, mockingDetails(gameStatsRepository).getInvocations().size());
+    }
+
+    /**
+     * Le recalcul supprime aussi les lignes des étudiants qui n'ont plus aucune bonne réponse
+     */
+    @Test
+    void testRecomputeAll_DeletesStaleRows() {
+        when(gameStatsRepository.recomputeAll()).thenReturn(4);
+        when(gameStatsRepository.deleteWithoutCorrectAttempts()).thenReturn(1);
+
+        gameStatsService.recomputeAll();
+
+        verify(gameStatsRepository).recomputeAll();
+        verify(gameStatsRepository).deleteWithoutCorrectAttempts();
+        verifyNoMoreInteractions(gameStatsRepository);
+    }
+
+    @Test
+    void testCurrentStreak_EndsAfterAMissedDay() {
+        LocalDate today = LocalDate.of(2026, 3, 10);
+
+        assertEquals(4, StudentGameStatsService.currentStreak(stats(today, 4), today));
+        assertEquals(4, StudentGameStatsService.currentStreak(stats(today.minusDays(1), 4), today));
+        assertEquals(0, StudentGameStatsService.currentStreak(stats(today.minusDays(2), 4), today));
+        assertEquals(0, StudentGameStatsService.currentStreak(stats(null, 0), today));
+    }
+
+    private static StudentGameStats stats(LocalDate lastCorrectDate, int currentStreak) {
+        return StudentGameStats.builder()
+                .studentId(UUID.randomUUID())
+                .totalPoints(600L)
+                .correctCount(6L)
+                .currentStreak(currentStreak)
+                .longestStreak(Math.max(currentStreak, 5))
+                .lastCorrectDate(lastCorrectDate)
+                .build();
+    }
+}
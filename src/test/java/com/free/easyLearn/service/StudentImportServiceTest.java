@@ -0,0 +1,168 @@
+package com.free.easyLearn.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.free.easyLearn.dto.student.StudentImportResultDTO;
+import com.free.easyLearn.dto.student.StudentImportRow;
+import com.free.easyLearn.repository.StudentRepository;
+import com.free.easyLearn.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de l'import en masse des élèves : validation, unicité vérifiée en bloc, insertions par lots
+ * avec repli ligne par ligne, lecture CSV
+ */
+class StudentImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserRepository userRepository;
+    private StudentRepository studentRepository;
+    private PasswordEncoder passwordEncoder;
+    private AdminStatsSnapshot adminStatsSnapshot;
+    private StudentImportService service;
+
+    private final UUID adminId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        userRepository = mock(UserRepository.class);
+        studentRepository = mock(StudentRepository.class);
+        passwordEncoder = mock(PasswordEncoder.class);
+        adminStatsSnapshot = mock(AdminStatsSnapshot.class);
+        when(passwordEncoder.encode(anyString())).thenAnswer(inv -> "hash:" + inv.getArgument(0));
+        service = newService(passwordEncoder, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testImport_ValidatesInBulkAndInsertsInBatches() {
+        List<StudentImportRow> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(row("CODE-" + i, "s" + i + "@school.fr"));
+        }
+        rows.add(row("CODE-1", null));                    // 6: duplicate code in the file
+        rows.add(row("TAKEN", null));                     // 7: code already in the database
+        rows.add(row("CODE-7", "taken@school.fr"));       // 8: email already in the database
+        StudentImportRow badLevel = row("CODE-8", null);
+        badLevel.setLevel("Z9");                          // 9: invalid level
+        rows.add(badLevel);
+        StudentImportRow shortPassword = row("CODE-9", null);
+        shortPassword.setPassword("123");                 // 10: invalid password
+        rows.add(shortPassword);
+        when(studentRepository.findExistingUniqueCodes(anyCollection())).thenReturn(List.of("TAKEN"));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@school.fr"));
+
+        StudentImportResultDTO result = service.importStudents(rows, adminId);
+
+        assertEquals(10, result.getTotal());
+        assertEquals(5, result.getImported());
+        assertEquals(5, result.getFailed());
+        assertEquals(List.of(6, 7, 8, 9, 10), result.getErrors().stream().map(StudentImportResultDTO.RowErrorDTO::getRow).toList());
+        assertEquals("Unique code already in use", result.getErrors().get(1).getMessage());
+        // One lookup per kind, one hash per valid row, batches of 2 rows: 3 chunks x (users + students)
+        verify(studentRepository, times(1)).findExistingUniqueCodes(anyCollection());
+        verify(userRepository, times(1)).findExistingEmails(anyCollection());
+        verify(passwordEncoder, times(5)).encode(anyString());
+        verify(jdbcTemplate, times(6)).batchUpdate(anyString(), anyList());
+        verify(adminStatsSnapshot).markDirty(AdminStatsSnapshot.Section.STUDENTS);
+    }
+
+    @Test
+    void testImport_RejectedChunkIsRetriedRowByRow() {
+        List<StudentImportRow> rows = List.of(row("A-1", null), row("RACE", null), row("A-3", null));
+        when(studentRepository.findExistingUniqueCodes(anyCollection())).thenReturn(List.of());
+        // Unique code taken by a concurrent registration after the bulk check
+        doAnswer(inv -> {
+            List<Object[]> batch = inv.getArgument(1);
+            if (batch.stream().anyMatch(args -> Arrays.asList(args).contains("RACE"))) {
+                throw new DuplicateKeyException("duplicate key value violates unique constraint");
+            }
+            return new int[batch.size()];
+        }).when(jdbcTemplate).batchUpdate(argThat((String sql) -> sql.startsWith("INSERT INTO students")), anyList());
+
+        StudentImportResultDTO result = service.importStudents(rows, adminId);
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        assertEquals("RACE", result.getErrors().get(0).getUniqueCode());
+    }
+
+    @Test
+    void testParseCsv_QuotedFieldsAndHeaderAliases() throws Exception {
+        String csv = "\uFEFFname,unique_code,password,nickname,level,student_type,bio\r\n" +
+                "\"Dupont, Jean\",JD-1,secret1,jd,b1,formation,\"Aime le \"\"jazz\"\"\net le foot\"\r\n" +
+                "\r\n" +
+                "Marie,MC-2,secret2,mc,A2,,\n";
+
+        List<StudentImportRow> rows = StudentImportService.parseCsv(new StringReader(csv));
+
+        assertEquals(2, rows.size());
+        assertEquals("Dupont, Jean", rows.get(0).getName());
+        assertEquals("JD-1", rows.get(0).getUniqueCode());
+        assertEquals("formation", rows.get(0).getStudentType());
+        assertEquals("Aime le \"jazz\"\net le foot", rows.get(0).getBio());
+        assertEquals("MC-2", rows.get(1).getUniqueCode());
+        assertNull(rows.get(1).getEmail());
+    }
+
+    /**
+     * Benchmark (mvn test -Dtest=StudentImportServiceTest -Dstudent.import.benchmark=true) : 5000 élèves avec le
+     * vrai BCrypt, base simulée ; la durée est dominée par le hachage, réparti sur tous les cœurs
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "student.import.benchmark", matches = "true")
+    void benchmarkImport5000Students() {
+        service.shutdown();
+        service = newService(new BCryptPasswordEncoder(), 0);
+        when(studentRepository.findExistingUniqueCodes(anyCollection())).thenReturn(List.of());
+        List<StudentImportRow> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(row("BENCH-" + i, null));
+        }
+
+        StudentImportResultDTO result = service.importStudents(rows, adminId);
+
+        System.out.printf("Imported %d students in %d ms on %d CPUs%n",
+                result.getImported(), result.getDurationMs(), Runtime.getRuntime().availableProcessors());
+        assertEquals(5000, result.getImported());
+    }
+
+    private StudentImportService newService(PasswordEncoder encoder, int threads) {
+        return new StudentImportService(jdbcTemplate, mock(PlatformTransactionManager.class), userRepository,
+                studentRepository, encoder, adminStatsSnapshot, new ObjectMapper(), threads, 2);
+    }
+
+    private static StudentImportRow row(String uniqueCode, String email) {
+        return StudentImportRow.builder()
+                .name("Student " + uniqueCode)
+                .email(email)
+                .password("password")
+                .uniqueCode(uniqueCode)
+                .nickname("nick")
+                .level("B1")
+                .build();
+    }
+}
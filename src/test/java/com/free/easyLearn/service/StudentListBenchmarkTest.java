@@ -0,0 +1,103 @@
+package com.free.easyLearn.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark avant/après de la page d'élèves : compétences dans student_skills (une requête par élève)
+ * contre colonnes intégrées à students (V17, une seule requête).
+ *
+ * Nécessite une base Postgres contenant des élèves, avec V17 appliquée et l'ancienne table student_skills :
+ * mvn test -Dtest=StudentListBenchmarkTest -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/easylearn
+ * -Dbenchmark.db.user=... -Dbenchmark.db.password=...
+ */
+@EnabledIfSystemProperty(named = "benchmark.db.url", matches = ".+")
+class StudentListBenchmarkTest {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private static final String PAGE = "SELECT s.id, u.name, u.email, u.avatar, s.nickname, s.level " +
+            "FROM students s JOIN users u ON u.id = s.user_id ORDER BY u.name LIMIT ?";
+    // Before: what Hibernate ran for each student of the page to initialize the inverse one-to-one
+    private static final String SKILLS_OF_STUDENT = "SELECT pronunciation, grammar, vocabulary, fluency " +
+            "FROM student_skills WHERE student_id = ?";
+    // After: skills read with the page
+    private static final String PAGE_WITH_SKILLS = "SELECT s.id, u.name, u.email, u.avatar, s.nickname, s.level, " +
+            "s.skill_pronunciation, s.skill_grammar, s.skill_vocabulary, s.skill_fluency " +
+            "FROM students s JOIN users u ON u.id = s.user_id ORDER BY u.name LIMIT ?";
+
+    @Test
+    void benchmarkStudentPage() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getProperty("benchmark.db.url"),
+                System.getProperty("benchmark.db.user"), System.getProperty("benchmark.db.password"))) {
+            for (int i = 0; i < WARMUP; i++) {
+                loadWithSkillsTable(connection);
+                loadWithEmbeddedSkills(connection);
+            }
+
+            long queriesBefore = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                queriesBefore += loadWithSkillsTable(connection);
+            }
+            double msBefore = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+            long queriesAfter = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                queriesAfter += loadWithEmbeddedSkills(connection);
+            }
+            double msAfter = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+            System.out.printf("Page of %d students - skills table: %.2f ms, %d queries; embedded: %.2f ms, %d queries%n",
+                    PAGE_SIZE, msBefore, queriesBefore / ITERATIONS, msAfter, queriesAfter / ITERATIONS);
+            assertEquals(1, queriesAfter / ITERATIONS);
+        }
+    }
+
+    private static int loadWithSkillsTable(Connection connection) throws SQLException {
+        List<UUID> ids = new ArrayList<>();
+        try (PreparedStatement page = connection.prepareStatement(PAGE)) {
+            page.setInt(1, PAGE_SIZE);
+            try (ResultSet rs = page.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getObject(1, UUID.class));
+                }
+            }
+        }
+        try (PreparedStatement skills = connection.prepareStatement(SKILLS_OF_STUDENT)) {
+            for (UUID id : ids) {
+                skills.setObject(1, id);
+                try (ResultSet rs = skills.executeQuery()) {
+                    rs.next();
+                }
+            }
+        }
+        return 1 + ids.size();
+    }
+
+    private static int loadWithEmbeddedSkills(Connection connection) throws SQLException {
+        try (PreparedStatement page = connection.prepareStatement(PAGE_WITH_SKILLS)) {
+            page.setInt(1, PAGE_SIZE);
+            try (ResultSet rs = page.executeQuery()) {
+                while (rs.next()) {
+                    rs.getObject(7);
+                }
+            }
+        }
+        return 1;
+    }
+}
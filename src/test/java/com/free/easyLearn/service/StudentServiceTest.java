@@ -0,0 +1,102 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.student.StudentDTO;
+import com.free.easyLearn.entity.Room;
+import com.free.easyLearn.entity.Student;
+import com.free.easyLearn.entity.StudentSkills;
+import com.free.easyLearn.entity.User;
+import com.free.easyLearn.repository.RoomRepository;
+import com.free.easyLearn.repository.StudentRepository;
+import com.free.easyLearn.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests du chargement groupé des élèves (/api/students/batch) : totaux recalculés par une seule requête groupée. Le
+ * nombre de requêtes SQL réellement exécutées est vérifié par QueryCountTest
+ */
+@ExtendWith(MockitoExtension.class)
+class StudentServiceTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private RoomRepository roomRepository;
+
+    @InjectMocks
+    private StudentService studentService;
+
+    @Test
+    void testGetStudentsByIds_GroupedTotalsForUninitialized() {
+        List<UUID> ids = new ArrayList<>();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // Every tenth student was created since the last recomputation: totals not initialized yet
+            Student student = student(i % 10 == 0 ? null : i);
+            ids.add(student.getId());
+            students.add(student);
+        }
+        when(studentRepository.findAllWithUserByIdIn(anyCollection())).thenReturn(students);
+        Student legacy = students.get(10);
+        when(roomRepository.sumByStudentIdsAndStatus(anyCollection(), eq(Room.RoomStatus.COMPLETED)))
+                .thenReturn(List.<Object[]>of(new Object[]{legacy.getId(), 3L, 135L}));
+
+        List<StudentDTO> dtos = studentService.getStudentsByIds(ids);
+
+        assertEquals(200, dtos.size());
+        assertEquals(7, dtos.get(7).getTotalSessions());
+        assertEquals(new BigDecimal("7.0"), dtos.get(7).getHoursLearned());
+        assertEquals(3, dtos.get(10).getTotalSessions());
+        assertEquals(new BigDecimal("2.3"), dtos.get(10).getHoursLearned());
+        assertEquals(0, dtos.get(20).getTotalSessions());
+        assertEquals("Student 7", dtos.get(7).getName());
+        assertEquals(70, dtos.get(7).getSkills().getGrammar());
+
+        // The grouped query only covers the uninitialized students
+        verify(roomRepository).sumByStudentIdsAndStatus(argThat((Collection<UUID> c) -> c.size() == 20),
+                eq(Room.RoomStatus.COMPLETED));
+        verify(studentRepository, never()).findById(any());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testGetStudentsByIds_EmptyRunsNoQuery() {
+        assertTrue(studentService.getStudentsByIds(List.of()).isEmpty());
+        verifyNoInteractions(studentRepository, roomRepository);
+    }
+
+    private static Student student(Integer totalSessions) {
+        UUID id = UUID.randomUUID();
+        return Student.builder()
+                .id(id)
+                .user(User.builder().id(UUID.randomUUID()).name("Student " + totalSessions).role(User.UserRole.STUDENT).build())
+                .nickname("s" + totalSessions)
+                .level(Student.LanguageLevel.B1)
+                .uniqueCode("CODE-" + id)
+                .totalSessions(totalSessions)
+                .hoursLearned(totalSessions != null ? BigDecimal.valueOf(totalSessions) : null)
+                .skills(StudentSkills.builder().grammar(totalSessions != null ? totalSessions * 10 : 0).build())
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.repository.ProcessedWebhookEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de la déduplication des webhooks LiveKit sur l'id d'événement
+ */
+class WebhookEventDeduplicatorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProcessedWebhookEventRepository repository;
+    private WebhookEventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        repository = mock(ProcessedWebhookEventRepository.class);
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        deduplicator = new WebhookEventDeduplicator(repository, meterRegistry);
+    }
+
+    private static WebhookEvent event(String id) {
+        return WebhookEvent.newBuilder().setId(id).setEvent("room_started").build();
+    }
+
+    private double duplicates() {
+        return meterRegistry.counter("livekit.webhook.duplicates").count();
+    }
+
+    /**
+     * Une redélivrance est détectée par le cache local, sans requête en base
+     */
+    @Test
+    void testFirstDelivery_DuplicateFromLocalCache() {
+        assertTrue(deduplicator.firstDelivery(event("EV_1")));
+        assertFalse(deduplicator.firstDelivery(event("EV_1")));
+
+        verify(repository, times(1)).claim(eq("EV_1"), eq("room_started"), any(LocalDateTime.class), any(LocalDateTime.class));
+        assertEquals(1, duplicates());
+    }
+
+    /**
+     * Après un redémarrage (cache vide), la table processed_webhook_events détecte le doublon
+     * (événement traité, ou en cours de traitement depuis moins que le bail)
+     */
+    @Test
+    void testFirstDelivery_DuplicateFromTableAfterRestart() {
+        when(repository.claim(eq("EV_2"), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        assertFalse(deduplicator.firstDelivery(event("EV_2")));
+        assertEquals(1, duplicates());
+    }
+
+    @Test
+    void testForget_RedeliveryIsProcessed() {
+        assertTrue(deduplicator.firstDelivery(event("EV_3")));
+        deduplicator.forget(event("EV_3"));
+
+        assertTrue(deduplicator.firstDelivery(event("EV_3")));
+        verify(repository).deleteById("EV_3");
+        assertEquals(0, duplicates());
+    }
+
+    /**
+     * Base indisponible ou événement sans id : l'événement est traité
+     */
+    @Test
+    void testFirstDelivery_FailsOpen() {
+        when(repository.claim(eq("EV_4"), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertTrue(deduplicator.firstDelivery(event("EV_4")));
+        assertTrue(deduplicator.firstDelivery(event("")));
+        assertTrue(deduplicator.firstDelivery(event("")));
+    }
+
+    /**
+     * Un événement réclamé dont le bail a expiré (réplica tombé pendant le traitement) est à nouveau accepté
+     */
+    @Test
+    void testFirstDelivery_ClaimTakesOverExpiredLease() {
+        LocalDateTime before = LocalDateTime.now();
+        assertTrue(deduplicator.firstDelivery(event("EV_5")));
+
+        ArgumentCaptor<LocalDateTime> receivedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> leaseExpiredBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).claim(eq("EV_5"), eq("room_started"), receivedAt.capture(), leaseExpiredBefore.capture());
+        assertFalse(receivedAt.getValue().isBefore(before));
+        assertEquals(receivedAt.getValue().minus(WebhookEventDeduplicator.LEASE), leaseExpiredBefore.getValue());
+    }
+
+    @Test
+    void testMarkProcessed_LaterDeliveriesAreDuplicates() {
+        assertTrue(deduplicator.firstDelivery(event("EV_6")));
+        deduplicator.markProcessed(event("EV_6"));
+
+        assertFalse(deduplicator.firstDelivery(event("EV_6")));
+        verify(repository).markProcessed("EV_6");
+        verify(repository, times(1)).claim(eq("EV_6"), anyString(), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    /**
+     * Base indisponible : forget et markProcessed n'échouent pas (le bail finit par expirer)
+     */
+    @Test
+    void testForgetAndMarkProcessed_DatabaseDown() {
+        doThrow(new DataAccessResourceFailureException("down")).when(repository).deleteById("EV_7");
+        when(repository.markProcessed("EV_8")).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertDoesNotThrow(() -> deduplicator.forget(event("EV_7")));
+        assertDoesNotThrow(() -> deduplicator.markProcessed(event("EV_8")));
+        assertTrue(deduplicator.firstDelivery(event("EV_7")));
+    }
+}
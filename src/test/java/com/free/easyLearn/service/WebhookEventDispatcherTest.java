@@ -0,0 +1,165 @@
+package com.free.easyLearn.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import livekit.LivekitModels;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests du pipeline asynchrone des webhooks LiveKit : ordre par room, parallélisme entre rooms,
+ * file bornée et métriques
+ */
+class WebhookEventDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LiveKitWebhookHandler handler = mock(LiveKitWebhookHandler.class);
+    private final WebhookEventLog eventLog = mock(WebhookEventLog.class);
+    private final WebhookEventDeduplicator deduplicator = mock(WebhookEventDeduplicator.class);
+    private WebhookEventDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    private static WebhookEvent event(String type, String roomName, String id) {
+        return WebhookEvent.newBuilder()
+                .setId(id)
+                .setEvent(type)
+                .setRoom(LivekitModels.Room.newBuilder().setName(roomName))
+                .build();
+    }
+
+    /**
+     * Les événements d'une même room sont traités dans l'ordre d'arrivée
+     */
+    @Test
+    void testSubmit_OrderedPerRoom() throws Exception {
+        dispatcher = new WebhookEventDispatcher(handler, eventLog, deduplicator, meterRegistry, 4, 1000);
+        Map<String, List<String>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(200);
+        doAnswer(inv -> {
+            WebhookEvent e = inv.getArgument(0);
+            seen.computeIfAbsent(e.getRoom().getName(), k -> Collections.synchronizedList(new ArrayList<>())).add(e.getId());
+            done.countDown();
+            return null;
+        }).when(handler).handle(any());
+
+        for (int i = 0; i < 50; i++) {
+            for (String room : List.of("room-a", "room-b", "room-c", "room-d")) {
+                assertTrue(dispatcher.submit(event("participant_joined", room, room + "-" + i), UUID.randomUUID()));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // Drain the lanes so that the handler timers are recorded
+        dispatcher.shutdown();
+        for (String room : List.of("room-a", "room-b", "room-c", "room-d")) {
+            List<String> ids = seen.get(room);
+            for (int i = 0; i < 50; i++) {
+                assertEquals(room + "-" + i, ids.get(i));
+            }
+        }
+        assertEquals(200, meterRegistry.timer("livekit.webhook.handler.duration",
+                "event", "participant_joined", "outcome", "ok").count());
+    }
+
+    /**
+     * Une room bloquée (appel LiveKit/MinIO lent) ne retarde pas les autres lanes
+     */
+    @Test
+    void testSubmit_SlowRoomDoesNotBlockOtherLanes() throws Exception {
+        dispatcher = new WebhookEventDispatcher(handler, eventLog, deduplicator, meterRegistry, 2, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+        String slowRoom = "room-slow";
+        String otherRoom = roomOnOtherLane(slowRoom, 2);
+        doAnswer(inv -> {
+            WebhookEvent e = inv.getArgument(0);
+            if (slowRoom.equals(e.getRoom().getName())) {
+                release.await(10, TimeUnit.SECONDS);
+            } else {
+                otherDone.countDown();
+            }
+            return null;
+        }).when(handler).handle(any());
+
+        dispatcher.submit(event("room_started", slowRoom, "1"), UUID.randomUUID());
+        dispatcher.submit(event("room_started", otherRoom, "2"), UUID.randomUUID());
+
+        assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    /**
+     * File pleine : l'événement est refusé (le contrôleur répond 503) et compté
+     */
+    @Test
+    void testSubmit_RejectsWhenLaneQueueFull() throws Exception {
+        dispatcher = new WebhookEventDispatcher(handler, eventLog, deduplicator, meterRegistry, 1, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(handler).handle(any());
+
+        assertTrue(dispatcher.submit(event("room_started", "room-a", "1"), UUID.randomUUID()));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.submit(event("room_started", "room-a", "2"), UUID.randomUUID()));
+        assertTrue(dispatcher.submit(event("room_started", "room-a", "3"), UUID.randomUUID()));
+        UUID rejectedId = UUID.randomUUID();
+        assertFalse(dispatcher.submit(event("room_started", "room-a", "4"), rejectedId));
+
+        assertEquals(2, meterRegistry.get("livekit.webhook.queue.depth").gauge().value());
+        assertEquals(1, meterRegistry.counter("livekit.webhook.rejected").count());
+        verify(eventLog).recordRejected(rejectedId);
+        release.countDown();
+    }
+
+    /**
+     * L'événement n'est marqué traité (déduplication) qu'après le succès du handler
+     */
+    @Test
+    void testProcess_MarksProcessedOnlyOnSuccess() throws Exception {
+        dispatcher = new WebhookEventDispatcher(handler, eventLog, deduplicator, meterRegistry, 1, 10);
+        WebhookEvent ok = event("room_started", "room-a", "1");
+        WebhookEvent failing = event("room_finished", "room-a", "2");
+        doThrow(new IllegalStateException("boom")).when(handler).handle(failing);
+
+        dispatcher.submit(ok, UUID.randomUUID());
+        dispatcher.submit(failing, UUID.randomUUID());
+        dispatcher.shutdown();
+
+        verify(deduplicator).markProcessed(ok);
+        verify(deduplicator, never()).markProcessed(failing);
+    }
+
+    private static String roomOnOtherLane(String room, int lanes) {
+        for (int i = 0; ; i++) {
+            String candidate = "room-" + i;
+            if (Math.floorMod(candidate.hashCode(), lanes) != Math.floorMod(room.hashCode(), lanes)) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.entity.WebhookEventRecord;
+import com.free.easyLearn.repository.WebhookEventRecordRepository;
+import jakarta.persistence.EntityManager;
+import livekit.LivekitModels;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests du journal des webhooks : ligne écrite avant l'acquittement, résultats groupés, lot rejeté
+ * réécrit ligne par ligne, file bornée, purge des lignes anciennes
+ */
+class WebhookEventLogTest {
+
+    private WebhookEventRecordRepository repository;
+    private WebhookEventLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(WebhookEventRecordRepository.class);
+        eventLog = new WebhookEventLog(repository, mock(EntityManager.class), mock(TransactionTemplate.class), 100, 30);
+    }
+
+    private static WebhookEvent event(String id, String roomName) {
+        return WebhookEvent.newBuilder()
+                .setId(id)
+                .setEvent("room_started")
+                .setRoom(LivekitModels.Room.newBuilder().setName(roomName))
+                .build();
+    }
+
+    @Test
+    void testAppend_WritesRowSynchronouslyWithinColumnSizes() {
+        UUID id = eventLog.append(event("EV_" + "x".repeat(100), "r".repeat(300)), "{}");
+
+        ArgumentCaptor<WebhookEventRecord> saved = ArgumentCaptor.forClass(WebhookEventRecord.class);
+        verify(repository).save(saved.capture());
+        WebhookEventRecord row = saved.getValue();
+        assertEquals(id, row.getId());
+        assertEquals(WebhookEventRecord.Status.RECEIVED, row.getStatus());
+        assertEquals(WebhookEventLog.EVENT_ID_LENGTH, row.getEventId().length());
+        assertEquals(WebhookEventLog.ROOM_NAME_LENGTH, row.getRoomName().length());
+        assertTrue(row.isNew());
+    }
+
+    @Test
+    void testAppend_DatabaseErrorIsRaised() {
+        when(repository.save(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> eventLog.append(event("EV_1", "room-a"), "{}"));
+    }
+
+    @Test
+    void testFlush_GroupsOutcomesByStatus() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        eventLog.recordSuccess(first);
+        eventLog.recordSuccess(second);
+        eventLog.recordFailure(third, new IllegalStateException("LiveKit unavailable"));
+
+        eventLog.flush();
+
+        verify(repository).updateOutcome(argThat((Collection<UUID> ids) -> ids.containsAll(List.of(first, second))),
+                eq(WebhookEventRecord.Status.PROCESSED), any(LocalDateTime.class));
+        verify(repository).updateOutcome(eq(third), eq(WebhookEventRecord.Status.FAILED),
+                eq("IllegalStateException: LiveKit unavailable"), any(LocalDateTime.class));
+
+        // Nothing left to write
+        eventLog.flush();
+        verify(repository, times(1)).updateOutcome(anyList(), any(), any());
+    }
+
+    /**
+     * Lot rejeté : réécrit ligne par ligne, les lignes encore en échec sont abandonnées (pas remises en file)
+     */
+    @Test
+    void testFlush_FailedBatchRetriedRowByRowThenDropped() {
+        UUID good = UUID.randomUUID();
+        UUID bad = UUID.randomUUID();
+        eventLog.recordSuccess(good);
+        eventLog.recordSuccess(bad);
+        when(repository.updateOutcome(anyList(), any(), any())).thenThrow(new DataAccessResourceFailureException("batch"));
+        when(repository.updateOutcome(eq(bad), any(), any(), any())).thenThrow(new DataAccessResourceFailureException("row"));
+
+        eventLog.flush();
+        verify(repository).updateOutcome(eq(good), eq(WebhookEventRecord.Status.PROCESSED), isNull(), any(LocalDateTime.class));
+        verify(repository).updateOutcome(eq(bad), eq(WebhookEventRecord.Status.PROCESSED), isNull(), any(LocalDateTime.class));
+
+        eventLog.flush();
+        verify(repository, times(1)).updateOutcome(anyList(), any(), any());
+        verify(repository, times(2)).updateOutcome(any(UUID.class), any(), any(), any());
+    }
+
+    @Test
+    void testRecord_QueueFullWritesDirectly() {
+        for (int i = 0; i < 101; i++) {
+            eventLog.recordRejected(UUID.randomUUID());
+        }
+
+        verify(repository, times(1)).updateOutcome(any(UUID.class), eq(WebhookEventRecord.Status.REJECTED), isNull(), any());
+        eventLog.flush();
+        verify(repository).updateOutcome(argThat((Collection<UUID> ids) -> ids.size() == 100),
+                eq(WebhookEventRecord.Status.REJECTED), any(LocalDateTime.class));
+    }
+
+    /**
+     * La purge supprime par lots jusqu'à ce qu'un lot soit incomplet, avec la date limite de rétention
+     */
+    @Test
+    void testPurge_DeletesInBatchesUntilDone() {
+        when(repository.deleteReceivedBefore(any(LocalDateTime.class), eq(WebhookEventLog.PURGE_BATCH_SIZE)))
+                .thenReturn(WebhookEventLog.PURGE_BATCH_SIZE, WebhookEventLog.PURGE_BATCH_SIZE, 12);
+
+        eventLog.purge();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository, times(3)).deleteReceivedBefore(cutoff.capture(), eq(WebhookEventLog.PURGE_BATCH_SIZE));
+        LocalDateTime expected = LocalDateTime.now().minusDays(30);
+        assertTrue(cutoff.getValue().isAfter(expected.minusMinutes(1)) && cutoff.getValue().isBefore(expected.plusMinutes(1)));
+    }
+
+    @Test
+    void testPurge_DisabledWithZeroRetention() {
+        new WebhookEventLog(repository, mock(EntityManager.class), mock(TransactionTemplate.class), 100, 0).purge();
+
+        verify(repository, never()).deleteReceivedBefore(any(), anyInt());
+    }
+}
@@ -0,0 +1,129 @@
+package com.free.easyLearn.service;
+
+import com.free.easyLearn.dto.livekit.WebhookReplayRequest;
+import com.free.easyLearn.dto.livekit.WebhookReplayResultDTO;
+import com.free.easyLearn.entity.WebhookEventRecord;
+import com.free.easyLearn.repository.WebhookEventRecordRepository;
+import com.google.protobuf.util.JsonFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import livekit.LivekitModels;
+import livekit.LivekitWebhook.WebhookEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests du rejeu des webhooks journalisés : passage par les files par room, ordre par room, concurrence
+ * bornée, résultats enregistrés
+ */
+class WebhookReplayServiceTest {
+
+    private WebhookEventRecordRepository repository;
+    private LiveKitWebhookHandler handler;
+    private WebhookEventLog eventLog;
+    private WebhookEventDispatcher dispatcher;
+    private WebhookReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(WebhookEventRecordRepository.class);
+        handler = mock(LiveKitWebhookHandler.class);
+        eventLog = mock(WebhookEventLog.class);
+        dispatcher = new WebhookEventDispatcher(handler, eventLog, mock(WebhookEventDeduplicator.class), new SimpleMeterRegistry(), 8, 1000);
+        replayService = new WebhookReplayService(repository, dispatcher, eventLog);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    private static WebhookEventRecord record(String eventId, String type, String roomName) throws Exception {
+        WebhookEvent event = WebhookEvent.newBuilder()
+                .setId(eventId)
+                .setEvent(type)
+                .setRoom(LivekitModels.Room.newBuilder().setName(roomName))
+                .build();
+        return WebhookEventRecord.builder()
+                .id(UUID.randomUUID())
+                .eventId(eventId)
+                .eventType(type)
+                .roomName(roomName)
+                .payload(JsonFormat.printer().print(event))
+                .receivedAt(LocalDateTime.now())
+                .status(WebhookEventRecord.Status.FAILED)
+                .build();
+    }
+
+    @Test
+    void testReplay_SelectedIds_InOrderWithOutcomes() throws Exception {
+        WebhookEventRecord started = record("EV_1", "room_started", "room-a");
+        WebhookEventRecord left = record("EV_2", "participant_left", "room-a");
+        WebhookEventRecord finished = record("EV_3", "room_finished", "room-a");
+        when(repository.findByIdInOrderByReceivedAtAsc(anyList())).thenReturn(List.of(started, left, finished));
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(inv -> {
+            WebhookEvent e = inv.getArgument(0);
+            handled.add(e.getId());
+            if (e.getEvent().equals("participant_left")) {
+                throw new IllegalStateException("Could not list participants");
+            }
+            return null;
+        }).when(handler).handle(any());
+
+        WebhookReplayRequest request = new WebhookReplayRequest();
+        request.setIds(List.of(started.getId(), left.getId(), finished.getId()));
+        WebhookReplayResultDTO result = replayService.replay(request);
+
+        assertEquals(List.of("EV_1", "EV_2", "EV_3"), handled);
+        assertEquals(3, result.getReplayed());
+        assertEquals(2, result.getSucceeded());
+        assertEquals(List.of(left.getId()), result.getFailedIds());
+        verify(eventLog).recordSuccess(started.getId());
+        verify(eventLog).recordFailure(eq(left.getId()), any(IllegalStateException.class));
+        verify(eventLog).flush();
+        verify(eventLog, never()).recordRejected(any());
+    }
+
+    /**
+     * Sélection par statut : au plus 'concurrency' rooms rejouées en parallèle
+     */
+    @Test
+    void testReplay_ByStatus_ConcurrencyIsBounded() throws Exception {
+        List<WebhookEventRecord> records = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            records.add(record("EV_" + i, "room_started", "room-" + i));
+        }
+        when(repository.findByStatusAndReceivedAtBetweenOrderByReceivedAtAsc(eq(WebhookEventRecord.Status.FAILED),
+                any(LocalDateTime.class), any(LocalDateTime.class), any())).thenReturn(records);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(inv -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return null;
+        }).when(handler).handle(any());
+
+        WebhookReplayRequest request = new WebhookReplayRequest();
+        request.setConcurrency(3);
+        WebhookReplayResultDTO result = replayService.replay(request);
+
+        assertEquals(12, result.getSucceeded());
+        assertTrue(maxRunning.get() <= 3, "max parallel rooms: " + maxRunning.get());
+        assertTrue(maxRunning.get() > 1, "rooms should be replayed in parallel");
+    }
+}